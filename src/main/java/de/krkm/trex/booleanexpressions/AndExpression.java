@@ -6,16 +6,58 @@ import java.util.Collections;
 import java.util.HashSet;
 import java.util.Set;
 
+/**
+ * Immutable conjunction of literals. Instances are hash-consed and have to be created using one of the
+ * <code>create</code> methods, thus, structurally equal conjunctions are always represented by the same instance.
+ */
 public class AndExpression extends BooleanExpression {
-    Set<Literal> expressions;
+    private final Set<Literal> expressions;
+    private final int hash;
 
-    public AndExpression(Literal... expressions) {
-        this.expressions = new HashSet<Literal>();
-        Collections.addAll(this.expressions, expressions);
+    private AndExpression(Set<Literal> expressions) {
+        this.expressions = Collections.unmodifiableSet(expressions);
+        this.hash = expressions.hashCode();
     }
 
-    public AndExpression(Set<Literal> expressions) {
-        this.expressions = new HashSet<Literal>(expressions);
+    /**
+     * Returns the canonical conjunction of the given literals.
+     *
+     * @param expressions literals to combine by AND
+     * @return canonical conjunction of literals
+     */
+    public static AndExpression create(Literal... expressions) {
+        HashSet<Literal> set = new HashSet<Literal>();
+        Collections.addAll(set, expressions);
+        return InternTable.intern(new AndExpression(set));
+    }
+
+    /**
+     * Returns the canonical conjunction of the given literals.
+     *
+     * @param expressions literals to combine by AND
+     * @return canonical conjunction of literals
+     */
+    public static AndExpression create(Set<Literal> expressions) {
+        return InternTable.intern(new AndExpression(new HashSet<Literal>(expressions)));
+    }
+
+    /**
+     * Returns the canonical conjunction of all literals contained in both given conjunctions.
+     *
+     * @param e1 first conjunction
+     * @param e2 second conjunction
+     * @return canonical conjunction of all literals of e1 and e2
+     */
+    public static AndExpression create(AndExpression e1, AndExpression e2) {
+        if (e1 == e2 || e2.isAbsorbedBy(e1)) {
+            return e2;
+        }
+        if (e1.isAbsorbedBy(e2)) {
+            return e1;
+        }
+        HashSet<Literal> set = new HashSet<Literal>(e1.expressions);
+        set.addAll(e2.expressions);
+        return InternTable.intern(new AndExpression(set));
     }
 
     @Override
@@ -48,9 +90,14 @@ public class AndExpression extends BooleanExpression {
     }
 
     public boolean isAbsorbedBy(AndExpression o) {
-        return expressions.containsAll(o.expressions);
+        return this == o || expressions.size() >= o.expressions.size() && expressions.containsAll(o.expressions);
     }
 
+    /**
+     * Returns the unmodifiable set of literals contained in this conjunction.
+     *
+     * @return literals contained in this conjunction
+     */
     public Set<Literal> getExpressions() {
         return expressions;
     }
@@ -66,7 +113,7 @@ public class AndExpression extends BooleanExpression {
 
         AndExpression that = (AndExpression) o;
 
-        if (!expressions.equals(that.expressions)) {
+        if (hash != that.hash || !expressions.equals(that.expressions)) {
             return false;
         }
 
@@ -75,10 +122,17 @@ public class AndExpression extends BooleanExpression {
 
     @Override
     public int hashCode() {
-        return expressions.hashCode();
+        return hash;
     }
 
+    /**
+     * Returns this expression since expressions are immutable.
+     *
+     * @return this expression
+     * @deprecated expressions are immutable and can be shared without copying
+     */
+    @Deprecated
     public AndExpression copy() {
-        return new AndExpression(new HashSet<Literal>(expressions));
+        return this;
     }
 }
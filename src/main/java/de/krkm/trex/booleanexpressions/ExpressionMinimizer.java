@@ -2,13 +2,24 @@ package de.krkm.trex.booleanexpressions;
 
 import org.semanticweb.owlapi.model.OWLAxiom;
 
-import java.util.Iterator;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashSet;
 import java.util.Set;
 
 /**
- * Provides methods to flatten and minimize boolean expressions.
+ * Provides methods to flatten and minimize boolean expressions. Since expressions are immutable, all methods return
+ * new (canonical) expressions instead of modifying their arguments.
  */
 public class ExpressionMinimizer {
+    private final static Comparator<AndExpression> SIZE_COMPARATOR = new Comparator<AndExpression>() {
+        @Override
+        public int compare(AndExpression o1, AndExpression o2) {
+            return o1.getExpressions().size() - o2.getExpressions().size();
+        }
+    };
+
     /**
      * Determines and returns the DNF for the given expression
      * @param e1 expression to flatten
@@ -17,72 +28,69 @@ public class ExpressionMinimizer {
      */
 
     public static OrExpression flatten(OrExpression e1, OrExpression e2) {
-        OrExpression res = new OrExpression();
+        HashSet<AndExpression> res = new HashSet<AndExpression>();
         for (AndExpression and1 : e1.getExpressions()) {
             for (AndExpression and2 : e2.getExpressions()) {
-                AndExpression newExp = new AndExpression(and1.getExpressions());
-                newExp.getExpressions().addAll(and2.getExpressions());
-                res.getExpressions().add(newExp);
+                res.add(AndExpression.create(and1, and2));
             }
         }
 
-        minimize(res);
-
-        return res;
+        return minimize(res);
     }
 
     /**
-     * Minimizes the given OrExpression
+     * Minimizes the given OrExpression by removing all conjunctions absorbed by another one.
      *
      * @param expr expression to minimize
+     * @return minimized expression, identical to <code>expr</code> if it was minimal already
      */
-    public static void minimize(OrExpression expr) {
-        Set<AndExpression> expressionSet = expr.getExpressions();
-        AndExpression[] expressionArray = expressionSet.toArray(new AndExpression[expressionSet.size()]);
-
-        Iterator<AndExpression> it = expressionSet.iterator();
-        while (it.hasNext()) {
-            AndExpression next =  it.next();
-            for (int i = 0; i < expressionArray.length; i++) {
-                if (expressionArray[i] == next) {
-                    continue;
-                }
-                if (next.isAbsorbedBy(expressionArray[i])) {
-                    it.remove();
-                    expressionArray = expressionSet.toArray(new AndExpression[expressionSet.size()]);
-                    break;
-                }
-            }
-        }
-
+    public static OrExpression minimize(OrExpression expr) {
+        return minimize(expr.getExpressions());
     }
 
+    /**
+     * Returns the minimized disjunction of both given expressions. If <code>add</code> does not contribute anything
+     * not already absorbed by <code>already</code> and <code>already</code> is minimal, <code>already</code> itself is
+     * returned which allows to detect changes by a reference comparison.
+     *
+     * @param already expression to extend
+     * @param add     expression to add to <code>already</code>
+     * @return minimized disjunction of both expressions
+     */
     public static OrExpression minimize(OrExpression already, OrExpression add) {
-        OrExpression alreadyCopy = already.copy();
-        OrExpression addCopy = add.copy();
-
-        OrExpression toAdd = new OrExpression();
+        if (already == add) {
+            return already;
+        }
+        HashSet<AndExpression> union = new HashSet<AndExpression>(already.getExpressions());
+        union.addAll(add.getExpressions());
+        if (union.size() == already.getExpressions().size()) {
+            return already;
+        }
+        return minimize(union);
+    }
 
-        addLoop:
-        for (AndExpression andAdd : addCopy.getExpressions()) {
-            Iterator<AndExpression> andAlreadyIt = alreadyCopy.getExpressions().iterator();
-            while (andAlreadyIt.hasNext()) {
-                AndExpression andAlready = andAlreadyIt.next();
-                if (andAdd.isAbsorbedBy(andAlready)) {
-                    // no need to add new expression since already absorbed by an existing one
-                    continue addLoop;
-                }
-                if (andAlready.isAbsorbedBy(andAdd)) {
-                    andAlreadyIt.remove();
-                    toAdd.addExpression(andAdd);
-                }
-                else {
-                    toAdd.addExpression(andAdd);
+    /**
+     * Returns the canonical disjunction of all conjunctions in the given set which are not absorbed by any other one.
+     *
+     * @param expressions conjunctions to minimize
+     * @return minimized disjunction
+     */
+    private static OrExpression minimize(Set<AndExpression> expressions) {
+        AndExpression[] sorted = expressions.toArray(new AndExpression[expressions.size()]);
+        Arrays.sort(sorted, SIZE_COMPARATOR);
+
+        ArrayList<AndExpression> kept = new ArrayList<AndExpression>(sorted.length);
+        candidates:
+        for (AndExpression candidate : sorted) {
+            for (AndExpression k : kept) {
+                if (candidate.isAbsorbedBy(k)) {
+                    continue candidates;
                 }
             }
+            kept.add(candidate);
         }
-        alreadyCopy.getExpressions().addAll(toAdd.getExpressions());
-        return alreadyCopy;
+
+        return OrExpression.create(new HashSet<AndExpression>(kept));
     }
 
     /**
@@ -92,15 +100,15 @@ public class ExpressionMinimizer {
      * @return given expressions combined by OR
      */
     public static OrExpression or(AndExpression... expressions) {
-        return new OrExpression(expressions);
+        return OrExpression.create(expressions);
     }
 
     public static AndExpression and(Literal... literals) {
-        return new AndExpression(literals);
+        return AndExpression.create(literals);
     }
 
     public static Literal literal(OWLAxiom ax) {
-        return new Literal(ax);
+        return Literal.create(ax);
     }
 
     public static void main(String[] args) {
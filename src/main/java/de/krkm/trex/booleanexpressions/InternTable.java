@@ -0,0 +1,60 @@
+package de.krkm.trex.booleanexpressions;
+
+import java.lang.ref.WeakReference;
+import java.util.WeakHashMap;
+
+/**
+ * Global intern table for boolean expressions. Structurally equal expressions are mapped to a single canonical
+ * instance so that identical sub-explanations are shared and can be compared by reference. Entries are only weakly
+ * referenced and thus reclaimed as soon as no explanation uses them anymore.
+ * <p>
+ * The table is split into stripes selected by the hash code of the expressions, each guarded by a lock of its own, so
+ * that threads unfolding explanations of different snapshots at the same time rarely wait for each other.
+ */
+final class InternTable {
+    private final static int STRIPE_BITS = 6;
+
+    private final static Stripe[] stripes = new Stripe[1 << STRIPE_BITS];
+
+    static {
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private InternTable() {
+    }
+
+    /**
+     * Returns the canonical instance for the given expression. If no structurally equal expression is known yet,
+     * the given expression becomes the canonical one.
+     *
+     * @param expression expression to intern
+     * @param <T>        type of expression
+     * @return canonical instance structurally equal to the given expression
+     */
+    @SuppressWarnings("unchecked")
+    static <T extends BooleanExpression> T intern(T expression) {
+        // the upper bits of the mixed hash select the stripe, the map of the stripe mostly uses the lower ones
+        Stripe stripe = stripes[(expression.hashCode() * 0x9e3779b9) >>> (32 - STRIPE_BITS)];
+        synchronized (stripe) {
+            WeakReference<BooleanExpression> ref = stripe.table.get(expression);
+            if (ref != null) {
+                BooleanExpression canonical = ref.get();
+                if (canonical != null) {
+                    return (T) canonical;
+                }
+            }
+            stripe.table.put(expression, new WeakReference<BooleanExpression>(expression));
+            return expression;
+        }
+    }
+
+    /**
+     * Part of the intern table guarded by its own lock.
+     */
+    private static class Stripe {
+        private final WeakHashMap<BooleanExpression, WeakReference<BooleanExpression>> table =
+                new WeakHashMap<BooleanExpression, WeakReference<BooleanExpression>>();
+    }
+}
@@ -2,11 +2,27 @@ package de.krkm.trex.booleanexpressions;
 
 import org.semanticweb.owlapi.model.OWLAxiom;
 
+/**
+ * Immutable literal wrapping a single axiom. Instances are hash-consed and have to be created using
+ * {@link #create(OWLAxiom)}.
+ */
 public class Literal extends BooleanExpression {
-    private OWLAxiom axiom;
+    private final OWLAxiom axiom;
+    private final int hash;
 
-    public Literal(OWLAxiom axiom) {
+    private Literal(OWLAxiom axiom) {
         this.axiom = axiom;
+        this.hash = axiom.hashCode();
+    }
+
+    /**
+     * Returns the canonical literal for the given axiom.
+     *
+     * @param axiom axiom to wrap
+     * @return canonical literal for axiom
+     */
+    public static Literal create(OWLAxiom axiom) {
+        return InternTable.intern(new Literal(axiom));
     }
 
     @Override
@@ -35,7 +51,7 @@ public class Literal extends BooleanExpression {
 
         Literal literal = (Literal) o;
 
-        if (!axiom.equals(literal.axiom)) {
+        if (hash != literal.hash || !axiom.equals(literal.axiom)) {
             return false;
         }
 
@@ -44,6 +60,6 @@ public class Literal extends BooleanExpression {
 
     @Override
     public int hashCode() {
-        return axiom.hashCode();
+        return hash;
     }
 }
@@ -2,20 +2,64 @@ package de.krkm.trex.booleanexpressions;
 
 import org.semanticweb.owlapi.model.OWLAxiom;
 
+import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
 
+/**
+ * Immutable disjunction of conjunctions. Instances are hash-consed and have to be created using one of the
+ * <code>create</code> methods, thus, an unchanged explanation can be detected by a simple reference comparison.
+ */
 public class OrExpression extends BooleanExpression {
-    private Set<AndExpression> expressions;
+    private final static Comparator<AndExpression> SIZE_COMPARATOR = new Comparator<AndExpression>() {
+        @Override
+        public int compare(AndExpression o1, AndExpression o2) {
+            int s1 = o1.getExpressions().size();
+            int s2 = o2.getExpressions().size();
+            return s1 < s2 ? -1 : (s1 == s2 ? 0 : 1);
+        }
+    };
+
+    private final static OrExpression EMPTY = InternTable.intern(new OrExpression(new HashSet<AndExpression>()));
+
+    private final Set<AndExpression> expressions;
+    private final int hash;
+
+    private OrExpression(Set<AndExpression> expressions) {
+        this.expressions = Collections.unmodifiableSet(expressions);
+        this.hash = expressions.hashCode();
+    }
 
-    public OrExpression(AndExpression... expressions) {
-        this.expressions = new HashSet<AndExpression>();
-        Collections.addAll(this.expressions, expressions);
+    /**
+     * Returns the canonical disjunction of the given conjunctions.
+     *
+     * @param expressions conjunctions to combine by OR
+     * @return canonical disjunction of conjunctions
+     */
+    public static OrExpression create(AndExpression... expressions) {
+        if (expressions.length == 0) {
+            return EMPTY;
+        }
+        HashSet<AndExpression> set = new HashSet<AndExpression>();
+        Collections.addAll(set, expressions);
+        return InternTable.intern(new OrExpression(set));
     }
 
-    public OrExpression(Set<AndExpression> expressions) {
-        this.expressions = new HashSet<AndExpression>(expressions);
+    /**
+     * Returns the canonical disjunction of the given conjunctions.
+     *
+     * @param expressions conjunctions to combine by OR
+     * @return canonical disjunction of conjunctions
+     */
+    public static OrExpression create(Set<AndExpression> expressions) {
+        if (expressions.isEmpty()) {
+            return EMPTY;
+        }
+        return InternTable.intern(new OrExpression(new HashSet<AndExpression>(expressions)));
     }
 
     @Override
@@ -40,14 +84,15 @@ public class OrExpression extends BooleanExpression {
         return ExpressionType.OR;
     }
 
+    /**
+     * Returns the unmodifiable set of conjunctions contained in this disjunction.
+     *
+     * @return conjunctions contained in this disjunction
+     */
     public Set<AndExpression> getExpressions() {
         return expressions;
     }
 
-    public void addExpression(AndExpression expr) {
-        expressions.add(expr);
-    }
-
     @Override
     public boolean equals(Object o) {
         if (this == o) {
@@ -59,7 +104,7 @@ public class OrExpression extends BooleanExpression {
 
         OrExpression that = (OrExpression) o;
 
-        if (!expressions.equals(that.expressions)) {
+        if (hash != that.hash || !expressions.equals(that.expressions)) {
             return false;
         }
 
@@ -68,9 +113,71 @@ public class OrExpression extends BooleanExpression {
 
     @Override
     public int hashCode() {
-        return expressions.hashCode();
+        return hash;
+    }
+
+    /**
+     * Returns the number of conjunctions, i.e., justifications, contained in this disjunction.
+     *
+     * @return number of conjunctions contained in this disjunction
+     */
+    public int size() {
+        return expressions.size();
+    }
+
+    /**
+     * Returns the justifications represented by this disjunction as an iterable which creates the axiom set of each
+     * justification only when it is reached. In contrast to {@link #getDisjunction()} this avoids materializing all
+     * axiom sets at once.
+     * <p>
+     * Note that only the axiom sets are created lazily. The disjunction itself is already completely unfolded, i.e.,
+     * all of its conjunctions have been derived when the explanation was retrieved, and each iterator copies the
+     * conjunctions and, if <code>orderBySize</code> is set, sorts them before returning the first justification. Thus,
+     * the time and memory needed before the first justification is available still grows with the total number of
+     * justifications.
+     *
+     * @param orderBySize if true, justifications are returned in ascending order of their size
+     * @return lazily evaluated justifications contained in this disjunction
+     */
+    public Iterable<Set<OWLAxiom>> getJustifications(final boolean orderBySize) {
+        return new Iterable<Set<OWLAxiom>>() {
+            @Override
+            public Iterator<Set<OWLAxiom>> iterator() {
+                final AndExpression[] conjunctions = expressions.toArray(new AndExpression[expressions.size()]);
+                if (orderBySize) {
+                    Arrays.sort(conjunctions, SIZE_COMPARATOR);
+                }
+                return new Iterator<Set<OWLAxiom>>() {
+                    private int next = 0;
+
+                    @Override
+                    public boolean hasNext() {
+                        return next < conjunctions.length;
+                    }
+
+                    @Override
+                    public Set<OWLAxiom> next() {
+                        if (next >= conjunctions.length) {
+                            throw new NoSuchElementException();
+                        }
+                        return conjunctions[next++].getConjunction();
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException("Expressions are immutable");
+                    }
+                };
+            }
+        };
     }
 
+    /**
+     * Returns all justifications contained in this disjunction. For large disjunctions
+     * {@link #getJustifications(boolean)} should be preferred.
+     *
+     * @return set of all justifications contained in this disjunction
+     */
     public HashSet<Set<OWLAxiom>> getDisjunction() {
         HashSet<Set<OWLAxiom>> elements = new HashSet<Set<OWLAxiom>>();
         for (AndExpression e : expressions) {
@@ -79,11 +186,14 @@ public class OrExpression extends BooleanExpression {
         return elements;
     }
 
+    /**
+     * Returns this expression since expressions are immutable.
+     *
+     * @return this expression
+     * @deprecated expressions are immutable and can be shared without copying
+     */
+    @Deprecated
     public OrExpression copy() {
-        HashSet<AndExpression> ex = new HashSet<AndExpression>();
-        for (AndExpression e : expressions) {
-            ex.add(e.copy());
-        }
-        return new OrExpression(ex);
+        return this;
     }
 }
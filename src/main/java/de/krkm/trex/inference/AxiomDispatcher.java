@@ -0,0 +1,365 @@
+package de.krkm.trex.inference;
+
+import de.krkm.trex.reasoner.OntologyNamingManager;
+import de.krkm.trex.reasoner.TRexReasoner;
+import de.krkm.trex.util.CopyOnWriteObjectIntHashMap;
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * Routes stated axioms to the matrices whose inference step providers are interested in them. Each axiom is decoded
+ * only once: its named entities are resolved to their IDs and n-ary axioms are split into pairs of entities. The
+ * resulting ID pairs are passed to all interested matrices, see
+ * {@link InferenceStepProvider#addStatedAxiom(Matrix, AxiomType, int, int, OWLAxiom)}.
+ * <p>
+ * For n-ary axioms, each pair gets the corresponding pairwise axiom as justification which is equal to the axiom
+ * itself for binary axioms. Anonymous class and property expressions are skipped.
+ * <p>
+ * The dispatcher counts how many stated axioms of the ontology share each justification. A justification is only
+ * passed to the matrices when its count rises from zero and reported by {@link #retract(OWLAxiom, List)} when it drops
+ * to zero, so that removing one of several axioms implying the same pair does not remove the pair.
+ */
+public class AxiomDispatcher {
+    private final static Logger log = LoggerFactory.getLogger(AxiomDispatcher.class);
+
+    private final TRexReasoner reasoner;
+    private final OWLDataFactory factory;
+    private final LinkedHashMap<AxiomType<?>, ArrayList<Matrix>> interested =
+            new LinkedHashMap<AxiomType<?>, ArrayList<Matrix>>();
+    private CopyOnWriteObjectIntHashMap<OWLAxiom> statedCounts = new CopyOnWriteObjectIntHashMap<OWLAxiom>();
+
+    // pairs decoded from the last axiom passed to decode()
+    private int decoded;
+    private AxiomType<?>[] decodedTypes = new AxiomType<?>[4];
+    private int[] decodedFirst = new int[4];
+    private int[] decodedSecond = new int[4];
+    private OWLAxiom[] decodedJustifications = new OWLAxiom[4];
+
+    /**
+     * Initializes the dispatcher for the given reasoner.
+     *
+     * @param reasoner reasoner whose naming manager is used for resolving IDs
+     * @param factory  data factory used for creating pairwise axioms
+     */
+    public AxiomDispatcher(TRexReasoner reasoner, OWLDataFactory factory) {
+        this.reasoner = reasoner;
+        this.factory = factory;
+    }
+
+    /**
+     * Registers the given matrix to receive all stated axioms of the types returned by
+     * {@link Matrix#getStatedAxiomTypes()}.
+     *
+     * @param matrix matrix to register
+     */
+    public void register(Matrix matrix) {
+        for (AxiomType<?> type : matrix.getStatedAxiomTypes()) {
+            if (!interested.containsKey(type)) {
+                interested.put(type, new ArrayList<Matrix>());
+            }
+            interested.get(type).add(matrix);
+        }
+    }
+
+    /**
+     * Returns true if any registered matrix is interested in axioms of the given type.
+     *
+     * @param type axiom type to check
+     * @return true if axioms of the given type are routed to any matrix
+     */
+    public boolean isSupported(AxiomType<?> type) {
+        return interested.containsKey(type);
+    }
+
+    /**
+     * Routes all axioms of the given ontology to the interested matrices. Only axioms of types some matrix is
+     * interested in are retrieved from the ontology and each of them is visited exactly once. All entities contained
+     * in the ontology have to be known to the naming manager.
+     * <p>
+     * The axioms are retrieved type by type on purpose. The ontology keeps an index per axiom type and returns these
+     * sets directly, whereas retrieving the whole TBox or all logical axioms first collects them into a new set and
+     * additionally yields axioms of types no matrix is interested in.
+     *
+     * @param ontology ontology to route axioms from
+     */
+    public void dispatch(OWLOntology ontology) {
+        int count = 0;
+        for (AxiomType<?> type : interested.keySet()) {
+            List<Matrix> targets = interested.get(type);
+            for (OWLAxiom axiom : ontology.getAxioms(type)) {
+                route(axiom, targets);
+                count++;
+            }
+        }
+        log.debug("Dispatched {} stated axioms", count);
+    }
+
+    /**
+     * Routes the given axiom to all interested matrices. Concepts and properties not known before are registered with
+     * the reasoner.
+     *
+     * @param axiom axiom to route
+     */
+    public void dispatch(OWLAxiom axiom) {
+        reasoner.addEntities(axiom.getClassesInSignature(), axiom.getObjectPropertiesInSignature());
+        List<Matrix> targets = interested.get(axiom.getAxiomType());
+        if (targets != null) {
+            route(axiom, targets);
+        }
+    }
+
+    /**
+     * Routes the given axiom to the given matrix only. Concepts and properties not known before are registered with
+     * the reasoner. Since the axiom bypasses the other matrices, it is not counted and cannot be retracted.
+     *
+     * @param axiom  axiom to route
+     * @param matrix matrix to add axiom to
+     */
+    public void dispatch(OWLAxiom axiom, Matrix matrix) {
+        boolean supported = false;
+        for (AxiomType<?> type : matrix.getStatedAxiomTypes()) {
+            supported = supported || type == axiom.getAxiomType();
+        }
+        if (!supported) {
+            throw new UnsupportedOperationException(
+                    "Matrix " + matrix.getAxiomTypeIdentifier() + " unable to handle axiom type " +
+                            axiom.getAxiomType());
+        }
+        reasoner.addEntities(axiom.getClassesInSignature(), axiom.getObjectPropertiesInSignature());
+        decode(axiom);
+        for (int i = 0; i < decoded; i++) {
+            matrix.addStatedAxiom(decodedTypes[i], decodedFirst[i], decodedSecond[i], decodedJustifications[i]);
+        }
+    }
+
+    /**
+     * Removes the given stated axiom. The matrices are not modified, instead all justifications which are no longer
+     * implied by any stated axiom are added to <code>retracted</code> and have to be removed from the matrices, see
+     * {@link Propagator#retract(java.util.Collection)}. Axioms which have not been dispatched before are ignored.
+     *
+     * @param axiom     axiom to remove
+     * @param retracted list to add justifications to which are no longer stated
+     */
+    public void retract(OWLAxiom axiom, List<OWLAxiom> retracted) {
+        if (!interested.containsKey(axiom.getAxiomType())) {
+            return;
+        }
+        decode(axiom);
+        for (int i = 0; i < decoded; i++) {
+            OWLAxiom justification = decodedJustifications[i];
+            int count = statedCounts.get(justification);
+            if (count == 1) {
+                statedCounts.remove(justification);
+                retracted.add(justification);
+            }
+            else if (count > 1) {
+                statedCounts.put(justification, count - 1);
+            }
+        }
+    }
+
+    /**
+     * Brings the stated justifications in line with the axioms of the given ontology without modifying any matrix.
+     * Justifications not implied by the ontology anymore are added to <code>retracted</code>, justifications not
+     * stated before are added to <code>added</code> and have to be passed to the matrices using
+     * {@link #send(OWLAxiom)}. All entities contained in the ontology have to be known to the naming manager. The time
+     * required is linear in the number of axioms of the ontology.
+     *
+     * @param ontology  ontology containing the new set of stated axioms
+     * @param added     list to add justifications to which have not been stated before
+     * @param retracted list to add justifications to which are no longer stated
+     */
+    public void synchronize(OWLOntology ontology, List<OWLAxiom> added, List<OWLAxiom> retracted) {
+        CopyOnWriteObjectIntHashMap<OWLAxiom> counts = new CopyOnWriteObjectIntHashMap<OWLAxiom>();
+        for (AxiomType<?> type : interested.keySet()) {
+            for (OWLAxiom axiom : ontology.getAxioms(type)) {
+                decode(axiom);
+                for (int i = 0; i < decoded; i++) {
+                    int count = counts.get(decodedJustifications[i]);
+                    counts.put(decodedJustifications[i], count < 0 ? 1 : count + 1);
+                }
+            }
+        }
+        for (OWLAxiom justification : statedCounts.getKeys()) {
+            if (!counts.containsKey(justification)) {
+                retracted.add(justification);
+            }
+        }
+        for (OWLAxiom justification : counts.getKeys()) {
+            if (!statedCounts.containsKey(justification)) {
+                added.add(justification);
+            }
+        }
+        statedCounts = counts;
+    }
+
+    /**
+     * Passes the given justification to all interested matrices without counting it.
+     *
+     * @param justification justification as produced by this dispatcher
+     */
+    public void send(OWLAxiom justification) {
+        List<Matrix> targets = interested.get(justification.getAxiomType());
+        decode(justification);
+        for (int i = 0; i < decoded; i++) {
+            send(targets, decodedTypes[i], decodedFirst[i], decodedSecond[i], decodedJustifications[i]);
+        }
+    }
+
+    /**
+     * Restores the count of a justification and passes it to all interested matrices, e.g., when loading a snapshot.
+     *
+     * @param justification justification as produced by this dispatcher
+     * @param count         number of stated axioms implying the justification
+     */
+    public void restore(OWLAxiom justification, int count) {
+        statedCounts.put(justification, count);
+        send(justification);
+    }
+
+    /**
+     * Replaces the counts of all justifications by the ones of the given dispatcher without passing them to any
+     * matrix, e.g., when forking a reasoner whose matrices already contain the stated cells. The counts are shared
+     * in blocks until either dispatcher modifies a block, see {@link CopyOnWriteObjectIntHashMap}.
+     *
+     * @param source dispatcher to copy counts from
+     */
+    public void copyStatedCounts(AxiomDispatcher source) {
+        statedCounts = source.statedCounts.fork();
+    }
+
+    /**
+     * Returns the number of stated axioms implying each justification. The returned map must not be modified.
+     *
+     * @return number of stated axioms implying each justification
+     */
+    public CopyOnWriteObjectIntHashMap<OWLAxiom> getStatedCounts() {
+        return statedCounts;
+    }
+
+    private void route(OWLAxiom axiom, List<Matrix> targets) {
+        decode(axiom);
+        for (int i = 0; i < decoded; i++) {
+            int count = statedCounts.get(decodedJustifications[i]);
+            statedCounts.put(decodedJustifications[i], count < 0 ? 1 : count + 1);
+            if (count < 0) {
+                send(targets, decodedTypes[i], decodedFirst[i], decodedSecond[i], decodedJustifications[i]);
+            }
+        }
+    }
+
+    /**
+     * Decodes the given axiom into pairs of IDs along with their justifications.
+     */
+    private void decode(OWLAxiom axiom) {
+        decoded = 0;
+        OntologyNamingManager namingManager = reasoner.getNamingManager();
+        AxiomType<?> type = axiom.getAxiomType();
+        if (type == AxiomType.SUBCLASS_OF) {
+            OWLSubClassOfAxiom a = (OWLSubClassOfAxiom) axiom;
+            if (!a.getSubClass().isAnonymous() && !a.getSuperClass().isAnonymous()) {
+                add(type, namingManager.getConceptId(a.getSubClass().asOWLClass()),
+                        namingManager.getConceptId(a.getSuperClass().asOWLClass()), a.getAxiomWithoutAnnotations());
+            }
+        }
+        else if (type == AxiomType.EQUIVALENT_CLASSES || type == AxiomType.DISJOINT_CLASSES) {
+            Iterable<OWLClassExpression> expressions = type == AxiomType.EQUIVALENT_CLASSES ?
+                    ((OWLEquivalentClassesAxiom) axiom).getClassExpressions() :
+                    ((OWLDisjointClassesAxiom) axiom).getClassExpressions();
+            ArrayList<OWLClass> classes = new ArrayList<OWLClass>();
+            for (OWLClassExpression e : expressions) {
+                if (!e.isAnonymous()) {
+                    classes.add(e.asOWLClass());
+                }
+            }
+            for (int i = 0; i < classes.size(); i++) {
+                int idI = namingManager.getConceptId(classes.get(i));
+                for (int j = 0; j < i; j++) {
+                    OWLAxiom pairwise = type == AxiomType.EQUIVALENT_CLASSES ?
+                            factory.getOWLEquivalentClassesAxiom(classes.get(i), classes.get(j)) :
+                            factory.getOWLDisjointClassesAxiom(classes.get(i), classes.get(j));
+                    add(type, idI, namingManager.getConceptId(classes.get(j)), pairwise);
+                }
+            }
+        }
+        else if (type == AxiomType.SUB_OBJECT_PROPERTY) {
+            OWLSubObjectPropertyOfAxiom a = (OWLSubObjectPropertyOfAxiom) axiom;
+            if (!a.getSubProperty().isAnonymous() && !a.getSuperProperty().isAnonymous()) {
+                add(type, namingManager.getPropertyId(a.getSubProperty().asOWLObjectProperty()),
+                        namingManager.getPropertyId(a.getSuperProperty().asOWLObjectProperty()),
+                        a.getAxiomWithoutAnnotations());
+            }
+        }
+        else if (type == AxiomType.EQUIVALENT_OBJECT_PROPERTIES || type == AxiomType.DISJOINT_OBJECT_PROPERTIES) {
+            Iterable<OWLObjectPropertyExpression> expressions = type == AxiomType.EQUIVALENT_OBJECT_PROPERTIES ?
+                    ((OWLEquivalentObjectPropertiesAxiom) axiom).getProperties() :
+                    ((OWLDisjointObjectPropertiesAxiom) axiom).getProperties();
+            ArrayList<OWLObjectProperty> properties = new ArrayList<OWLObjectProperty>();
+            for (OWLObjectPropertyExpression e : expressions) {
+                if (!e.isAnonymous()) {
+                    properties.add(e.asOWLObjectProperty());
+                }
+            }
+            for (int i = 0; i < properties.size(); i++) {
+                int idI = namingManager.getPropertyId(properties.get(i));
+                for (int j = 0; j < i; j++) {
+                    OWLAxiom pairwise = type == AxiomType.EQUIVALENT_OBJECT_PROPERTIES ?
+                            factory.getOWLEquivalentObjectPropertiesAxiom(properties.get(i), properties.get(j)) :
+                            factory.getOWLDisjointObjectPropertiesAxiom(properties.get(i), properties.get(j));
+                    add(type, idI, namingManager.getPropertyId(properties.get(j)), pairwise);
+                }
+            }
+        }
+        else if (type == AxiomType.OBJECT_PROPERTY_DOMAIN) {
+            OWLObjectPropertyDomainAxiom a = (OWLObjectPropertyDomainAxiom) axiom;
+            if (!a.getProperty().isAnonymous() && !a.getDomain().isAnonymous()) {
+                add(type, namingManager.getPropertyId(a.getProperty().asOWLObjectProperty()),
+                        namingManager.getConceptId(a.getDomain().asOWLClass()), a.getAxiomWithoutAnnotations());
+            }
+        }
+        else if (type == AxiomType.OBJECT_PROPERTY_RANGE) {
+            OWLObjectPropertyRangeAxiom a = (OWLObjectPropertyRangeAxiom) axiom;
+            if (!a.getProperty().isAnonymous() && !a.getRange().isAnonymous()) {
+                add(type, namingManager.getPropertyId(a.getProperty().asOWLObjectProperty()),
+                        namingManager.getConceptId(a.getRange().asOWLClass()), a.getAxiomWithoutAnnotations());
+            }
+        }
+        else {
+            throw new UnsupportedOperationException("Unable to dispatch axiom type " + type);
+        }
+    }
+
+    private void add(AxiomType<?> type, int first, int second, OWLAxiom justification) {
+        if (decoded == decodedFirst.length) {
+            int capacity = decoded << 1;
+            AxiomType<?>[] newTypes = new AxiomType<?>[capacity];
+            int[] newFirst = new int[capacity];
+            int[] newSecond = new int[capacity];
+            OWLAxiom[] newJustifications = new OWLAxiom[capacity];
+            System.arraycopy(decodedTypes, 0, newTypes, 0, decoded);
+            System.arraycopy(decodedFirst, 0, newFirst, 0, decoded);
+            System.arraycopy(decodedSecond, 0, newSecond, 0, decoded);
+            System.arraycopy(decodedJustifications, 0, newJustifications, 0, decoded);
+            decodedTypes = newTypes;
+            decodedFirst = newFirst;
+            decodedSecond = newSecond;
+            decodedJustifications = newJustifications;
+        }
+        decodedTypes[decoded] = type;
+        decodedFirst[decoded] = first;
+        decodedSecond[decoded] = second;
+        decodedJustifications[decoded] = justification;
+        decoded++;
+    }
+
+    private void send(List<Matrix> targets, AxiomType<?> type, int first, int second, OWLAxiom justification) {
+        for (Matrix m : targets) {
+            m.addStatedAxiom(type, first, second, justification);
+        }
+    }
+}
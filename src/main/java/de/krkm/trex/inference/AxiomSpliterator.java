@@ -0,0 +1,87 @@
+package de.krkm.trex.inference;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import java.util.List;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+/**
+ * Spliterator over the axioms represented by the set cells of one or more matrices, backed by a {@link CellCursor}
+ * per matrix. Axioms are created while traversing and are not collected.
+ * <p>
+ * Splitting first hands off half of the remaining cursors. Once only a single cursor is left, its remaining rows are
+ * split using {@link CellCursor#trySplit()}. Like the cursors, the spliterator reads the live matrices, thus, the
+ * matrices must not be modified while it is consumed.
+ */
+public class AxiomSpliterator implements Spliterator<OWLAxiom> {
+    private final CellCursor[] cursors;
+    private int current;
+    private int end;
+
+    /**
+     * Initializes a spliterator visiting the cells of the given cursors one after another.
+     *
+     * @param cursors cursors positioned before their first cell
+     */
+    public AxiomSpliterator(List<CellCursor> cursors) {
+        this(cursors.toArray(new CellCursor[cursors.size()]), 0, cursors.size());
+    }
+
+    private AxiomSpliterator(CellCursor[] cursors, int from, int to) {
+        this.cursors = cursors;
+        this.current = from;
+        this.end = to;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super OWLAxiom> action) {
+        while (current < end) {
+            CellCursor cursor = cursors[current];
+            if (cursor.next()) {
+                action.accept(cursor.getAxiom());
+                return true;
+            }
+            current++;
+        }
+        return false;
+    }
+
+    @Override
+    public Spliterator<OWLAxiom> trySplit() {
+        int remaining = end - current;
+        if (remaining > 1) {
+            int mid = current + remaining / 2;
+            AxiomSpliterator suffix = new AxiomSpliterator(cursors, mid, end);
+            end = mid;
+            return suffix;
+        }
+        if (remaining == 1) {
+            CellCursor suffix = cursors[current].trySplit();
+            if (suffix != null) {
+                return new AxiomSpliterator(new CellCursor[]{suffix}, 0, 1);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Returns the number of rows not visited yet. The number of remaining axioms cannot be determined without
+     * visiting the cells, see {@link CellCursor#getRemainingRows()}.
+     *
+     * @return number of remaining rows of all cursors
+     */
+    @Override
+    public long estimateSize() {
+        long res = 0;
+        for (int i = current; i < end; i++) {
+            res += cursors[i].getRemainingRows();
+        }
+        return res;
+    }
+
+    @Override
+    public int characteristics() {
+        return DISTINCT | NONNULL;
+    }
+}
@@ -0,0 +1,17 @@
+package de.krkm.trex.inference;
+
+/**
+ * Receives the matrix cells changed by a reasoner, see {@link Propagator#addListener(CellChangeListener)}.
+ */
+public interface CellChangeListener {
+    /**
+     * Called after the given cell has changed its value. Cells of symmetric matrices are reported in their normalized
+     * orientation only, i.e., <code>row &gt;= col</code>.
+     *
+     * @param matrix matrix containing the changed cell
+     * @param row    row of changed cell
+     * @param col    column of changed cell
+     * @param value  new value of the cell
+     */
+    void cellChanged(Matrix matrix, int row, int col, boolean value);
+}
@@ -0,0 +1,122 @@
+package de.krkm.trex.inference;
+
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+/**
+ * Cursor over the cells of a matrix which represent entailed axioms. The cursor walks a range of rows and visits the set
+ * cells of each row in ascending column order. For symmetric matrices, only the cells below the diagonal are visited,
+ * so that each axiom is seen exactly once. Rows and columns are returned as primitive values, the axiom of a cell is only
+ * created on request by {@link #getAxiom()}.
+ * <p>
+ * For parallel consumption, the remaining rows of a cursor can be split off into a separate cursor using
+ * {@link #trySplit()}. Cursors are not thread-safe themselves and read the live matrix, thus, each cursor should be used
+ * by a single thread while the matrix is not modified.
+ */
+public class CellCursor {
+    private final Matrix matrix;
+    private int row;
+    private int col = -1;
+    private int toRow;
+
+    /**
+     * Initializes a cursor visiting the rows from <code>fromRow</code> (inclusive) to <code>toRow</code> (exclusive).
+     * The cursor is positioned before the first cell.
+     *
+     * @param matrix  matrix to walk
+     * @param fromRow first row to visit
+     * @param toRow   row to stop at
+     */
+    public CellCursor(Matrix matrix, int fromRow, int toRow) {
+        this.matrix = matrix;
+        this.row = fromRow;
+        this.toRow = toRow;
+    }
+
+    /**
+     * Moves the cursor to the next cell representing an entailed axiom.
+     *
+     * @return true if there is a next cell, false if all cells have been visited
+     */
+    public boolean next() {
+        while (row < toRow) {
+            col = matrix.nextSetColumn(row, col + 1);
+            if (col != -1) {
+                return true;
+            }
+            row++;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the row of the current cell.
+     *
+     * @return row of the current cell
+     */
+    public int getRow() {
+        return row;
+    }
+
+    /**
+     * Returns the column of the current cell.
+     *
+     * @return column of the current cell
+     */
+    public int getCol() {
+        return col;
+    }
+
+    /**
+     * Returns the packed index of the current cell, see {@link Matrix#cellIndex(int, int)}.
+     *
+     * @return packed index of the current cell
+     */
+    public long getCellIndex() {
+        return Matrix.cellIndex(row, col);
+    }
+
+    /**
+     * Returns the axiom represented by the current cell. The axiom is created by each call.
+     *
+     * @return axiom represented by the current cell
+     */
+    public OWLAxiom getAxiom() {
+        return matrix.getOWLAxiom(row, col);
+    }
+
+    /**
+     * Returns the matrix walked by this cursor.
+     *
+     * @return matrix walked by this cursor
+     */
+    public Matrix getMatrix() {
+        return matrix;
+    }
+
+    /**
+     * Returns the number of rows not completely visited yet. The number of remaining cells cannot be determined
+     * without visiting them, thus, the number of rows serves as size estimate for splitting.
+     *
+     * @return number of remaining rows including the current one
+     */
+    public int getRemainingRows() {
+        return Math.max(0, toRow - row);
+    }
+
+    /**
+     * Splits off the second half of the rows not visited yet. Afterwards, this cursor only visits the rows of the first
+     * half, the returned cursor the remaining ones. The row of the current cell always stays with this cursor.
+     *
+     * @return cursor for the second half of the remaining rows, null if there are too few rows to split
+     */
+    public CellCursor trySplit() {
+        int from = col == -1 ? row : row + 1;
+        int mid = (from + toRow) >>> 1;
+        if (mid <= from) {
+            return null;
+        }
+        CellCursor suffix = new CellCursor(matrix, mid, toRow);
+        toRow = mid;
+        return suffix;
+    }
+}
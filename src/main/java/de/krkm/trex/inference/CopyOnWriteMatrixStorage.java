@@ -0,0 +1,206 @@
+package de.krkm.trex.inference;
+
+import java.util.Arrays;
+
+/**
+ * Stores matrix cells as bit rows on the heap which can be shared between several storages. Each row is a separate
+ * <code>long[]</code> where bit <code>j</code> of word <code>w</code> represents the column <code>64 * w + j</code>.
+ * <p>
+ * {@link #fork()} creates a storage sharing all rows with this one in time proportional to the number of rows. Shared
+ * rows are never modified: before a cell of a shared row is set, the storage copies the row and from then on works on
+ * its private copy. Thus, a fork is an independent storage whose memory consumption grows with the number of rows
+ * modified after forking only, and forks not modified at all are immutable views of the cells at the time of forking.
+ * Rows no longer referenced by any storage are reclaimed by the garbage collector.
+ * <p>
+ * Forking and modifying a storage has to be done by a single thread, reading a storage which is not modified anymore
+ * is safe for any number of threads once it has been safely published.
+ */
+public class CopyOnWriteMatrixStorage implements MatrixStorage {
+    /**
+     * Factory creating copy-on-write storages
+     */
+    public final static MatrixStorageFactory FACTORY = new MatrixStorageFactory() {
+        @Override
+        public MatrixStorage create(Matrix matrix, int rows, int cols) {
+            return new CopyOnWriteMatrixStorage(rows, cols);
+        }
+    };
+
+    private long[][] matrix;
+    private boolean[] owned;
+    private int rows;
+    private int cols;
+    private int wordsPerRow;
+
+    /**
+     * Initializes an empty storage having the given dimensions.
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     */
+    public CopyOnWriteMatrixStorage(int rows, int cols) {
+        this.rows = rows;
+        this.cols = cols;
+        this.wordsPerRow = wordsFor(cols);
+        this.matrix = new long[rows][wordsPerRow];
+        this.owned = new boolean[rows];
+        Arrays.fill(owned, true);
+    }
+
+    private CopyOnWriteMatrixStorage(long[][] matrix, int rows, int cols, int wordsPerRow) {
+        this.matrix = matrix;
+        this.owned = new boolean[matrix.length];
+        this.rows = rows;
+        this.cols = cols;
+        this.wordsPerRow = wordsPerRow;
+    }
+
+    /**
+     * Returns a copy-on-write storage containing the cells of the given storage. Copy-on-write storages are forked,
+     * see {@link #fork()}, and thus share their rows with the returned storage. All other storages are copied cell by
+     * cell. Transposed indexes are not carried over.
+     *
+     * @param storage storage to return cells of
+     * @param rows    number of rows of the storage
+     * @param cols    number of columns of the storage
+     * @return copy-on-write storage containing the cells of the given storage
+     */
+    public static CopyOnWriteMatrixStorage share(MatrixStorage storage, int rows, int cols) {
+        if (storage instanceof TransposedIndexStorage) {
+            storage = ((TransposedIndexStorage) storage).getPrimary();
+        }
+        if (storage instanceof CopyOnWriteMatrixStorage) {
+            return ((CopyOnWriteMatrixStorage) storage).fork();
+        }
+        CopyOnWriteMatrixStorage copy = new CopyOnWriteMatrixStorage(rows, cols);
+        for (int i = 0; i < rows; i++) {
+            long[] row = copy.matrix[i];
+            for (int j = storage.nextSetColumn(i, 0, cols); j != -1; j = storage.nextSetColumn(i, j + 1, cols)) {
+                row[j >>> 6] |= 1L << j;
+            }
+        }
+        return copy;
+    }
+
+    /**
+     * Returns a storage sharing all rows with this storage. Afterwards, both storages copy a row before modifying it
+     * for the first time.
+     *
+     * @return storage sharing all rows with this storage
+     */
+    public CopyOnWriteMatrixStorage fork() {
+        long[][] shared = new long[matrix.length][];
+        System.arraycopy(matrix, 0, shared, 0, rows);
+        Arrays.fill(owned, false);
+        return new CopyOnWriteMatrixStorage(shared, rows, cols, wordsPerRow);
+    }
+
+    /**
+     * Returns the number of rows not shared with any other storage.
+     *
+     * @return number of rows owned by this storage
+     */
+    public int getNumberOfOwnedRows() {
+        int n = 0;
+        for (int i = 0; i < rows; i++) {
+            if (owned[i]) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    @Override
+    public boolean get(int row, int col) {
+        return (matrix[row][col >>> 6] & (1L << col)) != 0;
+    }
+
+    @Override
+    public void set(int row, int col, boolean val) {
+        if (get(row, col) == val) {
+            return;
+        }
+        if (!owned[row]) {
+            matrix[row] = matrix[row].clone();
+            owned[row] = true;
+        }
+        if (val) {
+            matrix[row][col >>> 6] |= 1L << col;
+        }
+        else {
+            matrix[row][col >>> 6] &= ~(1L << col);
+        }
+    }
+
+    @Override
+    public int nextSetColumn(int row, int fromCol, int toCol) {
+        if (fromCol >= toCol) {
+            return -1;
+        }
+        long[] words = matrix[row];
+        int w = fromCol >>> 6;
+        long word = words[w] & (-1L << fromCol);
+        while (true) {
+            if (word != 0) {
+                int col = (w << 6) + Long.numberOfTrailingZeros(word);
+                return col < toCol ? col : -1;
+            }
+            if (++w << 6 >= toCol) {
+                return -1;
+            }
+            word = words[w];
+        }
+    }
+
+    @Override
+    public int nextSetRow(int col, int fromRow, int toRow) {
+        int w = col >>> 6;
+        long mask = 1L << col;
+        for (int i = fromRow; i < toRow; i++) {
+            if ((matrix[i][w] & mask) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public MatrixStorage grow(int rows, int cols) {
+        if (rows <= this.rows && cols <= this.cols) {
+            return this;
+        }
+
+        if (wordsFor(cols) > wordsPerRow) {
+            // rows are copied anyway, thus, all rows are owned afterwards
+            wordsPerRow = Math.max(wordsFor(cols), wordsPerRow << 1);
+            for (int i = 0; i < this.rows; i++) {
+                long[] row = new long[wordsPerRow];
+                System.arraycopy(matrix[i], 0, row, 0, matrix[i].length);
+                matrix[i] = row;
+                owned[i] = true;
+            }
+        }
+
+        if (rows > matrix.length) {
+            int capacity = Math.max(rows, matrix.length << 1);
+            long[][] newMatrix = new long[capacity][];
+            System.arraycopy(matrix, 0, newMatrix, 0, this.rows);
+            matrix = newMatrix;
+            boolean[] newOwned = new boolean[capacity];
+            System.arraycopy(owned, 0, newOwned, 0, this.rows);
+            owned = newOwned;
+        }
+        for (int i = this.rows; i < rows; i++) {
+            matrix[i] = new long[wordsPerRow];
+            owned[i] = true;
+        }
+
+        this.rows = Math.max(rows, this.rows);
+        this.cols = Math.max(cols, this.cols);
+        return this;
+    }
+
+    private static int wordsFor(int cols) {
+        return Math.max(1, (cols + 63) >>> 6);
+    }
+}
@@ -0,0 +1,104 @@
+package de.krkm.trex.inference;
+
+import java.util.Arrays;
+
+/**
+ * Immutable derivation edge of the explanation store. A derivation records that a matrix cell has been inferred from
+ * a number of premise cells by applying a given rule. Premise cells are identified by the ID of their matrix (see
+ * {@link Matrix#getId()}) and their packed cell index (see {@link Matrix#cellIndex(int, int)}).
+ */
+public final class Derivation {
+    private final String rule;
+    private final int[] premiseMatrices;
+    private final long[] premiseCells;
+    private final int hash;
+
+    /**
+     * Initializes a new derivation.
+     *
+     * @param rule            identifier of the rule used for deriving the cell
+     * @param premiseMatrices IDs of the matrices the premise cells belong to
+     * @param premiseCells    packed cell indexes of the premises
+     */
+    public Derivation(String rule, int[] premiseMatrices, long[] premiseCells) {
+        this.rule = rule;
+        this.premiseMatrices = premiseMatrices;
+        this.premiseCells = premiseCells;
+        this.hash = 31 * (31 * rule.hashCode() + Arrays.hashCode(premiseMatrices)) + Arrays.hashCode(premiseCells);
+    }
+
+    /**
+     * Returns the identifier of the rule used for this derivation.
+     *
+     * @return identifier of the rule used for this derivation
+     */
+    public String getRule() {
+        return rule;
+    }
+
+    /**
+     * Returns the number of premises of this derivation.
+     *
+     * @return number of premises of this derivation
+     */
+    public int getNumberOfPremises() {
+        return premiseCells.length;
+    }
+
+    /**
+     * Returns the ID of the matrix containing the premise with the given index.
+     *
+     * @param premise index of premise
+     * @return ID of matrix containing the premise
+     */
+    public int getPremiseMatrix(int premise) {
+        return premiseMatrices[premise];
+    }
+
+    /**
+     * Returns the packed cell index of the premise with the given index.
+     *
+     * @param premise index of premise
+     * @return packed cell index of premise
+     */
+    public long getPremiseCell(int premise) {
+        return premiseCells[premise];
+    }
+
+    /**
+     * Returns true if this derivation uses the given rule and premises.
+     */
+    boolean matches(String rule, int matrix1, long cell1, int matrix2, long cell2) {
+        return premiseCells.length == 2 && premiseCells[0] == cell1 && premiseCells[1] == cell2 &&
+                premiseMatrices[0] == matrix1 && premiseMatrices[1] == matrix2 && this.rule.equals(rule);
+    }
+
+    /**
+     * Returns true if this derivation uses the given rule and premises.
+     */
+    boolean matches(String rule, int matrix1, long cell1, int matrix2, long cell2, int matrix3, long cell3) {
+        return premiseCells.length == 3 && premiseCells[0] == cell1 && premiseCells[1] == cell2 &&
+                premiseCells[2] == cell3 && premiseMatrices[0] == matrix1 && premiseMatrices[1] == matrix2 &&
+                premiseMatrices[2] == matrix3 && this.rule.equals(rule);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+
+        Derivation that = (Derivation) o;
+
+        return hash == that.hash && rule.equals(that.rule) && Arrays.equals(premiseMatrices, that.premiseMatrices) &&
+                Arrays.equals(premiseCells, that.premiseCells);
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+}
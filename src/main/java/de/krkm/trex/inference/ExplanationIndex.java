@@ -0,0 +1,378 @@
+package de.krkm.trex.inference;
+
+import de.krkm.trex.booleanexpressions.AndExpression;
+import de.krkm.trex.booleanexpressions.Literal;
+import de.krkm.trex.booleanexpressions.OrExpression;
+import de.krkm.trex.util.CopyOnWriteLongObjectHashMap;
+import de.krkm.trex.util.CopyOnWriteObjectIntHashMap;
+import de.krkm.trex.util.IntHashSet;
+import de.krkm.trex.util.LongHashSet;
+import org.semanticweb.owlapi.model.OWLAxiom;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Inverted index from stated axioms to the matrix cells whose explanations depend on them. The index is maintained
+ * incrementally while stated explanations and derivations are added to the explanation store: a stated axiom is
+ * propagated from the cell it is stated for along all derivation edges to the cells derived from it.
+ * <p>
+ * The index contains each cell which is reachable from a stated occurrence of the axiom in the derivation graph. Thus,
+ * it contains all cells whose explanations mention the axiom and possibly some cells for which all justifications
+ * containing the axiom have been removed during minimization since shorter ones exist.
+ * <p>
+ * Axioms are interned to IDs when they are propagated for the first time. Besides the cells depending on each axiom,
+ * the index keeps the IDs of the axioms each cell depends on as primitive sets, which are required for propagating
+ * along new derivations and for removing cells, so that each pair of axiom and cell only costs two primitive entries.
+ * <p>
+ * All maps of the index are copy-on-write maps, thus, {@link #fork()} creates an independent index for a forked
+ * reasoner in time proportional to the number of blocks of the maps instead of re-propagating all axioms.
+ */
+public final class ExplanationIndex {
+    private final static long[] NO_CELLS = new long[0];
+
+    private final static CopyOnWriteLongObjectHashMap.ValueCopier<LongHashSet> LONG_SET_COPIER =
+            new CopyOnWriteLongObjectHashMap.ValueCopier<LongHashSet>() {
+                @Override
+                public LongHashSet copy(LongHashSet value) {
+                    return new LongHashSet(value);
+                }
+            };
+    private final static CopyOnWriteLongObjectHashMap.ValueCopier<IntHashSet> INT_SET_COPIER =
+            new CopyOnWriteLongObjectHashMap.ValueCopier<IntHashSet>() {
+                @Override
+                public IntHashSet copy(IntHashSet value) {
+                    return new IntHashSet(value);
+                }
+            };
+    private final static CopyOnWriteLongObjectHashMap.ValueCopier<Consumers> CONSUMERS_COPIER =
+            new CopyOnWriteLongObjectHashMap.ValueCopier<Consumers>() {
+                @Override
+                public Consumers copy(Consumers value) {
+                    return new Consumers(value);
+                }
+            };
+
+    /**
+     * IDs of the axioms contained in the index
+     */
+    private final CopyOnWriteObjectIntHashMap<OWLAxiom> axiomIds;
+    /**
+     * axioms contained in the index by their ID
+     */
+    private final CopyOnWriteLongObjectHashMap<OWLAxiom> axioms;
+    private int nextAxiomId;
+    /**
+     * cells depending on each axiom, keyed by axiom ID and matrix ID, see {@link #dependentsKey(int, int)}
+     */
+    private final CopyOnWriteLongObjectHashMap<LongHashSet> dependents;
+    /**
+     * IDs of the axioms each cell depends on, the list is indexed by matrix ID
+     */
+    private final ArrayList<CopyOnWriteLongObjectHashMap<IntHashSet>> support =
+            new ArrayList<CopyOnWriteLongObjectHashMap<IntHashSet>>();
+    /**
+     * cells derived from each premise cell, the list is indexed by matrix ID
+     */
+    private final ArrayList<CopyOnWriteLongObjectHashMap<Consumers>> consumers =
+            new ArrayList<CopyOnWriteLongObjectHashMap<Consumers>>();
+
+    private int[] stackMatrices = new int[16];
+    private long[] stackCells = new long[16];
+
+    /**
+     * Initializes an empty index.
+     */
+    public ExplanationIndex() {
+        axiomIds = new CopyOnWriteObjectIntHashMap<OWLAxiom>();
+        axioms = new CopyOnWriteLongObjectHashMap<OWLAxiom>();
+        dependents = new CopyOnWriteLongObjectHashMap<LongHashSet>(LONG_SET_COPIER);
+    }
+
+    private ExplanationIndex(ExplanationIndex source) {
+        axiomIds = source.axiomIds.fork();
+        axioms = source.axioms.fork();
+        nextAxiomId = source.nextAxiomId;
+        dependents = source.dependents.fork();
+        for (CopyOnWriteLongObjectHashMap<IntHashSet> matrixSupport : source.support) {
+            support.add(matrixSupport.fork());
+        }
+        for (CopyOnWriteLongObjectHashMap<Consumers> matrixConsumers : source.consumers) {
+            consumers.add(matrixConsumers.fork());
+        }
+    }
+
+    /**
+     * Returns an index containing the same entries as this index which can be modified independently of it, e.g.,
+     * for a forked reasoner. Both indexes share all blocks of their maps and copy a block before modifying it for the
+     * first time.
+     *
+     * @return independent index with the same entries
+     */
+    public ExplanationIndex fork() {
+        return new ExplanationIndex(this);
+    }
+
+    /**
+     * Registers the stated explanation for the given cell. All axioms contained in the explanation are propagated to
+     * the cell and all cells derived from it.
+     *
+     * @param matrix     matrix containing the cell
+     * @param cell       normalized packed cell index
+     * @param expression stated explanation for the cell
+     */
+    void addStated(Matrix matrix, long cell, OrExpression expression) {
+        for (AndExpression and : expression.getExpressions()) {
+            for (Literal literal : and.getExpressions()) {
+                propagate(matrix.getId(), cell, intern(literal.getOWLAxiom()));
+            }
+        }
+    }
+
+    /**
+     * Registers the given derivation for the given cell. All axioms the premises depend on are propagated to the cell
+     * and all cells derived from it.
+     *
+     * @param matrix     matrix containing the derived cell
+     * @param cell       normalized packed cell index of derived cell
+     * @param derivation derivation leading to the cell
+     */
+    void addDerivation(Matrix matrix, long cell, Derivation derivation) {
+        IntHashSet inherited = new IntHashSet();
+        for (int i = 0; i < derivation.getNumberOfPremises(); i++) {
+            int premiseMatrix = derivation.getPremiseMatrix(i);
+            long premiseCell = derivation.getPremiseCell(i);
+
+            CopyOnWriteLongObjectHashMap<Consumers> matrixConsumers = getConsumers(premiseMatrix);
+            Consumers c = matrixConsumers.getModifiable(premiseCell);
+            if (c == null) {
+                c = new Consumers();
+                matrixConsumers.put(premiseCell, c);
+            }
+            c.add(matrix.getId(), cell);
+
+            IntHashSet premiseSupport = getSupport(premiseMatrix).get(premiseCell);
+            if (premiseSupport != null) {
+                for (int axiomId : premiseSupport.toArray()) {
+                    inherited.add(axiomId);
+                }
+            }
+        }
+        for (int axiomId : inherited.toArray()) {
+            propagate(matrix.getId(), cell, axiomId);
+        }
+    }
+
+    /**
+     * Removes the given cell from the index, i.e., from the dependents of all axioms it depends on and from the
+     * consumers of the premises of its derivations. Cells derived from the given cell have to be removed separately.
+     *
+     * @param matrix matrix containing the cell
+     * @param cell   normalized packed cell index
+     * @param node   explanation node of the cell containing its derivations
+     */
+    void removeCell(Matrix matrix, long cell, ExplanationNode node) {
+        IntHashSet cellSupport = getSupport(matrix.getId()).remove(cell);
+        if (cellSupport != null) {
+            for (int axiomId : cellSupport.toArray()) {
+                LongHashSet cells = dependents.getModifiable(dependentsKey(axiomId, matrix.getId()));
+                if (cells != null) {
+                    cells.remove(cell);
+                }
+            }
+        }
+        for (int i = 0; i < node.getNumberOfDerivations(); i++) {
+            Derivation derivation = node.getDerivation(i);
+            for (int p = 0; p < derivation.getNumberOfPremises(); p++) {
+                Consumers c = getConsumers(derivation.getPremiseMatrix(p)).getModifiable(derivation.getPremiseCell(p));
+                if (c != null) {
+                    c.remove(matrix.getId(), cell);
+                }
+            }
+        }
+    }
+
+    /**
+     * Removes the given axiom from the index after all cells depending on it have been removed.
+     *
+     * @param axiom axiom to remove
+     */
+    void removeAxiom(OWLAxiom axiom) {
+        int axiomId = axiomIds.remove(axiom);
+        if (axiomId == -1) {
+            return;
+        }
+        axioms.remove(axiomId);
+        for (int m = 0; m < support.size(); m++) {
+            dependents.remove(dependentsKey(axiomId, m));
+        }
+    }
+
+    /**
+     * Returns the normalized packed indexes of all cells of the given matrix depending on the given axiom.
+     *
+     * @param axiom  stated axiom
+     * @param matrix matrix to return cells for
+     * @return normalized packed indexes of cells depending on the axiom
+     */
+    public long[] getDependentCells(OWLAxiom axiom, Matrix matrix) {
+        int axiomId = axiomIds.get(axiom);
+        if (axiomId == -1) {
+            axiomId = axiomIds.get(axiom.getAxiomWithoutAnnotations());
+        }
+        LongHashSet cells = axiomId == -1 ? null : dependents.get(dependentsKey(axiomId, matrix.getId()));
+        if (cells == null) {
+            return NO_CELLS;
+        }
+        return cells.toArray();
+    }
+
+    /**
+     * Returns the set of stated axioms the given cell depends on.
+     *
+     * @param matrix matrix containing the cell
+     * @param cell   normalized packed cell index
+     * @return stated axioms the cell depends on
+     */
+    public Set<OWLAxiom> getSupport(Matrix matrix, long cell) {
+        Set<OWLAxiom> res = new HashSet<OWLAxiom>();
+        IntHashSet cellSupport = getSupport(matrix.getId()).get(cell);
+        if (cellSupport != null) {
+            for (int axiomId : cellSupport.toArray()) {
+                // IDs of axioms removed from the index may remain until the cell is removed itself
+                OWLAxiom axiom = axioms.get(axiomId);
+                if (axiom != null) {
+                    res.add(axiom);
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the ID of the given axiom, assigning a new one if the axiom is not contained in the index yet.
+     */
+    private int intern(OWLAxiom axiom) {
+        int axiomId = axiomIds.get(axiom);
+        if (axiomId == -1) {
+            axiomId = nextAxiomId++;
+            axiomIds.put(axiom, axiomId);
+            axioms.put(axiomId, axiom);
+        }
+        return axiomId;
+    }
+
+    private static long dependentsKey(int axiomId, int matrixId) {
+        return ((long) axiomId << 32) | matrixId;
+    }
+
+    /**
+     * Adds the given axiom to the support of the given cell and all cells transitively derived from it.
+     */
+    private void propagate(int matrixId, long cell, int axiomId) {
+        int top = 0;
+        push(top++, matrixId, cell);
+        while (top > 0) {
+            top--;
+            int m = stackMatrices[top];
+            long c = stackCells[top];
+
+            CopyOnWriteLongObjectHashMap<IntHashSet> matrixSupport = getSupport(m);
+            IntHashSet cellSupport = matrixSupport.getModifiable(c);
+            if (cellSupport == null) {
+                cellSupport = new IntHashSet(4);
+                matrixSupport.put(c, cellSupport);
+            }
+            if (!cellSupport.add(axiomId)) {
+                continue;
+            }
+            long key = dependentsKey(axiomId, m);
+            LongHashSet cells = dependents.getModifiable(key);
+            if (cells == null) {
+                cells = new LongHashSet();
+                dependents.put(key, cells);
+            }
+            cells.add(c);
+
+            Consumers derived = getConsumers(m).get(c);
+            if (derived != null) {
+                for (int i = 0; i < derived.size; i++) {
+                    push(top++, derived.matrices[i], derived.cells[i]);
+                }
+            }
+        }
+    }
+
+    private void push(int pos, int matrixId, long cell) {
+        if (pos == stackCells.length) {
+            int[] newMatrices = new int[pos << 1];
+            long[] newCells = new long[pos << 1];
+            System.arraycopy(stackMatrices, 0, newMatrices, 0, pos);
+            System.arraycopy(stackCells, 0, newCells, 0, pos);
+            stackMatrices = newMatrices;
+            stackCells = newCells;
+        }
+        stackMatrices[pos] = matrixId;
+        stackCells[pos] = cell;
+    }
+
+    private CopyOnWriteLongObjectHashMap<IntHashSet> getSupport(int matrixId) {
+        while (support.size() <= matrixId) {
+            support.add(new CopyOnWriteLongObjectHashMap<IntHashSet>(INT_SET_COPIER));
+        }
+        return support.get(matrixId);
+    }
+
+    private CopyOnWriteLongObjectHashMap<Consumers> getConsumers(int matrixId) {
+        while (consumers.size() <= matrixId) {
+            consumers.add(new CopyOnWriteLongObjectHashMap<Consumers>(CONSUMERS_COPIER));
+        }
+        return consumers.get(matrixId);
+    }
+
+    /**
+     * List of cells derived from a single premise cell
+     */
+    private final static class Consumers {
+        private int[] matrices = new int[2];
+        private long[] cells = new long[2];
+        private int size;
+
+        private Consumers() {
+        }
+
+        private Consumers(Consumers source) {
+            matrices = source.matrices.clone();
+            cells = source.cells.clone();
+            size = source.size;
+        }
+
+        private void add(int matrixId, long cell) {
+            // duplicates are only caused by multiple derivations sharing a premise and are skipped on propagation
+            if (size == cells.length) {
+                int[] newMatrices = new int[size << 1];
+                long[] newCells = new long[size << 1];
+                System.arraycopy(matrices, 0, newMatrices, 0, size);
+                System.arraycopy(cells, 0, newCells, 0, size);
+                matrices = newMatrices;
+                cells = newCells;
+            }
+            matrices[size] = matrixId;
+            cells[size] = cell;
+            size++;
+        }
+
+        private void remove(int matrixId, long cell) {
+            int n = 0;
+            for (int i = 0; i < size; i++) {
+                if (matrices[i] != matrixId || cells[i] != cell) {
+                    matrices[n] = matrices[i];
+                    cells[n] = cells[i];
+                    n++;
+                }
+            }
+            size = n;
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package de.krkm.trex.inference;
+
+import de.krkm.trex.booleanexpressions.ExpressionMinimizer;
+import de.krkm.trex.booleanexpressions.OrExpression;
+
+/**
+ * Immutable node of the explanation store representing a single matrix cell. A node only contains the explanation
+ * for the stated axioms directly asserting the cell and the derivation edges leading to the cell. The full
+ * explanation is only unfolded on demand. Since nodes are immutable, each modification returns a new node.
+ */
+public final class ExplanationNode {
+    private final static Derivation[] NO_DERIVATIONS = new Derivation[0];
+
+    /**
+     * Node neither having stated explanations nor derivations
+     */
+    public final static ExplanationNode EMPTY = new ExplanationNode(ExpressionMinimizer.or(), NO_DERIVATIONS);
+
+    private final OrExpression stated;
+    private final Derivation[] derivations;
+
+    private ExplanationNode(OrExpression stated, Derivation[] derivations) {
+        this.stated = stated;
+        this.derivations = derivations;
+    }
+
+    /**
+     * Returns a node having the given stated explanation and derivations. The derivations must not contain
+     * duplicates.
+     *
+     * @param stated      explanation consisting of stated axioms only
+     * @param derivations derivations leading to the cell
+     * @return node having the given stated explanation and derivations
+     */
+    public static ExplanationNode create(OrExpression stated, Derivation[] derivations) {
+        if (derivations.length == 0 && stated == EMPTY.stated) {
+            return EMPTY;
+        }
+        return new ExplanationNode(stated, derivations.length == 0 ? NO_DERIVATIONS : derivations.clone());
+    }
+
+    /**
+     * Returns the explanation consisting of stated axioms only.
+     *
+     * @return explanation consisting of stated axioms only
+     */
+    public OrExpression getStated() {
+        return stated;
+    }
+
+    /**
+     * Returns the number of derivations leading to this cell.
+     *
+     * @return number of derivations leading to this cell
+     */
+    public int getNumberOfDerivations() {
+        return derivations.length;
+    }
+
+    /**
+     * Returns the derivation with the given index.
+     *
+     * @param index index of derivation to return
+     * @return derivation with the given index
+     */
+    public Derivation getDerivation(int index) {
+        return derivations[index];
+    }
+
+    /**
+     * Returns a node whose stated explanation is extended by the given expression.
+     *
+     * @param expression expression to add to the stated explanation
+     * @return node with extended stated explanation, this node if nothing changed
+     */
+    public ExplanationNode withStated(OrExpression expression) {
+        OrExpression newStated = ExpressionMinimizer.minimize(stated, expression);
+        if (newStated == stated) {
+            return this;
+        }
+        return new ExplanationNode(newStated, derivations);
+    }
+
+    /**
+     * Returns a node additionally containing the given derivation.
+     *
+     * @param derivation derivation to add
+     * @return node containing the derivation, this node if the derivation was already contained
+     */
+    public ExplanationNode withDerivation(Derivation derivation) {
+        for (Derivation d : derivations) {
+            if (d.equals(derivation)) {
+                return this;
+            }
+        }
+        Derivation[] newDerivations = new Derivation[derivations.length + 1];
+        System.arraycopy(derivations, 0, newDerivations, 0, derivations.length);
+        newDerivations[derivations.length] = derivation;
+        return new ExplanationNode(stated, newDerivations);
+    }
+
+    /**
+     * Returns true if this node contains a derivation using the given rule and premises.
+     */
+    boolean hasDerivation(String rule, int matrix1, long cell1, int matrix2, long cell2) {
+        for (Derivation d : derivations) {
+            if (d.matches(rule, matrix1, cell1, matrix2, cell2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns true if this node contains a derivation using the given rule and premises.
+     */
+    boolean hasDerivation(String rule, int matrix1, long cell1, int matrix2, long cell2, int matrix3, long cell3) {
+        for (Derivation d : derivations) {
+            if (d.matches(rule, matrix1, cell1, matrix2, cell2, matrix3, cell3)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
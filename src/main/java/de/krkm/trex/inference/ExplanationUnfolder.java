@@ -0,0 +1,163 @@
+package de.krkm.trex.inference;
+
+import de.krkm.trex.booleanexpressions.ExpressionMinimizer;
+import de.krkm.trex.booleanexpressions.OrExpression;
+import de.krkm.trex.reasoner.TRexReasoner;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedList;
+
+/**
+ * Unfolds the derivation graph stored in the explanation nodes of the matrices into flattened explanations. Since
+ * derivations may be cyclic, e.g., for equivalent concepts, the unfolding computes the least fixpoint over all cells
+ * reachable from the requested one. All explanations computed along the way are memoized in their matrices.
+ */
+final class ExplanationUnfolder {
+    private final TRexReasoner reasoner;
+    private final HashMap<Matrix, HashMap<Long, Entry>> entries = new HashMap<Matrix, HashMap<Long, Entry>>();
+    private final ArrayList<Entry> order = new ArrayList<Entry>();
+
+    /**
+     * Working state for a single cell during unfolding
+     */
+    private static class Entry {
+        Matrix matrix;
+        long cell;
+        ExplanationNode node;
+        OrExpression value;
+        Entry[][] premises;
+        ArrayList<Entry> dependents = new ArrayList<Entry>();
+        boolean fixed;
+        boolean queued;
+    }
+
+    private ExplanationUnfolder(TRexReasoner reasoner) {
+        this.reasoner = reasoner;
+    }
+
+    /**
+     * Returns the unfolded explanation for the given cell of the given matrix.
+     *
+     * @param matrix matrix containing the cell
+     * @param cell   packed index of the cell, already normalized for symmetric matrices
+     * @return explanation of the given cell, null if no explanation is stored for the cell
+     */
+    static OrExpression unfold(TRexReasoner reasoner, Matrix matrix, long cell) {
+        if (matrix.getExplanationNode(cell) == null) {
+            return null;
+        }
+        OrExpression known = matrix.getUnfolded(cell);
+        if (known != null) {
+            return known;
+        }
+
+        ExplanationUnfolder unfolder = new ExplanationUnfolder(reasoner);
+        Entry start = unfolder.collect(matrix, cell);
+        unfolder.computeFixpoint();
+        for (Entry e : unfolder.order) {
+            e.matrix.putUnfolded(e.cell, e.value);
+        }
+        return start.value;
+    }
+
+    /**
+     * Returns the entry for the given cell, creating it if necessary.
+     */
+    private Entry getEntry(Matrix matrix, long cell, ArrayList<Entry> newEntries) {
+        HashMap<Long, Entry> matrixEntries = entries.get(matrix);
+        if (matrixEntries == null) {
+            matrixEntries = new HashMap<Long, Entry>();
+            entries.put(matrix, matrixEntries);
+        }
+        Entry e = matrixEntries.get(cell);
+        if (e == null) {
+            e = new Entry();
+            e.matrix = matrix;
+            e.cell = cell;
+            e.node = matrix.getExplanationNode(cell);
+            OrExpression known = e.node == null ? ExpressionMinimizer.or() : matrix.getUnfolded(cell);
+            if (known != null) {
+                e.value = known;
+                e.fixed = true;
+            } else {
+                e.value = e.node.getStated();
+                newEntries.add(e);
+            }
+            matrixEntries.put(cell, e);
+        }
+        return e;
+    }
+
+    /**
+     * Collects all cells reachable from the given one in post-order, i.e., premises are ordered before the cells
+     * derived from them.
+     */
+    private Entry collect(Matrix matrix, long cell) {
+        ArrayList<Entry> newEntries = new ArrayList<Entry>();
+        Entry start = getEntry(matrix, cell, newEntries);
+
+        LinkedList<Entry> stack = new LinkedList<Entry>();
+        stack.push(start);
+        while (!stack.isEmpty()) {
+            Entry e = stack.peek();
+            if (e.premises == null) {
+                // first visit: resolve premises and visit those not visited yet
+                e.premises = new Entry[e.node.getNumberOfDerivations()][];
+                newEntries.clear();
+                for (int d = 0; d < e.premises.length; d++) {
+                    Derivation derivation = e.node.getDerivation(d);
+                    e.premises[d] = new Entry[derivation.getNumberOfPremises()];
+                    for (int p = 0; p < e.premises[d].length; p++) {
+                        Entry premise = getEntry(reasoner.getMatrix(derivation.getPremiseMatrix(p)),
+                                derivation.getPremiseCell(p), newEntries);
+                        premise.dependents.add(e);
+                        e.premises[d][p] = premise;
+                    }
+                }
+                for (Entry n : newEntries) {
+                    stack.push(n);
+                }
+            } else {
+                stack.pop();
+                if (!e.queued) {
+                    e.queued = true;
+                    order.add(e);
+                }
+            }
+        }
+        return start;
+    }
+
+    /**
+     * Iterates over the collected cells until no explanation changes anymore. Since the cells are in post-order,
+     * cells not being part of a cycle are evaluated only once.
+     */
+    private void computeFixpoint() {
+        LinkedList<Entry> queue = new LinkedList<Entry>(order);
+        while (!queue.isEmpty()) {
+            Entry e = queue.poll();
+            e.queued = false;
+
+            OrExpression value = e.node.getStated();
+            for (Entry[] premises : e.premises) {
+                OrExpression product = premises[0].value;
+                for (int p = 1; p < premises.length && !product.getExpressions().isEmpty(); p++) {
+                    product = ExpressionMinimizer.flatten(product, premises[p].value);
+                }
+                value = ExpressionMinimizer.minimize(value, product);
+            }
+
+            // expressions are hash-consed, thus, reference comparison suffices
+            if (value != e.value) {
+                e.value = value;
+                for (Entry dependent : e.dependents) {
+                    if (!dependent.fixed && !dependent.queued) {
+                        dependent.queued = true;
+                        queue.add(dependent);
+                    }
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,107 @@
+package de.krkm.trex.inference;
+
+/**
+ * Stores matrix cells in a <code>boolean[][]</code> array on the heap. This is the default storage.
+ * <p>
+ * The backing array is grown by doubling its capacity, thus, existing rows only have to be copied if the column
+ * capacity is exceeded and adding entities one by one has amortized costs linear in the matrix dimensions. Unused
+ * rows and columns of the backing array are never accessed by the matrix.
+ */
+public class HeapMatrixStorage implements MatrixStorage {
+    /**
+     * Factory creating heap storages
+     */
+    public final static MatrixStorageFactory FACTORY = new MatrixStorageFactory() {
+        @Override
+        public MatrixStorage create(Matrix matrix, int rows, int cols) {
+            return new HeapMatrixStorage(new boolean[rows][cols]);
+        }
+    };
+
+    private boolean[][] matrix;
+    private int rows;
+    private int cols;
+    private int colCapacity;
+
+    /**
+     * Initializes the storage backed by the given array. The array is not copied.
+     *
+     * @param matrix array to use as storage
+     */
+    public HeapMatrixStorage(boolean[][] matrix) {
+        this.matrix = matrix;
+        this.rows = matrix.length;
+        this.cols = matrix.length == 0 ? 0 : matrix[0].length;
+        this.colCapacity = cols;
+    }
+
+    /**
+     * Returns the array backing this storage which might be larger than the dimensions of the matrix.
+     *
+     * @return array backing this storage
+     */
+    public boolean[][] getArray() {
+        return matrix;
+    }
+
+    @Override
+    public boolean get(int row, int col) {
+        return matrix[row][col];
+    }
+
+    @Override
+    public void set(int row, int col, boolean val) {
+        matrix[row][col] = val;
+    }
+
+    @Override
+    public int nextSetColumn(int row, int fromCol, int toCol) {
+        boolean[] values = matrix[row];
+        for (int i = fromCol; i < toCol; i++) {
+            if (values[i]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public int nextSetRow(int col, int fromRow, int toRow) {
+        for (int i = fromRow; i < toRow; i++) {
+            if (matrix[i][col]) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public MatrixStorage grow(int rows, int cols) {
+        if (rows <= this.rows && cols <= this.cols) {
+            return this;
+        }
+
+        if (cols > colCapacity) {
+            int newCapacity = Math.max(cols, colCapacity << 1);
+            for (int i = 0; i < this.rows; i++) {
+                boolean[] row = new boolean[newCapacity];
+                System.arraycopy(matrix[i], 0, row, 0, this.cols);
+                matrix[i] = row;
+            }
+            colCapacity = newCapacity;
+        }
+
+        if (rows > matrix.length) {
+            boolean[][] newMatrix = new boolean[Math.max(rows, matrix.length << 1)][];
+            System.arraycopy(matrix, 0, newMatrix, 0, this.rows);
+            matrix = newMatrix;
+        }
+        for (int i = this.rows; i < rows; i++) {
+            matrix[i] = new boolean[colCapacity];
+        }
+
+        this.rows = Math.max(rows, this.rows);
+        this.cols = Math.max(cols, this.cols);
+        return this;
+    }
+}
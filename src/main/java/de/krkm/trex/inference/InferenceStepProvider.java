@@ -1,6 +1,7 @@
 package de.krkm.trex.inference;
 
 import de.krkm.trex.booleanexpressions.OrExpression;
+import de.krkm.trex.reasoner.OntologyNamingManager;
 import de.krkm.trex.reasoner.TRexReasoner;
 import org.semanticweb.owlapi.model.AxiomType;
 import org.semanticweb.owlapi.model.OWLAxiom;
@@ -16,8 +17,8 @@ public abstract class InferenceStepProvider {
     protected final static Logger log = LoggerFactory.getLogger(InferenceStepProvider.class);
 
     /**
-     * Uses the given ontology for initializing the matrix. In most cases this means adding explicitly stated knowledge
-     * into the matrix.
+     * Uses the given ontology for initializing the matrix. Explicitly stated knowledge is added afterwards by the
+     * {@link AxiomDispatcher} using {@link #addStatedAxiom(Matrix, AxiomType, int, int, OWLAxiom)}.
      *
      * @param ontology ontology to extract matrix initialization data from
      * @param reasoner reasoner to use
@@ -63,6 +64,26 @@ public abstract class InferenceStepProvider {
      */
     public abstract String getIdentifier();
 
+    /**
+     * Returns the name of the axioms represented by the matrix cells in OWL 2 functional syntax, e.g.,
+     * <code>SubClassOf</code>. The entity of the row is the first argument, the entity of the column the second one.
+     *
+     * @return functional syntax name of the axioms represented by the cells, null if cells cannot be exported this way
+     */
+    public String getFunctionalSyntaxName() {
+        return null;
+    }
+
+    /**
+     * Returns the IRI of the RDF predicate representing the axioms of the matrix cells as single triples with the entity
+     * of the row as subject and the entity of the column as object.
+     *
+     * @return predicate representing the axioms of the cells, null if cells cannot be exported this way
+     */
+    public String getRDFPredicate() {
+        return null;
+    }
+
     /**
      * Returns true if the resulting matrix is symmetric. In this case the matrix implementation may opt to only store
      * non-redundant values.
@@ -73,6 +94,25 @@ public abstract class InferenceStepProvider {
         return true;
     }
 
+    /**
+     * Returns the number of matrix rows required for the entities registered in the given naming manager.
+     *
+     * @param namingManager naming manager containing the entities
+     * @return number of matrix rows required
+     */
+    public abstract int getRowDimension(OntologyNamingManager namingManager);
+
+    /**
+     * Returns the number of matrix columns required for the entities registered in the given naming manager.
+     *
+     * @param namingManager naming manager containing the entities
+     * @return number of matrix columns required
+     */
+    public int getColDimension(OntologyNamingManager namingManager) {
+        // dummy implementation for matrices using the same IDs in columns and rows
+        return getRowDimension(namingManager);
+    }
+
     /**
      * Resolves the given numerical row ID to the corresponding IRI
      */
@@ -141,6 +181,20 @@ public abstract class InferenceStepProvider {
      */
     public abstract boolean isEntailed(OWLAxiom axiom);
 
+    /**
+     * Determines the single cell representing the given axiom, if any. In contrast to {@link #isEntailed(OWLAxiom)},
+     * the signature of the axiom is not collected, thus, entailment can be checked for many axioms without creating
+     * objects. Row or column are set to -1 if the corresponding entity is unknown.
+     *
+     * @param axiom axiom of the type handled by this provider
+     * @param cell  array to store row and column of the cell in
+     * @return true if the axiom is represented by the cell, false if its entailment cannot be determined by a single
+     *         cell and {@link #isEntailed(OWLAxiom)} has to be used
+     */
+    public boolean resolveCell(OWLAxiom axiom, int[] cell) {
+        return false;
+    }
+
     /**
      * Returns the explanation for the entailment of the given axiom.
      *
@@ -150,10 +204,46 @@ public abstract class InferenceStepProvider {
     public abstract OrExpression getExplanation(OWLAxiom axiom);
 
     /**
-     * Adds the given axiom into the matrix for this provider. Such axioms must only contain properties and/or concepts
-     * which have been known previously.
+     * Returns the types of stated axioms this provider wants to receive from the {@link AxiomDispatcher}. By default,
+     * these are the axioms of the type handled by this provider.
+     *
+     * @return types of stated axioms to receive
+     */
+    public AxiomType[] getStatedAxiomTypes() {
+        return new AxiomType[]{getAxiomType()};
+    }
+
+    /**
+     * Adds a stated axiom which has been decoded by the {@link AxiomDispatcher} into the given matrix. n-ary axioms are
+     * passed as one call for each pair of named entities contained in the axiom.
      *
-     * @param axiom axiom to add
+     * @param matrix        matrix to add axiom to
+     * @param type          type of the stated axiom
+     * @param first         ID of first entity of the axiom
+     * @param second        ID of second entity of the axiom
+     * @param justification axiom to use as justification for the resulting matrix cells
      */
-    public abstract void addAxiom(OWLAxiom axiom);
+    public abstract void addStatedAxiom(Matrix matrix, AxiomType type, int first, int second, OWLAxiom justification);
+
+    /**
+     * Enqueues all cells of the given matrix whose inference might change since the given premise cell has changed.
+     * These are the cells for which {@link #infer(Matrix, int, int)} reads the premise cell. Cells of symmetric premise
+     * matrices are passed in their normalized orientation only.
+     * <p>
+     * The default implementation conservatively enqueues all cells of the matrix, providers should override it to
+     * enable efficient incremental reasoning.
+     *
+     * @param matrix     matrix to enqueue cells of
+     * @param premise    matrix containing the changed cell
+     * @param row        row of the changed cell
+     * @param col        column of the changed cell
+     * @param propagator propagator to enqueue cells to
+     */
+    public void addAffectedCells(Matrix matrix, Matrix premise, int row, int col, Propagator propagator) {
+        for (int i = 0; i < matrix.dimensionRow; i++) {
+            for (int j = 0; j < (matrix.isSymmetric() ? i + 1 : matrix.dimensionCol); j++) {
+                propagator.enqueue(matrix, i, j);
+            }
+        }
+    }
 }
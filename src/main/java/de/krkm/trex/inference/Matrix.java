@@ -1,17 +1,28 @@
 package de.krkm.trex.inference;
 
-import de.krkm.trex.booleanexpressions.ExpressionMinimizer;
 import de.krkm.trex.booleanexpressions.OrExpression;
 import de.krkm.trex.reasoner.OntologyNamingManager;
 import de.krkm.trex.reasoner.TRexReasoner;
+import de.krkm.trex.util.ConcurrentLongObjectHashMap;
+import de.krkm.trex.util.CopyOnWriteHashMap;
+import de.krkm.trex.util.CopyOnWriteLongObjectHashMap;
+import de.krkm.trex.util.LongObjectHashMap;
 import org.semanticweb.owlapi.model.AxiomType;
 import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.BitSet;
+import java.util.Collections;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import static de.krkm.trex.booleanexpressions.ExpressionMinimizer.*;
 
 /**
  * Base class for concept level inference
@@ -21,12 +32,22 @@ public class Matrix {
 
     private OntologyNamingManager namingManager;
 
-    public boolean[][] matrix;
-    private OrExpression[][] explanations;
+    private TRexReasoner reasoner;
+    private int id;
+
+    private MatrixStorage storage;
+    private CopyOnWriteLongObjectHashMap<ExplanationNode> explanations;
+    private LongObjectHashMap<OrExpression> unfolded = new LongObjectHashMap<OrExpression>();
+    private int unfoldedVersion;
+    private ConcurrentLongObjectHashMap<OrExpression> frozenUnfolded;
+    private CopyOnWriteLongObjectHashMap<OWLAxiom[]> statedJustifications =
+            new CopyOnWriteLongObjectHashMap<OWLAxiom[]>();
+    private CopyOnWriteHashMap<OWLAxiom, long[]> statedCells = new CopyOnWriteHashMap<OWLAxiom, long[]>();
 
     private final static Logger log = LoggerFactory.getLogger(Matrix.class);
 
     private boolean isSymmetric;
+    private boolean transposedIndex;
     public int dimensionRow;
     public int dimensionCol;
 
@@ -58,6 +79,8 @@ public class Matrix {
             InferenceStepProvider inferenceStep, boolean generateExplanations) {
         this.inferenceStep = inferenceStep;
         this.namingManager = namingManager;
+        this.reasoner = reasoner;
+        this.id = reasoner.registerMatrix(this);
         this.isSymmetric = inferenceStep.isSymmetric();
         this.generateExplanations = generateExplanations;
 
@@ -78,7 +101,7 @@ public class Matrix {
      */
     @Deprecated
     public int getDimensionRow() {
-        return matrix == null ? 0 : matrix.length;
+        return dimensionRow;
     }
 
     /**
@@ -92,21 +115,164 @@ public class Matrix {
         return dimensionCol;
     }
 
+    /**
+     * Sets the heap array backing this matrix. The dimensions of the matrix are set to the dimensions of the array.
+     *
+     * @param matrix array to use as storage
+     */
     public void setMatrix(boolean[][] matrix) {
-        this.matrix = matrix;
-        this.dimensionRow = matrix.length;
-        this.dimensionCol = matrix[0].length;
+        setStorage(new HeapMatrixStorage(matrix), matrix.length, matrix.length == 0 ? 0 : matrix[0].length);
     }
 
-    public void setExplanations(OrExpression[][] explanations) {
-        if (!generateExplanations) {
+    /**
+     * Sets the dimensions of this matrix and initializes an empty storage using the storage factory of the reasoner.
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     */
+    public void setDimensions(int rows, int cols) {
+        setStorage(reasoner.getStorageFactory().create(this, rows, cols), rows, cols);
+    }
+
+    /**
+     * Sets the storage for the cells of this matrix.
+     *
+     * @param storage storage to use
+     * @param rows    number of rows of the matrix
+     * @param cols    number of columns of the matrix
+     */
+    public void setStorage(MatrixStorage storage, int rows, int cols) {
+        if (transposedIndex && !(storage instanceof TransposedIndexStorage)) {
+            storage = new TransposedIndexStorage(storage, rows, cols);
+        }
+        this.storage = storage;
+        this.dimensionRow = rows;
+        this.dimensionCol = cols;
+    }
+
+    /**
+     * Returns the storage for the cells of this matrix. Cells of symmetric matrices are only stored in the lower
+     * triangle. If a transposed index is maintained, the returned storage is a {@link TransposedIndexStorage}.
+     *
+     * @return storage for the cells of this matrix
+     */
+    public MatrixStorage getStorage() {
+        return storage;
+    }
+
+    /**
+     * Sets whether a transposed copy of the cells is maintained, so that column queries like {@link #getColumn(int)}
+     * are as fast as row queries. The copy doubles the memory required for storing the cells and is updated by each
+     * call of {@link #set(int, int, boolean)}. Storages and arrays passed to {@link #setStorage} or {@link #setMatrix}
+     * are indexed once when they are set, cells written to them directly afterwards bypass the copy.
+     *
+     * @param transposedIndex if true, a transposed copy is created from the current cells and maintained from now on,
+     *                        otherwise an existing copy is dropped
+     */
+    public void setTransposedIndex(boolean transposedIndex) {
+        if (this.transposedIndex == transposedIndex) {
+            return;
+        }
+        this.transposedIndex = transposedIndex;
+        setStorage(getPrimaryStorage(), dimensionRow, dimensionCol);
+    }
+
+    /**
+     * Returns true if a transposed copy of the cells is maintained.
+     *
+     * @return true if a transposed copy of the cells is maintained
+     */
+    public boolean hasTransposedIndex() {
+        return transposedIndex;
+    }
+
+    private MatrixStorage getPrimaryStorage() {
+        return storage instanceof TransposedIndexStorage ? ((TransposedIndexStorage) storage).getPrimary() : storage;
+    }
+
+    /**
+     * Sets the naming manager used by this matrix. If the naming manager contains new entities, the matrix has to be
+     * grown using {@link #grow()} afterwards.
+     *
+     * @param namingManager naming manager to use
+     */
+    public void setNamingManager(OntologyNamingManager namingManager) {
+        this.namingManager = namingManager;
+    }
+
+    /**
+     * Grows the matrix to the dimensions required for the entities registered in its naming manager. The storage is
+     * grown by doubling its capacity, see {@link MatrixStorage#grow(int, int)}.
+     */
+    public void grow() {
+        int rows = inferenceStep.getRowDimension(namingManager);
+        int cols = inferenceStep.getColDimension(namingManager);
+        if (rows <= dimensionRow && cols <= dimensionCol) {
             return;
         }
-        this.explanations = explanations;
+        log.debug("Growing matrix {} to {}x{}", new Object[]{inferenceStep.getIdentifier(), rows, cols});
+
+        setStorage(storage.grow(rows, cols), Math.max(rows, dimensionRow), Math.max(cols, dimensionCol));
+    }
+
+    /**
+     * Returns the ID of this matrix which is unique within its reasoner.
+     *
+     * @return ID of this matrix
+     */
+    public int getId() {
+        return id;
+    }
+
+    /**
+     * Returns the packed index for the given matrix cell.
+     *
+     * @param row row of matrix cell
+     * @param col column of matrix cell
+     * @return packed index for the given matrix cell
+     */
+    public static long cellIndex(int row, int col) {
+        return ((long) row << 32) | (col & 0xffffffffL);
+    }
+
+    /**
+     * Returns the row of the given packed cell index.
+     *
+     * @param cell packed cell index
+     * @return row of the given cell
+     */
+    public static int rowOf(long cell) {
+        return (int) (cell >>> 32);
+    }
+
+    /**
+     * Returns the column of the given packed cell index.
+     *
+     * @param cell packed cell index
+     * @return column of the given cell
+     */
+    public static int colOf(long cell) {
+        return (int) cell;
+    }
+
+    /**
+     * Returns the packed index for the given matrix cell where cells of symmetric matrices are mapped to the lower
+     * triangle.
+     *
+     * @param row row of matrix cell
+     * @param col column of matrix cell
+     * @return normalized packed index for the given matrix cell
+     */
+    public long normalizedCellIndex(int row, int col) {
+        if (isSymmetric && row < col) {
+            return cellIndex(col, row);
+        }
+        return cellIndex(row, col);
     }
 
     /**
-     * Adds the given expression as explanation for the axiom in the given matrix cell.
+     * Adds the given expression as explanation for the axiom in the given matrix cell. This method is meant for
+     * stated axioms, inferred axioms should be recorded using the <code>addDerivation</code> methods.
      *
      * @param row        row of matrix cell
      * @param col        column of matrix cell
@@ -117,22 +283,229 @@ public class Matrix {
         if (!generateExplanations) {
             return false;
         }
-        if (isSymmetric && row < col) {
-            int temp = col;
-            col = row;
-            row = temp;
+        long cell = normalizedCellIndex(row, col);
+        ExplanationNode prev = getExplanationNode(cell);
+        if (prev == null) {
+            prev = ExplanationNode.EMPTY;
+        }
+        ExplanationNode node = prev.withStated(expression);
+        if (node == prev) {
+            return false;
+        }
+        setExplanationNode(cell, node);
+        reasoner.getExplanationIndex().addStated(this, cell, expression);
+        return true;
+    }
+
+    /**
+     * Records that the given matrix cell has been derived from two premise cells using the given rule.
+     *
+     * @param row     row of matrix cell
+     * @param col     column of matrix cell
+     * @param rule    identifier of the rule applied
+     * @param matrix1 matrix of first premise
+     * @param row1    row of first premise
+     * @param col1    column of first premise
+     * @param matrix2 matrix of second premise
+     * @param row2    row of second premise
+     * @param col2    column of second premise
+     * @return true if the derivation has not been known before, otherwise false
+     */
+    public boolean addDerivation(int row, int col, String rule, Matrix matrix1, int row1, int col1, Matrix matrix2,
+            int row2, int col2) {
+        if (!generateExplanations) {
+            return false;
+        }
+        long cell = normalizedCellIndex(row, col);
+        long cell1 = matrix1.normalizedCellIndex(row1, col1);
+        long cell2 = matrix2.normalizedCellIndex(row2, col2);
+        ExplanationNode prev = getExplanationNode(cell);
+        if (prev == null) {
+            prev = ExplanationNode.EMPTY;
+        }
+        else if (prev.hasDerivation(rule, matrix1.id, cell1, matrix2.id, cell2)) {
+            return false;
+        }
+        Derivation derivation = new Derivation(rule, new int[]{matrix1.id, matrix2.id}, new long[]{cell1, cell2});
+        setExplanationNode(cell, prev.withDerivation(derivation));
+        reasoner.getExplanationIndex().addDerivation(this, cell, derivation);
+        return true;
+    }
+
+    /**
+     * Records that the given matrix cell has been derived from three premise cells using the given rule.
+     *
+     * @param row     row of matrix cell
+     * @param col     column of matrix cell
+     * @param rule    identifier of the rule applied
+     * @param matrix1 matrix of first premise
+     * @param row1    row of first premise
+     * @param col1    column of first premise
+     * @param matrix2 matrix of second premise
+     * @param row2    row of second premise
+     * @param col2    column of second premise
+     * @param matrix3 matrix of third premise
+     * @param row3    row of third premise
+     * @param col3    column of third premise
+     * @return true if the derivation has not been known before, otherwise false
+     */
+    public boolean addDerivation(int row, int col, String rule, Matrix matrix1, int row1, int col1, Matrix matrix2,
+            int row2, int col2, Matrix matrix3, int row3, int col3) {
+        if (!generateExplanations) {
+            return false;
+        }
+        long cell = normalizedCellIndex(row, col);
+        long cell1 = matrix1.normalizedCellIndex(row1, col1);
+        long cell2 = matrix2.normalizedCellIndex(row2, col2);
+        long cell3 = matrix3.normalizedCellIndex(row3, col3);
+        ExplanationNode prev = getExplanationNode(cell);
+        if (prev == null) {
+            prev = ExplanationNode.EMPTY;
+        }
+        else if (prev.hasDerivation(rule, matrix1.id, cell1, matrix2.id, cell2, matrix3.id, cell3)) {
+            return false;
+        }
+        Derivation derivation = new Derivation(rule, new int[]{matrix1.id, matrix2.id, matrix3.id},
+                new long[]{cell1, cell2, cell3});
+        setExplanationNode(cell, prev.withDerivation(derivation));
+        reasoner.getExplanationIndex().addDerivation(this, cell, derivation);
+        return true;
+    }
+
+    /**
+     * Returns the explanation node stored for the given normalized cell index.
+     *
+     * @param cell normalized packed cell index
+     * @return explanation node of cell, null if no explanation is stored for the cell
+     */
+    public ExplanationNode getExplanationNode(long cell) {
+        return explanations == null ? null : explanations.get(cell);
+    }
+
+    /**
+     * Returns the number of cells for which an explanation is stored.
+     *
+     * @return number of cells for which an explanation is stored
+     */
+    public int getNumberOfExplanations() {
+        return explanations == null ? 0 : explanations.size();
+    }
+
+    /**
+     * Returns the normalized packed indexes of all cells for which an explanation is stored.
+     *
+     * @return normalized packed indexes of all explained cells
+     */
+    public long[] getExplainedCells() {
+        if (explanations == null) {
+            return new long[0];
+        }
+        return explanations.getKeys();
+    }
+
+    /**
+     * Restores a previously stored explanation node for the given cell, e.g., when loading a snapshot. The stated
+     * explanation and all derivations of the node are registered with the explanation index.
+     *
+     * @param cell normalized packed cell index
+     * @param node explanation node to restore
+     */
+    public void restoreExplanationNode(long cell, ExplanationNode node) {
+        if (!generateExplanations) {
+            return;
+        }
+        setExplanationNode(cell, node);
+        ExplanationIndex index = reasoner.getExplanationIndex();
+        index.addStated(this, cell, node.getStated());
+        for (int i = 0; i < node.getNumberOfDerivations(); i++) {
+            index.addDerivation(this, cell, node.getDerivation(i));
+        }
+    }
+
+    /**
+     * Replaces the explanations of this matrix by the ones of the given matrix, e.g., when creating a snapshot. Since
+     * explanation nodes are immutable, the store is forked, see {@link CopyOnWriteLongObjectHashMap#fork()}, so that
+     * both matrices share all blocks of explanation nodes until either of them modifies a block. Thus, the costs do not
+     * depend on the number of explained cells. The explanation index is not updated.
+     *
+     * @param source matrix to copy explanations from, must have the same ID and dimensions as this matrix
+     */
+    public void copyExplanations(Matrix source) {
+        explanations = source.explanations == null ? null : source.explanations.fork();
+        reasoner.explanationsChanged();
+    }
+
+    /**
+     * Replaces the stated justifications of this matrix by the ones of the given matrix, e.g., when forking a
+     * reasoner. Like explanations, they are shared in blocks until either matrix modifies a block. The cells
+     * themselves are not modified.
+     *
+     * @param source matrix to copy stated justifications from, must have the same ID as this matrix
+     */
+    public void copyStated(Matrix source) {
+        statedJustifications = source.statedJustifications.fork();
+        statedCells = source.statedCells.fork();
+    }
+
+    /**
+     * Makes this matrix read-only. Afterwards, setting cells fails and unfolded explanations are memoized in a
+     * {@link ConcurrentLongObjectHashMap}, so that any number of threads may query cells and explanations of this
+     * matrix concurrently.
+     */
+    public void freeze() {
+        frozenUnfolded = new ConcurrentLongObjectHashMap<OrExpression>();
+    }
+
+    /**
+     * Returns true if this matrix is read-only, see {@link #freeze()}.
+     *
+     * @return true if this matrix is read-only
+     */
+    public boolean isFrozen() {
+        return frozenUnfolded != null;
+    }
+
+    private void setExplanationNode(long cell, ExplanationNode node) {
+        // the store is only allocated once the first explanation is recorded and holds explained cells only
+        if (explanations == null) {
+            explanations = new CopyOnWriteLongObjectHashMap<ExplanationNode>();
+        }
+        explanations.put(cell, node);
+        reasoner.explanationsChanged();
+    }
+
+    /**
+     * Returns the memoized unfolded explanation for the given cell if it is still valid.
+     */
+    OrExpression getUnfolded(long cell) {
+        if (frozenUnfolded != null) {
+            return frozenUnfolded.get(cell);
+        }
+        if (unfoldedVersion != reasoner.getExplanationVersion()) {
+            unfolded.clear();
+            unfoldedVersion = reasoner.getExplanationVersion();
+        }
+        return unfolded.get(cell);
+    }
+
+    /**
+     * Memoizes the unfolded explanation for the given cell.
+     */
+    void putUnfolded(long cell, OrExpression explanation) {
+        if (frozenUnfolded != null) {
+            frozenUnfolded.put(cell, explanation);
+            return;
         }
-        if (explanations[row][col] == null) {
-            explanations[row][col] = new OrExpression();
+        if (unfoldedVersion != reasoner.getExplanationVersion()) {
+            unfolded.clear();
+            unfoldedVersion = reasoner.getExplanationVersion();
         }
-        OrExpression prev = explanations[row][col].copy();
-        explanations[row][col].getExpressions().addAll(expression.getExpressions());
-        ExpressionMinimizer.minimize(explanations[row][col], expression);
-        return !prev.equals(explanations[row][col]);
+        unfolded.put(cell, explanation);
     }
 
     /**
-     * Returns the explanation for the axiom in the given matrix cell.
+     * Returns the explanation for the axiom in the given matrix cell. The explanation is unfolded from the stored
+     * derivations on demand.
      *
      * @param row row of matrix cell
      * @param col column of matrix cell
@@ -143,12 +516,36 @@ public class Matrix {
             throw new UnsupportedOperationException(
                     "Trying to retrieve explanations from an reasoner with disabled explanation support");
         }
-        if (isSymmetric && row < col) {
-            int temp = col;
-            col = row;
-            row = temp;
+        return ExplanationUnfolder.unfold(reasoner, this, normalizedCellIndex(row, col));
+    }
+
+    /**
+     * Returns the axiom represented by the given matrix cell.
+     *
+     * @param row row of matrix cell
+     * @param col column of matrix cell
+     * @return axiom represented by the cell, null if the cell does not represent any axiom
+     */
+    public OWLAxiom getOWLAxiom(int row, int col) {
+        return inferenceStep.getAxiom(this, row, col);
+    }
+
+    /**
+     * Returns the justifications for the axiom in the given matrix cell. The axiom sets of the single justifications
+     * are only created while iterating, the explanation itself is completely unfolded beforehand, see
+     * {@link OrExpression#getJustifications(boolean)}.
+     *
+     * @param row         row of matrix cell
+     * @param col         column of matrix cell
+     * @param orderBySize if true, justifications are returned in ascending order of their size
+     * @return justifications for axiom, empty if there is no explanation for the cell
+     */
+    public Iterable<Set<OWLAxiom>> getJustifications(int row, int col, boolean orderBySize) {
+        OrExpression explanation = getExplanation(row, col);
+        if (explanation == null) {
+            return Collections.emptyList();
         }
-        return explanations[row][col];
+        return explanation.getJustifications(orderBySize);
     }
 
     /**
@@ -169,14 +566,22 @@ public class Matrix {
             indexA = temp;
         }
 
-        if (matrix[indexA][indexB] == val) {
+        if (storage.get(indexA, indexB) == val) {
             return false;
         }
+        checkModifiable();
 
-        matrix[indexA][indexB] = val;
+        storage.set(indexA, indexB, val);
+        reasoner.getPropagator().cellChanged(this, indexA, indexB);
         return true;
     }
 
+    private void checkModifiable() {
+        if (frozenUnfolded != null) {
+            throw new IllegalStateException("Matrix " + inferenceStep.getIdentifier() + " is read-only");
+        }
+    }
+
     /**
      * Starts the materialization process using the inference step provider for this matrix
      */
@@ -199,13 +604,188 @@ public class Matrix {
     }
 
     /**
-     * Adds the given axiom to this matrix. The axiom must not introduce new concepts or properties but may only add
-     * knowledge about already existing ones.
+     * Adds the given axiom to this matrix. Concepts and properties not known before are registered with the reasoner.
      *
      * @param axiom axiom to add
      */
     public void addAxiom(OWLAxiom axiom) {
-        inferenceStep.addAxiom(axiom);
+        reasoner.getAxiomDispatcher().dispatch(axiom, this);
+    }
+
+    /**
+     * Adds a stated axiom decoded by the {@link AxiomDispatcher} to this matrix.
+     *
+     * @param type          type of the stated axiom
+     * @param first         ID of first entity of the axiom
+     * @param second        ID of second entity of the axiom
+     * @param justification axiom to use as justification for the resulting matrix cells
+     */
+    public void addStatedAxiom(AxiomType type, int first, int second, OWLAxiom justification) {
+        inferenceStep.addStatedAxiom(this, type, first, second, justification);
+    }
+
+    /**
+     * Sets the given cell to true because of the given stated justification. The justification is recorded as stated
+     * explanation of the cell and remembered for {@link #removeStated(OWLAxiom)}. Inference step providers should use
+     * this method for adding stated axioms.
+     *
+     * @param row           row of matrix cell
+     * @param col           column of matrix cell
+     * @param justification justification stating the cell
+     */
+    public void addStated(int row, int col, OWLAxiom justification) {
+        long cell = normalizedCellIndex(row, col);
+        OWLAxiom[] justifications = statedJustifications.get(cell);
+        if (justifications == null) {
+            statedJustifications.put(cell, new OWLAxiom[]{justification});
+        }
+        else if (!contains(justifications, justification)) {
+            OWLAxiom[] extended = new OWLAxiom[justifications.length + 1];
+            System.arraycopy(justifications, 0, extended, 0, justifications.length);
+            extended[justifications.length] = justification;
+            statedJustifications.put(cell, extended);
+        }
+
+        long[] cells = statedCells.get(justification);
+        if (cells == null) {
+            statedCells.put(justification, new long[]{cell});
+        }
+        else if (!contains(cells, cell)) {
+            long[] extended = new long[cells.length + 1];
+            System.arraycopy(cells, 0, extended, 0, cells.length);
+            extended[cells.length] = cell;
+            statedCells.put(justification, extended);
+        }
+
+        set(row, col, true);
+        if (reasoner.isGenerateExplanations()) {
+            addExplanation(row, col, or(and(literal(justification))));
+        }
+    }
+
+    /**
+     * Forgets the given stated justification. The cells stated by it are not modified, they have to be reset using the
+     * {@link Propagator}.
+     *
+     * @param justification justification to remove
+     * @return normalized packed indexes of the cells stated by the justification
+     */
+    public long[] removeStated(OWLAxiom justification) {
+        long[] cells = statedCells.remove(justification);
+        if (cells == null) {
+            return new long[0];
+        }
+        for (long cell : cells) {
+            OWLAxiom[] justifications = statedJustifications.get(cell);
+            if (justifications.length == 1) {
+                statedJustifications.remove(cell);
+                continue;
+            }
+            OWLAxiom[] reduced = new OWLAxiom[justifications.length - 1];
+            int n = 0;
+            for (OWLAxiom j : justifications) {
+                if (!j.equals(justification)) {
+                    reduced[n++] = j;
+                }
+            }
+            statedJustifications.put(cell, reduced);
+        }
+        return cells;
+    }
+
+    /**
+     * Returns true if the given cell is stated by any justification.
+     *
+     * @param cell normalized packed cell index
+     * @return true if the cell is stated
+     */
+    public boolean isStated(long cell) {
+        return statedJustifications.containsKey(cell);
+    }
+
+    /**
+     * Resets the given cell to its stated state, i.e., the cell is true only if it is stated and its explanation only
+     * consists of the stated justifications. All derivations of the cell are removed from the explanation index.
+     */
+    void resetCell(long cell) {
+        int row = rowOf(cell);
+        int col = colOf(cell);
+        ExplanationNode node = getExplanationNode(cell);
+        if (node != null) {
+            reasoner.getExplanationIndex().removeCell(this, cell, node);
+            explanations.remove(cell);
+            reasoner.explanationsChanged();
+        }
+        OWLAxiom[] justifications = statedJustifications.get(cell);
+        if (storage.get(row, col) != (justifications != null)) {
+            storage.set(row, col, justifications != null);
+            reasoner.getPropagator().cellChanged(this, row, col);
+        }
+        if (justifications != null && reasoner.isGenerateExplanations()) {
+            for (OWLAxiom justification : justifications) {
+                addExplanation(row, col, or(and(literal(justification))));
+            }
+        }
+    }
+
+    private static boolean contains(OWLAxiom[] axioms, OWLAxiom axiom) {
+        for (OWLAxiom a : axioms) {
+            if (a.equals(axiom)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(long[] cells, long cell) {
+        for (long c : cells) {
+            if (c == cell) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Runs the inference step of this matrix for the given cell.
+     *
+     * @param row row of matrix cell
+     * @param col column of matrix cell
+     * @return true if the cell or its explanation has changed
+     */
+    public boolean infer(int row, int col) {
+        return inferenceStep.infer(this, row, col);
+    }
+
+    /**
+     * Enqueues all cells of this matrix whose inference might change due to a change of the given premise cell, see
+     * {@link InferenceStepProvider#addAffectedCells(Matrix, Matrix, int, int, Propagator)}.
+     *
+     * @param premise    matrix containing the changed cell
+     * @param row        row of changed cell
+     * @param col        column of changed cell
+     * @param propagator propagator to enqueue cells to
+     */
+    public void addAffectedCells(Matrix premise, int row, int col, Propagator propagator) {
+        inferenceStep.addAffectedCells(this, premise, row, col, propagator);
+    }
+
+    /**
+     * Returns true if this matrix is symmetric, i.e., only its lower triangle is stored.
+     *
+     * @return true if this matrix is symmetric
+     */
+    public boolean isSymmetric() {
+        return isSymmetric;
+    }
+
+    /**
+     * Returns the types of stated axioms this matrix is interested in.
+     *
+     * @return types of stated axioms this matrix is interested in
+     */
+    public AxiomType[] getStatedAxiomTypes() {
+        return inferenceStep.getStatedAxiomTypes();
     }
 
     /**
@@ -225,7 +805,7 @@ public class Matrix {
             indexA = temp;
         }
 
-        return matrix[indexA][indexB];
+        return storage.get(indexA, indexB);
     }
 
     /**
@@ -243,11 +823,13 @@ public class Matrix {
             indexA = temp;
         }
 
-        if (matrix[indexA][indexB] == val) {
+        if (storage.get(indexA, indexB) == val) {
             return false;
         }
+        checkModifiable();
 
-        matrix[indexA][indexB] = val;
+        storage.set(indexA, indexB, val);
+        reasoner.getPropagator().cellChanged(this, indexA, indexB);
         return true;
     }
 
@@ -260,9 +842,125 @@ public class Matrix {
      */
     public boolean get(int indexA, int indexB) {
         if (isSymmetric && indexA < indexB) {
-            return matrix[indexB][indexA];
+            return storage.get(indexB, indexA);
+        }
+        return storage.get(indexA, indexB);
+    }
+
+    /**
+     * Returns the first column starting at <code>fromCol</code> whose cell in the given row represents an entailed
+     * axiom. For symmetric matrices, only the cells below the diagonal are considered, so that each axiom is
+     * represented by exactly one cell. Iterating over all axioms of a matrix this way does not access unset cells one
+     * by one.
+     *
+     * @param row     row to search
+     * @param fromCol first column to check
+     * @return next column representing an axiom, -1 if there is none in this row
+     */
+    public int nextSetColumn(int row, int fromCol) {
+        return storage.nextSetColumn(row, fromCol, isSymmetric ? row : dimensionCol);
+    }
+
+    /**
+     * Returns all columns whose cell in the given row is set. For symmetric matrices, this includes the cells above
+     * the diagonal, i.e., the result is the same as calling {@link #get(int, int)} for each column.
+     *
+     * @param row row to return
+     * @return set of columns whose cell in the given row is set
+     */
+    public BitSet getRow(int row) {
+        BitSet res = new BitSet(dimensionCol);
+        getRow(row, res);
+        return res;
+    }
+
+    /**
+     * Sets the bits of all columns whose cell in the given row is set in the given bit set. All other bits are left
+     * unchanged which allows computing unions of rows.
+     *
+     * @param row    row to return
+     * @param target bit set to set the columns in
+     */
+    public void getRow(int row, BitSet target) {
+        int toCol = isSymmetric ? row + 1 : dimensionCol;
+        for (int j = storage.nextSetColumn(row, 0, toCol); j != -1; j = storage.nextSetColumn(row, j + 1, toCol)) {
+            target.set(j);
+        }
+        if (isSymmetric) {
+            for (int i = storage.nextSetRow(row, row + 1, dimensionRow); i != -1;
+                 i = storage.nextSetRow(row, i + 1, dimensionRow)) {
+                target.set(i);
+            }
+        }
+    }
+
+    /**
+     * Returns all rows whose cell in the given column is set. For symmetric matrices, this is the same as
+     * {@link #getRow(int)}.
+     *
+     * @param col column to return
+     * @return set of rows whose cell in the given column is set
+     */
+    public BitSet getColumn(int col) {
+        BitSet res = new BitSet(dimensionRow);
+        getColumn(col, res);
+        return res;
+    }
+
+    /**
+     * Sets the bits of all rows whose cell in the given column is set in the given bit set. All other bits are left
+     * unchanged.
+     *
+     * @param col    column to return
+     * @param target bit set to set the rows in
+     */
+    public void getColumn(int col, BitSet target) {
+        if (isSymmetric) {
+            getRow(col, target);
+            return;
+        }
+        for (int i = storage.nextSetRow(col, 0, dimensionRow); i != -1;
+             i = storage.nextSetRow(col, i + 1, dimensionRow)) {
+            target.set(i);
         }
-        return matrix[indexA][indexB];
+    }
+
+    /**
+     * Returns the columns whose cell in the given row is set in ascending order.
+     *
+     * @param row row to return
+     * @return columns whose cell in the given row is set
+     */
+    public int[] getRowIndices(int row) {
+        return toArray(getRow(row));
+    }
+
+    /**
+     * Returns the rows whose cell in the given column is set in ascending order.
+     *
+     * @param col column to return
+     * @return rows whose cell in the given column is set
+     */
+    public int[] getColumnIndices(int col) {
+        return toArray(getColumn(col));
+    }
+
+    private static int[] toArray(BitSet bits) {
+        int[] res = new int[bits.cardinality()];
+        int n = 0;
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            res[n++] = i;
+        }
+        return res;
+    }
+
+    /**
+     * Returns the inference step provider implementing the inference for this matrix
+     *
+     * @return inference step provider of this matrix
+     */
+    public InferenceStepProvider getInferenceStepProvider() {
+        return inferenceStep;
     }
 
     /**
@@ -294,7 +992,7 @@ public class Matrix {
             for (int j = 0; j < (isSymmetric ? i : dimensionCol); j++) {
                 String axiom = inferenceStep.getAxiomRepresentation(this, i, j);
                 if (axiom != null) {
-                    sb.append(axiom).append(" -- ").append(explanations != null ? explanations[i][j].toString() : "")
+                    sb.append(axiom).append(" -- ").append(generateExplanations ? getExplanation(i, j).toString() : "")
                             .append("\n");
                 }
             }
@@ -309,17 +1007,73 @@ public class Matrix {
     public Set<OWLAxiom> getOWLAxioms() {
         Set<OWLAxiom> axioms = new HashSet<OWLAxiom>();
         for (int i = 0; i < dimensionRow; i++) {
-            for (int j = 0; j < (isSymmetric ? i : dimensionCol); j++) {
-                OWLAxiom axiom = inferenceStep.getAxiom(this, i, j);
-                if (axiom != null) {
-                    axioms.add(axiom);
-                }
+            for (int j = nextSetColumn(i, 0); j != -1; j = nextSetColumn(i, j + 1)) {
+                axioms.add(inferenceStep.getAxiom(this, i, j));
             }
         }
 
         return axioms;
     }
 
+    /**
+     * Returns a cursor over all cells of this matrix representing entailed axioms. The cursor can be split for parallel
+     * consumption.
+     *
+     * @return cursor positioned before the first cell
+     */
+    public CellCursor cursor() {
+        return new CellCursor(this, 0, dimensionRow);
+    }
+
+    /**
+     * Returns all axioms contained in this matrix. In contrast to {@link #getOWLAxioms()}, the axioms are created
+     * while iterating and are not collected.
+     *
+     * @return axioms contained in this matrix
+     */
+    public Iterable<OWLAxiom> iterateOWLAxioms() {
+        return new Iterable<OWLAxiom>() {
+            @Override
+            public Iterator<OWLAxiom> iterator() {
+                final CellCursor cursor = cursor();
+                return new Iterator<OWLAxiom>() {
+                    private boolean hasNext = cursor.next();
+
+                    @Override
+                    public boolean hasNext() {
+                        return hasNext;
+                    }
+
+                    @Override
+                    public OWLAxiom next() {
+                        if (!hasNext) {
+                            throw new NoSuchElementException();
+                        }
+                        OWLAxiom axiom = cursor.getAxiom();
+                        hasNext = cursor.next();
+                        return axiom;
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Returns a stream of all axioms contained in this matrix. Like {@link #iterateOWLAxioms()}, the axioms are created
+     * while consuming the stream. Parallel streams split the rows of the matrix, see {@link CellCursor#trySplit()}.
+     *
+     * @param parallel true to return a parallel stream
+     * @return stream of the axioms contained in this matrix
+     */
+    public Stream<OWLAxiom> axioms(boolean parallel) {
+        return StreamSupport.stream(new AxiomSpliterator(Collections.singletonList(cursor())), parallel);
+    }
+
     /**
      * Returns the axiom type handled by this matrix
      *
@@ -0,0 +1,57 @@
+package de.krkm.trex.inference;
+
+/**
+ * Storage for the cells of a {@link Matrix}. Storages do not know about symmetric matrices, i.e., the cells are
+ * accessed exactly as given and the matrix is responsible for mapping cells to the lower triangle.
+ */
+public interface MatrixStorage {
+    /**
+     * Returns the value of the given cell.
+     *
+     * @param row row of cell
+     * @param col column of cell
+     * @return value of the given cell
+     */
+    boolean get(int row, int col);
+
+    /**
+     * Sets the value of the given cell.
+     *
+     * @param row row of cell
+     * @param col column of cell
+     * @param val value to set
+     */
+    void set(int row, int col, boolean val);
+
+    /**
+     * Returns the first column in the range from <code>fromCol</code> (inclusive) to <code>toCol</code> (exclusive)
+     * whose cell in the given row is set.
+     *
+     * @param row     row to search
+     * @param fromCol first column to check
+     * @param toCol   column to stop at
+     * @return first set column in the given range, -1 if there is none
+     */
+    int nextSetColumn(int row, int fromCol, int toCol);
+
+    /**
+     * Returns the first row in the range from <code>fromRow</code> (inclusive) to <code>toRow</code> (exclusive) whose
+     * cell in the given column is set.
+     *
+     * @param col     column to search
+     * @param fromRow first row to check
+     * @param toRow   row to stop at
+     * @return first set row in the given range, -1 if there is none
+     */
+    int nextSetRow(int col, int fromRow, int toRow);
+
+    /**
+     * Grows the storage to provide at least the given number of rows and columns. The values of all existing cells are
+     * kept and new cells are false.
+     *
+     * @param rows number of rows required
+     * @param cols number of columns required
+     * @return storage providing the requested dimensions, either this storage or a new one
+     */
+    MatrixStorage grow(int rows, int cols);
+}
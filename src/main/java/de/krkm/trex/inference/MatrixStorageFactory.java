@@ -0,0 +1,16 @@
+package de.krkm.trex.inference;
+
+/**
+ * Creates the storages used for the matrices of a reasoner.
+ */
+public interface MatrixStorageFactory {
+    /**
+     * Creates an empty storage for the given matrix.
+     *
+     * @param matrix matrix to create storage for
+     * @param rows   number of rows
+     * @param cols   number of columns
+     * @return empty storage having the given dimensions
+     */
+    MatrixStorage create(Matrix matrix, int rows, int cols);
+}
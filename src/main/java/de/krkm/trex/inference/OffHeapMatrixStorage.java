@@ -0,0 +1,301 @@
+package de.krkm.trex.inference;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Stores matrix cells as bit rows outside of the Java heap, either in a direct byte buffer or in a memory-mapped file.
+ * Each row consists of a fixed number of 64 bit words where bit <code>j</code> of word <code>w</code> represents the
+ * column <code>64 * w + j</code>. Thus, the storage is not visible to the garbage collector and file-backed storages are
+ * paged by the operating system.
+ * <p>
+ * Files created by {@link #map(java.io.File, int, int)} start with a header containing magic number, number of rows,
+ * number of columns and words per row, each as a 32 bit integer, followed by the rows. Since the file is updated in
+ * place, it doubles as on-disk format of the matrix and can be reopened using {@link #open(java.io.File)}. The same row
+ * layout is used for the matrices contained in snapshots.
+ * <p>
+ * A single storage is limited to 2 GB.
+ */
+public class OffHeapMatrixStorage implements MatrixStorage {
+    private final static int MAGIC = 0x54524d58;
+    private final static int HEADER_SIZE = 16;
+
+    /**
+     * Factory creating storages backed by direct byte buffers
+     */
+    public final static MatrixStorageFactory DIRECT_FACTORY = new MatrixStorageFactory() {
+        @Override
+        public MatrixStorage create(Matrix matrix, int rows, int cols) {
+            return allocate(rows, cols);
+        }
+    };
+
+    private final File file;
+    private ByteBuffer buffer;
+    private final int offset;
+    private int rows;
+    private int cols;
+    private int rowCapacity;
+    private int wordsPerRow;
+
+    /**
+     * Initializes a storage working on the rows contained in the given buffer starting at the given offset. The buffer
+     * is neither copied nor cleared. If the storage has to be grown, the rows are copied into a direct buffer.
+     *
+     * @param buffer      buffer containing the rows
+     * @param offset      offset of the first row in the buffer, should be a multiple of 8
+     * @param rows        number of rows
+     * @param cols        number of columns
+     * @param wordsPerRow number of 64 bit words per row
+     */
+    public OffHeapMatrixStorage(ByteBuffer buffer, int offset, int rows, int cols, int wordsPerRow) {
+        this(null, buffer, offset, rows, cols, rows, wordsPerRow);
+    }
+
+    private OffHeapMatrixStorage(File file, ByteBuffer buffer, int offset, int rows, int cols, int rowCapacity,
+            int wordsPerRow) {
+        if (cols > wordsPerRow * 64) {
+            throw new IllegalArgumentException("Rows of " + wordsPerRow + " words cannot hold " + cols + " columns");
+        }
+        this.file = file;
+        this.buffer = buffer;
+        this.offset = offset;
+        this.rows = rows;
+        this.cols = cols;
+        this.rowCapacity = rowCapacity;
+        this.wordsPerRow = wordsPerRow;
+    }
+
+    /**
+     * Returns a storage backed by a newly allocated direct byte buffer.
+     *
+     * @param rows number of rows
+     * @param cols number of columns
+     * @return empty storage having the given dimensions
+     */
+    public static OffHeapMatrixStorage allocate(int rows, int cols) {
+        int words = wordsFor(cols);
+        return new OffHeapMatrixStorage(null, ByteBuffer.allocateDirect(size(0, rows, words)), 0, rows, cols, rows,
+                words);
+    }
+
+    /**
+     * Returns a factory creating storages backed by memory-mapped files in the given directory. The file of a matrix
+     * is named after its ID and axiom type identifier. Existing files are overwritten.
+     *
+     * @param directory directory to create files in
+     * @return factory creating file-backed storages
+     */
+    public static MatrixStorageFactory mappedFactory(final File directory) {
+        return new MatrixStorageFactory() {
+            @Override
+            public MatrixStorage create(Matrix matrix, int rows, int cols) {
+                File file = new File(directory, matrix.getId() + "-" + matrix.getAxiomTypeIdentifier() + ".matrix");
+                try {
+                    return map(file, rows, cols);
+                }
+                catch (IOException e) {
+                    throw new IllegalStateException("Unable to create matrix storage " + file, e);
+                }
+            }
+        };
+    }
+
+    /**
+     * Returns a storage backed by the given file which is created or overwritten.
+     *
+     * @param file file to store matrix in
+     * @param rows number of rows
+     * @param cols number of columns
+     * @return empty storage having the given dimensions
+     * @throws IOException on errors creating or mapping the file
+     */
+    public static OffHeapMatrixStorage map(File file, int rows, int cols) throws IOException {
+        int words = wordsFor(cols);
+        MappedByteBuffer buffer = mapFile(file, size(HEADER_SIZE, rows, words), true);
+        OffHeapMatrixStorage storage = new OffHeapMatrixStorage(file, buffer, HEADER_SIZE, rows, cols, rows, words);
+        storage.clear(0, rows);
+        storage.writeHeader();
+        return storage;
+    }
+
+    /**
+     * Reopens a storage previously created by {@link #map(java.io.File, int, int)}.
+     *
+     * @param file file containing the matrix
+     * @return storage backed by the given file
+     * @throws IOException if the file cannot be mapped or is no matrix file
+     */
+    public static OffHeapMatrixStorage open(File file) throws IOException {
+        MappedByteBuffer buffer = mapFile(file, -1, false);
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+            throw new IOException("File " + file + " is no matrix file");
+        }
+        int rows = buffer.getInt(4);
+        int cols = buffer.getInt(8);
+        int words = buffer.getInt(12);
+        int rowCapacity = (buffer.capacity() - HEADER_SIZE) / (words * 8);
+        return new OffHeapMatrixStorage(file, buffer, HEADER_SIZE, rows, cols, rowCapacity, words);
+    }
+
+    /**
+     * Writes all changes of a file-backed storage to disk.
+     */
+    public void flush() {
+        if (buffer instanceof MappedByteBuffer) {
+            ((MappedByteBuffer) buffer).force();
+        }
+    }
+
+    @Override
+    public boolean get(int row, int col) {
+        return (buffer.getLong(wordIndex(row, col)) & (1L << col)) != 0;
+    }
+
+    @Override
+    public void set(int row, int col, boolean val) {
+        int index = wordIndex(row, col);
+        long word = buffer.getLong(index);
+        buffer.putLong(index, val ? word | (1L << col) : word & ~(1L << col));
+    }
+
+    @Override
+    public int nextSetColumn(int row, int fromCol, int toCol) {
+        if (fromCol >= toCol) {
+            return -1;
+        }
+        int index = wordIndex(row, fromCol);
+        long word = buffer.getLong(index) & (-1L << fromCol);
+        int wordCol = fromCol & ~63;
+        while (true) {
+            if (word != 0) {
+                int col = wordCol + Long.numberOfTrailingZeros(word);
+                return col < toCol ? col : -1;
+            }
+            wordCol += 64;
+            if (wordCol >= toCol) {
+                return -1;
+            }
+            index += 8;
+            word = buffer.getLong(index);
+        }
+    }
+
+    @Override
+    public int nextSetRow(int col, int fromRow, int toRow) {
+        long mask = 1L << col;
+        for (int i = fromRow; i < toRow; i++) {
+            if ((buffer.getLong(wordIndex(i, col)) & mask) != 0) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public MatrixStorage grow(int rows, int cols) {
+        if (rows <= this.rows && cols <= this.cols) {
+            return this;
+        }
+        int newRows = Math.max(rows, this.rows);
+        int newCols = Math.max(cols, this.cols);
+        int newWords = wordsFor(newCols) > wordsPerRow ? Math.max(wordsFor(newCols), wordsPerRow << 1) : wordsPerRow;
+        int newRowCapacity = newRows > rowCapacity ? Math.max(newRows, rowCapacity << 1) : rowCapacity;
+
+        if (newWords == wordsPerRow && newRowCapacity == rowCapacity) {
+            clear(this.rows, newRows);
+            this.rows = newRows;
+            this.cols = newCols;
+            writeHeader();
+            return this;
+        }
+
+        if (file == null) {
+            ByteBuffer newBuffer = ByteBuffer.allocateDirect(size(0, newRowCapacity, newWords));
+            for (int i = 0; i < this.rows; i++) {
+                for (int w = 0; w < wordsPerRow; w++) {
+                    newBuffer.putLong((i * newWords + w) * 8, buffer.getLong(offset + (i * wordsPerRow + w) * 8));
+                }
+            }
+            return new OffHeapMatrixStorage(null, newBuffer, 0, newRows, newCols, newRowCapacity, newWords);
+        }
+
+        try {
+            buffer = mapFile(file, size(HEADER_SIZE, newRowCapacity, newWords), false);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Unable to grow matrix storage " + file, e);
+        }
+        // move rows to their new positions starting with the last word of the last row, since rows only move towards
+        // the end of the file no word is overwritten before being moved
+        if (newWords != wordsPerRow) {
+            for (int i = this.rows - 1; i >= 0; i--) {
+                for (int w = newWords - 1; w >= 0; w--) {
+                    long word = w < wordsPerRow ? buffer.getLong(offset + (i * wordsPerRow + w) * 8) : 0;
+                    buffer.putLong(offset + (i * newWords + w) * 8, word);
+                }
+            }
+        }
+        wordsPerRow = newWords;
+        rowCapacity = newRowCapacity;
+        clear(this.rows, newRows);
+        this.rows = newRows;
+        this.cols = newCols;
+        writeHeader();
+        return this;
+    }
+
+    private int wordIndex(int row, int col) {
+        return offset + (row * wordsPerRow + (col >>> 6)) * 8;
+    }
+
+    private void clear(int fromRow, int toRow) {
+        for (int i = fromRow * wordsPerRow; i < toRow * wordsPerRow; i++) {
+            buffer.putLong(offset + i * 8, 0);
+        }
+    }
+
+    private void writeHeader() {
+        if (file != null) {
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, rows);
+            buffer.putInt(8, cols);
+            buffer.putInt(12, wordsPerRow);
+        }
+    }
+
+    private static int wordsFor(int cols) {
+        return Math.max(1, (cols + 63) >>> 6);
+    }
+
+    private static int size(int header, int rows, int words) {
+        long size = header + (long) rows * words * 8;
+        if (size > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException(
+                    "Matrix of " + rows + " rows and " + words + " words per row exceeds maximum storage size");
+        }
+        return (int) size;
+    }
+
+    private static MappedByteBuffer mapFile(File file, int size, boolean truncate) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (truncate) {
+                raf.setLength(0);
+            }
+            if (size >= 0) {
+                raf.setLength(size);
+            }
+            FileChannel channel = raf.getChannel();
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, channel.size());
+        }
+        finally {
+            // the mapping stays valid after closing the file
+            raf.close();
+        }
+    }
+}
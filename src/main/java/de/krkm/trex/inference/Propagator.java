@@ -0,0 +1,257 @@
+package de.krkm.trex.inference;
+
+import de.krkm.trex.reasoner.TRexReasoner;
+import de.krkm.trex.util.LongHashSet;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Incrementally maintains the matrices of a reasoner after stated axioms have been added or removed. Instead of
+ * rematerializing all matrices, only the cells affected by a change are re-inferred using a worklist.
+ * <p>
+ * While the propagator is active, each cell changed by {@link Matrix#set(int, int, boolean)} is reported to all
+ * matrices which enqueue the cells depending on it, see
+ * {@link InferenceStepProvider#addAffectedCells(Matrix, Matrix, int, int, Propagator)}. {@link #propagate()} re-infers
+ * enqueued cells until no further cell changes.
+ * <p>
+ * Removals are handled by first deleting all cells which might depend on the removed justifications and afterwards
+ * re-deriving them from the remaining ones. If explanations are generated, the cells to delete are taken from the
+ * {@link ExplanationIndex}, otherwise they are determined by following the affected cells starting at the removed
+ * stated cells.
+ * <p>
+ * Independently of being active, the propagator reports all changed cells to the registered
+ * {@link CellChangeListener}s.
+ */
+public class Propagator {
+    private final static Logger log = LoggerFactory.getLogger(Propagator.class);
+
+    private final TRexReasoner reasoner;
+    private boolean active;
+    private boolean collecting;
+    private final ArrayList<CellChangeListener> listeners = new ArrayList<CellChangeListener>();
+
+    /**
+     * cells currently contained in the worklist, the list is indexed by matrix ID
+     */
+    private final ArrayList<LongHashSet> queued = new ArrayList<LongHashSet>();
+    private int[] queueMatrices = new int[16];
+    private long[] queueCells = new long[16];
+    private int size;
+
+    /**
+     * Initializes the propagator for the given reasoner. The propagator is inactive initially.
+     *
+     * @param reasoner reasoner whose matrices are maintained
+     */
+    public Propagator(TRexReasoner reasoner) {
+        this.reasoner = reasoner;
+    }
+
+    /**
+     * Returns true if changed cells are currently propagated.
+     *
+     * @return true if changed cells are currently propagated
+     */
+    public boolean isActive() {
+        return active;
+    }
+
+    /**
+     * Sets whether changed cells are propagated. Cells enqueued while the propagator has been active are only
+     * processed by {@link #propagate()}.
+     *
+     * @param active if true, changed cells are enqueued for propagation
+     */
+    public void setActive(boolean active) {
+        this.active = active;
+    }
+
+    /**
+     * Registers the given listener to be notified about each changed cell. While axioms are removed, cells depending on
+     * them are reported as deleted first and, if still entailed, as set again while being re-derived.
+     *
+     * @param listener listener to register
+     */
+    public void addListener(CellChangeListener listener) {
+        listeners.add(listener);
+    }
+
+    /**
+     * Unregisters the given listener.
+     *
+     * @param listener listener to unregister
+     */
+    public void removeListener(CellChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Notifies the propagator that the given cell has changed. The change is reported to all listeners and, if the
+     * propagator is active, the cells depending on it are enqueued.
+     *
+     * @param matrix matrix containing the changed cell
+     * @param row    row of changed cell
+     * @param col    column of changed cell
+     */
+    public void cellChanged(Matrix matrix, int row, int col) {
+        if (!listeners.isEmpty()) {
+            boolean value = matrix.get(row, col);
+            for (int i = 0; i < listeners.size(); i++) {
+                listeners.get(i).cellChanged(matrix, row, col, value);
+            }
+        }
+        if (!active) {
+            return;
+        }
+        for (int i = 0; i < reasoner.getNumberOfMatrices(); i++) {
+            reasoner.getMatrix(i).addAffectedCells(matrix, row, col, this);
+        }
+    }
+
+    /**
+     * Adds the given cell to the worklist if it is not contained yet.
+     *
+     * @param matrix matrix containing the cell
+     * @param row    row of cell
+     * @param col    column of cell
+     */
+    public void enqueue(Matrix matrix, int row, int col) {
+        // while collecting cells to delete, only cells currently holding are of interest
+        if (collecting && !matrix.get(row, col)) {
+            return;
+        }
+        long cell = matrix.normalizedCellIndex(row, col);
+        if (!getQueued(matrix.getId()).add(cell)) {
+            return;
+        }
+        if (size == queueCells.length) {
+            int[] newMatrices = new int[size << 1];
+            long[] newCells = new long[size << 1];
+            System.arraycopy(queueMatrices, 0, newMatrices, 0, size);
+            System.arraycopy(queueCells, 0, newCells, 0, size);
+            queueMatrices = newMatrices;
+            queueCells = newCells;
+        }
+        queueMatrices[size] = matrix.getId();
+        queueCells[size] = cell;
+        size++;
+    }
+
+    /**
+     * Re-infers all enqueued cells until no further cell changes. Has to be called while the propagator is active.
+     */
+    public void propagate() {
+        int processed = 0;
+        while (size > 0) {
+            size--;
+            Matrix matrix = reasoner.getMatrix(queueMatrices[size]);
+            long cell = queueCells[size];
+            getQueued(matrix.getId()).remove(cell);
+
+            int row = Matrix.rowOf(cell);
+            int col = Matrix.colOf(cell);
+            matrix.infer(row, col);
+            // inference steps of symmetric matrices only consider the given orientation of the cell
+            if (matrix.isSymmetric() && row != col) {
+                matrix.infer(col, row);
+            }
+            processed++;
+        }
+        log.debug("Propagated {} cells", processed);
+    }
+
+    /**
+     * Removes the given justifications from all matrices. All cells possibly depending on them are reset to their
+     * stated state and enqueued, so that they are re-derived by the next call of {@link #propagate()}. Has to be called
+     * while the propagator is inactive.
+     *
+     * @param justifications justifications which are no longer stated
+     */
+    public void retract(Collection<OWLAxiom> justifications) {
+        if (justifications.isEmpty()) {
+            return;
+        }
+        boolean useIndex = reasoner.isGenerateExplanations();
+        ExplanationIndex index = reasoner.getExplanationIndex();
+
+        // collect cells to delete while all values are still unchanged
+        collecting = true;
+        try {
+            for (OWLAxiom justification : justifications) {
+                for (int m = 0; m < reasoner.getNumberOfMatrices(); m++) {
+                    Matrix matrix = reasoner.getMatrix(m);
+                    long[] stated = matrix.removeStated(justification);
+                    if (useIndex) {
+                        for (long cell : index.getDependentCells(justification, matrix)) {
+                            enqueue(matrix, Matrix.rowOf(cell), Matrix.colOf(cell));
+                        }
+                    }
+                    else {
+                        for (long cell : stated) {
+                            // cells still stated by other justifications keep their value
+                            if (!matrix.isStated(cell)) {
+                                enqueue(matrix, Matrix.rowOf(cell), Matrix.colOf(cell));
+                            }
+                        }
+                    }
+                }
+            }
+
+            int[] deletedMatrices = new int[size];
+            long[] deletedCells = new long[size];
+            int deleted = 0;
+            while (size > 0) {
+                size--;
+                Matrix matrix = reasoner.getMatrix(queueMatrices[size]);
+                long cell = queueCells[size];
+                if (deleted == deletedCells.length) {
+                    int[] newMatrices = new int[Math.max(16, deleted << 1)];
+                    long[] newCells = new long[newMatrices.length];
+                    System.arraycopy(deletedMatrices, 0, newMatrices, 0, deleted);
+                    System.arraycopy(deletedCells, 0, newCells, 0, deleted);
+                    deletedMatrices = newMatrices;
+                    deletedCells = newCells;
+                }
+                deletedMatrices[deleted] = matrix.getId();
+                deletedCells[deleted] = cell;
+                deleted++;
+                if (!useIndex) {
+                    // cells stay marked as queued, so that each cell is deleted only once
+                    for (int m = 0; m < reasoner.getNumberOfMatrices(); m++) {
+                        reasoner.getMatrix(m).addAffectedCells(matrix, Matrix.rowOf(cell), Matrix.colOf(cell), this);
+                    }
+                }
+            }
+            for (LongHashSet cells : queued) {
+                cells.clear();
+            }
+            collecting = false;
+
+            for (int i = 0; i < deleted; i++) {
+                reasoner.getMatrix(deletedMatrices[i]).resetCell(deletedCells[i]);
+            }
+            for (OWLAxiom justification : justifications) {
+                index.removeAxiom(justification);
+            }
+            for (int i = 0; i < deleted; i++) {
+                Matrix matrix = reasoner.getMatrix(deletedMatrices[i]);
+                enqueue(matrix, Matrix.rowOf(deletedCells[i]), Matrix.colOf(deletedCells[i]));
+            }
+            log.debug("Deleted {} cells for {} retracted justifications", deleted, justifications.size());
+        }
+        finally {
+            collecting = false;
+        }
+    }
+
+    private LongHashSet getQueued(int matrixId) {
+        while (queued.size() <= matrixId) {
+            queued.add(new LongHashSet());
+        }
+        return queued.get(matrixId);
+    }
+}
@@ -0,0 +1,75 @@
+package de.krkm.trex.inference;
+
+/**
+ * Storage maintaining a transposed copy of another storage. All cells are read from the primary storage while column
+ * scans, see {@link #nextSetRow(int, int, int)}, are answered by scanning a row of the transposed copy. Thus, column
+ * queries are as fast as row queries at the cost of storing each cell twice. Both storages are updated by
+ * {@link #set(int, int, boolean)}.
+ * <p>
+ * The transposed copy is of the same kind as the primary storage, i.e., a heap storage for heap storages and a direct
+ * off-heap storage for all other storages.
+ */
+public class TransposedIndexStorage implements MatrixStorage {
+    private MatrixStorage primary;
+    private MatrixStorage transposed;
+
+    /**
+     * Initializes the index for the given storage. The transposed copy is created from the current cells of the
+     * storage.
+     *
+     * @param primary storage to index
+     * @param rows    number of rows of the storage
+     * @param cols    number of columns of the storage
+     */
+    public TransposedIndexStorage(MatrixStorage primary, int rows, int cols) {
+        this.primary = primary;
+        if (primary instanceof HeapMatrixStorage) {
+            transposed = new HeapMatrixStorage(new boolean[cols][rows]);
+        }
+        else {
+            transposed = OffHeapMatrixStorage.allocate(cols, rows);
+        }
+        for (int i = 0; i < rows; i++) {
+            for (int j = primary.nextSetColumn(i, 0, cols); j != -1; j = primary.nextSetColumn(i, j + 1, cols)) {
+                transposed.set(j, i, true);
+            }
+        }
+    }
+
+    /**
+     * Returns the indexed storage.
+     *
+     * @return indexed storage
+     */
+    public MatrixStorage getPrimary() {
+        return primary;
+    }
+
+    @Override
+    public boolean get(int row, int col) {
+        return primary.get(row, col);
+    }
+
+    @Override
+    public void set(int row, int col, boolean val) {
+        primary.set(row, col, val);
+        transposed.set(col, row, val);
+    }
+
+    @Override
+    public int nextSetColumn(int row, int fromCol, int toCol) {
+        return primary.nextSetColumn(row, fromCol, toCol);
+    }
+
+    @Override
+    public int nextSetRow(int col, int fromRow, int toRow) {
+        return transposed.nextSetColumn(col, fromRow, toRow);
+    }
+
+    @Override
+    public MatrixStorage grow(int rows, int cols) {
+        primary = primary.grow(rows, cols);
+        transposed = transposed.grow(cols, rows);
+        return this;
+    }
+}
@@ -4,16 +4,17 @@ import de.krkm.trex.booleanexpressions.ExpressionMinimizer;
 import de.krkm.trex.booleanexpressions.OrExpression;
 import de.krkm.trex.inference.InferenceStepProvider;
 import de.krkm.trex.inference.Matrix;
+import de.krkm.trex.inference.Propagator;
+import de.krkm.trex.reasoner.OntologyNamingManager;
 import de.krkm.trex.reasoner.TRexReasoner;
-import de.krkm.trex.util.Util;
 import org.semanticweb.owlapi.model.*;
 
 import java.util.HashSet;
 import java.util.Set;
 
-import static de.krkm.trex.booleanexpressions.ExpressionMinimizer.*;
-
 public class ConceptDisjointnessInferenceStepProvider extends InferenceStepProvider {
+    private final static String RULE_SUBSUMPTION = "DisjointWith-subsumption";
+
     private TRexReasoner reasoner;
     private OWLDataFactory factory;
     private Matrix matrix;
@@ -22,55 +23,28 @@ public class ConceptDisjointnessInferenceStepProvider extends InferenceStepProvi
     @Override
     public void initMatrix(OWLOntology ontology, TRexReasoner reasoner, Matrix matrix) {
         this.reasoner = reasoner;
-        this.generateExplanations = reasoner.isGenerateExplanations();
-        this.matrix = matrix;
         this.factory = ontology.getOWLOntologyManager().getOWLDataFactory();
-        int dimension = matrix.getNamingManager().getNumberOfConcepts();
-        matrix.setMatrix(new boolean[dimension][dimension]);
-
-        if (generateExplanations) {
-            matrix.setExplanations(new OrExpression[dimension][dimension]);
-        }
-
-
-        Set<OWLDisjointClassesAxiom> disjointClassesAxiomSet = ontology.getAxioms(AxiomType.DISJOINT_CLASSES);
-        for (OWLDisjointClassesAxiom a : disjointClassesAxiomSet) {
-            for (OWLDisjointClassesAxiom p : a.asPairwiseAxioms()) {
-                Set<OWLClass> disjointClassesSet = a.getClassesInSignature();
-                OWLClass[] disjointClasses = disjointClassesSet.toArray(new OWLClass[disjointClassesSet.size()]);
-                for (int i = 0; i < disjointClasses.length; i++) {
-                    for (int j = 0; j < i; j++) {
-                        if (!disjointClasses[i].isAnonymous() && !disjointClasses[j].isAnonymous()) {
-                            String iriI = Util.getFragment(disjointClasses[i].asOWLClass().getIRI().toString());
-                            String iriJ = Util.getFragment(disjointClasses[j].asOWLClass().getIRI().toString());
-                            matrix.set(iriI, iriJ, true);
-                            if (generateExplanations) {
-                                int idI = matrix.getNamingManager().getConceptId(iriI);
-                                int idJ = matrix.getNamingManager().getConceptId(iriJ);
-                                matrix.set(iriI, iriJ, true);
-                                matrix.addExplanation(idI, idJ, or(and(literal(p.getAxiomWithoutAnnotations()))));
-                            }
-                        }
-                    }
-                }
-            }
-
+        this.matrix = matrix;
+        this.generateExplanations = reasoner.isGenerateExplanations();
 
-        }
+        // stated axioms are added by the axiom dispatcher
+        OntologyNamingManager namingManager = matrix.getNamingManager();
+        matrix.setDimensions(getRowDimension(namingManager), getColDimension(namingManager));
     }
 
     @Override
     public boolean infer(Matrix matrix, int row, int col) {
         boolean mod = false;
-        for (int i = 0; i < matrix.dimensionRow; i++) {
-            if (reasoner.conceptSubsumption.matrix[row][i] && matrix.get(col, i)) {
+        Matrix subsumption = reasoner.conceptSubsumption;
+        // only the superconcepts of row have to be checked
+        for (int i = subsumption.nextSetColumn(row, 0); i != -1; i = subsumption.nextSetColumn(row, i + 1)) {
+            if (matrix.get(col, i)) {
                 log.debug("Previous values: {} {} --> mod {}", new Object[]{row, col, mod});
                 mod = matrix.set(row, col, true) || mod;
                 log.debug("Previous values: new mod {}", mod);
                 if (generateExplanations) {
-                    mod = matrix.addExplanation(row, col,
-                            ExpressionMinimizer.flatten(reasoner.conceptSubsumption.getExplanation(row, i),
-                                    matrix.getExplanation(i, col))) || mod;
+                    mod = matrix.addDerivation(row, col, RULE_SUBSUMPTION, reasoner.conceptSubsumption, row, i,
+                            matrix, col, i) || mod;
                 }
             }
         }
@@ -78,6 +52,28 @@ public class ConceptDisjointnessInferenceStepProvider extends InferenceStepProvi
         return mod;
     }
 
+    @Override
+    public void addAffectedCells(Matrix matrix, Matrix premise, int row, int col, Propagator propagator) {
+        if (premise == reasoner.conceptSubsumption) {
+            for (int i = 0; i < matrix.dimensionRow; i++) {
+                if (matrix.get(i, col)) {
+                    propagator.enqueue(matrix, row, i);
+                }
+            }
+        }
+        else if (premise == matrix) {
+            // disjointness is used in both orientations
+            for (int i = 0; i < reasoner.conceptSubsumption.dimensionRow; i++) {
+                if (reasoner.conceptSubsumption.get(i, col)) {
+                    propagator.enqueue(matrix, i, row);
+                }
+                if (reasoner.conceptSubsumption.get(i, row)) {
+                    propagator.enqueue(matrix, i, col);
+                }
+            }
+        }
+    }
+
     @Override
     public String getAxiomRepresentation(Matrix matrix, int row, int col) {
         if (matrix.get(row, col)) {
@@ -105,11 +101,26 @@ public class ConceptDisjointnessInferenceStepProvider extends InferenceStepProvi
         return "DisjointWith";
     }
 
+    @Override
+    public String getFunctionalSyntaxName() {
+        return "DisjointClasses";
+    }
+
+    @Override
+    public String getRDFPredicate() {
+        return "http://www.w3.org/2002/07/owl#disjointWith";
+    }
+
     @Override
     public boolean isSymmetric() {
         return true;
     }
 
+    @Override
+    public int getRowDimension(OntologyNamingManager namingManager) {
+        return namingManager.getNumberOfConcepts();
+    }
+
     @Override
     public int resolveRowIRI(String iri) {
         return reasoner.getNamingManager().getConceptId(iri);
@@ -129,23 +140,27 @@ public class ConceptDisjointnessInferenceStepProvider extends InferenceStepProvi
     public boolean isEntailed(OWLAxiom axiom) {
         isProcessable(axiom);
 
-        boolean res = false;
-        Set<OWLClass> disjointClassesSet = axiom.getClassesInSignature();
-        OWLClass[] disjointClasses = disjointClassesSet.toArray(new OWLClass[disjointClassesSet.size()]);
-        for (int i = 0; i < disjointClasses.length; i++) {
+        // resolve all IDs first, axioms containing entities unknown to the reasoner are never entailed
+        Set<OWLClass> entities = axiom.getClassesInSignature();
+        int[] ids = new int[entities.size()];
+        int n = 0;
+        for (OWLClass entity : entities) {
+            int id = matrix.getNamingManager().getConceptId(entity);
+            if (id == -1) {
+                return false;
+            }
+            ids[n++] = id;
+        }
+        for (int i = 0; i < n; i++) {
             for (int j = 0; j < i; j++) {
-                String iriI = Util.getFragment(disjointClasses[i].asOWLClass().getIRI().toString());
-                String iriJ = Util.getFragment(disjointClasses[j].asOWLClass().getIRI().toString());
-                res = matrix.get(iriI, iriJ) || res;
-
                 // if entailed: stop processing
-                if (res) {
+                if (matrix.get(ids[i], ids[j])) {
                     return true;
                 }
             }
         }
 
-        return res;
+        return false;
     }
 
     @Override
@@ -157,17 +172,25 @@ public class ConceptDisjointnessInferenceStepProvider extends InferenceStepProvi
 
         isProcessable(axiom);
 
-        OrExpression overall = null;
-        Set<OWLClass> disjointClassesSet = axiom.getClassesInSignature();
-        OWLClass[] disjointClasses = disjointClassesSet.toArray(new OWLClass[disjointClassesSet.size()]);
+        // resolve all IDs first, axioms containing entities unknown to the reasoner are never entailed
+        Set<OWLClass> entities = axiom.getClassesInSignature();
+        int[] ids = new int[entities.size()];
+        int n = 0;
+        for (OWLClass entity : entities) {
+            int id = matrix.getNamingManager().getConceptId(entity);
+            if (id == -1) {
+                return null;
+            }
+            ids[n++] = id;
+        }
 
-        if (disjointClasses.length == 1) {
-            int id = resolveRowIRI(Util.getFragment(disjointClasses[0].asOWLClass().getIRI().toString()));
-            if (matrix.get(id, id)) {
-                overall = matrix.getExplanation(id, id);
+        OrExpression overall = null;
+        if (n == 1) {
+            if (matrix.get(ids[0], ids[0])) {
+                overall = matrix.getExplanation(ids[0], ids[0]);
 
                 if (overall != null) {
-                    ExpressionMinimizer.minimize(overall);
+                    overall = ExpressionMinimizer.minimize(overall);
                 }
 
             }
@@ -175,46 +198,26 @@ public class ConceptDisjointnessInferenceStepProvider extends InferenceStepProvi
             return overall;
         }
 
-        for (int i = 0; i < disjointClasses.length; i++) {
+        for (int i = 0; i < n; i++) {
             for (int j = 0; j < i; j++) {
-                int idI = resolveRowIRI(Util.getFragment(disjointClasses[i].asOWLClass().getIRI().toString()));
-                int idJ = resolveColIRI(Util.getFragment(disjointClasses[j].asOWLClass().getIRI().toString()));
-                if (matrix.get(idI, idJ)) {
+                if (matrix.get(ids[i], ids[j])) {
                     if (overall == null) {
-                        overall = matrix.getExplanation(idI, idJ);
+                        overall = matrix.getExplanation(ids[i], ids[j]);
                     } else {
-                        System.out.println("Adding to overall: " + overall.toString());
-                        overall = ExpressionMinimizer.flatten(overall,
-                                matrix.getExplanation(idI, idJ));
-                        System.out.println("Adding to overall: " + overall.toString());
+                        overall = ExpressionMinimizer.flatten(overall, matrix.getExplanation(ids[i], ids[j]));
                     }
                 }
             }
         }
 
         if (overall != null) {
-            ExpressionMinimizer.minimize(overall);
+            overall = ExpressionMinimizer.minimize(overall);
         }
         return overall;
     }
 
     @Override
-    public void addAxiom(OWLAxiom axiom) {
-        isProcessable(axiom);
-
-        Set<OWLClass> disjointClassesSet = axiom.getClassesInSignature();
-        OWLClass[] disjointClasses = disjointClassesSet.toArray(new OWLClass[disjointClassesSet.size()]);
-        for (int i = 0; i < disjointClasses.length; i++) {
-            for (int j = 0; j < i; j++) {
-                String iriI = Util.getFragment(disjointClasses[i].asOWLClass().getIRI().toString());
-                String iriJ = Util.getFragment(disjointClasses[j].asOWLClass().getIRI().toString());
-                matrix.set(iriI, iriJ, true);
-                int indexA = resolveRowIRI(iriI);
-                int indexB = resolveColIRI(iriJ);
-                if (generateExplanations) {
-                    matrix.addExplanation(indexA, indexB, or(and(literal(axiom))));
-                }
-            }
-        }
+    public void addStatedAxiom(Matrix matrix, AxiomType type, int first, int second, OWLAxiom justification) {
+        matrix.addStated(first, second, justification);
     }
 }
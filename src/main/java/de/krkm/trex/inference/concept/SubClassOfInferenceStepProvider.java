@@ -1,21 +1,20 @@
 package de.krkm.trex.inference.concept;
 
-import de.krkm.trex.booleanexpressions.ExpressionMinimizer;
 import de.krkm.trex.booleanexpressions.OrExpression;
 import de.krkm.trex.inference.InferenceStepProvider;
 import de.krkm.trex.inference.Matrix;
+import de.krkm.trex.inference.Propagator;
+import de.krkm.trex.reasoner.OntologyNamingManager;
 import de.krkm.trex.reasoner.TRexReasoner;
-import de.krkm.trex.util.Util;
 import org.semanticweb.owlapi.model.*;
 
-import java.util.Set;
-
-import static de.krkm.trex.booleanexpressions.ExpressionMinimizer.*;
 
 /**
  * Implements the inference step for SubClassOf axioms.
  */
 public class SubClassOfInferenceStepProvider extends InferenceStepProvider {
+    private final static String RULE_TRANSITIVITY = "SubClassOf-transitivity";
+
     private TRexReasoner reasoner;
     private OWLDataFactory factory;
     private Matrix matrix;
@@ -23,70 +22,26 @@ public class SubClassOfInferenceStepProvider extends InferenceStepProvider {
 
     @Override
     public void initMatrix(OWLOntology ontology, TRexReasoner reasoner, Matrix matrix) {
-        int dimension = matrix.getNamingManager().getNumberOfConcepts();
-        matrix.setMatrix(new boolean[dimension][dimension]);
-        this.generateExplanations = reasoner.isGenerateExplanations();
-
-        if (generateExplanations) {
-            matrix.setExplanations(new OrExpression[dimension][dimension]);
-        }
-
-        this.matrix = matrix;
-
         this.reasoner = reasoner;
         this.factory = ontology.getOWLOntologyManager().getOWLDataFactory();
-        // stated subsumption
-        for (OWLSubClassOfAxiom a : ontology.getAxioms(AxiomType.SUBCLASS_OF)) {
-            if (!a.getSubClass().isAnonymous() && !a.getSuperClass().isAnonymous()) {
-                String subClassIRI = Util.getFragment(a.getSubClass().asOWLClass().getIRI().toString());
-                String superClassIRI = Util.getFragment(a.getSuperClass().asOWLClass().getIRI().toString());
-                if (subClassIRI.equals(superClassIRI)) {
-                    continue;
-                }
-                matrix.set(subClassIRI, superClassIRI, true);
-                if (generateExplanations) {
-                    int subId = matrix.getNamingManager().getConceptId(subClassIRI);
-                    int superId = matrix.getNamingManager().getConceptId(superClassIRI);
-                    matrix.addExplanation(subId, superId, or(and(literal(a.getAxiomWithoutAnnotations()))));
-                }
-            }
-        }
+        this.matrix = matrix;
+        this.generateExplanations = reasoner.isGenerateExplanations();
 
-        // stated class equivalence
-        for (OWLEquivalentClassesAxiom a : ontology.getAxioms(AxiomType.EQUIVALENT_CLASSES)) {
-            for (OWLEquivalentClassesAxiom p : a.asPairwiseAxioms()) {
-                Set<OWLClass> equivalentClassesSet = a.getNamedClasses();
-                OWLClass[] equivalentClasses = equivalentClassesSet.toArray(new OWLClass[equivalentClassesSet.size()]);
-
-                for (int i = 0; i < equivalentClasses.length; i++) {
-                    for (int j = 0; j < equivalentClasses.length; j++) {
-                        if (i == j) {
-                            continue;
-                        }
-                        String iriI = Util.getFragment(equivalentClasses[i].asOWLClass().getIRI().toString());
-                        int idI = matrix.getNamingManager().getConceptId(iriI);
-                        String iriJ = Util.getFragment(equivalentClasses[j].asOWLClass().getIRI().toString());
-                        int idJ = matrix.getNamingManager().getConceptId(iriJ);
-                        matrix.set(iriI, iriJ, true);
-                        if (generateExplanations) {
-                            matrix.addExplanation(idI, idJ, or(and(literal(p))));
-                        }
-                    }
-                }
-            }
-        }
+        // stated axioms are added by the axiom dispatcher
+        OntologyNamingManager namingManager = matrix.getNamingManager();
+        matrix.setDimensions(getRowDimension(namingManager), getColDimension(namingManager));
     }
 
     @Override
     public boolean infer(Matrix matrix, int row, int col) {
         boolean mod = false;
 //        log.debug("Inferencing for {} {}", row, col);
-        for (int i = 0; i < matrix.dimensionRow; i++) {
-            if (matrix.matrix[row][i] && matrix.matrix[i][col]) {
+        // only the superconcepts of row have to be checked
+        for (int i = matrix.nextSetColumn(row, 0); i != -1; i = matrix.nextSetColumn(row, i + 1)) {
+            if (matrix.get(i, col)) {
                 mod = matrix.set(row, col, true) || mod;
                 if (generateExplanations) {
-                    mod = matrix.addExplanation(row, col, ExpressionMinimizer
-                            .flatten(matrix.getExplanation(row, i), matrix.getExplanation(i, col))) || mod;
+                    mod = matrix.addDerivation(row, col, RULE_TRANSITIVITY, matrix, row, i, matrix, i, col) || mod;
                 }
             }
         }
@@ -94,9 +49,27 @@ public class SubClassOfInferenceStepProvider extends InferenceStepProvider {
         return mod;
     }
 
+    @Override
+    public void addAffectedCells(Matrix matrix, Matrix premise, int row, int col, Propagator propagator) {
+        if (premise != matrix) {
+            return;
+        }
+        // cell takes part in transitivity as first and as second premise
+        for (int i = 0; i < matrix.dimensionCol; i++) {
+            if (matrix.get(col, i)) {
+                propagator.enqueue(matrix, row, i);
+            }
+        }
+        for (int i = 0; i < matrix.dimensionRow; i++) {
+            if (matrix.get(i, row)) {
+                propagator.enqueue(matrix, i, col);
+            }
+        }
+    }
+
     @Override
     public String getAxiomRepresentation(Matrix matrix, int row, int col) {
-        if (matrix.matrix[row][col]) {
+        if (matrix.get(row, col)) {
             return String.format("SubClassOf(%s, %s)", matrix.getNamingManager().getConceptIRI(row),
                     matrix.getNamingManager().getConceptIRI(col));
         }
@@ -108,11 +81,26 @@ public class SubClassOfInferenceStepProvider extends InferenceStepProvider {
         return "SubClassOf";
     }
 
+    @Override
+    public String getFunctionalSyntaxName() {
+        return "SubClassOf";
+    }
+
+    @Override
+    public String getRDFPredicate() {
+        return "http://www.w3.org/2000/01/rdf-schema#subClassOf";
+    }
+
     @Override
     public boolean isSymmetric() {
         return false;
     }
 
+    @Override
+    public int getRowDimension(OntologyNamingManager namingManager) {
+        return namingManager.getNumberOfConcepts();
+    }
+
     @Override
     public int resolveRowIRI(String iri) {
         return reasoner.getNamingManager().getConceptId(iri);
@@ -120,7 +108,7 @@ public class SubClassOfInferenceStepProvider extends InferenceStepProvider {
 
     @Override
     public OWLAxiom getAxiom(Matrix matrix, int row, int col) {
-        if (matrix.matrix[row][col]) {
+        if (matrix.get(row, col)) {
             return factory.getOWLSubClassOfAxiom(
                     factory.getOWLClass(IRI.create(getIRIWithNamespace(matrix.getNamingManager().getConceptIRI(row)))),
                     factory.getOWLClass(IRI.create(getIRIWithNamespace(matrix.getNamingManager().getConceptIRI(col)))));
@@ -144,9 +132,20 @@ public class SubClassOfInferenceStepProvider extends InferenceStepProvider {
 
         OWLSubClassOfAxiom a = (OWLSubClassOfAxiom) axiom;
 
-        String subClassIRI = Util.getFragment(a.getSubClass().asOWLClass().getIRI().toString());
-        String superClassIRI = Util.getFragment(a.getSuperClass().asOWLClass().getIRI().toString());
-        return matrix.get(subClassIRI, superClassIRI);
+        int subClassId = matrix.getNamingManager().getConceptId(a.getSubClass().asOWLClass());
+        int superClassId = matrix.getNamingManager().getConceptId(a.getSuperClass().asOWLClass());
+        return subClassId != -1 && superClassId != -1 && matrix.get(subClassId, superClassId);
+    }
+
+    @Override
+    public boolean resolveCell(OWLAxiom axiom, int[] cell) {
+        OWLSubClassOfAxiom a = (OWLSubClassOfAxiom) axiom;
+        if (a.getSubClass().isAnonymous() || a.getSuperClass().isAnonymous()) {
+            throw new UnsupportedOperationException("Anonymous classes are not supported");
+        }
+        cell[0] = matrix.getNamingManager().getConceptId(a.getSubClass().asOWLClass());
+        cell[1] = matrix.getNamingManager().getConceptId(a.getSuperClass().asOWLClass());
+        return true;
     }
 
     @Override
@@ -159,24 +158,24 @@ public class SubClassOfInferenceStepProvider extends InferenceStepProvider {
 
         OWLSubClassOfAxiom a = (OWLSubClassOfAxiom) axiom;
 
-        int subClassID = resolveRowIRI(Util.getFragment(a.getSubClass().asOWLClass().getIRI().toString()));
-        int superClassID = resolveColIRI(Util.getFragment(a.getSuperClass().asOWLClass().getIRI().toString()));
+        int subClassID = matrix.getNamingManager().getConceptId(a.getSubClass().asOWLClass());
+        int superClassID = matrix.getNamingManager().getConceptId(a.getSuperClass().asOWLClass());
         return matrix.getExplanation(subClassID, superClassID);
     }
 
     @Override
-    public void addAxiom(OWLAxiom axiom) {
-        isProcessable(axiom);
-
-        OWLSubClassOfAxiom a = (OWLSubClassOfAxiom) axiom;
+    public AxiomType[] getStatedAxiomTypes() {
+        return new AxiomType[]{AxiomType.SUBCLASS_OF, AxiomType.EQUIVALENT_CLASSES};
+    }
 
-        String subClassIRI = Util.getFragment(a.getSubClass().asOWLClass().getIRI().toString());
-        String superClassIRI = Util.getFragment(a.getSuperClass().asOWLClass().getIRI().toString());
-        int indexA = resolveRowIRI(subClassIRI);
-        int indexB = resolveColIRI(superClassIRI);
-        if (generateExplanations) {
-            matrix.addExplanation(indexA, indexB, or(and(literal(axiom))));
+    @Override
+    public void addStatedAxiom(Matrix matrix, AxiomType type, int first, int second, OWLAxiom justification) {
+        if (type == AxiomType.SUBCLASS_OF && first == second) {
+            return;
+        }
+        matrix.addStated(first, second, justification);
+        if (type == AxiomType.EQUIVALENT_CLASSES) {
+            matrix.addStated(second, first, justification);
         }
-        matrix.set(subClassIRI, superClassIRI, true);
     }
 }
@@ -4,16 +4,17 @@ import de.krkm.trex.booleanexpressions.ExpressionMinimizer;
 import de.krkm.trex.booleanexpressions.OrExpression;
 import de.krkm.trex.inference.InferenceStepProvider;
 import de.krkm.trex.inference.Matrix;
+import de.krkm.trex.inference.Propagator;
+import de.krkm.trex.reasoner.OntologyNamingManager;
 import de.krkm.trex.reasoner.TRexReasoner;
-import de.krkm.trex.util.Util;
 import org.semanticweb.owlapi.model.*;
 
 import java.util.HashSet;
 import java.util.Set;
 
-import static de.krkm.trex.booleanexpressions.ExpressionMinimizer.*;
-
 public class PropertyDisjointnessInferenceStepProvider extends InferenceStepProvider {
+    private final static String RULE_SUBSUMPTION = "DisjointObjectProperty-subsumption";
+
     private TRexReasoner reasoner;
     private OWLDataFactory factory;
     private Matrix matrix;
@@ -21,57 +22,30 @@ public class PropertyDisjointnessInferenceStepProvider extends InferenceStepProv
 
     @Override
     public void initMatrix(OWLOntology ontology, TRexReasoner reasoner, Matrix matrix) {
+        this.reasoner = reasoner;
+        this.factory = ontology.getOWLOntologyManager().getOWLDataFactory();
         this.matrix = matrix;
-        int dimension = matrix.getNamingManager().getNumberOfProperties();
-        matrix.setMatrix(new boolean[dimension][dimension]);
         this.generateExplanations = reasoner.isGenerateExplanations();
 
-        if (generateExplanations) {
-            matrix.setExplanations(new OrExpression[dimension][dimension]);
-        }
-
-        this.reasoner = reasoner;
-        this.factory = ontology.getOWLOntologyManager().getOWLDataFactory();
-        Set<OWLDisjointObjectPropertiesAxiom> disjointPropertyAxiomSet = ontology.getAxioms(
-                AxiomType.DISJOINT_OBJECT_PROPERTIES);
-        for (OWLDisjointObjectPropertiesAxiom a : disjointPropertyAxiomSet) {
-            Set<OWLObjectProperty> disjointPropertySet = a.getObjectPropertiesInSignature();
-            OWLObjectProperty[] disjointProperties = disjointPropertySet.toArray(
-                    new OWLObjectProperty[disjointPropertySet.size()]);
-            for (int i = 0; i < disjointProperties.length; i++) {
-                for (int j = 0; j < disjointProperties.length; j++) {
-                    if (i == j) {
-                        continue;
-                    }
-                    if (!disjointProperties[i].isAnonymous() && !disjointProperties[j].isAnonymous()) {
-                        String iriI = Util.getFragment(disjointProperties[i].asOWLObjectProperty().getIRI().toString());
-                        String iriJ = Util.getFragment(disjointProperties[j].asOWLObjectProperty().getIRI().toString());
-                        matrix.set(iriI, iriJ, true);
-                        if (generateExplanations) {
-                            int idI = matrix.getNamingManager().getPropertyId(iriI);
-                            int idJ = matrix.getNamingManager().getPropertyId(iriJ);
-                            matrix.set(iriI, iriJ, true);
-                            matrix.addExplanation(idI, idJ,
-                                    or(and(literal(a.getAxiomWithoutAnnotations()))));
-                        }
-                    }
-                }
-            }
-        }
+        // stated axioms are added by the axiom dispatcher
+        OntologyNamingManager namingManager = matrix.getNamingManager();
+        matrix.setDimensions(getRowDimension(namingManager), getColDimension(namingManager));
     }
 
     @Override
     public boolean infer(Matrix matrix, int row, int col) {
         boolean mod = false;
-        for (int i = 0; i < reasoner.propertySubsumption.dimensionRow; i++) {
-            if (reasoner.propertySubsumption.matrix[row][i] && matrix.get(i, col)) {
+        Matrix subsumption = reasoner.propertySubsumption;
+        // only the superproperties of row have to be checked
+        for (int i = subsumption.nextSetColumn(row, 0); i != -1; i = subsumption.nextSetColumn(row, i + 1)) {
+            if (matrix.get(i, col)) {
                 mod = matrix.set(row, col, true) || mod;
                 if (generateExplanations) {
-                    mod = matrix.addExplanation(row, col,
-                            ExpressionMinimizer.flatten(reasoner.propertySubsumption.getExplanation(row, i),
-                                    matrix.getExplanation(i, col))) || mod;
+                    mod = matrix.addDerivation(row, col, RULE_SUBSUMPTION, reasoner.propertySubsumption, row, i,
+                            matrix, i, col) || mod;
                 }
-                if (mod) {
+                // all derivations have to be recorded in a single call for incremental reasoning
+                if (mod && !generateExplanations) {
                     break;
                 }
             }
@@ -79,11 +53,33 @@ public class PropertyDisjointnessInferenceStepProvider extends InferenceStepProv
         return mod;
     }
 
+    @Override
+    public void addAffectedCells(Matrix matrix, Matrix premise, int row, int col, Propagator propagator) {
+        if (premise == reasoner.propertySubsumption) {
+            for (int i = 0; i < matrix.dimensionCol; i++) {
+                if (matrix.get(col, i)) {
+                    propagator.enqueue(matrix, row, i);
+                }
+            }
+        }
+        else if (premise == matrix) {
+            // disjointness is used in both orientations
+            for (int i = 0; i < reasoner.propertySubsumption.dimensionRow; i++) {
+                if (reasoner.propertySubsumption.get(i, row)) {
+                    propagator.enqueue(matrix, i, col);
+                }
+                if (reasoner.propertySubsumption.get(i, col)) {
+                    propagator.enqueue(matrix, i, row);
+                }
+            }
+        }
+    }
+
     @Override
     public String getAxiomRepresentation(Matrix matrix, int row, int col) {
         if (matrix.get(row, col)) {
-            return String.format("DisjointObjectProperty(%s, %s)", matrix.getNamingManager().getConceptIRI(row),
-                    matrix.getNamingManager().getConceptIRI(col));
+            return String.format("DisjointObjectProperty(%s, %s)", matrix.getNamingManager().getPropertyIRI(row),
+                    matrix.getNamingManager().getPropertyIRI(col));
         }
         return null;
     }
@@ -105,12 +101,27 @@ public class PropertyDisjointnessInferenceStepProvider extends InferenceStepProv
         return "DisjointObjectProperty";
     }
 
+    @Override
+    public String getFunctionalSyntaxName() {
+        return "DisjointObjectProperties";
+    }
+
+    @Override
+    public String getRDFPredicate() {
+        return "http://www.w3.org/2002/07/owl#propertyDisjointWith";
+    }
+
     @Override
     public boolean isSymmetric() {
         return true;
     }
 
 
+    @Override
+    public int getRowDimension(OntologyNamingManager namingManager) {
+        return namingManager.getNumberOfProperties();
+    }
+
     @Override
     public int resolveRowIRI(String iri) {
         return reasoner.getNamingManager().getPropertyId(iri);
@@ -130,23 +141,27 @@ public class PropertyDisjointnessInferenceStepProvider extends InferenceStepProv
     public boolean isEntailed(OWLAxiom axiom) {
         isProcessable(axiom);
 
-        boolean res = false;
-        Set<OWLObjectProperty> disjointPropertySet = axiom.getObjectPropertiesInSignature();
-        OWLObjectProperty[] disjointClasses = disjointPropertySet.toArray(
-                new OWLObjectProperty[disjointPropertySet.size()]);
-        for (int i = 0; i < disjointClasses.length; i++) {
+        // resolve all IDs first, axioms containing entities unknown to the reasoner are never entailed
+        Set<OWLObjectProperty> entities = axiom.getObjectPropertiesInSignature();
+        int[] ids = new int[entities.size()];
+        int n = 0;
+        for (OWLObjectProperty entity : entities) {
+            int id = matrix.getNamingManager().getPropertyId(entity);
+            if (id == -1) {
+                return false;
+            }
+            ids[n++] = id;
+        }
+        for (int i = 0; i < n; i++) {
             for (int j = 0; j < i; j++) {
-                String iriI = Util.getFragment(disjointClasses[i].asOWLObjectProperty().getIRI().toString());
-                String iriJ = Util.getFragment(disjointClasses[j].asOWLObjectProperty().getIRI().toString());
-                res = matrix.get(iriI, iriJ) || res;
-
-                if (res) {
+                // if entailed: stop processing
+                if (matrix.get(ids[i], ids[j])) {
                     return true;
                 }
             }
         }
 
-        return res;
+        return false;
     }
 
     @Override
@@ -157,17 +172,25 @@ public class PropertyDisjointnessInferenceStepProvider extends InferenceStepProv
         }
         isProcessable(axiom);
 
+        // resolve all IDs first, axioms containing entities unknown to the reasoner are never entailed
+        Set<OWLObjectProperty> entities = axiom.getObjectPropertiesInSignature();
+        int[] ids = new int[entities.size()];
+        int n = 0;
+        for (OWLObjectProperty entity : entities) {
+            int id = matrix.getNamingManager().getPropertyId(entity);
+            if (id == -1) {
+                return null;
+            }
+            ids[n++] = id;
+        }
+
         OrExpression overall = null;
-        Set<OWLObjectProperty> disjointPropertySet = axiom.getObjectPropertiesInSignature();
-        OWLObjectProperty[] disjointProperties = disjointPropertySet.toArray(
-                new OWLObjectProperty[disjointPropertySet.size()]);
-        if (disjointProperties.length == 1) {
-            int id = resolveRowIRI(Util.getFragment(disjointProperties[0].asOWLObjectProperty().getIRI().toString()));
-            if (matrix.get(id, id)) {
-                overall = matrix.getExplanation(id, id);
+        if (n == 1) {
+            if (matrix.get(ids[0], ids[0])) {
+                overall = matrix.getExplanation(ids[0], ids[0]);
 
                 if (overall != null) {
-                    ExpressionMinimizer.minimize(overall);
+                    overall = ExpressionMinimizer.minimize(overall);
                 }
 
             }
@@ -175,49 +198,26 @@ public class PropertyDisjointnessInferenceStepProvider extends InferenceStepProv
             return overall;
         }
 
-        for (int i = 0; i < disjointProperties.length; i++) {
+        for (int i = 0; i < n; i++) {
             for (int j = 0; j < i; j++) {
-                int idI = resolveRowIRI(
-                        Util.getFragment(disjointProperties[i].asOWLObjectProperty().getIRI().toString()));
-                int idJ = resolveColIRI(
-                        Util.getFragment(disjointProperties[j].asOWLObjectProperty().getIRI().toString()));
-                if (matrix.get(idI, idJ)) {
+                if (matrix.get(ids[i], ids[j])) {
                     if (overall == null) {
-                        overall = matrix.getExplanation(idI, idJ);
+                        overall = matrix.getExplanation(ids[i], ids[j]);
                     } else {
-                        System.out.println("Adding to overall: " + overall.toString());
-                        overall = ExpressionMinimizer.flatten(overall,
-                                matrix.getExplanation(idI, idJ));
-                        System.out.println("Adding to overall: " + overall.toString());
+                        overall = ExpressionMinimizer.flatten(overall, matrix.getExplanation(ids[i], ids[j]));
                     }
                 }
             }
         }
 
         if (overall != null) {
-            ExpressionMinimizer.minimize(overall);
+            overall = ExpressionMinimizer.minimize(overall);
         }
         return overall;
     }
 
     @Override
-    public void addAxiom(OWLAxiom axiom) {
-        isProcessable(axiom);
-
-        Set<OWLObjectProperty> disjointPropertySet = axiom.getObjectPropertiesInSignature();
-        OWLObjectProperty[] disjointClasses = disjointPropertySet.toArray(
-                new OWLObjectProperty[disjointPropertySet.size()]);
-        for (int i = 0; i < disjointClasses.length; i++) {
-            for (int j = 0; j < i; j++) {
-                String iriI = Util.getFragment(disjointClasses[i].asOWLObjectProperty().getIRI().toString());
-                String iriJ = Util.getFragment(disjointClasses[j].asOWLObjectProperty().getIRI().toString());
-                matrix.set(iriI, iriJ, true);
-                int indexA = resolveRowIRI(iriI);
-                int indexB = resolveColIRI(iriJ);
-                if (generateExplanations) {
-                    matrix.addExplanation(indexA, indexB, or(and(literal(axiom))));
-                }
-            }
-        }
+    public void addStatedAxiom(Matrix matrix, AxiomType type, int first, int second, OWLAxiom justification) {
+        matrix.addStated(first, second, justification);
     }
 }
@@ -1,19 +1,20 @@
 package de.krkm.trex.inference.property;
 
-import de.krkm.trex.booleanexpressions.ExpressionMinimizer;
 import de.krkm.trex.booleanexpressions.OrExpression;
 import de.krkm.trex.inference.InferenceStepProvider;
 import de.krkm.trex.inference.Matrix;
+import de.krkm.trex.inference.Propagator;
+import de.krkm.trex.reasoner.OntologyNamingManager;
 import de.krkm.trex.reasoner.TRexReasoner;
-import de.krkm.trex.util.Util;
 import org.semanticweb.owlapi.model.*;
 
-import static de.krkm.trex.booleanexpressions.ExpressionMinimizer.*;
-
 /**
  * Provides the inference step routines for property domains
  */
 public class PropertyRangeInferenceStepProvider extends InferenceStepProvider {
+    private final static String RULE_CONCEPT_SUBSUMPTION = "ObjectPropertyRange-conceptsubsumption";
+    private final static String RULE_PROPERTY_SUBSUMPTION = "ObjectPropertyRange-propertysubsumption";
+
     private TRexReasoner reasoner;
     private OWLDataFactory factory;
     private Matrix matrix;
@@ -26,52 +27,33 @@ public class PropertyRangeInferenceStepProvider extends InferenceStepProvider {
         this.matrix = matrix;
         this.generateExplanations = reasoner.isGenerateExplanations();
 
-        int dimensionCol = matrix.getNamingManager().getNumberOfConcepts();
-        int dimensionRow = matrix.getNamingManager().getNumberOfProperties();
-        matrix.setMatrix(new boolean[dimensionRow][dimensionCol]);
-
-        if (generateExplanations) {
-            matrix.setExplanations(new OrExpression[dimensionRow][dimensionCol]);
-        }
-
-        for (OWLObjectPropertyRangeAxiom a : ontology.getAxioms(AxiomType.OBJECT_PROPERTY_RANGE)) {
-            if (!a.getProperty().isAnonymous() && !a.getRange().isAnonymous()) {
-                String propertyIRI = Util.getFragment(a.getProperty().asOWLObjectProperty().getIRI().toString());
-                String rangeIRI = Util.getFragment(a.getRange().asOWLClass().getIRI().toString());
-                matrix.set(propertyIRI, rangeIRI, true);
-                if (generateExplanations) {
-                    int subId = matrix.getNamingManager().getPropertyId(propertyIRI);
-                    int superId = matrix.getNamingManager().getConceptId(rangeIRI);
-                    matrix.addExplanation(subId, superId,
-                            or(and(literal(a.getAxiomWithoutAnnotations()))));
-                }
-            }
-        }
+        // stated axioms are added by the axiom dispatcher
+        OntologyNamingManager namingManager = matrix.getNamingManager();
+        matrix.setDimensions(getRowDimension(namingManager), getColDimension(namingManager));
     }
 
     @Override
     public boolean infer(Matrix matrix, int row, int col) {
         boolean mod = false;
         // propagate concept subsumption to property domain
-        for (int i = 0; i < matrix.dimensionCol; i++) {
-            if (matrix.matrix[row][i] && reasoner.conceptSubsumption.matrix[i][col]) {
+        for (int i = matrix.nextSetColumn(row, 0); i != -1; i = matrix.nextSetColumn(row, i + 1)) {
+            if (reasoner.conceptSubsumption.get(i, col)) {
                 mod = matrix.set(row, col, true) || mod;
                 if (generateExplanations) {
-                    mod = matrix.addExplanation(row, col,
-                            ExpressionMinimizer.flatten(matrix.getExplanation(row, i),
-                                    reasoner.getConceptSubsumption().getExplanation(i, col))) || mod;
+                    mod = matrix.addDerivation(row, col, RULE_CONCEPT_SUBSUMPTION, matrix, row, i,
+                            reasoner.conceptSubsumption, i, col) || mod;
                 }
             }
         }
 
         // propagate property domain according to property subsumption hierarchy
-        for (int i = 0; i < matrix.dimensionRow; i++) {
-            if (matrix.matrix[i][col] && reasoner.propertySubsumption.matrix[row][i]) {
+        Matrix subsumption = reasoner.propertySubsumption;
+        for (int i = subsumption.nextSetColumn(row, 0); i != -1; i = subsumption.nextSetColumn(row, i + 1)) {
+            if (matrix.get(i, col)) {
                 mod = matrix.set(row, col, true) || mod;
                 if (generateExplanations) {
-                    mod = matrix.addExplanation(row, col,
-                            ExpressionMinimizer.flatten(matrix.getExplanation(i,col),
-                                    reasoner.getPropertySubsumption().getExplanation(row,i))) || mod;
+                    mod = matrix.addDerivation(row, col, RULE_PROPERTY_SUBSUMPTION, matrix, i, col,
+                            reasoner.propertySubsumption, row, i) || mod;
                 }
             }
         }
@@ -79,9 +61,39 @@ public class PropertyRangeInferenceStepProvider extends InferenceStepProvider {
         return mod;
     }
 
+    @Override
+    public void addAffectedCells(Matrix matrix, Matrix premise, int row, int col, Propagator propagator) {
+        if (premise == matrix) {
+            for (int i = 0; i < matrix.dimensionCol; i++) {
+                if (reasoner.conceptSubsumption.get(col, i)) {
+                    propagator.enqueue(matrix, row, i);
+                }
+            }
+            for (int i = 0; i < matrix.dimensionRow; i++) {
+                if (reasoner.propertySubsumption.get(i, row)) {
+                    propagator.enqueue(matrix, i, col);
+                }
+            }
+        }
+        else if (premise == reasoner.conceptSubsumption) {
+            for (int i = 0; i < matrix.dimensionRow; i++) {
+                if (matrix.get(i, row)) {
+                    propagator.enqueue(matrix, i, col);
+                }
+            }
+        }
+        else if (premise == reasoner.propertySubsumption) {
+            for (int i = 0; i < matrix.dimensionCol; i++) {
+                if (matrix.get(col, i)) {
+                    propagator.enqueue(matrix, row, i);
+                }
+            }
+        }
+    }
+
     @Override
     public String getAxiomRepresentation(Matrix matrix, int row, int col) {
-        if (matrix.matrix[row][col]) {
+        if (matrix.get(row, col)) {
             return String.format("ObjectPropertyRange(%s, %s)", matrix.getNamingManager().getPropertyIRI(row),
                     matrix.getNamingManager()
                           .getConceptIRI(col));
@@ -94,11 +106,31 @@ public class PropertyRangeInferenceStepProvider extends InferenceStepProvider {
         return "ObjectPropertyRange";
     }
 
+    @Override
+    public String getFunctionalSyntaxName() {
+        return "ObjectPropertyRange";
+    }
+
+    @Override
+    public String getRDFPredicate() {
+        return "http://www.w3.org/2000/01/rdf-schema#range";
+    }
+
     @Override
     public boolean isSymmetric() {
         return false;
     }
 
+    @Override
+    public int getRowDimension(OntologyNamingManager namingManager) {
+        return namingManager.getNumberOfProperties();
+    }
+
+    @Override
+    public int getColDimension(OntologyNamingManager namingManager) {
+        return namingManager.getNumberOfConcepts();
+    }
+
     @Override
     public String resolveRowID(int id) {
         return reasoner.getNamingManager().getPropertyIRI(id);
@@ -121,7 +153,7 @@ public class PropertyRangeInferenceStepProvider extends InferenceStepProvider {
 
     @Override
     public OWLAxiom getAxiom(Matrix matrix, int row, int col) {
-        if (matrix.matrix[row][col]) {
+        if (matrix.get(row, col)) {
             return factory.getOWLObjectPropertyRangeAxiom(
                     factory.getOWLObjectProperty(IRI.create(getIRIWithNamespace(matrix.getNamingManager().getPropertyIRI(row)))),
                     factory.getOWLClass(IRI.create(getIRIWithNamespace(matrix.getNamingManager().getConceptIRI(col)))));
@@ -140,9 +172,23 @@ public class PropertyRangeInferenceStepProvider extends InferenceStepProvider {
 
         OWLObjectPropertyRangeAxiom a = (OWLObjectPropertyRangeAxiom) axiom;
 
-        String propertyIRI = Util.getFragment(a.getProperty().asOWLObjectProperty().getIRI().toString());
-        String rangeIRI = Util.getFragment(a.getRange().asOWLClass().getIRI().toString());
-        return matrix.get(propertyIRI, rangeIRI);
+        int propertyId = matrix.getNamingManager().getPropertyId(a.getProperty().asOWLObjectProperty());
+        int rangeId = matrix.getNamingManager().getConceptId(a.getRange().asOWLClass());
+        return propertyId != -1 && rangeId != -1 && matrix.get(propertyId, rangeId);
+    }
+
+    @Override
+    public boolean resolveCell(OWLAxiom axiom, int[] cell) {
+        OWLObjectPropertyRangeAxiom a = (OWLObjectPropertyRangeAxiom) axiom;
+        if (a.getProperty().isAnonymous()) {
+            throw new UnsupportedOperationException("Anonymous properties are not supported");
+        }
+        if (a.getRange().isAnonymous()) {
+            throw new UnsupportedOperationException("Anonymous classes are not supported");
+        }
+        cell[0] = matrix.getNamingManager().getPropertyId(a.getProperty().asOWLObjectProperty());
+        cell[1] = matrix.getNamingManager().getConceptId(a.getRange().asOWLClass());
+        return true;
     }
 
     @Override
@@ -155,24 +201,13 @@ public class PropertyRangeInferenceStepProvider extends InferenceStepProvider {
 
         OWLObjectPropertyRangeAxiom a = (OWLObjectPropertyRangeAxiom) axiom;
 
-        int propertyID = resolveRowIRI(Util.getFragment(a.getProperty().asOWLObjectProperty().getIRI().toString()));
-        int domainID = resolveColIRI(Util.getFragment(a.getRange().asOWLClass().getIRI().toString()));
+        int propertyID = matrix.getNamingManager().getPropertyId(a.getProperty().asOWLObjectProperty());
+        int domainID = matrix.getNamingManager().getConceptId(a.getRange().asOWLClass());
         return matrix.getExplanation(propertyID, domainID);
     }
 
     @Override
-    public void addAxiom(OWLAxiom axiom) {
-        isProcessable(axiom);
-
-        OWLObjectPropertyRangeAxiom a = (OWLObjectPropertyRangeAxiom) axiom;
-
-        String propertyIRI = Util.getFragment(a.getProperty().asOWLObjectProperty().getIRI().toString());
-        String rangeIRI = Util.getFragment(a.getRange().asOWLClass().getIRI().toString());
-        matrix.set(propertyIRI, rangeIRI, true);
-        int indexA = resolveRowIRI(propertyIRI);
-        int indexB = resolveColIRI(rangeIRI);
-        if (generateExplanations) {
-            matrix.addExplanation(indexA, indexB, or(and(literal(axiom))));
-        }
+    public void addStatedAxiom(Matrix matrix, AxiomType type, int first, int second, OWLAxiom justification) {
+        matrix.addStated(first, second, justification);
     }
 }
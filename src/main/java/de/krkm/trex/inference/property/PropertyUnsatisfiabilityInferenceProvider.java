@@ -1,9 +1,10 @@
 package de.krkm.trex.inference.property;
 
-import de.krkm.trex.booleanexpressions.ExpressionMinimizer;
 import de.krkm.trex.booleanexpressions.OrExpression;
 import de.krkm.trex.inference.InferenceStepProvider;
 import de.krkm.trex.inference.Matrix;
+import de.krkm.trex.inference.Propagator;
+import de.krkm.trex.reasoner.OntologyNamingManager;
 import de.krkm.trex.reasoner.TRexReasoner;
 import org.semanticweb.owlapi.model.*;
 
@@ -15,6 +16,9 @@ import java.util.HashSet;
  * concept disjointness.
  */
 public class PropertyUnsatisfiabilityInferenceProvider extends InferenceStepProvider {
+    private final static String RULE_DOMAIN = "PropertyUnsatisfiability-domain";
+    private final static String RULE_RANGE = "PropertyUnsatisfiability-range";
+
     private TRexReasoner reasoner;
     private OWLDataFactory factory;
     private Matrix matrix;
@@ -30,74 +34,60 @@ public class PropertyUnsatisfiabilityInferenceProvider extends InferenceStepProv
         // matrix contains one entry for each property, marking if the property is unsatisfiable due
         // a combination of concept disjointness and domain or range restrictions
         int dimension = matrix.getNamingManager().getNumberOfProperties();
-        matrix.setMatrix(new boolean[1][dimension]);
-
-        if (generateExplanations) {
-            matrix.setExplanations(new OrExpression[1][dimension]);
-        }
-
+        matrix.setDimensions(1, dimension);
+    }
 
-        // create list of disjoint concepts
-        ArrayList<Integer[]> disjointConcepts = new ArrayList<Integer[]>();
-        for (int i = 0; i < reasoner.conceptDisjointness.dimensionRow; i++) {
-            for (int j = 0; j < i; j++) {
-                if (reasoner.conceptDisjointness.matrix[i][j]) {
-                    disjointConcepts.add(new Integer[]{i, j});
-                }
-            }
-        }
+    @Override
+    public boolean infer(Matrix matrix, int row, int col) {
+        // only two disjoint domains or two disjoint ranges make the property unsatisfiable, thus, both restriction
+        // rows of the property are walked separately and the concepts not used as restriction are never visited
+        boolean mod = inferFromRestrictions(matrix, col, reasoner.propertyDomain, RULE_DOMAIN);
+        return inferFromRestrictions(matrix, col, reasoner.propertyRange, RULE_RANGE) || mod;
+    }
 
-        for (int k = 0; k < dimension; k++) {
-            for (Integer[] cood : disjointConcepts) {
-                int i = cood[0];
-                int j = cood[1];
-                if (reasoner.propertyDomain.matrix[k][i] && reasoner.propertyDomain.matrix[k][j]) {
-                    matrix.matrix[0][k] = true;
-                    if (generateExplanations) {
-                        OrExpression explDisjoint = reasoner.conceptDisjointness.getExplanation(i, j);
-                        OrExpression explDomainKI = reasoner.propertyDomain.getExplanation(k, i);
-                        OrExpression explDomainKJ = reasoner.propertyDomain.getExplanation(k, j);
-
-
-                        OrExpression flattenedDomain = ExpressionMinimizer
-                                .flatten(explDomainKJ,
-                                        explDomainKI);
-                        OrExpression flattenedDomainDisjoint = ExpressionMinimizer.flatten(flattenedDomain,
-                                explDisjoint);
-                        matrix.addExplanation(0, k, flattenedDomainDisjoint);
-                    }
+    /**
+     * Checks all pairs of concepts set in the row of the given property in the given domain or range matrix for
+     * disjointness.
+     */
+    private boolean inferFromRestrictions(Matrix matrix, int property, Matrix restrictions, String rule) {
+        boolean mod = false;
+        for (int i = restrictions.nextSetColumn(property, 0); i != -1;
+             i = restrictions.nextSetColumn(property, i + 1)) {
+            for (int j = restrictions.nextSetColumn(property, 0); j != -1 && j < i;
+                 j = restrictions.nextSetColumn(property, j + 1)) {
+                if (!reasoner.conceptDisjointness.get(i, j)) {
+                    continue;
                 }
-                if (reasoner.propertyRange.matrix[k][i] && reasoner.propertyRange.matrix[k][j]) {
-                    matrix.matrix[0][k] = true;
-                    if (generateExplanations) {
-                        OrExpression explDisjoint = reasoner.conceptDisjointness.getExplanation(i, j);
-                        OrExpression explRangeKI = reasoner.propertyRange.getExplanation(k, i);
-                        OrExpression explRangeKJ = reasoner.propertyRange.getExplanation(k, j);
-
-
-                        OrExpression flattenedRange = ExpressionMinimizer
-                                .flatten(explRangeKJ,
-                                        explRangeKI);
-                        OrExpression flattenedRangeDisjoint = ExpressionMinimizer.flatten(flattenedRange,
-                                explDisjoint);
-                        matrix.addExplanation(0, k, flattenedRangeDisjoint);
-                    }
+                mod = matrix.set(0, property, true) || mod;
+                if (generateExplanations) {
+                    mod = matrix.addDerivation(0, property, rule, restrictions, property, j, restrictions, property, i,
+                            reasoner.conceptDisjointness, i, j) || mod;
                 }
             }
         }
+        return mod;
     }
 
-
     @Override
-    public boolean infer(Matrix matrix, int row, int col) {
-        return false;
+    public void addAffectedCells(Matrix matrix, Matrix premise, int row, int col, Propagator propagator) {
+        if (premise == reasoner.propertyDomain || premise == reasoner.propertyRange) {
+            propagator.enqueue(matrix, 0, row);
+        }
+        else if (premise == reasoner.conceptDisjointness && row != col) {
+            for (int k = 0; k < matrix.dimensionCol; k++) {
+                if ((reasoner.propertyDomain.get(k, row) && reasoner.propertyDomain.get(k, col)) ||
+                        (reasoner.propertyRange.get(k, row) && reasoner.propertyRange.get(k, col))) {
+                    propagator.enqueue(matrix, 0, k);
+                }
+            }
+        }
     }
 
     @Override
     public String getAxiomRepresentation(Matrix matrix, int row, int col) {
         if (matrix.get(row, col)) {
-            return String.format("DisjointObjectProperty(%s, %s)", matrix.getNamingManager().getConceptIRI(col),
-                    matrix.getNamingManager().getConceptIRI(col));
+            return String.format("DisjointObjectProperty(%s, %s)", matrix.getNamingManager().getPropertyIRI(col),
+                    matrix.getNamingManager().getPropertyIRI(col));
         }
         return null;
     }
@@ -121,6 +111,17 @@ public class PropertyUnsatisfiabilityInferenceProvider extends InferenceStepProv
         return "PropertyUnsatisfiability";
     }
 
+    @Override
+    public int getRowDimension(OntologyNamingManager namingManager) {
+        // single row marking unsatisfiable properties
+        return 1;
+    }
+
+    @Override
+    public int getColDimension(OntologyNamingManager namingManager) {
+        return namingManager.getNumberOfProperties();
+    }
+
     @Override
     public String resolveRowID(int id) {
         return reasoner.getNamingManager().getPropertyIRI(id);
@@ -146,8 +147,8 @@ public class PropertyUnsatisfiabilityInferenceProvider extends InferenceStepProv
             return false;
         }
 
-        int id = matrix.getNamingManager().getPropertyId(objectProperties.get(0).getIRI().toString());
-        return matrix.matrix[0][id];
+        int id = matrix.getNamingManager().getPropertyId(objectProperties.get(0));
+        return id != -1 && matrix.get(0, id);
     }
 
     @Override
@@ -164,12 +165,21 @@ public class PropertyUnsatisfiabilityInferenceProvider extends InferenceStepProv
             return null;
         }
 
-        int id = matrix.getNamingManager().getPropertyId(objectProperties.get(0).getIRI().toString());
+        int id = matrix.getNamingManager().getPropertyId(objectProperties.get(0));
+        if (id == -1) {
+            return null;
+        }
         return matrix.getExplanation(0, id);
     }
 
     @Override
-    public void addAxiom(OWLAxiom axiom) {
+    public AxiomType[] getStatedAxiomTypes() {
+        // matrix does not represent any stated axiom directly
+        return new AxiomType[0];
+    }
+
+    @Override
+    public void addStatedAxiom(Matrix matrix, AxiomType type, int first, int second, OWLAxiom justification) {
         // do nothing since matrix does not represent any axiom directly
     }
 
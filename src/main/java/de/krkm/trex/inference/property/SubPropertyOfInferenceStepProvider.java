@@ -1,19 +1,19 @@
 package de.krkm.trex.inference.property;
 
-import de.krkm.trex.booleanexpressions.ExpressionMinimizer;
 import de.krkm.trex.booleanexpressions.OrExpression;
 import de.krkm.trex.inference.InferenceStepProvider;
 import de.krkm.trex.inference.Matrix;
+import de.krkm.trex.inference.Propagator;
+import de.krkm.trex.reasoner.OntologyNamingManager;
 import de.krkm.trex.reasoner.TRexReasoner;
-import de.krkm.trex.util.Util;
 import org.semanticweb.owlapi.model.*;
 
-import static de.krkm.trex.booleanexpressions.ExpressionMinimizer.*;
-
 /**
  * Implements the inference step for SubClassOf axioms.
  */
 public class SubPropertyOfInferenceStepProvider extends InferenceStepProvider {
+    private final static String RULE_TRANSITIVITY = "SubPropertyOf-transitivity";
+
     private TRexReasoner reasoner;
     private OWLDataFactory factory;
     private Matrix matrix;
@@ -21,63 +21,25 @@ public class SubPropertyOfInferenceStepProvider extends InferenceStepProvider {
 
     @Override
     public void initMatrix(OWLOntology ontology, TRexReasoner reasoner, Matrix matrix) {
-        int dimension = matrix.getNamingManager().getNumberOfProperties();
-        matrix.setMatrix(new boolean[dimension][dimension]);
-        this.generateExplanations = reasoner.isGenerateExplanations();
-
-        if (generateExplanations) {
-            matrix.setExplanations(new OrExpression[dimension][dimension]);
-        }
-
-        this.matrix = matrix;
-
         this.reasoner = reasoner;
         this.factory = ontology.getOWLOntologyManager().getOWLDataFactory();
-        // stated subsumption
-        for (OWLSubObjectPropertyOfAxiom a : ontology.getAxioms(AxiomType.SUB_OBJECT_PROPERTY)) {
-            if (!a.getSubProperty().isAnonymous() && !a.getSuperProperty().isAnonymous()) {
-                String subPropertyIRI = Util.getFragment(a.getSubProperty().asOWLObjectProperty().getIRI().toString());
-                String superPropertyIRI = Util
-                        .getFragment(a.getSuperProperty().asOWLObjectProperty().getIRI().toString());
-                matrix.set(subPropertyIRI, superPropertyIRI, true);
-                if (generateExplanations) {
-                    int subId = matrix.getNamingManager().getPropertyId(subPropertyIRI);
-                    int superId = matrix.getNamingManager().getPropertyId(superPropertyIRI);
-                    matrix.addExplanation(subId, superId,
-                            or(and(literal(a.getAxiomWithoutAnnotations()))));
-                }
-            }
-        }
+        this.matrix = matrix;
+        this.generateExplanations = reasoner.isGenerateExplanations();
 
-        // stated class equivalence
-        for (OWLEquivalentObjectPropertiesAxiom equiv : ontology.getAxioms(AxiomType.EQUIVALENT_OBJECT_PROPERTIES)) {
-            for (OWLSubObjectPropertyOfAxiom a : equiv.asSubObjectPropertyOfAxioms()) {
-                if (!a.getSubProperty().isAnonymous() && !a.getSuperProperty().isAnonymous()) {
-                    String subPropertyIRI = Util
-                            .getFragment(a.getSubProperty().asOWLObjectProperty().getIRI().toString());
-                    String superPropertyIRI = Util
-                            .getFragment(a.getSuperProperty().asOWLObjectProperty().getIRI().toString());
-                    matrix.set(subPropertyIRI, superPropertyIRI, true);
-                    if (generateExplanations) {
-                        int subId = matrix.getNamingManager().getPropertyId(subPropertyIRI);
-                        int superId = matrix.getNamingManager().getPropertyId(superPropertyIRI);
-                        matrix.addExplanation(subId, superId,
-                                or(and(literal(a))));
-                    }
-                }
-            }
-        }
+        // stated axioms are added by the axiom dispatcher
+        OntologyNamingManager namingManager = matrix.getNamingManager();
+        matrix.setDimensions(getRowDimension(namingManager), getColDimension(namingManager));
     }
 
     @Override
     public boolean infer(Matrix matrix, int row, int col) {
         boolean mod = false;
-        for (int i = 0; i < matrix.dimensionRow; i++) {
-            if (matrix.matrix[row][i] && matrix.matrix[i][col]) {
+        // only the superproperties of row have to be checked
+        for (int i = matrix.nextSetColumn(row, 0); i != -1; i = matrix.nextSetColumn(row, i + 1)) {
+            if (matrix.get(i, col)) {
                 mod = matrix.set(row, col, true) || mod;
                 if (generateExplanations) {
-                    mod = matrix.addExplanation(row, col, ExpressionMinimizer
-                            .flatten(matrix.getExplanation(row, i), matrix.getExplanation(i, col))) || mod;
+                    mod = matrix.addDerivation(row, col, RULE_TRANSITIVITY, matrix, row, i, matrix, i, col) || mod;
                 }
             }
         }
@@ -85,9 +47,27 @@ public class SubPropertyOfInferenceStepProvider extends InferenceStepProvider {
         return mod;
     }
 
+    @Override
+    public void addAffectedCells(Matrix matrix, Matrix premise, int row, int col, Propagator propagator) {
+        if (premise != matrix) {
+            return;
+        }
+        // cell takes part in transitivity as first and as second premise
+        for (int i = 0; i < matrix.dimensionCol; i++) {
+            if (matrix.get(col, i)) {
+                propagator.enqueue(matrix, row, i);
+            }
+        }
+        for (int i = 0; i < matrix.dimensionRow; i++) {
+            if (matrix.get(i, row)) {
+                propagator.enqueue(matrix, i, col);
+            }
+        }
+    }
+
     @Override
     public String getAxiomRepresentation(Matrix matrix, int row, int col) {
-        if (matrix.matrix[row][col]) {
+        if (matrix.get(row, col)) {
             return String.format("SubPropertyOf(%s, %s)", matrix.getNamingManager().getPropertyIRI(row),
                     matrix.getNamingManager()
                             .getPropertyIRI(col));
@@ -97,7 +77,7 @@ public class SubPropertyOfInferenceStepProvider extends InferenceStepProvider {
 
     @Override
     public OWLAxiom getAxiom(Matrix matrix, int row, int col) {
-        if (matrix.matrix[row][col]) {
+        if (matrix.get(row, col)) {
             return factory.getOWLSubObjectPropertyOfAxiom(
                     factory.getOWLObjectProperty(
                             IRI.create(getIRIWithNamespace(matrix.getNamingManager().getPropertyIRI(row)))),
@@ -112,11 +92,26 @@ public class SubPropertyOfInferenceStepProvider extends InferenceStepProvider {
         return "SubPropertyOf";
     }
 
+    @Override
+    public String getFunctionalSyntaxName() {
+        return "SubObjectPropertyOf";
+    }
+
+    @Override
+    public String getRDFPredicate() {
+        return "http://www.w3.org/2000/01/rdf-schema#subPropertyOf";
+    }
+
     @Override
     public boolean isSymmetric() {
         return false;
     }
 
+    @Override
+    public int getRowDimension(OntologyNamingManager namingManager) {
+        return namingManager.getNumberOfProperties();
+    }
+
     @Override
     public int resolveRowIRI(String iri) {
         return reasoner.getNamingManager().getPropertyId(iri);
@@ -138,9 +133,20 @@ public class SubPropertyOfInferenceStepProvider extends InferenceStepProvider {
 
         OWLSubObjectPropertyOfAxiom a = (OWLSubObjectPropertyOfAxiom) axiom;
 
-        String subClassIRI = Util.getFragment(a.getSubProperty().asOWLObjectProperty().getIRI().toString());
-        String superClassIRI = Util.getFragment(a.getSuperProperty().asOWLObjectProperty().getIRI().toString());
-        return matrix.get(subClassIRI, superClassIRI);
+        int subClassId = matrix.getNamingManager().getPropertyId(a.getSubProperty().asOWLObjectProperty());
+        int superClassId = matrix.getNamingManager().getPropertyId(a.getSuperProperty().asOWLObjectProperty());
+        return subClassId != -1 && superClassId != -1 && matrix.get(subClassId, superClassId);
+    }
+
+    @Override
+    public boolean resolveCell(OWLAxiom axiom, int[] cell) {
+        OWLSubObjectPropertyOfAxiom a = (OWLSubObjectPropertyOfAxiom) axiom;
+        if (a.getSubProperty().isAnonymous() || a.getSuperProperty().isAnonymous()) {
+            throw new UnsupportedOperationException("Anonymous properties are not supported");
+        }
+        cell[0] = matrix.getNamingManager().getPropertyId(a.getSubProperty().asOWLObjectProperty());
+        cell[1] = matrix.getNamingManager().getPropertyId(a.getSuperProperty().asOWLObjectProperty());
+        return true;
     }
 
     @Override
@@ -153,27 +159,22 @@ public class SubPropertyOfInferenceStepProvider extends InferenceStepProvider {
 
         OWLSubObjectPropertyOfAxiom a = (OWLSubObjectPropertyOfAxiom) axiom;
 
-        int subClassID = resolveRowIRI(Util.getFragment(a.getSubProperty().asOWLObjectProperty().getIRI().toString()));
-        int superClassID = resolveColIRI(
-                Util.getFragment(a.getSuperProperty().asOWLObjectProperty().getIRI().toString()));
+        int subClassID = matrix.getNamingManager().getPropertyId(a.getSubProperty().asOWLObjectProperty());
+        int superClassID = matrix.getNamingManager().getPropertyId(a.getSuperProperty().asOWLObjectProperty());
 
         return matrix.getExplanation(subClassID, superClassID);
     }
 
     @Override
-    public void addAxiom(OWLAxiom axiom) {
-        isProcessable(axiom);
-
-        OWLSubObjectPropertyOfAxiom a = (OWLSubObjectPropertyOfAxiom) axiom;
-
-        String subClassIRI = Util.getFragment(a.getSubProperty().asOWLObjectProperty().getIRI().toString());
-        String superClassIRI = Util.getFragment(a.getSuperProperty().asOWLObjectProperty().getIRI().toString());
-        matrix.set(subClassIRI, superClassIRI, true);
-        int indexA = resolveRowIRI(subClassIRI);
-        int indexB = resolveColIRI(superClassIRI);
+    public AxiomType[] getStatedAxiomTypes() {
+        return new AxiomType[]{AxiomType.SUB_OBJECT_PROPERTY, AxiomType.EQUIVALENT_OBJECT_PROPERTIES};
+    }
 
-        if (generateExplanations) {
-            matrix.addExplanation(indexA, indexB, or(and(literal(axiom))));
+    @Override
+    public void addStatedAxiom(Matrix matrix, AxiomType type, int first, int second, OWLAxiom justification) {
+        matrix.addStated(first, second, justification);
+        if (type == AxiomType.EQUIVALENT_OBJECT_PROPERTIES) {
+            matrix.addStated(second, first, justification);
         }
     }
 }
@@ -0,0 +1,74 @@
+package de.krkm.trex.reasoner;
+
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Entities whose satisfiability has changed by an update of a reasoner, see {@link CoherenceListener}. Only the net
+ * changes are contained, i.e., entities which are unsatisfiable both before and after the update are not contained
+ * even if their unsatisfiability has been retracted and re-derived during the update.
+ */
+public class CoherenceChange {
+    private final long version;
+    private final Set<OWLClass> unsatisfiableClasses;
+    private final Set<OWLClass> satisfiableClasses;
+    private final Set<OWLObjectProperty> unsatisfiableProperties;
+    private final Set<OWLObjectProperty> satisfiableProperties;
+
+    CoherenceChange(long version, Set<OWLClass> unsatisfiableClasses, Set<OWLClass> satisfiableClasses,
+            Set<OWLObjectProperty> unsatisfiableProperties, Set<OWLObjectProperty> satisfiableProperties) {
+        this.version = version;
+        this.unsatisfiableClasses = Collections.unmodifiableSet(unsatisfiableClasses);
+        this.satisfiableClasses = Collections.unmodifiableSet(satisfiableClasses);
+        this.unsatisfiableProperties = Collections.unmodifiableSet(unsatisfiableProperties);
+        this.satisfiableProperties = Collections.unmodifiableSet(satisfiableProperties);
+    }
+
+    /**
+     * Returns the version of the reasoner state after the update, see {@link TRexReasoner#getVersion()}.
+     *
+     * @return version of the reasoner state after the update
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the classes which have been satisfiable before the update and are unsatisfiable now.
+     *
+     * @return classes which became unsatisfiable
+     */
+    public Set<OWLClass> getNewlyUnsatisfiableClasses() {
+        return unsatisfiableClasses;
+    }
+
+    /**
+     * Returns the classes which have been unsatisfiable before the update and are satisfiable now.
+     *
+     * @return classes which became satisfiable
+     */
+    public Set<OWLClass> getNewlySatisfiableClasses() {
+        return satisfiableClasses;
+    }
+
+    /**
+     * Returns the properties which have been satisfiable before the update and are unsatisfiable now.
+     *
+     * @return properties which became unsatisfiable
+     */
+    public Set<OWLObjectProperty> getNewlyUnsatisfiableProperties() {
+        return unsatisfiableProperties;
+    }
+
+    /**
+     * Returns the properties which have been unsatisfiable before the update and are satisfiable now.
+     *
+     * @return properties which became satisfiable
+     */
+    public Set<OWLObjectProperty> getNewlySatisfiableProperties() {
+        return satisfiableProperties;
+    }
+}
@@ -0,0 +1,14 @@
+package de.krkm.trex.reasoner;
+
+/**
+ * Receives the changes of the set of unsatisfiable entities of a reasoner, see
+ * {@link TRexReasoner#addCoherenceListener(CoherenceListener)}.
+ */
+public interface CoherenceListener {
+    /**
+     * Called after an update of the reasoner changed the satisfiability of at least one entity.
+     *
+     * @param change entities whose satisfiability has changed
+     */
+    void coherenceChanged(CoherenceChange change);
+}
@@ -0,0 +1,149 @@
+package de.krkm.trex.reasoner;
+
+import de.krkm.trex.inference.CellChangeListener;
+import de.krkm.trex.inference.Matrix;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Tracks the satisfiability of all entities of a reasoner and reports its changes to the registered
+ * {@link CoherenceListener}s. The monitor listens to the cells changed by the propagator and only remembers the
+ * entities whose unsatisfiability cells have been touched. After each update, only these entities are compared to the
+ * state reported last, thus, the diagonals of the matrices are scanned only once when the monitor is started.
+ */
+class CoherenceMonitor implements CellChangeListener {
+    private final TRexReasoner reasoner;
+    private final ArrayList<CoherenceListener> listeners = new ArrayList<CoherenceListener>();
+
+    // satisfiability as reported last
+    private final BitSet unsatisfiableConcepts = new BitSet();
+    private final BitSet unsatisfiableProperties = new BitSet();
+
+    // entities whose unsatisfiability cells have changed since the last report
+    private final BitSet touchedConcepts = new BitSet();
+    private final BitSet touchedProperties = new BitSet();
+
+    /**
+     * Initializes the monitor for the current state of the given reasoner and registers it with the propagator of the
+     * reasoner.
+     *
+     * @param reasoner reasoner to monitor
+     */
+    CoherenceMonitor(TRexReasoner reasoner) {
+        this.reasoner = reasoner;
+        Matrix conceptDisjointness = reasoner.getConceptDisjointness();
+        for (int i = 0; i < conceptDisjointness.dimensionRow; i++) {
+            if (conceptDisjointness.get(i, i)) {
+                unsatisfiableConcepts.set(i);
+            }
+        }
+        if (!reasoner.isConceptOnly()) {
+            for (int i = 0; i < reasoner.getPropertyDisjointness().dimensionRow; i++) {
+                if (isUnsatisfiableProperty(i)) {
+                    unsatisfiableProperties.set(i);
+                }
+            }
+        }
+        reasoner.getPropagator().addListener(this);
+    }
+
+    /**
+     * Unregisters the monitor from the propagator of the reasoner.
+     */
+    void stop() {
+        reasoner.getPropagator().removeListener(this);
+    }
+
+    void addListener(CoherenceListener listener) {
+        listeners.add(listener);
+    }
+
+    void removeListener(CoherenceListener listener) {
+        listeners.remove(listener);
+    }
+
+    boolean hasListeners() {
+        return !listeners.isEmpty();
+    }
+
+    @Override
+    public void cellChanged(Matrix matrix, int row, int col, boolean value) {
+        if (matrix == reasoner.getConceptDisjointness()) {
+            if (row == col) {
+                touchedConcepts.set(row);
+            }
+        }
+        else if (matrix == reasoner.getPropertyDisjointness()) {
+            if (row == col) {
+                touchedProperties.set(row);
+            }
+        }
+        else if (matrix == reasoner.getPropertyUnsatisfiability()) {
+            touchedProperties.set(col);
+        }
+    }
+
+    /**
+     * Compares the touched entities to the state reported last and notifies the listeners if the satisfiability of
+     * any entity has changed.
+     *
+     * @param version version of the reasoner state after the update
+     */
+    void flush(long version) {
+        if (touchedConcepts.isEmpty() && touchedProperties.isEmpty()) {
+            return;
+        }
+        OntologyNamingManager namingManager = reasoner.getNamingManager();
+        Set<OWLClass> newlyUnsatisfiableClasses = new HashSet<OWLClass>();
+        Set<OWLClass> newlySatisfiableClasses = new HashSet<OWLClass>();
+        for (int i = touchedConcepts.nextSetBit(0); i >= 0; i = touchedConcepts.nextSetBit(i + 1)) {
+            boolean unsatisfiable = reasoner.getConceptDisjointness().get(i, i);
+            if (unsatisfiable != unsatisfiableConcepts.get(i)) {
+                unsatisfiableConcepts.set(i, unsatisfiable);
+                if (unsatisfiable) {
+                    newlyUnsatisfiableClasses.add(namingManager.getConcept(i));
+                }
+                else {
+                    newlySatisfiableClasses.add(namingManager.getConcept(i));
+                }
+            }
+        }
+        Set<OWLObjectProperty> newlyUnsatisfiableProperties = new HashSet<OWLObjectProperty>();
+        Set<OWLObjectProperty> newlySatisfiableProperties = new HashSet<OWLObjectProperty>();
+        for (int i = touchedProperties.nextSetBit(0); i >= 0; i = touchedProperties.nextSetBit(i + 1)) {
+            boolean unsatisfiable = isUnsatisfiableProperty(i);
+            if (unsatisfiable != unsatisfiableProperties.get(i)) {
+                unsatisfiableProperties.set(i, unsatisfiable);
+                if (unsatisfiable) {
+                    newlyUnsatisfiableProperties.add(namingManager.getProperty(i));
+                }
+                else {
+                    newlySatisfiableProperties.add(namingManager.getProperty(i));
+                }
+            }
+        }
+        touchedConcepts.clear();
+        touchedProperties.clear();
+
+        if (newlyUnsatisfiableClasses.isEmpty() && newlySatisfiableClasses.isEmpty()
+                && newlyUnsatisfiableProperties.isEmpty() && newlySatisfiableProperties.isEmpty()) {
+            return;
+        }
+        CoherenceChange change = new CoherenceChange(version, newlyUnsatisfiableClasses, newlySatisfiableClasses,
+                newlyUnsatisfiableProperties, newlySatisfiableProperties);
+        // listeners may unregister themselves while being notified
+        for (CoherenceListener listener : new ArrayList<CoherenceListener>(listeners)) {
+            listener.coherenceChanged(change);
+        }
+    }
+
+    private boolean isUnsatisfiableProperty(int property) {
+        return reasoner.getPropertyDisjointness().get(property, property)
+                || reasoner.getPropertyUnsatisfiability().get(0, property);
+    }
+}
@@ -0,0 +1,190 @@
+package de.krkm.trex.reasoner;
+
+import de.krkm.trex.booleanexpressions.OrExpression;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Greedily adds candidate axioms to the ontology of a reasoner as long as they do not cause any concept or property to
+ * become unsatisfiable. Candidates are expected to be offered in descending order of their confidence, e.g., as
+ * produced by an ontology learning approach, so that each accepted axiom is the most confident one coherent with all
+ * axioms accepted before.
+ * <p>
+ * Each candidate is checked in advance using {@link TRexReasoner#wouldCauseIncoherence(OWLAxiom, Set, Set)}, which
+ * only inspects the rows affected by the candidate and never rescans the unsatisfiability diagonals. Only accepted
+ * candidates are added to the reasoner, see {@link TRexReasoner#applyChanges(java.util.Collection,
+ * java.util.Collection)}. Rejected candidates are reported together with the newly unsatisfiable entities and, if
+ * explanations are enabled, the explanation of the conflict. The explanation is computed by adding the candidate to
+ * a fork of the reasoner, see {@link TRexReasoner#fork()}, which is dropped afterwards.
+ * <p>
+ * Thus, a rejected candidate never modifies the reasoner: it neither registers the entities it mentions nor
+ * increases the version of the reasoner, and it is never visible in a published version or reported to coherence
+ * listeners, see {@link TRexReasoner#setVersioning(boolean)} and
+ * {@link TRexReasoner#addCoherenceListener(CoherenceListener)}.
+ * <p>
+ * Entities which are already unsatisfiable before a candidate is offered do not cause its rejection.
+ */
+public class CoherentAxiomAcceptor {
+    private final TRexReasoner reasoner;
+    private final ArrayList<OWLAxiom> accepted = new ArrayList<OWLAxiom>();
+    private final ArrayList<Rejection> rejected = new ArrayList<Rejection>();
+
+    /**
+     * Initializes the acceptor adding the accepted axioms to the ontology of the given reasoner.
+     *
+     * @param reasoner reasoner to add accepted axioms to
+     */
+    public CoherentAxiomAcceptor(TRexReasoner reasoner) {
+        this.reasoner = reasoner;
+    }
+
+    /**
+     * Offers the given candidate axiom. If adding it does not make any satisfiable concept or property unsatisfiable,
+     * the axiom is kept in the ontology, otherwise it is not kept and reported by {@link #getRejected()}.
+     * Candidates already contained in the ontology are always accepted.
+     *
+     * @param candidate axiom to offer
+     * @return true if the candidate has been accepted, otherwise false
+     * @throws UnsupportedOperationException if the reasoner is unable to handle the type of the candidate
+     */
+    public boolean offer(OWLAxiom candidate) {
+        Set<OWLClass> concepts = new HashSet<OWLClass>();
+        Set<OWLObjectProperty> properties = new HashSet<OWLObjectProperty>();
+        if (!reasoner.wouldCauseIncoherence(candidate, concepts, properties)) {
+            reasoner.applyChanges(Collections.singleton(candidate), Collections.<OWLAxiom>emptySet());
+            accepted.add(candidate);
+            return true;
+        }
+
+        OrExpression explanation = null;
+        if (reasoner.isGenerateExplanations()) {
+            explanation = explainConflict(candidate, concepts, properties);
+        }
+        rejected.add(new Rejection(candidate, concepts, properties, explanation));
+        return false;
+    }
+
+    /**
+     * Returns the explanation for the unsatisfiability of the affected concept with the lowest ID or, if no concept is
+     * affected, of the affected property with the lowest ID, after adding the candidate to a fork of the reasoner.
+     */
+    private OrExpression explainConflict(OWLAxiom candidate, Set<OWLClass> concepts,
+            Set<OWLObjectProperty> properties) {
+        TRexReasoner fork = reasoner.fork();
+        fork.applyChanges(Collections.singleton(candidate), Collections.<OWLAxiom>emptySet());
+        OntologyNamingManager namingManager = fork.getNamingManager();
+        if (!concepts.isEmpty()) {
+            OWLClass first = null;
+            for (OWLClass concept : concepts) {
+                if (first == null || namingManager.getConceptId(concept) < namingManager.getConceptId(first)) {
+                    first = concept;
+                }
+            }
+            return fork.getUnsatisfiabilityExplanation(first);
+        }
+        OWLObjectProperty first = null;
+        for (OWLObjectProperty property : properties) {
+            if (first == null || namingManager.getPropertyId(property) < namingManager.getPropertyId(first)) {
+                first = property;
+            }
+        }
+        return fork.getUnsatisfiabilityExplanation(first);
+    }
+
+    /**
+     * Offers the given candidate axioms in their iteration order, see {@link #offer(OWLAxiom)}.
+     *
+     * @param candidates axioms to offer in descending order of confidence
+     * @return number of accepted candidates
+     */
+    public int offerAll(Iterable<? extends OWLAxiom> candidates) {
+        int n = 0;
+        for (OWLAxiom candidate : candidates) {
+            if (offer(candidate)) {
+                n++;
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Returns all accepted candidates in the order they have been offered.
+     *
+     * @return accepted candidates
+     */
+    public List<OWLAxiom> getAccepted() {
+        return Collections.unmodifiableList(accepted);
+    }
+
+    /**
+     * Returns the rejections of all rejected candidates in the order the candidates have been offered.
+     *
+     * @return rejections of all rejected candidates
+     */
+    public List<Rejection> getRejected() {
+        return Collections.unmodifiableList(rejected);
+    }
+
+    /**
+     * Describes why a candidate axiom has been rejected.
+     */
+    public static class Rejection {
+        private final OWLAxiom axiom;
+        private final Set<OWLClass> unsatisfiableClasses;
+        private final Set<OWLObjectProperty> unsatisfiableProperties;
+        private final OrExpression explanation;
+
+        Rejection(OWLAxiom axiom, Set<OWLClass> unsatisfiableClasses,
+                Set<OWLObjectProperty> unsatisfiableProperties, OrExpression explanation) {
+            this.axiom = axiom;
+            this.unsatisfiableClasses = Collections.unmodifiableSet(unsatisfiableClasses);
+            this.unsatisfiableProperties = Collections.unmodifiableSet(unsatisfiableProperties);
+            this.explanation = explanation;
+        }
+
+        /**
+         * Returns the rejected candidate.
+         *
+         * @return rejected candidate
+         */
+        public OWLAxiom getAxiom() {
+            return axiom;
+        }
+
+        /**
+         * Returns the classes which would have become unsatisfiable by adding the candidate.
+         *
+         * @return classes which would have become unsatisfiable
+         */
+        public Set<OWLClass> getUnsatisfiableClasses() {
+            return unsatisfiableClasses;
+        }
+
+        /**
+         * Returns the properties which would have become unsatisfiable by adding the candidate.
+         *
+         * @return properties which would have become unsatisfiable
+         */
+        public Set<OWLObjectProperty> getUnsatisfiableProperties() {
+            return unsatisfiableProperties;
+        }
+
+        /**
+         * Returns the explanation for the unsatisfiability of one of the affected entities while the candidate was
+         * part of the ontology, preferring classes over properties and lower IDs over higher ones. Each justification
+         * of the explanation contains the candidate.
+         *
+         * @return explanation of the conflict or null if the reasoner does not generate explanations
+         */
+        public OrExpression getExplanation() {
+            return explanation;
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package de.krkm.trex.reasoner;
+
+import de.krkm.trex.inference.InferenceStepProvider;
+import de.krkm.trex.inference.Matrix;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes all axioms entailed by a reasoner to a stream without creating OWL API objects. The set cells of each matrix
+ * are visited row by row and written as one line per axiom, either in OWL 2 functional syntax or as N-Triples. The
+ * lines only consist of the IRIs of the involved entities and constant strings, so that no objects are created per
+ * axiom.
+ * <p>
+ * Only matrices whose inference step provider supports exporting, see
+ * {@link InferenceStepProvider#getFunctionalSyntaxName()} and {@link InferenceStepProvider#getRDFPredicate()}, are
+ * exported. For the matrices created by {@link TRexReasoner}, these are the matrices whose axioms are returned by
+ * {@link TRexReasoner#getAxioms()}. Symmetric matrices are exported by their lower triangle, thus, each axiom is written
+ * once.
+ */
+public class EntailmentExporter {
+    private final static Logger log = LoggerFactory.getLogger(EntailmentExporter.class);
+
+    /**
+     * Formats supported for exporting
+     */
+    public enum Format {
+        /**
+         * OWL 2 functional syntax, the axioms are enclosed in a single ontology
+         */
+        FUNCTIONAL_SYNTAX(".ofn"),
+        /**
+         * N-Triples, each axiom is represented by a single triple
+         */
+        N_TRIPLES(".nt");
+
+        private final String extension;
+
+        private Format(String extension) {
+            this.extension = extension;
+        }
+
+        /**
+         * Returns the file name extension used for files in this format.
+         *
+         * @return file name extension including the leading dot
+         */
+        public String getExtension() {
+            return extension;
+        }
+    }
+
+    private final TRexReasoner reasoner;
+    private final Format format;
+
+    /**
+     * Initializes the exporter for the given reasoner.
+     *
+     * @param reasoner reasoner to export entailed axioms of
+     * @param format   format to write axioms in
+     */
+    public EntailmentExporter(TRexReasoner reasoner, Format format) {
+        this.reasoner = reasoner;
+        this.format = format;
+    }
+
+    /**
+     * Returns true if the axioms of the given matrix can be written in the format of this exporter.
+     *
+     * @param matrix matrix to check
+     * @return true if the axioms of the matrix can be exported
+     */
+    public boolean isExportable(Matrix matrix) {
+        InferenceStepProvider provider = matrix.getInferenceStepProvider();
+        return (format == Format.FUNCTIONAL_SYNTAX ? provider.getFunctionalSyntaxName() :
+                provider.getRDFPredicate()) != null;
+    }
+
+    /**
+     * Writes the entailed axioms of all exportable matrices to the given stream using UTF-8. The stream is flushed but
+     * not closed.
+     *
+     * @param out stream to write to
+     * @return number of written axioms
+     * @throws IOException on errors writing to the stream
+     */
+    public long export(OutputStream out) throws IOException {
+        Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), 1 << 16);
+        long count = export(writer);
+        writer.flush();
+        return count;
+    }
+
+    /**
+     * Writes the entailed axioms of all exportable matrices to the given writer. The writer should be buffered and is
+     * neither flushed nor closed.
+     *
+     * @param writer writer to write to
+     * @return number of written axioms
+     * @throws IOException on errors writing to the writer
+     */
+    public long export(Writer writer) throws IOException {
+        writeHeader(writer);
+        long count = 0;
+        for (int i = 0; i < reasoner.getNumberOfMatrices(); i++) {
+            Matrix matrix = reasoner.getMatrix(i);
+            if (isExportable(matrix)) {
+                count += writeAxioms(matrix, writer);
+            }
+        }
+        writeFooter(writer);
+        return count;
+    }
+
+    /**
+     * Writes the entailed axioms of the given matrix to the given writer. The writer should be buffered and is neither
+     * flushed nor closed.
+     *
+     * @param matrix matrix to export
+     * @param writer writer to write to
+     * @return number of written axioms
+     * @throws IOException on errors writing to the writer
+     */
+    public long export(Matrix matrix, Writer writer) throws IOException {
+        if (!isExportable(matrix)) {
+            throw new IllegalArgumentException(
+                    "Matrix " + matrix.getAxiomTypeIdentifier() + " cannot be exported as " + format);
+        }
+        writeHeader(writer);
+        long count = writeAxioms(matrix, writer);
+        writeFooter(writer);
+        return count;
+    }
+
+    /**
+     * Writes the entailed axioms of each exportable matrix to a separate file in the given directory. The files are
+     * named after ID and axiom type identifier of the matrix and are written concurrently using the given number of
+     * threads. Existing files are overwritten.
+     *
+     * @param directory directory to create files in
+     * @param threads   number of threads to use
+     * @return number of written axioms
+     * @throws IOException on errors writing any of the files
+     */
+    public long export(File directory, int threads) throws IOException {
+        ArrayList<Callable<Long>> tasks = new ArrayList<Callable<Long>>();
+        for (int i = 0; i < reasoner.getNumberOfMatrices(); i++) {
+            final Matrix matrix = reasoner.getMatrix(i);
+            if (!isExportable(matrix)) {
+                continue;
+            }
+            final File file = new File(directory,
+                    matrix.getId() + "-" + matrix.getAxiomTypeIdentifier() + format.getExtension());
+            tasks.add(new Callable<Long>() {
+                @Override
+                public Long call() throws IOException {
+                    OutputStream out = new FileOutputStream(file);
+                    try {
+                        Writer writer = new BufferedWriter(new OutputStreamWriter(out, "UTF-8"), 1 << 16);
+                        long count = export(matrix, writer);
+                        writer.flush();
+                        log.debug("Exported {} axioms to {}", count, file);
+                        return count;
+                    }
+                    finally {
+                        out.close();
+                    }
+                }
+            });
+        }
+
+        ExecutorService executor = Executors.newFixedThreadPool(Math.max(1, Math.min(threads, tasks.size())));
+        try {
+            long count = 0;
+            for (Future<Long> result : executor.invokeAll(tasks)) {
+                count += result.get();
+            }
+            return count;
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException("Interrupted while exporting axioms", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IllegalStateException("Unable to export axioms", e.getCause());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private void writeHeader(Writer writer) throws IOException {
+        if (format == Format.FUNCTIONAL_SYNTAX) {
+            writer.write("Ontology(\n");
+        }
+    }
+
+    private void writeFooter(Writer writer) throws IOException {
+        if (format == Format.FUNCTIONAL_SYNTAX) {
+            writer.write(")\n");
+        }
+    }
+
+    private long writeAxioms(Matrix matrix, Writer writer) throws IOException {
+        InferenceStepProvider provider = matrix.getInferenceStepProvider();
+        String prefix;
+        String separator;
+        String suffix;
+        if (format == Format.FUNCTIONAL_SYNTAX) {
+            prefix = provider.getFunctionalSyntaxName() + "(<";
+            separator = "> <";
+            suffix = ">)\n";
+        }
+        else {
+            prefix = "<";
+            separator = "> <" + provider.getRDFPredicate() + "> <";
+            suffix = "> .\n";
+        }
+
+        long count = 0;
+        for (int i = 0; i < matrix.dimensionRow; i++) {
+            int col = matrix.nextSetColumn(i, 0);
+            if (col == -1) {
+                continue;
+            }
+            String row = provider.resolveRowID(i);
+            for (; col != -1; col = matrix.nextSetColumn(i, col + 1)) {
+                writer.write(prefix);
+                writer.write(row);
+                writer.write(separator);
+                writer.write(provider.resolveColID(col));
+                writer.write(suffix);
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -0,0 +1,383 @@
+package de.krkm.trex.reasoner;
+
+import org.semanticweb.owlapi.model.*;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Determines the entities which would become unsatisfiable by adding a single axiom to the ontology of a reasoner
+ * without modifying the reasoner, see {@link TRexReasoner#wouldCauseIncoherence(OWLAxiom, Set, Set)}.
+ * <p>
+ * The check works on the rows of the materialized matrices. A subsumption axiom adds the superentities of its right
+ * hand side to all subentities of its left hand side, thus, only these subentities can become unsatisfiable and only
+ * if they are disjoint with the right hand side. A disjointness axiom only affects the entities subsumed by at least
+ * two of its operands. Domain and range axioms only affect the subproperties of their property. Properties being
+ * unsatisfiable due to disjoint domains or ranges are re-checked only if their domains or ranges intersect with the
+ * affected concepts. Entities not known to the reasoner yet get IDs following the known ones.
+ * <p>
+ * Each instance checks a single axiom and must not be used while the reasoner is modified.
+ */
+class IncoherenceCheck {
+    private final TRexReasoner reasoner;
+    private final OntologyNamingManager namingManager;
+    private final int numberOfConcepts;
+    private final int numberOfProperties;
+    private final ArrayList<OWLClass> unknownConcepts = new ArrayList<OWLClass>();
+    private final ArrayList<OWLObjectProperty> unknownProperties = new ArrayList<OWLObjectProperty>();
+
+    // concepts getting the superconcepts of the targets of a subsumption axiom
+    private final BitSet sources = new BitSet();
+    private final BitSet targetAncestors = new BitSet();
+    private final BitSet targetDisjoint = new BitSet();
+    private boolean targetsDisjoint;
+    // subconcepts of the operands of a disjointness axiom
+    private final ArrayList<BitSet> disjointGroups = new ArrayList<BitSet>();
+
+    private final BitSet propertySources = new BitSet();
+    private final BitSet propertyTargetDisjoint = new BitSet();
+    private boolean propertyTargetsDisjoint;
+    private final ArrayList<BitSet> propertyDisjointGroups = new ArrayList<BitSet>();
+    // domains and ranges the property sources get additionally
+    private final BitSet addedDomains = new BitSet();
+    private final BitSet addedRanges = new BitSet();
+
+    private final BitSet unsatisfiableConcepts = new BitSet();
+    private final BitSet unsatisfiableProperties = new BitSet();
+
+    /**
+     * Initializes the check for the current state of the given reasoner.
+     *
+     * @param reasoner reasoner to check axioms against
+     */
+    IncoherenceCheck(TRexReasoner reasoner) {
+        this.reasoner = reasoner;
+        this.namingManager = reasoner.getNamingManager();
+        this.numberOfConcepts = reasoner.getConceptDisjointness().dimensionRow;
+        this.numberOfProperties = reasoner.isConceptOnly() ? 0 : reasoner.getPropertyDisjointness().dimensionRow;
+    }
+
+    /**
+     * Determines the entities becoming unsatisfiable if the given axiom is added. The entities are added to the given
+     * sets.
+     *
+     * @param axiom      axiom to check
+     * @param concepts   set to add the concepts becoming unsatisfiable to, may be null
+     * @param properties set to add the properties becoming unsatisfiable to, may be null
+     * @return true if any entity becomes unsatisfiable
+     */
+    boolean check(OWLAxiom axiom, Set<OWLClass> concepts, Set<OWLObjectProperty> properties) {
+        AxiomType<?> type = axiom.getAxiomType();
+        if (type == AxiomType.SUBCLASS_OF) {
+            OWLSubClassOfAxiom a = (OWLSubClassOfAxiom) axiom;
+            if (!a.getSubClass().isAnonymous() && !a.getSuperClass().isAnonymous()) {
+                addSubsumption(conceptId(a.getSubClass().asOWLClass()), conceptId(a.getSuperClass().asOWLClass()));
+            }
+        }
+        else if (type == AxiomType.EQUIVALENT_CLASSES) {
+            List<Integer> ids = conceptIds(((OWLEquivalentClassesAxiom) axiom).getClassExpressions());
+            if (ids.size() > 1) {
+                for (int id : ids) {
+                    for (int other : ids) {
+                        addSubsumption(id, other);
+                    }
+                }
+            }
+        }
+        else if (type == AxiomType.DISJOINT_CLASSES) {
+            List<Integer> ids = conceptIds(((OWLDisjointClassesAxiom) axiom).getClassExpressions());
+            if (ids.size() > 1) {
+                for (int id : ids) {
+                    disjointGroups.add(descendants(id));
+                }
+            }
+        }
+        else if (type == AxiomType.SUB_OBJECT_PROPERTY) {
+            OWLSubObjectPropertyOfAxiom a = (OWLSubObjectPropertyOfAxiom) axiom;
+            if (!a.getSubProperty().isAnonymous() && !a.getSuperProperty().isAnonymous()) {
+                addPropertySubsumption(propertyId(a.getSubProperty().asOWLObjectProperty()),
+                        propertyId(a.getSuperProperty().asOWLObjectProperty()));
+            }
+        }
+        else if (type == AxiomType.EQUIVALENT_OBJECT_PROPERTIES) {
+            List<Integer> ids = propertyIds(((OWLEquivalentObjectPropertiesAxiom) axiom).getProperties());
+            if (ids.size() > 1) {
+                for (int id : ids) {
+                    for (int other : ids) {
+                        addPropertySubsumption(id, other);
+                    }
+                }
+            }
+        }
+        else if (type == AxiomType.DISJOINT_OBJECT_PROPERTIES) {
+            List<Integer> ids = propertyIds(((OWLDisjointObjectPropertiesAxiom) axiom).getProperties());
+            if (ids.size() > 1) {
+                for (int id : ids) {
+                    propertyDisjointGroups.add(subProperties(id));
+                }
+            }
+        }
+        else if (type == AxiomType.OBJECT_PROPERTY_DOMAIN) {
+            OWLObjectPropertyDomainAxiom a = (OWLObjectPropertyDomainAxiom) axiom;
+            if (!a.getProperty().isAnonymous() && !a.getDomain().isAnonymous()) {
+                propertySources.or(subProperties(propertyId(a.getProperty().asOWLObjectProperty())));
+                addedDomains.or(ancestors(conceptId(a.getDomain().asOWLClass())));
+            }
+        }
+        else if (type == AxiomType.OBJECT_PROPERTY_RANGE) {
+            OWLObjectPropertyRangeAxiom a = (OWLObjectPropertyRangeAxiom) axiom;
+            if (!a.getProperty().isAnonymous() && !a.getRange().isAnonymous()) {
+                propertySources.or(subProperties(propertyId(a.getProperty().asOWLObjectProperty())));
+                addedRanges.or(ancestors(conceptId(a.getRange().asOWLClass())));
+            }
+        }
+        else {
+            throw new UnsupportedOperationException("Reasoner unable to handle axiom type: " + type);
+        }
+
+        checkConcepts();
+        if (!reasoner.isConceptOnly()) {
+            checkProperties();
+        }
+
+        if (concepts != null) {
+            for (int i = unsatisfiableConcepts.nextSetBit(0); i >= 0; i = unsatisfiableConcepts.nextSetBit(i + 1)) {
+                concepts.add(i < numberOfConcepts ? namingManager.getConcept(i) :
+                        unknownConcepts.get(i - numberOfConcepts));
+            }
+        }
+        if (properties != null) {
+            for (int i = unsatisfiableProperties.nextSetBit(0); i >= 0;
+                 i = unsatisfiableProperties.nextSetBit(i + 1)) {
+                properties.add(i < numberOfProperties ? namingManager.getProperty(i) :
+                        unknownProperties.get(i - numberOfProperties));
+            }
+        }
+        return !unsatisfiableConcepts.isEmpty() || !unsatisfiableProperties.isEmpty();
+    }
+
+    /**
+     * Records that all subconcepts of <code>sub</code> get the superconcepts of <code>sup</code>.
+     */
+    private void addSubsumption(int sub, int sup) {
+        sources.or(descendants(sub));
+        targetAncestors.or(ancestors(sup));
+        targetDisjoint.or(disjointClasses(sup));
+        // targets become equivalent, thus, any disjointness between them makes all sources unsatisfiable
+        targetsDisjoint = targetsDisjoint || targetDisjoint.get(sup);
+    }
+
+    private void addPropertySubsumption(int sub, int sup) {
+        propertySources.or(subProperties(sub));
+        // domains and ranges of superproperties are already contained in those of the target
+        if (sup < numberOfProperties) {
+            reasoner.getPropertyDisjointness().getRow(sup, propertyTargetDisjoint);
+            reasoner.getPropertyDomain().getRow(sup, addedDomains);
+            reasoner.getPropertyRange().getRow(sup, addedRanges);
+        }
+        propertyTargetsDisjoint = propertyTargetsDisjoint || propertyTargetDisjoint.get(sup);
+    }
+
+    private void checkConcepts() {
+        BitSet grouped = new BitSet();
+        BitSet multiplyGrouped = groupOverlap(disjointGroups, grouped);
+        for (int i = sources.nextSetBit(0); i >= 0; i = sources.nextSetBit(i + 1)) {
+            if ((targetsDisjoint || targetDisjoint.get(i)) && !isUnsatisfiableConcept(i)) {
+                unsatisfiableConcepts.set(i);
+            }
+        }
+        for (int i = multiplyGrouped.nextSetBit(0); i >= 0; i = multiplyGrouped.nextSetBit(i + 1)) {
+            if (!isUnsatisfiableConcept(i)) {
+                unsatisfiableConcepts.set(i);
+            }
+        }
+
+        if (reasoner.isConceptOnly()) {
+            return;
+        }
+        // only properties whose domains or ranges contain affected concepts may change
+        BitSet affected = (BitSet) sources.clone();
+        affected.or(grouped);
+        BitSet candidates = new BitSet();
+        for (int i = affected.nextSetBit(0); i >= 0 && i < numberOfConcepts; i = affected.nextSetBit(i + 1)) {
+            reasoner.getPropertyDomain().getColumn(i, candidates);
+            reasoner.getPropertyRange().getColumn(i, candidates);
+        }
+        for (int p = candidates.nextSetBit(0); p >= 0; p = candidates.nextSetBit(p + 1)) {
+            if (isUnsatisfiableProperty(p)) {
+                continue;
+            }
+            if (hasDisjointPair(extendedBySources(reasoner.getDomains(p)))
+                    || hasDisjointPair(extendedBySources(reasoner.getRanges(p)))) {
+                unsatisfiableProperties.set(p);
+            }
+        }
+    }
+
+    private void checkProperties() {
+        BitSet grouped = new BitSet();
+        BitSet multiplyGrouped = groupOverlap(propertyDisjointGroups, grouped);
+        for (int p = multiplyGrouped.nextSetBit(0); p >= 0; p = multiplyGrouped.nextSetBit(p + 1)) {
+            if (!isUnsatisfiableProperty(p)) {
+                unsatisfiableProperties.set(p);
+            }
+        }
+        for (int p = propertySources.nextSetBit(0); p >= 0; p = propertySources.nextSetBit(p + 1)) {
+            if (isUnsatisfiableProperty(p) || unsatisfiableProperties.get(p)) {
+                continue;
+            }
+            if (propertyTargetsDisjoint || propertyTargetDisjoint.get(p)) {
+                unsatisfiableProperties.set(p);
+                continue;
+            }
+            BitSet domains = domains(p);
+            domains.or(addedDomains);
+            BitSet ranges = ranges(p);
+            ranges.or(addedRanges);
+            if (hasDisjointPair(domains) || hasDisjointPair(ranges)) {
+                unsatisfiableProperties.set(p);
+            }
+        }
+    }
+
+    /**
+     * Returns the entities contained in at least two of the given groups and adds all entities contained in any group
+     * to <code>grouped</code>.
+     */
+    private static BitSet groupOverlap(List<BitSet> groups, BitSet grouped) {
+        BitSet overlap = new BitSet();
+        for (BitSet group : groups) {
+            BitSet common = (BitSet) group.clone();
+            common.and(grouped);
+            overlap.or(common);
+            grouped.or(group);
+        }
+        return overlap;
+    }
+
+    /**
+     * Adds the superconcepts of the targets to the given upwards closed set of concepts if it contains any source.
+     */
+    private BitSet extendedBySources(BitSet concepts) {
+        if (concepts.intersects(sources)) {
+            concepts.or(targetAncestors);
+        }
+        return concepts;
+    }
+
+    /**
+     * Returns true if two distinct concepts of the given set are disjoint after adding the axiom.
+     */
+    private boolean hasDisjointPair(BitSet concepts) {
+        for (int i = concepts.nextSetBit(0); i >= 0; i = concepts.nextSetBit(i + 1)) {
+            BitSet row = disjointClasses(i);
+            if (sources.get(i)) {
+                row.or(targetDisjoint);
+                if (targetsDisjoint) {
+                    row.or(sources);
+                }
+            }
+            if (targetDisjoint.get(i)) {
+                row.or(sources);
+            }
+            for (int g = 0; g < disjointGroups.size(); g++) {
+                if (disjointGroups.get(g).get(i)) {
+                    for (int h = 0; h < disjointGroups.size(); h++) {
+                        if (h != g) {
+                            row.or(disjointGroups.get(h));
+                        }
+                    }
+                }
+            }
+            row.and(concepts);
+            row.clear(i);
+            if (!row.isEmpty()) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private boolean isUnsatisfiableConcept(int concept) {
+        return concept < numberOfConcepts && reasoner.getConceptDisjointness().get(concept, concept);
+    }
+
+    private boolean isUnsatisfiableProperty(int property) {
+        return property < numberOfProperties && (reasoner.getPropertyDisjointness().get(property, property)
+                || reasoner.getPropertyUnsatisfiability().get(0, property));
+    }
+
+    private BitSet ancestors(int concept) {
+        BitSet res = concept < numberOfConcepts ? reasoner.getSuperClasses(concept) : new BitSet();
+        res.set(concept);
+        return res;
+    }
+
+    private BitSet descendants(int concept) {
+        BitSet res = concept < numberOfConcepts ? reasoner.getSubClasses(concept) : new BitSet();
+        res.set(concept);
+        return res;
+    }
+
+    private BitSet disjointClasses(int concept) {
+        return concept < numberOfConcepts ? reasoner.getDisjointClasses(concept) : new BitSet();
+    }
+
+    private BitSet subProperties(int property) {
+        BitSet res = property < numberOfProperties ? reasoner.getSubProperties(property) : new BitSet();
+        res.set(property);
+        return res;
+    }
+
+    private BitSet domains(int property) {
+        return property < numberOfProperties ? reasoner.getDomains(property) : new BitSet();
+    }
+
+    private BitSet ranges(int property) {
+        return property < numberOfProperties ? reasoner.getRanges(property) : new BitSet();
+    }
+
+    private List<Integer> conceptIds(Set<OWLClassExpression> expressions) {
+        ArrayList<Integer> res = new ArrayList<Integer>();
+        for (OWLClassExpression e : expressions) {
+            if (!e.isAnonymous()) {
+                res.add(conceptId(e.asOWLClass()));
+            }
+        }
+        return res;
+    }
+
+    private List<Integer> propertyIds(Set<OWLObjectPropertyExpression> expressions) {
+        ArrayList<Integer> res = new ArrayList<Integer>();
+        for (OWLObjectPropertyExpression e : expressions) {
+            if (!e.isAnonymous()) {
+                res.add(propertyId(e.asOWLObjectProperty()));
+            }
+        }
+        return res;
+    }
+
+    private int conceptId(OWLClass concept) {
+        int id = namingManager.getConceptId(concept);
+        if (id != -1) {
+            return id;
+        }
+        if (!unknownConcepts.contains(concept)) {
+            unknownConcepts.add(concept);
+        }
+        return numberOfConcepts + unknownConcepts.indexOf(concept);
+    }
+
+    private int propertyId(OWLObjectProperty property) {
+        int id = namingManager.getPropertyId(property);
+        if (id != -1) {
+            return id;
+        }
+        if (!unknownProperties.contains(property)) {
+            unknownProperties.add(property);
+        }
+        return numberOfProperties + unknownProperties.indexOf(property);
+    }
+}
@@ -1,5 +1,6 @@
 package de.krkm.trex.reasoner;
 
+import de.krkm.trex.util.ObjectIntHashMap;
 import de.krkm.trex.util.Util;
 import org.semanticweb.owlapi.model.OWLClass;
 import org.semanticweb.owlapi.model.OWLNamedIndividual;
@@ -8,21 +9,40 @@ import org.semanticweb.owlapi.model.OWLOntology;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.util.HashMap;
-import java.util.Set;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
 
 /**
- * Provides mappings from URIs contained in the ontology to numeric ids and vice-versa.
+ * Provides mappings from URIs contained in the ontology to numeric ids and vice-versa. IDs are dense, i.e., the IDs
+ * of each entity type range from 0 to the number of entities of this type. Instances are immutable and can be shared
+ * between threads without further synchronization.
+ * <p>
+ * Besides IRIs, IDs can be resolved from entity objects directly. Since the OWL API data factory interns entities,
+ * these are looked up by reference first so that no IRI string has to be built. Entity objects not known by reference
+ * are resolved by <code>equals</code>.
+ * <p>
+ * New entities are registered using {@link #extend(java.util.Collection, java.util.Collection)} which returns a new
+ * manager assigning fresh IDs to the new entities while keeping the IDs of all entities known before.
  */
 public class OntologyNamingManager {
     private final Logger log = LoggerFactory.getLogger(OntologyNamingManager.class);
 
-    private HashMap<String, Integer> classToId = new HashMap<String, Integer>();
-    private HashMap<Integer, String> idToClass = new HashMap<Integer, String>();
-    private HashMap<String, Integer> propertyToId = new HashMap<String, Integer>();
-    private HashMap<Integer, String> idToProperty = new HashMap<Integer, String>();
-    private HashMap<String, Integer> instanceToId = new HashMap<String, Integer>();
-    private HashMap<Integer, String> idToInstance = new HashMap<Integer, String>();
+    private final String[] conceptIRIs;
+    private final OWLClass[] concepts;
+    private final ObjectIntHashMap<String> conceptIds;
+    private final ObjectIntHashMap<OWLClass> conceptEntityIds;
+    private final ObjectIntHashMap<OWLClass> conceptEntityIdsByEquality;
+    private final String[] propertyIRIs;
+    private final OWLObjectProperty[] properties;
+    private final ObjectIntHashMap<String> propertyIds;
+    private final ObjectIntHashMap<OWLObjectProperty> propertyEntityIds;
+    private final ObjectIntHashMap<OWLObjectProperty> propertyEntityIdsByEquality;
+    private final String[] instanceIRIs;
+    private final OWLNamedIndividual[] instances;
+    private final ObjectIntHashMap<String> instanceIds;
+    private final ObjectIntHashMap<OWLNamedIndividual> instanceEntityIds;
+    private final ObjectIntHashMap<OWLNamedIndividual> instanceEntityIdsByEquality;
 
     /**
      * Initializes the manager with the entities contained in the given ontology
@@ -30,54 +50,167 @@ public class OntologyNamingManager {
      * @param ontology ontology to extract entities from
      */
     public OntologyNamingManager(OWLOntology ontology) {
-        Set<OWLClass> classesInSignature = ontology.getClassesInSignature();
-        OWLClass[] classes = classesInSignature.toArray(new OWLClass[classesInSignature.size()]);
+        this(ontology.getClassesInSignature(), ontology.getObjectPropertiesInSignature(),
+                ontology.getIndividualsInSignature());
+        log.debug("Number of axioms: {}", ontology.getAxiomCount());
+    }
 
-        int i = 0;
+    /**
+     * Initializes the manager with the given entities. IDs are assigned in the iteration order of the given
+     * collections, thus, a manager can be recreated with the same IDs by passing the entities ordered by their IDs.
+     *
+     * @param classes          concepts to register
+     * @param objectProperties properties to register
+     * @param individuals      instances to register
+     */
+    public OntologyNamingManager(Collection<OWLClass> classes, Collection<OWLObjectProperty> objectProperties,
+            Collection<OWLNamedIndividual> individuals) {
+        ArrayList<String> iris = new ArrayList<String>(classes.size());
+        ArrayList<OWLClass> conceptList = new ArrayList<OWLClass>(classes.size());
+        conceptIds = new ObjectIntHashMap<String>(classes.size());
+        conceptEntityIds = new ObjectIntHashMap<OWLClass>(classes.size(), true);
+        conceptEntityIdsByEquality = new ObjectIntHashMap<OWLClass>(classes.size());
         for (OWLClass c : classes) {
-            if (classToId.containsKey(c.getIRI().toString())) {
-                continue;
+            String iri = Util.getFragment(c.getIRI().toString());
+            int id = conceptIds.get(iri);
+            if (id == -1) {
+                id = iris.size();
+                conceptIds.put(iri, id);
+                iris.add(iri);
+                conceptList.add(c);
             }
-            classToId.put(Util.getFragment(c.getIRI().toString()), i);
-            idToClass.put(i, Util.getFragment(c.getIRI().toString()));
-            i++;
+            conceptEntityIds.put(c, id);
+            conceptEntityIdsByEquality.put(c, id);
         }
+        conceptIRIs = iris.toArray(new String[iris.size()]);
+        concepts = conceptList.toArray(new OWLClass[conceptList.size()]);
 
-        log.debug("Number of concepts: {}", classToId.size());
+        log.debug("Number of concepts: {}", concepts.length);
 
-        Set<OWLObjectProperty> objectPropertiesInSignature = ontology.getObjectPropertiesInSignature();
-        OWLObjectProperty[] objectProperties = objectPropertiesInSignature
-                .toArray(new OWLObjectProperty[objectPropertiesInSignature.size()]);
-
-        i = 0;
+        iris = new ArrayList<String>(objectProperties.size());
+        ArrayList<OWLObjectProperty> propertyList = new ArrayList<OWLObjectProperty>(objectProperties.size());
+        propertyIds = new ObjectIntHashMap<String>(objectProperties.size());
+        propertyEntityIds = new ObjectIntHashMap<OWLObjectProperty>(objectProperties.size(), true);
+        propertyEntityIdsByEquality = new ObjectIntHashMap<OWLObjectProperty>(objectProperties.size());
         for (OWLObjectProperty objectProperty : objectProperties) {
-            if (propertyToId.containsKey(Util.getFragment(objectProperty.getIRI().toString()))) {
-                continue;
+            String iri = Util.getFragment(objectProperty.getIRI().toString());
+            int id = propertyIds.get(iri);
+            if (id == -1) {
+                id = iris.size();
+                propertyIds.put(iri, id);
+                iris.add(iri);
+                propertyList.add(objectProperty);
             }
-            propertyToId.put(Util.getFragment(objectProperty.getIRI().toString()), i);
-            idToProperty.put(i, Util.getFragment(objectProperty.getIRI().toString()));
-            i++;
+            propertyEntityIds.put(objectProperty, id);
+            propertyEntityIdsByEquality.put(objectProperty, id);
         }
+        propertyIRIs = iris.toArray(new String[iris.size()]);
+        properties = propertyList.toArray(new OWLObjectProperty[propertyList.size()]);
 
-        log.debug("Number of properties: {}", propertyToId.size());
+        log.debug("Number of properties: {}", properties.length);
 
-        Set<OWLNamedIndividual> instancesInSignature = ontology.getIndividualsInSignature();
-        OWLNamedIndividual[] instances = instancesInSignature
-                .toArray(new OWLNamedIndividual[instancesInSignature.size()]);
+        iris = new ArrayList<String>(individuals.size());
+        ArrayList<OWLNamedIndividual> instanceList = new ArrayList<OWLNamedIndividual>(individuals.size());
+        instanceIds = new ObjectIntHashMap<String>(individuals.size());
+        instanceEntityIds = new ObjectIntHashMap<OWLNamedIndividual>(individuals.size(), true);
+        instanceEntityIdsByEquality = new ObjectIntHashMap<OWLNamedIndividual>(individuals.size());
+        for (OWLNamedIndividual instance : individuals) {
+            String iri = Util.getFragment(instance.getIRI().toString());
+            int id = instanceIds.get(iri);
+            if (id == -1) {
+                id = iris.size();
+                instanceIds.put(iri, id);
+                iris.add(iri);
+                instanceList.add(instance);
+            }
+            instanceEntityIds.put(instance, id);
+            instanceEntityIdsByEquality.put(instance, id);
+        }
+        instanceIRIs = iris.toArray(new String[iris.size()]);
+        instances = instanceList.toArray(new OWLNamedIndividual[instanceList.size()]);
+
+        log.debug("Number of instances: {}", instances.length);
+    }
+
+    private OntologyNamingManager(OntologyNamingManager base, Collection<OWLClass> newConcepts,
+            Collection<OWLObjectProperty> newProperties) {
+        conceptIds = base.conceptIds.copy();
+        conceptEntityIds = base.conceptEntityIds.copy();
+        conceptEntityIdsByEquality = base.conceptEntityIdsByEquality.copy();
+        ArrayList<String> iris = new ArrayList<String>(Arrays.asList(base.conceptIRIs));
+        ArrayList<OWLClass> classes = new ArrayList<OWLClass>(Arrays.asList(base.concepts));
+        for (OWLClass c : newConcepts) {
+            if (conceptEntityIdsByEquality.containsKey(c)) {
+                continue;
+            }
+            String iri = Util.getFragment(c.getIRI().toString());
+            int id = conceptIds.get(iri);
+            if (id == -1) {
+                id = iris.size();
+                conceptIds.put(iri, id);
+                iris.add(iri);
+                classes.add(c);
+            }
+            conceptEntityIds.put(c, id);
+            conceptEntityIdsByEquality.put(c, id);
+        }
+        conceptIRIs = iris.toArray(new String[iris.size()]);
+        concepts = classes.toArray(new OWLClass[classes.size()]);
 
-        i = 0;
-        for (OWLNamedIndividual instance : instances) {
-            if (instanceToId.containsKey(instance.getIRI().toString())) {
+        propertyIds = base.propertyIds.copy();
+        propertyEntityIds = base.propertyEntityIds.copy();
+        propertyEntityIdsByEquality = base.propertyEntityIdsByEquality.copy();
+        iris = new ArrayList<String>(Arrays.asList(base.propertyIRIs));
+        ArrayList<OWLObjectProperty> objectProperties = new ArrayList<OWLObjectProperty>(
+                Arrays.asList(base.properties));
+        for (OWLObjectProperty objectProperty : newProperties) {
+            if (propertyEntityIdsByEquality.containsKey(objectProperty)) {
                 continue;
             }
-            instanceToId.put(Util.getFragment(instance.getIRI().toString()), i);
-            idToInstance.put(i, Util.getFragment(instance.getIRI().toString()));
-            i++;
+            String iri = Util.getFragment(objectProperty.getIRI().toString());
+            int id = propertyIds.get(iri);
+            if (id == -1) {
+                id = iris.size();
+                propertyIds.put(iri, id);
+                iris.add(iri);
+                objectProperties.add(objectProperty);
+            }
+            propertyEntityIds.put(objectProperty, id);
+            propertyEntityIdsByEquality.put(objectProperty, id);
         }
+        propertyIRIs = iris.toArray(new String[iris.size()]);
+        properties = objectProperties.toArray(new OWLObjectProperty[objectProperties.size()]);
 
-        log.debug("Number of instances: {}", instanceToId.size());
+        // instances are not affected, the immutable mappings can be shared
+        instanceIRIs = base.instanceIRIs;
+        instances = base.instances;
+        instanceIds = base.instanceIds;
+        instanceEntityIds = base.instanceEntityIds;
+        instanceEntityIdsByEquality = base.instanceEntityIdsByEquality;
 
-        log.debug("Number of axioms: {}", ontology.getAxiomCount());
+        log.debug("Extended naming manager to {} concepts and {} properties", concepts.length, properties.length);
+    }
+
+    /**
+     * Returns a naming manager additionally containing the given concepts and properties. IDs of entities already
+     * known to this manager are kept and new entities get the next free IDs. This manager is not modified.
+     *
+     * @param newConcepts   concepts to register, already known ones are ignored
+     * @param newProperties properties to register, already known ones are ignored
+     * @return naming manager containing the new entities, this manager if all entities are already known
+     */
+    public OntologyNamingManager extend(Collection<OWLClass> newConcepts, Collection<OWLObjectProperty> newProperties) {
+        boolean unknown = false;
+        for (OWLClass c : newConcepts) {
+            unknown = unknown || getConceptId(c) == -1;
+        }
+        for (OWLObjectProperty p : newProperties) {
+            unknown = unknown || getPropertyId(p) == -1;
+        }
+        if (!unknown) {
+            return this;
+        }
+        return new OntologyNamingManager(this, newConcepts, newProperties);
     }
 
     /**
@@ -87,17 +220,41 @@ public class OntologyNamingManager {
      * @return IRI for concept id
      */
     public String getConceptIRI(int id) {
-        return idToClass.get(id);
+        return conceptIRIs[id];
+    }
+
+    /**
+     * Returns the concept having the given id
+     *
+     * @param id concept id to get concept for
+     * @return concept for concept id
+     */
+    public OWLClass getConcept(int id) {
+        return concepts[id];
     }
 
     /**
      * Returns the id for the given concept IRI.
      *
      * @param iri IRI to return concept id for
-     * @return concept id for IRI
+     * @return concept id for IRI, -1 if the IRI is unknown
      */
     public int getConceptId(String iri) {
-        return classToId.get(iri);
+        return conceptIds.get(iri);
+    }
+
+    /**
+     * Returns the id for the given concept without building its IRI string.
+     *
+     * @param concept concept to return id for
+     * @return concept id for the given concept, -1 if the concept is unknown
+     */
+    public int getConceptId(OWLClass concept) {
+        int id = conceptEntityIds.get(concept);
+        if (id == -1) {
+            id = conceptEntityIdsByEquality.get(concept);
+        }
+        return id;
     }
 
     /**
@@ -107,17 +264,41 @@ public class OntologyNamingManager {
      * @return IRI for property id
      */
     public String getPropertyIRI(int id) {
-        return idToProperty.get(id);
+        return propertyIRIs[id];
+    }
+
+    /**
+     * Returns the property having the given id
+     *
+     * @param id property id to get property for
+     * @return property for property id
+     */
+    public OWLObjectProperty getProperty(int id) {
+        return properties[id];
     }
 
     /**
      * Returns the id for the given property IRI.
      *
      * @param iri IRI to return property id for
-     * @return property id for IRI
+     * @return property id for IRI, -1 if the IRI is unknown
      */
     public int getPropertyId(String iri) {
-        return propertyToId.get(iri);
+        return propertyIds.get(iri);
+    }
+
+    /**
+     * Returns the id for the given property without building its IRI string.
+     *
+     * @param property property to return id for
+     * @return property id for the given property, -1 if the property is unknown
+     */
+    public int getPropertyId(OWLObjectProperty property) {
+        int id = propertyEntityIds.get(property);
+        if (id == -1) {
+            id = propertyEntityIdsByEquality.get(property);
+        }
+        return id;
     }
 
     /**
@@ -127,17 +308,41 @@ public class OntologyNamingManager {
      * @return IRI for instance id
      */
     public String getInstanceIRI(int id) {
-        return idToInstance.get(id);
+        return instanceIRIs[id];
+    }
+
+    /**
+     * Returns the instance having the given id
+     *
+     * @param id instance id to get instance for
+     * @return instance for instance id
+     */
+    public OWLNamedIndividual getInstance(int id) {
+        return instances[id];
     }
 
     /**
      * Returns the id for the given instance IRI.
      *
      * @param iri IRI to return instance id for
-     * @return instance id for IRI
+     * @return instance id for IRI, -1 if the IRI is unknown
      */
     public int getInstanceId(String iri) {
-        return instanceToId.get(iri);
+        return instanceIds.get(iri);
+    }
+
+    /**
+     * Returns the id for the given instance without building its IRI string.
+     *
+     * @param instance instance to return id for
+     * @return instance id for the given instance, -1 if the instance is unknown
+     */
+    public int getInstanceId(OWLNamedIndividual instance) {
+        int id = instanceEntityIds.get(instance);
+        if (id == -1) {
+            id = instanceEntityIdsByEquality.get(instance);
+        }
+        return id;
     }
 
     /**
@@ -146,7 +351,7 @@ public class OntologyNamingManager {
      * @return number of concepts contained in the ontology
      */
     public int getNumberOfConcepts() {
-        return classToId.size();
+        return concepts.length;
     }
 
     /**
@@ -155,7 +360,7 @@ public class OntologyNamingManager {
      * @return number of properties contained in the ontology
      */
     public int getNumberOfProperties() {
-        return propertyToId.size();
+        return properties.length;
     }
 
     /**
@@ -164,6 +369,6 @@ public class OntologyNamingManager {
      * @return number of instances contained in the ontology
      */
     public int getNumberOfInstances() {
-        return instanceToId.size();
+        return instances.length;
     }
 }
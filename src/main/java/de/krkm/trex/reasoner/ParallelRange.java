@@ -0,0 +1,120 @@
+package de.krkm.trex.reasoner;
+
+import java.util.ArrayList;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Processes a range of indexes in parallel by splitting it into chunks which are run by an executor. Callers not
+ * providing an executor of their own share a single pool of daemon threads which is created on first use, see
+ * {@link #getSharedExecutor()}.
+ */
+class ParallelRange {
+    /**
+     * Task processing a range of indexes.
+     */
+    interface Task {
+        /**
+         * Processes the indexes from <code>from</code> (inclusive) to <code>to</code> (exclusive).
+         *
+         * @param from first index to process
+         * @param to   index to stop at
+         */
+        void run(int from, int to);
+    }
+
+    /**
+     * Number of threads of the shared executor.
+     */
+    static final int SHARED_THREADS = Runtime.getRuntime().availableProcessors();
+
+    private ParallelRange() {
+    }
+
+    /**
+     * Returns the executor shared by all parallel computations which do not provide an executor of their own. The
+     * executor uses {@link #SHARED_THREADS} daemon threads, is created on first use and is never shut down. Tasks run
+     * by it must not wait for other tasks run by it.
+     *
+     * @return shared executor
+     */
+    static ExecutorService getSharedExecutor() {
+        return SharedExecutorHolder.EXECUTOR;
+    }
+
+    /**
+     * Lazily creates the shared executor when it is accessed for the first time.
+     */
+    private static class SharedExecutorHolder {
+        private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(SHARED_THREADS,
+                new ThreadFactory() {
+                    private final AtomicInteger count = new AtomicInteger();
+
+                    @Override
+                    public Thread newThread(Runnable runnable) {
+                        Thread thread = new Thread(runnable, "trex-worker-" + count.incrementAndGet());
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+    }
+
+    /**
+     * Runs the given task for the range from 0 to <code>n</code> split into chunks processed by the shared executor
+     * and waits for all chunks to finish, see {@link #run(ExecutorService, int, int, Task)}.
+     *
+     * @param n    size of the range
+     * @param task task to run for each chunk
+     */
+    static void run(int n, Task task) {
+        run(getSharedExecutor(), SHARED_THREADS, n, task);
+    }
+
+    /**
+     * Runs the given task for the range from 0 to <code>n</code> split into chunks processed by the given executor and
+     * waits for all chunks to finish. Runtime exceptions thrown by the task are rethrown.
+     *
+     * @param executor executor to run chunks
+     * @param threads  number of threads of the executor, used for choosing the chunk size
+     * @param n        size of the range
+     * @param task     task to run for each chunk
+     */
+    static void run(ExecutorService executor, int threads, int n, final Task task) {
+        ArrayList<Callable<Object>> chunks = new ArrayList<Callable<Object>>();
+        int chunkSize = Math.max(64, n / (Math.max(1, threads) * 4) + 1);
+        for (int from = 0; from < n; from += chunkSize) {
+            final int chunkFrom = from;
+            final int chunkTo = Math.min(n, from + chunkSize);
+            chunks.add(new Callable<Object>() {
+                @Override
+                public Object call() {
+                    task.run(chunkFrom, chunkTo);
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Object> result : executor.invokeAll(chunks)) {
+                result.get();
+            }
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for parallel tasks", e);
+        }
+        catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("Parallel task failed", e.getCause());
+        }
+    }
+}
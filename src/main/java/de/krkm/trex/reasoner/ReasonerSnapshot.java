@@ -0,0 +1,394 @@
+package de.krkm.trex.reasoner;
+
+import de.krkm.trex.booleanexpressions.OrExpression;
+import de.krkm.trex.inference.CellCursor;
+import de.krkm.trex.inference.Matrix;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * Immutable view of the state of a {@link TRexReasoner} at the time the snapshot has been created, see
+ * {@link TRexReasoner#snapshot()}. All queries are answered from the frozen matrices and explanations of the snapshot,
+ * thus, the results do not change when the reasoner is modified afterwards.
+ * <p>
+ * Snapshots are safely published on construction, i.e., they can be handed to other threads without further
+ * synchronization, and any number of threads may query a snapshot concurrently without locking. Unfolded explanations
+ * are memoized per snapshot.
+ */
+public class ReasonerSnapshot {
+    private final TRexReasoner view;
+    private final long version;
+
+    /**
+     * Initializes the snapshot answering queries from the given reasoner whose matrices must be frozen and must not be
+     * modified anymore.
+     *
+     * @param view    reasoner containing the frozen state
+     * @param version version of the reasoner state, see {@link TRexReasoner#getVersion()}
+     */
+    ReasonerSnapshot(TRexReasoner view, long version) {
+        this.view = view;
+        this.version = version;
+    }
+
+    /**
+     * Returns the version of the reasoner state contained in this snapshot, i.e., the number of updates completed by
+     * the reasoner before creating the snapshot.
+     *
+     * @return version of the reasoner state
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the naming manager resolving the IDs used in this snapshot.
+     *
+     * @return naming manager of this snapshot
+     */
+    public OntologyNamingManager getNamingManager() {
+        return view.getNamingManager();
+    }
+
+    /**
+     * Returns the number of matrices contained in this snapshot.
+     *
+     * @return number of matrices contained in this snapshot
+     */
+    public int getNumberOfMatrices() {
+        return view.getNumberOfMatrices();
+    }
+
+    /**
+     * Returns the frozen matrix having the given ID, see {@link Matrix#freeze()}.
+     *
+     * @param id ID of matrix to return
+     * @return read-only matrix having the given ID
+     */
+    public Matrix getMatrix(int id) {
+        return view.getMatrix(id);
+    }
+
+    /**
+     * Determines whether the given axiom was entailed at the time of the snapshot.
+     *
+     * @param axiom axiom to check entailment for
+     * @return true if the axiom is entailed, otherwise false
+     * @see TRexReasoner#isEntailed(OWLAxiom)
+     */
+    public boolean isEntailed(OWLAxiom axiom) {
+        return view.isEntailed(axiom);
+    }
+
+    /**
+     * Determines for each of the given axioms whether it was entailed at the time of the snapshot.
+     *
+     * @param axioms axioms to check entailment for
+     * @return bit set containing the positions of the entailed axioms in the iteration order of the collection
+     * @see TRexReasoner#isEntailed(java.util.Collection)
+     */
+    public BitSet isEntailed(Collection<? extends OWLAxiom> axioms) {
+        return view.isEntailed(axioms);
+    }
+
+    /**
+     * Determines for each of the given axioms whether it was entailed at the time of the snapshot.
+     *
+     * @param axioms axioms to check entailment for
+     * @return map from each given axiom to true if it is entailed, otherwise false
+     * @see TRexReasoner#getEntailments(java.util.Collection)
+     */
+    public Map<OWLAxiom, Boolean> getEntailments(Collection<? extends OWLAxiom> axioms) {
+        return view.getEntailments(axioms);
+    }
+
+    /**
+     * Returns the explanation for the given axiom or null if the axiom is not entailed.
+     *
+     * @param axiom axiom to return explanation for
+     * @return explanation for given axiom if axiom is entailed, otherwise null
+     * @see TRexReasoner#getExplanation(OWLAxiom)
+     */
+    public OrExpression getExplanation(OWLAxiom axiom) {
+        return view.getExplanation(axiom);
+    }
+
+    /**
+     * Returns the justifications for the given axiom.
+     *
+     * @param axiom       axiom to return justifications for
+     * @param orderBySize if true, justifications are returned in ascending order of their size
+     * @return justifications for given axiom, empty if axiom is not entailed
+     * @see TRexReasoner#getJustifications(OWLAxiom, boolean)
+     */
+    public Iterable<Set<OWLAxiom>> getJustifications(OWLAxiom axiom, boolean orderBySize) {
+        return view.getJustifications(axiom, orderBySize);
+    }
+
+    /**
+     * Returns the explanation for the unsatisfiability of the given concept or null if it is satisfiable.
+     *
+     * @param concept unsatisfiable concept
+     * @return explanation for the unsatisfiability of the given concept
+     */
+    public OrExpression getUnsatisfiabilityExplanation(OWLClass concept) {
+        return view.getUnsatisfiabilityExplanation(concept);
+    }
+
+    /**
+     * Returns the explanation for the unsatisfiability of the given property or null if it is satisfiable.
+     *
+     * @param property unsatisfiable property
+     * @return explanation for the unsatisfiability of the given property
+     */
+    public OrExpression getUnsatisfiabilityExplanation(OWLObjectProperty property) {
+        return view.getUnsatisfiabilityExplanation(property);
+    }
+
+    /**
+     * Returns true if the concept having the ID <code>subClass</code> is a subconcept of the concept having the ID
+     * <code>superClass</code>.
+     *
+     * @param subClass   ID of potential subconcept
+     * @param superClass ID of potential superconcept
+     * @return true if subClass is subconcept of superClass
+     */
+    public boolean isSubClassOf(int subClass, int superClass) {
+        return view.isSubClassOf(subClass, superClass);
+    }
+
+    /**
+     * Returns true if the property having the ID <code>subProperty</code> is a subproperty of the property having the
+     * ID <code>superProperty</code>.
+     *
+     * @param subProperty   ID of potential subproperty
+     * @param superProperty ID of potential superproperty
+     * @return true if subProperty is subproperty of superProperty
+     */
+    public boolean isSubPropertyOf(int subProperty, int superProperty) {
+        return view.isSubPropertyOf(subProperty, superProperty);
+    }
+
+    /**
+     * Determines whether both classes are disjoint.
+     *
+     * @param class1 ID of first class
+     * @param class2 ID of second class
+     * @return true if both classes are disjoint, otherwise false
+     */
+    public boolean areDisjointClasses(int class1, int class2) {
+        return view.areDisjointClasses(class1, class2);
+    }
+
+    /**
+     * Determines whether both properties are disjoint.
+     *
+     * @param property1 ID of first property
+     * @param property2 ID of second property
+     * @return true if both properties are disjoint, otherwise false
+     */
+    public boolean areDisjointProperties(int property1, int property2) {
+        return view.areDisjointProperties(property1, property2);
+    }
+
+    /**
+     * Returns the IDs of all concepts subsuming the given concept.
+     *
+     * @param concept ID of concept
+     * @return IDs of all concepts subsuming the given concept
+     */
+    public BitSet getSuperClasses(int concept) {
+        return view.getSuperClasses(concept);
+    }
+
+    /**
+     * Returns the IDs of all concepts subsumed by the given concept.
+     *
+     * @param concept ID of concept
+     * @return IDs of all concepts subsumed by the given concept
+     */
+    public BitSet getSubClasses(int concept) {
+        return view.getSubClasses(concept);
+    }
+
+    /**
+     * Returns the IDs of all concepts disjoint with the given concept.
+     *
+     * @param concept ID of concept
+     * @return IDs of all concepts disjoint with the given concept
+     */
+    public BitSet getDisjointClasses(int concept) {
+        return view.getDisjointClasses(concept);
+    }
+
+    /**
+     * Returns the IDs of all properties subsuming the given property.
+     *
+     * @param property ID of property
+     * @return IDs of all properties subsuming the given property
+     */
+    public BitSet getSuperProperties(int property) {
+        return view.getSuperProperties(property);
+    }
+
+    /**
+     * Returns the IDs of all properties subsumed by the given property.
+     *
+     * @param property ID of property
+     * @return IDs of all properties subsumed by the given property
+     */
+    public BitSet getSubProperties(int property) {
+        return view.getSubProperties(property);
+    }
+
+    /**
+     * Returns the IDs of all properties disjoint with the given property.
+     *
+     * @param property ID of property
+     * @return IDs of all properties disjoint with the given property
+     */
+    public BitSet getDisjointProperties(int property) {
+        return view.getDisjointProperties(property);
+    }
+
+    /**
+     * Returns the IDs of all concepts being domain of the given property.
+     *
+     * @param property ID of property
+     * @return IDs of all concepts being domain of the given property
+     */
+    public BitSet getDomains(int property) {
+        return view.getDomains(property);
+    }
+
+    /**
+     * Returns the IDs of all concepts being range of the given property.
+     *
+     * @param property ID of property
+     * @return IDs of all concepts being range of the given property
+     */
+    public BitSet getRanges(int property) {
+        return view.getRanges(property);
+    }
+
+    /**
+     * Returns the IDs of all properties having the given concept as domain.
+     *
+     * @param concept ID of concept
+     * @return IDs of all properties having the given concept as domain
+     */
+    public BitSet getPropertiesWithDomain(int concept) {
+        return view.getPropertiesWithDomain(concept);
+    }
+
+    /**
+     * Returns the IDs of all properties having the given concept as range.
+     *
+     * @param concept ID of concept
+     * @return IDs of all properties having the given concept as range
+     */
+    public BitSet getPropertiesWithRange(int concept) {
+        return view.getPropertiesWithRange(concept);
+    }
+
+    /**
+     * Returns the set of all classes which were unsatisfiable at the time of the snapshot.
+     *
+     * @return set of all unsatisfiable classes
+     */
+    public Set<OWLClass> getUnsatisfiableClasses() {
+        return view.getUnsatisfiableClasses();
+    }
+
+    /**
+     * Returns the set of all properties which were unsatisfiable at the time of the snapshot.
+     *
+     * @return set of all unsatisfiable properties
+     */
+    public Set<OWLObjectProperty> getUnsatisfiableProperties() {
+        return view.getUnsatisfiableProperties();
+    }
+
+    /**
+     * Returns all axioms supported by the reasoner and entailed at the time of the snapshot.
+     *
+     * @return all entailed axioms
+     */
+    public Set<OWLAxiom> getAxioms() {
+        return view.getAxioms();
+    }
+
+    /**
+     * Returns all axioms supported by the reasoner and entailed at the time of the snapshot, creating them while
+     * iterating.
+     *
+     * @return all entailed axioms
+     */
+    public Iterable<OWLAxiom> iterateAxioms() {
+        return view.iterateAxioms();
+    }
+
+    /**
+     * Returns a stream of all axioms supported by the reasoner and entailed at the time of the snapshot. In contrast to
+     * the stream of a reasoner, this stream may be consumed while the reasoner is modified.
+     *
+     * @param parallel true to return a parallel stream
+     * @return stream of all entailed axioms
+     * @see TRexReasoner#axioms(boolean)
+     */
+    public Stream<OWLAxiom> axioms(boolean parallel) {
+        return view.axioms(parallel);
+    }
+
+    /**
+     * Returns one cursor per matrix over the cells representing entailed axioms. In contrast to the cursors of a
+     * reasoner, these cursors may be consumed while the reasoner is modified.
+     *
+     * @return cursors over all entailed axioms
+     * @see TRexReasoner#getCursors()
+     */
+    public List<CellCursor> getCursors() {
+        return view.getCursors();
+    }
+
+    /**
+     * Computes the taxonomy of all concepts at the time of the snapshot.
+     *
+     * @return taxonomy of all concepts
+     */
+    public Taxonomy computeConceptTaxonomy() {
+        return view.computeConceptTaxonomy();
+    }
+
+    /**
+     * Computes the taxonomy of all properties at the time of the snapshot.
+     *
+     * @return taxonomy of all properties
+     */
+    public Taxonomy computePropertyTaxonomy() {
+        return view.computePropertyTaxonomy();
+    }
+
+    /**
+     * Writes all entailed axioms to the given stream. The stream is flushed but not closed.
+     *
+     * @param out    stream to write axioms to
+     * @param format format to write axioms in
+     * @return number of written axioms
+     * @throws IOException on errors writing to the stream
+     * @see EntailmentExporter
+     */
+    public long exportAxioms(OutputStream out, EntailmentExporter.Format format) throws IOException {
+        return view.exportAxioms(out, format);
+    }
+}
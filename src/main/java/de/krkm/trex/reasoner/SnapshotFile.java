@@ -0,0 +1,535 @@
+package de.krkm.trex.reasoner;
+
+import de.krkm.trex.booleanexpressions.AndExpression;
+import de.krkm.trex.booleanexpressions.Literal;
+import de.krkm.trex.booleanexpressions.OrExpression;
+import de.krkm.trex.inference.Derivation;
+import de.krkm.trex.inference.ExplanationNode;
+import de.krkm.trex.inference.HeapMatrixStorage;
+import de.krkm.trex.inference.Matrix;
+import de.krkm.trex.inference.MatrixStorage;
+import de.krkm.trex.inference.OffHeapMatrixStorage;
+import de.krkm.trex.util.CopyOnWriteObjectIntHashMap;
+import de.krkm.trex.util.ObjectIntHashMap;
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+
+/**
+ * Reads and writes binary snapshots of the complete reasoner state. A snapshot contains the entities of the naming
+ * manager ordered by their IDs, the bit rows of all matrices and, if explanations are enabled, the explanation store of
+ * each matrix. Axioms referenced by explanations are interned into a table and encoded structurally by their type and
+ * the IDs of their entities. Snapshots are read using a memory-mapped file.
+ * <p>
+ * Matrix rows are stored word-aligned in the layout of {@link OffHeapMatrixStorage}, thus, the matrices of a snapshot
+ * can be used directly from the mapped file without copying them.
+ * <p>
+ * The snapshot ends with the justifications stated by the ontology along with the number of stated axioms implying
+ * them, see {@link de.krkm.trex.inference.AxiomDispatcher}, which is required for removing axioms later on.
+ * <p>
+ * Each snapshot is keyed by an order-independent hash of all axioms of the ontology and the number of axioms. A
+ * snapshot is only restored for an ontology having the same key unless the reasoner is synchronized with the ontology
+ * after restoring, see {@link TRexReasoner#warmStart(OWLOntology, File)}.
+ */
+public final class SnapshotFile {
+    private final static Logger log = LoggerFactory.getLogger(SnapshotFile.class);
+
+    private final static int MAGIC = 0x54524558;
+    private final static int FORMAT_VERSION = 3;
+    private final static Charset UTF8 = Charset.forName("UTF-8");
+
+    private final static long FNV_OFFSET = 0xcbf29ce484222325L;
+    private final static long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * types of axioms which can be encoded, the index of a type is used as its code
+     */
+    private final static AxiomType[] AXIOM_TYPES = new AxiomType[]{
+            AxiomType.SUBCLASS_OF, AxiomType.EQUIVALENT_CLASSES, AxiomType.DISJOINT_CLASSES,
+            AxiomType.SUB_OBJECT_PROPERTY, AxiomType.EQUIVALENT_OBJECT_PROPERTIES,
+            AxiomType.DISJOINT_OBJECT_PROPERTIES, AxiomType.OBJECT_PROPERTY_DOMAIN, AxiomType.OBJECT_PROPERTY_RANGE};
+
+    private SnapshotFile() {
+    }
+
+    /**
+     * Computes the key of the given ontology, i.e., the sum of the 64 bit FNV-1a hashes of the string representations
+     * of all axioms. Since the sum is commutative, the key does not depend on the order of the axioms.
+     *
+     * @param ontology ontology to compute key for
+     * @return hash of all axioms of the ontology
+     */
+    public static long computeAxiomHash(OWLOntology ontology) {
+        long sum = 0;
+        for (OWLAxiom axiom : ontology.getAxioms()) {
+            String s = axiom.toString();
+            long h = FNV_OFFSET;
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                h = (h ^ (c & 0xff)) * FNV_PRIME;
+                h = (h ^ (c >>> 8)) * FNV_PRIME;
+            }
+            sum += h;
+        }
+        return sum;
+    }
+
+    /**
+     * Writes a snapshot of the given reasoner to the given file.
+     *
+     * @param reasoner reasoner to write snapshot for
+     * @param file     file to write snapshot to
+     * @throws IOException on errors writing the file or if an explanation contains an axiom which cannot be encoded
+     */
+    public static void write(TRexReasoner reasoner, File file) throws IOException {
+        log.debug("Writing snapshot to {}", file);
+        OWLOntology ontology = reasoner.getOntology();
+        OntologyNamingManager namingManager = reasoner.getNamingManager();
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(computeAxiomHash(ontology));
+            out.writeInt(ontology.getAxiomCount());
+            out.writeBoolean(reasoner.isConceptOnly());
+            out.writeBoolean(reasoner.isGenerateExplanations());
+
+            out.writeInt(namingManager.getNumberOfConcepts());
+            for (int i = 0; i < namingManager.getNumberOfConcepts(); i++) {
+                writeString(out, namingManager.getConcept(i).getIRI().toString());
+            }
+            out.writeInt(namingManager.getNumberOfProperties());
+            for (int i = 0; i < namingManager.getNumberOfProperties(); i++) {
+                writeString(out, namingManager.getProperty(i).getIRI().toString());
+            }
+            out.writeInt(namingManager.getNumberOfInstances());
+            for (int i = 0; i < namingManager.getNumberOfInstances(); i++) {
+                writeString(out, namingManager.getInstance(i).getIRI().toString());
+            }
+
+            out.writeInt(reasoner.getNumberOfMatrices());
+            for (int m = 0; m < reasoner.getNumberOfMatrices(); m++) {
+                Matrix matrix = reasoner.getMatrix(m);
+                writeString(out, matrix.getAxiomTypeIdentifier());
+                out.writeInt(matrix.dimensionRow);
+                out.writeInt(matrix.dimensionCol);
+                // rows are aligned to words so that they can be used as off-heap storage directly
+                while (out.size() % 8 != 0) {
+                    out.writeByte(0);
+                }
+                MatrixStorage storage = matrix.getStorage();
+                for (int i = 0; i < matrix.dimensionRow; i++) {
+                    for (int w = 0; w < matrix.dimensionCol; w += 64) {
+                        long word = 0;
+                        for (int j = w; j < Math.min(w + 64, matrix.dimensionCol); j++) {
+                            if (storage.get(i, j)) {
+                                word |= 1L << (j - w);
+                            }
+                        }
+                        out.writeLong(word);
+                    }
+                }
+            }
+
+            if (reasoner.isGenerateExplanations()) {
+                writeExplanations(out, reasoner);
+            }
+
+            CopyOnWriteObjectIntHashMap<OWLAxiom> statedCounts = reasoner.getAxiomDispatcher().getStatedCounts();
+            out.writeInt(statedCounts.size());
+            for (OWLAxiom justification : statedCounts.getKeys()) {
+                writeAxiom(out, namingManager, justification);
+                out.writeInt(statedCounts.get(justification));
+            }
+        }
+        finally {
+            out.close();
+        }
+        log.debug("Done writing snapshot to {}", file);
+    }
+
+    private static void writeExplanations(DataOutputStream out, TRexReasoner reasoner) throws IOException {
+        // intern all axioms and rules referenced by any explanation node
+        ObjectIntHashMap<OWLAxiom> axiomIds = new ObjectIntHashMap<OWLAxiom>(1024);
+        ArrayList<OWLAxiom> axioms = new ArrayList<OWLAxiom>();
+        ObjectIntHashMap<String> ruleIds = new ObjectIntHashMap<String>(16);
+        ArrayList<String> rules = new ArrayList<String>();
+        for (int m = 0; m < reasoner.getNumberOfMatrices(); m++) {
+            Matrix matrix = reasoner.getMatrix(m);
+            for (long cell : matrix.getExplainedCells()) {
+                ExplanationNode node = matrix.getExplanationNode(cell);
+                for (AndExpression and : node.getStated().getExpressions()) {
+                    for (Literal literal : and.getExpressions()) {
+                        if (axiomIds.get(literal.getOWLAxiom()) == -1) {
+                            axiomIds.put(literal.getOWLAxiom(), axioms.size());
+                            axioms.add(literal.getOWLAxiom());
+                        }
+                    }
+                }
+                for (int d = 0; d < node.getNumberOfDerivations(); d++) {
+                    String rule = node.getDerivation(d).getRule();
+                    if (ruleIds.get(rule) == -1) {
+                        ruleIds.put(rule, rules.size());
+                        rules.add(rule);
+                    }
+                }
+            }
+        }
+
+        OntologyNamingManager namingManager = reasoner.getNamingManager();
+        out.writeInt(axioms.size());
+        for (OWLAxiom axiom : axioms) {
+            writeAxiom(out, namingManager, axiom);
+        }
+        out.writeInt(rules.size());
+        for (String rule : rules) {
+            writeString(out, rule);
+        }
+
+        for (int m = 0; m < reasoner.getNumberOfMatrices(); m++) {
+            Matrix matrix = reasoner.getMatrix(m);
+            long[] cells = matrix.getExplainedCells();
+            out.writeInt(cells.length);
+            for (long cell : cells) {
+                ExplanationNode node = matrix.getExplanationNode(cell);
+                out.writeLong(cell);
+                out.writeInt(node.getStated().getExpressions().size());
+                for (AndExpression and : node.getStated().getExpressions()) {
+                    out.writeInt(and.getExpressions().size());
+                    for (Literal literal : and.getExpressions()) {
+                        out.writeInt(axiomIds.get(literal.getOWLAxiom()));
+                    }
+                }
+                out.writeInt(node.getNumberOfDerivations());
+                for (int d = 0; d < node.getNumberOfDerivations(); d++) {
+                    Derivation derivation = node.getDerivation(d);
+                    out.writeInt(ruleIds.get(derivation.getRule()));
+                    out.writeInt(derivation.getNumberOfPremises());
+                    for (int p = 0; p < derivation.getNumberOfPremises(); p++) {
+                        out.writeInt(derivation.getPremiseMatrix(p));
+                        out.writeLong(derivation.getPremiseCell(p));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Restores a reasoner for the given ontology from the given snapshot file.
+     *
+     * @param ontology    ontology the snapshot has been created for
+     * @param file        snapshot file to read
+     * @param mapMatrices if true, the matrices are backed by a private mapping of the file, otherwise they are copied
+     *                    to the heap
+     * @return reasoner restored from the snapshot
+     * @throws IOException if the file cannot be read, is no valid snapshot or does not match the axioms of the
+     *                     ontology
+     */
+    public static TRexReasoner read(OWLOntology ontology, File file, boolean mapMatrices) throws IOException {
+        return read(ontology, file, mapMatrices, false);
+    }
+
+    /**
+     * Restores a reasoner from the given snapshot file. If <code>synchronize</code> is true, the snapshot may have
+     * been created for a different version of the ontology and the restored reasoner is brought in line with the
+     * current axioms of the ontology using {@link TRexReasoner#synchronize()}.
+     *
+     * @param ontology    ontology to restore reasoner for
+     * @param file        snapshot file to read
+     * @param mapMatrices if true, the matrices are backed by a private mapping of the file, otherwise they are copied
+     *                    to the heap
+     * @param synchronize if true, differences between the snapshot and the ontology are applied incrementally,
+     *                    otherwise the snapshot has to match the axioms of the ontology
+     * @return reasoner restored from the snapshot
+     * @throws IOException if the file cannot be read, is no valid snapshot or does not match the axioms of the
+     *                     ontology although <code>synchronize</code> is false
+     */
+    public static TRexReasoner read(OWLOntology ontology, File file, boolean mapMatrices, boolean synchronize)
+            throws IOException {
+        log.debug("Reading snapshot from {}", file);
+        // private mappings require a writable channel although the file itself is never modified
+        RandomAccessFile raf = new RandomAccessFile(file, mapMatrices ? "rw" : "r");
+        try {
+            FileChannel channel = raf.getChannel();
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("Snapshot " + file + " exceeds maximum size for memory-mapping");
+            }
+            MappedByteBuffer in = channel.map(
+                    mapMatrices ? FileChannel.MapMode.PRIVATE : FileChannel.MapMode.READ_ONLY, 0, channel.size());
+
+            if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+                throw new IOException("File " + file + " is no snapshot of a supported format version");
+            }
+            long axiomHash = in.getLong();
+            int axiomCount = in.getInt();
+            boolean matching = axiomCount == ontology.getAxiomCount() && axiomHash == computeAxiomHash(ontology);
+            if (!matching && !synchronize) {
+                throw new IOException("Snapshot " + file + " does not match the axioms of the ontology");
+            }
+            boolean conceptOnly = in.get() != 0;
+            boolean generateExplanations = in.get() != 0;
+
+            OWLDataFactory factory = ontology.getOWLOntologyManager().getOWLDataFactory();
+            OWLClass[] concepts = new OWLClass[in.getInt()];
+            for (int i = 0; i < concepts.length; i++) {
+                concepts[i] = factory.getOWLClass(IRI.create(readString(in)));
+            }
+            OWLObjectProperty[] properties = new OWLObjectProperty[in.getInt()];
+            for (int i = 0; i < properties.length; i++) {
+                properties[i] = factory.getOWLObjectProperty(IRI.create(readString(in)));
+            }
+            OWLNamedIndividual[] instances = new OWLNamedIndividual[in.getInt()];
+            for (int i = 0; i < instances.length; i++) {
+                instances[i] = factory.getOWLNamedIndividual(IRI.create(readString(in)));
+            }
+            OntologyNamingManager namingManager = new OntologyNamingManager(Arrays.asList(concepts),
+                    Arrays.asList(properties), Arrays.asList(instances));
+
+            TRexReasoner reasoner = new TRexReasoner(ontology, namingManager, conceptOnly, generateExplanations,
+                    mapMatrices ? OffHeapMatrixStorage.DIRECT_FACTORY : HeapMatrixStorage.FACTORY, false);
+
+            int numberOfMatrices = in.getInt();
+            if (numberOfMatrices != reasoner.getNumberOfMatrices()) {
+                throw new IOException("Snapshot " + file + " contains " + numberOfMatrices + " matrices, expected " +
+                        reasoner.getNumberOfMatrices());
+            }
+            for (int m = 0; m < numberOfMatrices; m++) {
+                Matrix matrix = reasoner.getMatrix(m);
+                String identifier = readString(in);
+                int rows = in.getInt();
+                int cols = in.getInt();
+                if (!identifier.equals(matrix.getAxiomTypeIdentifier()) || rows != matrix.dimensionRow ||
+                        cols != matrix.dimensionCol) {
+                    throw new IOException(
+                            "Snapshot " + file + " contains unexpected matrix " + identifier + " of size " + rows +
+                                    "x" + cols);
+                }
+                in.position((in.position() + 7) & ~7);
+                int wordsPerRow = (cols + 63) >>> 6;
+                if (mapMatrices) {
+                    matrix.setStorage(new OffHeapMatrixStorage(in, in.position(), rows, cols, wordsPerRow), rows,
+                            cols);
+                    in.position(in.position() + rows * wordsPerRow * 8);
+                    continue;
+                }
+                boolean[][] bits = new boolean[rows][cols];
+                for (int i = 0; i < rows; i++) {
+                    boolean[] row = bits[i];
+                    for (int w = 0; w < cols; w += 64) {
+                        long word = in.getLong();
+                        while (word != 0) {
+                            row[w + Long.numberOfTrailingZeros(word)] = true;
+                            word &= word - 1;
+                        }
+                    }
+                }
+                matrix.setMatrix(bits);
+            }
+
+            if (generateExplanations) {
+                readExplanations(in, reasoner, factory);
+            }
+
+            int statedJustifications = in.getInt();
+            for (int i = 0; i < statedJustifications; i++) {
+                OWLAxiom justification = readAxiom(in, namingManager, factory);
+                reasoner.getAxiomDispatcher().restore(justification, in.getInt());
+            }
+            log.debug("Done reading snapshot from {}", file);
+
+            if (!matching) {
+                log.debug("Synchronizing snapshot {} with ontology", file);
+                reasoner.synchronize();
+            }
+            return reasoner;
+        }
+        finally {
+            raf.close();
+        }
+    }
+
+    private static void readExplanations(MappedByteBuffer in, TRexReasoner reasoner, OWLDataFactory factory)
+            throws IOException {
+        OntologyNamingManager namingManager = reasoner.getNamingManager();
+        Literal[] literals = new Literal[in.getInt()];
+        for (int i = 0; i < literals.length; i++) {
+            literals[i] = Literal.create(readAxiom(in, namingManager, factory));
+        }
+        String[] rules = new String[in.getInt()];
+        for (int i = 0; i < rules.length; i++) {
+            rules[i] = readString(in).intern();
+        }
+
+        for (int m = 0; m < reasoner.getNumberOfMatrices(); m++) {
+            Matrix matrix = reasoner.getMatrix(m);
+            int cells = in.getInt();
+            for (int c = 0; c < cells; c++) {
+                long cell = in.getLong();
+                HashSet<AndExpression> ands = new HashSet<AndExpression>();
+                int numberOfAnds = in.getInt();
+                for (int a = 0; a < numberOfAnds; a++) {
+                    HashSet<Literal> and = new HashSet<Literal>();
+                    int numberOfLiterals = in.getInt();
+                    for (int l = 0; l < numberOfLiterals; l++) {
+                        and.add(literals[in.getInt()]);
+                    }
+                    ands.add(AndExpression.create(and));
+                }
+                Derivation[] derivations = new Derivation[in.getInt()];
+                for (int d = 0; d < derivations.length; d++) {
+                    String rule = rules[in.getInt()];
+                    int[] premiseMatrices = new int[in.getInt()];
+                    long[] premiseCells = new long[premiseMatrices.length];
+                    for (int p = 0; p < premiseMatrices.length; p++) {
+                        premiseMatrices[p] = in.getInt();
+                        premiseCells[p] = in.getLong();
+                    }
+                    derivations[d] = new Derivation(rule, premiseMatrices, premiseCells);
+                }
+                matrix.restoreExplanationNode(cell, ExplanationNode.create(OrExpression.create(ands), derivations));
+            }
+        }
+    }
+
+    private static void writeAxiom(DataOutputStream out, OntologyNamingManager namingManager, OWLAxiom axiom)
+            throws IOException {
+        int code = Arrays.asList(AXIOM_TYPES).indexOf(axiom.getAxiomType());
+        int first;
+        int second;
+        if (axiom instanceof OWLSubClassOfAxiom) {
+            OWLSubClassOfAxiom a = (OWLSubClassOfAxiom) axiom;
+            first = conceptId(namingManager, a.getSubClass(), axiom);
+            second = conceptId(namingManager, a.getSuperClass(), axiom);
+        }
+        else if (axiom instanceof OWLEquivalentClassesAxiom || axiom instanceof OWLDisjointClassesAxiom) {
+            Iterator<OWLClassExpression> it = axiom instanceof OWLEquivalentClassesAxiom ?
+                    ((OWLEquivalentClassesAxiom) axiom).getClassExpressions().iterator() :
+                    ((OWLDisjointClassesAxiom) axiom).getClassExpressions().iterator();
+            first = conceptId(namingManager, it.next(), axiom);
+            second = it.hasNext() ? conceptId(namingManager, it.next(), axiom) : first;
+            if (it.hasNext()) {
+                throw new IOException("Unable to encode non-binary axiom " + axiom);
+            }
+        }
+        else if (axiom instanceof OWLSubObjectPropertyOfAxiom) {
+            OWLSubObjectPropertyOfAxiom a = (OWLSubObjectPropertyOfAxiom) axiom;
+            first = propertyId(namingManager, a.getSubProperty(), axiom);
+            second = propertyId(namingManager, a.getSuperProperty(), axiom);
+        }
+        else if (axiom instanceof OWLEquivalentObjectPropertiesAxiom ||
+                axiom instanceof OWLDisjointObjectPropertiesAxiom) {
+            Iterator<OWLObjectPropertyExpression> it = axiom instanceof OWLEquivalentObjectPropertiesAxiom ?
+                    ((OWLEquivalentObjectPropertiesAxiom) axiom).getProperties().iterator() :
+                    ((OWLDisjointObjectPropertiesAxiom) axiom).getProperties().iterator();
+            first = propertyId(namingManager, it.next(), axiom);
+            second = it.hasNext() ? propertyId(namingManager, it.next(), axiom) : first;
+            if (it.hasNext()) {
+                throw new IOException("Unable to encode non-binary axiom " + axiom);
+            }
+        }
+        else if (axiom instanceof OWLObjectPropertyDomainAxiom) {
+            OWLObjectPropertyDomainAxiom a = (OWLObjectPropertyDomainAxiom) axiom;
+            first = propertyId(namingManager, a.getProperty(), axiom);
+            second = conceptId(namingManager, a.getDomain(), axiom);
+        }
+        else if (axiom instanceof OWLObjectPropertyRangeAxiom) {
+            OWLObjectPropertyRangeAxiom a = (OWLObjectPropertyRangeAxiom) axiom;
+            first = propertyId(namingManager, a.getProperty(), axiom);
+            second = conceptId(namingManager, a.getRange(), axiom);
+        }
+        else {
+            throw new IOException("Unable to encode axiom " + axiom);
+        }
+        if (code == -1) {
+            throw new IOException("Unable to encode axiom " + axiom);
+        }
+        out.writeByte(code);
+        out.writeInt(first);
+        out.writeInt(second);
+    }
+
+    private static OWLAxiom readAxiom(MappedByteBuffer in, OntologyNamingManager namingManager,
+            OWLDataFactory factory) throws IOException {
+        int code = in.get();
+        int first = in.getInt();
+        int second = in.getInt();
+        if (code < 0 || code >= AXIOM_TYPES.length) {
+            throw new IOException("Invalid axiom code " + code);
+        }
+        AxiomType type = AXIOM_TYPES[code];
+        if (type == AxiomType.SUBCLASS_OF) {
+            return factory.getOWLSubClassOfAxiom(namingManager.getConcept(first), namingManager.getConcept(second));
+        }
+        if (type == AxiomType.EQUIVALENT_CLASSES) {
+            return factory.getOWLEquivalentClassesAxiom(namingManager.getConcept(first),
+                    namingManager.getConcept(second));
+        }
+        if (type == AxiomType.DISJOINT_CLASSES) {
+            return factory.getOWLDisjointClassesAxiom(namingManager.getConcept(first),
+                    namingManager.getConcept(second));
+        }
+        if (type == AxiomType.SUB_OBJECT_PROPERTY) {
+            return factory.getOWLSubObjectPropertyOfAxiom(namingManager.getProperty(first),
+                    namingManager.getProperty(second));
+        }
+        if (type == AxiomType.EQUIVALENT_OBJECT_PROPERTIES) {
+            return factory.getOWLEquivalentObjectPropertiesAxiom(namingManager.getProperty(first),
+                    namingManager.getProperty(second));
+        }
+        if (type == AxiomType.DISJOINT_OBJECT_PROPERTIES) {
+            return factory.getOWLDisjointObjectPropertiesAxiom(namingManager.getProperty(first),
+                    namingManager.getProperty(second));
+        }
+        if (type == AxiomType.OBJECT_PROPERTY_DOMAIN) {
+            return factory.getOWLObjectPropertyDomainAxiom(namingManager.getProperty(first),
+                    namingManager.getConcept(second));
+        }
+        return factory.getOWLObjectPropertyRangeAxiom(namingManager.getProperty(first),
+                namingManager.getConcept(second));
+    }
+
+    private static int conceptId(OntologyNamingManager namingManager, OWLClassExpression expression, OWLAxiom axiom)
+            throws IOException {
+        int id = expression.isAnonymous() ? -1 : namingManager.getConceptId(expression.asOWLClass());
+        if (id == -1) {
+            throw new IOException("Unable to encode axiom " + axiom);
+        }
+        return id;
+    }
+
+    private static int propertyId(OntologyNamingManager namingManager, OWLObjectPropertyExpression expression,
+            OWLAxiom axiom) throws IOException {
+        int id = expression.isAnonymous() ? -1 : namingManager.getPropertyId(expression.asOWLObjectProperty());
+        if (id == -1) {
+            throw new IOException("Unable to encode axiom " + axiom);
+        }
+        return id;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, UTF8);
+    }
+}
@@ -2,26 +2,64 @@ package de.krkm.trex.reasoner;
 
 import de.krkm.trex.booleanexpressions.ExpressionMinimizer;
 import de.krkm.trex.booleanexpressions.OrExpression;
+import de.krkm.trex.inference.AxiomDispatcher;
+import de.krkm.trex.inference.AxiomSpliterator;
+import de.krkm.trex.inference.CellChangeListener;
+import de.krkm.trex.inference.CellCursor;
+import de.krkm.trex.inference.CopyOnWriteMatrixStorage;
+import de.krkm.trex.inference.ExplanationIndex;
+import de.krkm.trex.inference.HeapMatrixStorage;
 import de.krkm.trex.inference.Matrix;
+import de.krkm.trex.inference.MatrixStorage;
+import de.krkm.trex.inference.MatrixStorageFactory;
+import de.krkm.trex.inference.OffHeapMatrixStorage;
+import de.krkm.trex.inference.Propagator;
+import de.krkm.trex.inference.TransposedIndexStorage;
 import de.krkm.trex.inference.concept.ConceptDisjointnessInferenceStepProvider;
 import de.krkm.trex.inference.concept.SubClassOfInferenceStepProvider;
 import de.krkm.trex.inference.property.*;
+import de.krkm.trex.util.CopyOnWriteHashSet;
+import org.semanticweb.owlapi.apibinding.OWLManager;
 import org.semanticweb.owlapi.model.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
 
 /**
  * Encapsulates the reasoning service
  *
- * @author Daniel Fleischhacker <daniel@informatik.uni-mannheim.de>
+ * @author Daniel Fleischhacker &lt;daniel@informatik.uni-mannheim.de&gt;
  */
 public class TRexReasoner {
+    /**
+     * ontology this reasoner performs inference on, null for a forked reasoner until it is requested
+     */
     private OWLOntology ontology;
+    /**
+     * ontology the root of the forks leading to this reasoner has been created for, only used for initializing the
+     * matrices of copies
+     */
+    private OWLOntology sourceOntology;
+    /**
+     * axioms of the ontology shared with forks, null until this reasoner is forked for the first time
+     */
+    private CopyOnWriteHashSet<OWLAxiom> ontologyAxioms;
 
     private OntologyNamingManager namingManager;
 
@@ -40,7 +78,16 @@ public class TRexReasoner {
     private boolean conceptOnly;
 
     private HashMap<AxiomType, ArrayList<Matrix>> typeToMatrix = new HashMap<AxiomType, ArrayList<Matrix>>();
+    private ArrayList<Matrix> matrices = new ArrayList<Matrix>();
+    private AxiomDispatcher axiomDispatcher;
+    private int explanationVersion;
+    private ExplanationIndex explanationIndex = new ExplanationIndex();
     private OWLDataFactory dataFactory;
+    private MatrixStorageFactory storageFactory;
+    private Propagator propagator = new Propagator(this);
+    private long version;
+    private volatile ReasonerSnapshot currentVersion;
+    private CoherenceMonitor coherenceMonitor;
 
     public TRexReasoner(OWLOntology ontology) {
         this(ontology, false);
@@ -63,62 +110,499 @@ public class TRexReasoner {
      * @param generateExplanations if true explanation support is enabled otherwise disabled
      */
     public TRexReasoner(OWLOntology ontology, boolean conceptOnly, boolean generateExplanations) {
+        this(ontology, conceptOnly, generateExplanations, HeapMatrixStorage.FACTORY);
+    }
+
+    /**
+     * Initializes the reasoner to perform inference on the given ontology storing all matrices in storages created
+     * by the given factory, e.g., off-heap using {@link OffHeapMatrixStorage}.
+     *
+     * @param ontology             ontology to perform inference on
+     * @param conceptOnly          if true, only concept reasoning is enabled, otherwise also property
+     * @param generateExplanations if true explanation support is enabled otherwise disabled
+     * @param storageFactory       factory creating the storages of the matrices
+     */
+    public TRexReasoner(OWLOntology ontology, boolean conceptOnly, boolean generateExplanations,
+            MatrixStorageFactory storageFactory) {
+        this(ontology, new OntologyNamingManager(ontology), conceptOnly, generateExplanations, storageFactory, true);
+    }
+
+    /**
+     * Initializes the reasoner using the given naming manager. If <code>materialize</code> is false, the matrices
+     * stay empty and no axioms are read from the ontology, which is used for restoring a reasoner from a snapshot.
+     */
+    TRexReasoner(OWLOntology ontology, OntologyNamingManager namingManager, boolean conceptOnly,
+            boolean generateExplanations, MatrixStorageFactory storageFactory, boolean materialize) {
         this.conceptOnly = conceptOnly;
+        this.storageFactory = storageFactory;
         this.ontology = ontology;
+        sourceOntology = ontology;
         dataFactory = ontology.getOWLOntologyManager().getOWLDataFactory();
-        namingManager = new OntologyNamingManager(ontology);
+        this.namingManager = namingManager;
         this.generateExplanations = generateExplanations;
 
+        axiomDispatcher = new AxiomDispatcher(this, dataFactory);
+
         conceptSubsumption = new Matrix(ontology, this, namingManager, new SubClassOfInferenceStepProvider());
         registerType(conceptSubsumption);
-        materializeConceptSubsumption();
 
         conceptDisjointness = new Matrix(ontology, this, namingManager, new ConceptDisjointnessInferenceStepProvider(),
                 generateExplanations);
         registerType(conceptDisjointness);
-        materializeConceptDisjointness();
 
         if (!conceptOnly) {
             propertySubsumption = new Matrix(ontology, this, namingManager, new SubPropertyOfInferenceStepProvider(),
                     generateExplanations);
             registerType(propertySubsumption);
-            materializePropertySubsumption();
 
             propertyDisjointness = new Matrix(ontology, this, namingManager,
                     new PropertyDisjointnessInferenceStepProvider(), generateExplanations);
             registerType(propertyDisjointness);
-            materializePropertyDisjointness();
 
             propertyDomain = new Matrix(ontology, this, namingManager,
                     new PropertyDomainInferenceStepProvider(), generateExplanations);
             registerType(propertyDomain);
-            materializePropertyDomain();
 
             propertyRange = new Matrix(ontology, this, namingManager,
                     new PropertyRangeInferenceStepProvider(), generateExplanations);
             registerType(propertyRange);
-            materializePropertyRange();
+        }
+
+        if (materialize) {
+            // add stated axioms to all matrices in a single pass over the ontology
+            axiomDispatcher.dispatch(ontology);
+
+            materializeConceptSubsumption();
+            materializeConceptDisjointness();
+        }
+
+        if (!conceptOnly) {
+            if (materialize) {
+                materializePropertySubsumption();
+                materializePropertyDisjointness();
+                materializePropertyDomain();
+                materializePropertyRange();
+            }
 
+            // property unsatisfiability is derived from the other matrices and thus materialized last
             propertyUnsatisfiability = new Matrix(ontology, this, namingManager,
                     new PropertyUnsatisfiabilityInferenceProvider(), generateExplanations);
             registerType(propertyUnsatisfiability);
-            materializePropertyUnsatisfiability();
+            if (materialize) {
+                materializePropertyUnsatisfiability();
+            }
         }
     }
 
+    /**
+     * Writes the complete state of this reasoner, i.e., naming manager, matrices and, if enabled, explanations to the
+     * given file. The snapshot is keyed by a hash of the ontology axioms, see {@link SnapshotFile}.
+     *
+     * @param file file to write snapshot to
+     * @throws IOException on errors writing the file
+     */
+    public void saveSnapshot(File file) throws IOException {
+        SnapshotFile.write(this, file);
+    }
+
+    /**
+     * Restores a reasoner for the given ontology from a snapshot previously written by {@link #saveSnapshot(File)}.
+     * The snapshot file is memory-mapped and no inference is performed.
+     *
+     * @param ontology ontology the snapshot has been created for
+     * @param file     snapshot file
+     * @return reasoner restored from the snapshot
+     * @throws IOException if the file cannot be read or the snapshot does not match the axioms of the ontology
+     */
+    public static TRexReasoner loadSnapshot(OWLOntology ontology, File file) throws IOException {
+        return SnapshotFile.read(ontology, file, false);
+    }
 
     /**
-     * Re-runs the materialization step for this reasoner. In this process only new axioms are considered which do not
-     * introduce new properties or concepts.
+     * Restores a reasoner for the given ontology from a snapshot previously written by {@link #saveSnapshot(File)}.
+     * If <code>mapMatrices</code> is true, the matrices are not copied to the heap but directly backed by a private
+     * memory mapping of the snapshot file, so that modifications are not written back to the file. Nevertheless, the
+     * file has to be writable for creating such a mapping. Matrices which have to be grown later on are moved to direct
+     * byte buffers.
+     *
+     * @param ontology    ontology the snapshot has been created for
+     * @param file        snapshot file
+     * @param mapMatrices if true, the matrices are backed by the mapped snapshot file instead of heap arrays
+     * @return reasoner restored from the snapshot
+     * @throws IOException if the file cannot be read or the snapshot does not match the axioms of the ontology
      */
-    public void rematerialize() {
-        for (ArrayList<Matrix> matrices : typeToMatrix.values()) {
-            for (Matrix m : matrices) {
-                m.materialize();
+    public static TRexReasoner loadSnapshot(OWLOntology ontology, File file, boolean mapMatrices) throws IOException {
+        return SnapshotFile.read(ontology, file, mapMatrices);
+    }
+
+    /**
+     * Restores a reasoner for the given ontology from a snapshot which might have been created for a different version
+     * of the ontology, e.g., the one of the previous day. Instead of materializing the ontology from scratch, the
+     * differences between the axioms stated in the snapshot and the axioms of the ontology are applied incrementally,
+     * see {@link #synchronize()}. If the snapshot matches the ontology, it is restored without any inference.
+     *
+     * @param ontology ontology to restore reasoner for
+     * @param file     snapshot file
+     * @return reasoner for the given ontology
+     * @throws IOException if the file cannot be read or is no valid snapshot
+     */
+    public static TRexReasoner warmStart(OWLOntology ontology, File file) throws IOException {
+        return SnapshotFile.read(ontology, file, false, true);
+    }
+
+    /**
+     * Returns an immutable view of the current state of this reasoner, i.e., of all matrices and explanations. The
+     * snapshot is not affected by later modifications of the reasoner and can be queried by any number of threads
+     * without locking while this reasoner continues to be updated. It has to be created by the thread modifying the
+     * reasoner.
+     * <p>
+     * If the matrices are stored in {@link CopyOnWriteMatrixStorage}s, the snapshot shares all rows with this reasoner
+     * and the reasoner copies a row before modifying it for the first time afterwards. Explanations are shared the same
+     * way in blocks of explained cells. Thus, creating a snapshot takes time proportional to the number of rows and
+     * blocks, not to the number of explained cells. Matrices in any other storage are copied completely.
+     *
+     * @return immutable view of the current state of this reasoner
+     */
+    public ReasonerSnapshot snapshot() {
+        TRexReasoner view = copy();
+        for (int i = 0; i < matrices.size(); i++) {
+            Matrix matrix = view.getMatrix(i);
+            matrix.copyExplanations(matrices.get(i));
+            matrix.freeze();
+        }
+        return new ReasonerSnapshot(view, version);
+    }
+
+    /**
+     * Enables or disables versioning of the reasoner state. While versioning is enabled, the state of the reasoner is
+     * published as an immutable snapshot after each completed update, i.e., after each call of
+     * {@link #applyChanges(Collection, Collection)}, {@link #synchronize()} and {@link #rematerialize()}. Readers
+     * query the snapshot returned by {@link #getCurrentVersion()} and thus keep seeing version <code>N</code>
+     * while version <code>N + 1</code> is built by the updating thread. Publishing a version is atomic, a reader
+     * retrieving the current version either gets the complete previous or the complete new version. Versions no
+     * longer referenced by any reader are reclaimed by the garbage collector.
+     * <p>
+     * On enabling versioning, all matrices are moved to {@link CopyOnWriteMatrixStorage}s, so that consecutive
+     * versions share all rows not modified in between, and the current state is published. Copy-on-write storages
+     * keep their rows on the heap, thus, matrices stored off-heap or in memory-mapped files, e.g., after
+     * {@link #loadSnapshot(OWLOntology, File, boolean)}, are copied onto the heap once, requiring one bit per cell, and
+     * their previous storages are no longer used by this reasoner.
+     *
+     * @param versioning if true, versioning is enabled, otherwise no more versions are published
+     */
+    public void setVersioning(boolean versioning) {
+        if (!versioning) {
+            currentVersion = null;
+            return;
+        }
+        if (currentVersion != null) {
+            return;
+        }
+        useCopyOnWriteStorages();
+        currentVersion = snapshot();
+    }
+
+    /**
+     * Moves all matrices not stored in {@link CopyOnWriteMatrixStorage}s yet to such storages. Their cells are copied
+     * onto the heap, even if they have been stored off-heap or in memory-mapped files before.
+     */
+    private void useCopyOnWriteStorages() {
+        for (Matrix matrix : matrices) {
+            MatrixStorage storage = matrix.getStorage();
+            if (storage instanceof TransposedIndexStorage) {
+                storage = ((TransposedIndexStorage) storage).getPrimary();
+            }
+            if (!(storage instanceof CopyOnWriteMatrixStorage)) {
+                if (!(storage instanceof HeapMatrixStorage)) {
+                    log.info("Copying matrix {} from {} to a copy-on-write storage on the heap",
+                            matrix.getAxiomTypeIdentifier(), storage.getClass().getSimpleName());
+                }
+                matrix.setStorage(CopyOnWriteMatrixStorage.share(storage, matrix.dimensionRow, matrix.dimensionCol),
+                        matrix.dimensionRow, matrix.dimensionCol);
+            }
+        }
+        storageFactory = CopyOnWriteMatrixStorage.FACTORY;
+    }
+
+    /**
+     * Creates a child reasoner starting from the current state of this reasoner, e.g., for checking whether adding
+     * some candidate axioms makes any entity unsatisfiable. The child shares all matrix rows, explanation nodes, the
+     * explanation index, the stated justifications and the axioms of the ontology with this reasoner in blocks and only
+     * copies blocks modified afterwards by either of them, see {@link CopyOnWriteMatrixStorage} and
+     * {@link CopyOnWriteHashSet}. Thus, forking takes time proportional to the number of rows and blocks, not to the
+     * number of axioms or explained cells. Both reasoners are fully independent, i.e., the child can be updated, e.g.,
+     * using {@link #applyChanges(Collection, Collection)}, without affecting this reasoner and is simply dropped when
+     * no longer needed.
+     * <p>
+     * The child only keeps the axioms of its ontology, an {@link OWLOntology} containing them is created once it is
+     * requested using {@link #getOntology()}. On the first fork, all matrices of this reasoner are moved to
+     * copy-on-write storages and the axioms of its ontology are collected. Afterwards, this reasoner keeps track of its
+     * axioms itself, thus, modifications of its ontology not made by this reasoner are only seen by forks after
+     * {@link #synchronize()}.
+     * <p>
+     * Forking has to be done by the thread modifying this reasoner. Different children may be used by different
+     * threads concurrently, even while this reasoner is modified.
+     *
+     * @return child reasoner starting from the current state of this reasoner
+     */
+    public TRexReasoner fork() {
+        useCopyOnWriteStorages();
+        if (ontologyAxioms == null) {
+            ontologyAxioms = collectAxioms(ontology);
+        }
+
+        TRexReasoner child = copy();
+        child.ontology = null;
+        child.ontologyAxioms = ontologyAxioms.fork();
+        for (int i = 0; i < matrices.size(); i++) {
+            Matrix childMatrix = child.getMatrix(i);
+            childMatrix.copyExplanations(matrices.get(i));
+            childMatrix.copyStated(matrices.get(i));
+        }
+        child.explanationIndex = explanationIndex.fork();
+        child.axiomDispatcher.copyStatedCounts(axiomDispatcher);
+        child.version = version;
+        return child;
+    }
+
+    private static CopyOnWriteHashSet<OWLAxiom> collectAxioms(OWLOntology ontology) {
+        CopyOnWriteHashSet<OWLAxiom> res = new CopyOnWriteHashSet<OWLAxiom>();
+        for (OWLAxiom axiom : ontology.getAxioms()) {
+            res.add(axiom);
+        }
+        return res;
+    }
+
+    /**
+     * Returns true if versioning is enabled, see {@link #setVersioning(boolean)}.
+     *
+     * @return true if versioning is enabled
+     */
+    public boolean isVersioning() {
+        return currentVersion != null;
+    }
+
+    /**
+     * Returns the most recently published version of the reasoner state. This method may be called by any thread
+     * concurrently to updates of the reasoner.
+     *
+     * @return most recently published version, null if versioning is disabled
+     */
+    public ReasonerSnapshot getCurrentVersion() {
+        return currentVersion;
+    }
+
+    /**
+     * Returns the number of updates completed by this reasoner, i.e., the version of its current state.
+     *
+     * @return version of the current state
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Completes an update of the reasoner state and publishes the new version if versioning is enabled.
+     */
+    void publish() {
+        version++;
+        if (currentVersion != null) {
+            currentVersion = snapshot();
+        }
+        if (coherenceMonitor != null) {
+            coherenceMonitor.flush(version);
+        }
+    }
+
+    /**
+     * Registers the given listener to be notified whenever an update changes the satisfiability of any concept or
+     * property. Listeners are notified at the end of each call of {@link #applyChanges(Collection, Collection)},
+     * {@link #synchronize()} and {@link #rematerialize()} with the net changes caused by it, e.g., after
+     * {@link #addAxiom(OWLAxiom)} the changes are reported by the next of these calls.
+     * <p>
+     * The changes are determined from the unsatisfiability cells changed during the update as reported by the
+     * {@link Propagator}, thus, the unsatisfiable entities are only collected once when the first listener is
+     * registered.
+     *
+     * @param listener listener to register
+     */
+    public void addCoherenceListener(CoherenceListener listener) {
+        if (coherenceMonitor == null) {
+            coherenceMonitor = new CoherenceMonitor(this);
+        }
+        coherenceMonitor.addListener(listener);
+    }
+
+    /**
+     * Unregisters the given coherence listener. Changes of the matrices are no longer tracked after the last listener
+     * has been unregistered.
+     *
+     * @param listener listener to unregister
+     */
+    public void removeCoherenceListener(CoherenceListener listener) {
+        if (coherenceMonitor == null) {
+            return;
+        }
+        coherenceMonitor.removeListener(listener);
+        if (!coherenceMonitor.hasListeners()) {
+            coherenceMonitor.stop();
+            coherenceMonitor = null;
+        }
+    }
+
+    /**
+     * Registers the given listener to be notified about each changed matrix cell immediately, see
+     * {@link Propagator#addListener(CellChangeListener)}. Listeners must not modify the reasoner.
+     *
+     * @param listener listener to register
+     */
+    public void addCellChangeListener(CellChangeListener listener) {
+        propagator.addListener(listener);
+    }
+
+    /**
+     * Unregisters the given cell change listener.
+     *
+     * @param listener listener to unregister
+     */
+    public void removeCellChangeListener(CellChangeListener listener) {
+        propagator.removeListener(listener);
+    }
+
+    /**
+     * Creates a reasoner whose matrices share their rows with the matrices of this reasoner, see
+     * {@link CopyOnWriteMatrixStorage#share(MatrixStorage, int, int)}. Neither explanations nor stated axioms are
+     * copied, the ontology of the copy is the source ontology of this reasoner.
+     */
+    private TRexReasoner copy() {
+        final MatrixStorage[] storages = new MatrixStorage[matrices.size()];
+        for (int i = 0; i < storages.length; i++) {
+            Matrix matrix = matrices.get(i);
+            storages[i] = CopyOnWriteMatrixStorage.share(matrix.getStorage(), matrix.dimensionRow,
+                    matrix.dimensionCol);
+        }
+        TRexReasoner copy = new TRexReasoner(sourceOntology, namingManager, conceptOnly, generateExplanations,
+                new MatrixStorageFactory() {
+                    @Override
+                    public MatrixStorage create(Matrix matrix, int rows, int cols) {
+                        return storages[matrix.getId()];
+                    }
+                }, false);
+        // storages created later on have to support sharing as well
+        copy.storageFactory = CopyOnWriteMatrixStorage.FACTORY;
+        return copy;
+    }
+
+    /**
+     * Brings the reasoner in line with the current axioms of its ontology, e.g., after the ontology has been modified
+     * without notifying the reasoner. The stated axioms of the ontology are compared to the ones known to the reasoner
+     * and the differences are applied incrementally like in {@link #applyChanges(Collection, Collection)}. Computing
+     * the differences requires a single pass over the axioms of the ontology, the inference work is proportional to
+     * the number of affected matrix cells.
+     */
+    public void synchronize() {
+        OWLOntology ontology = getOntology();
+        addEntities(ontology.getClassesInSignature(), ontology.getObjectPropertiesInSignature());
+        ArrayList<OWLAxiom> added = new ArrayList<OWLAxiom>();
+        ArrayList<OWLAxiom> retracted = new ArrayList<OWLAxiom>();
+        axiomDispatcher.synchronize(ontology, added, retracted);
+        if (ontologyAxioms != null) {
+            ontologyAxioms = collectAxioms(ontology);
+        }
+        log.debug("Synchronizing with ontology: {} justifications added, {} retracted", added.size(),
+                retracted.size());
+
+        propagator.retract(retracted);
+        propagator.setActive(true);
+        try {
+            for (OWLAxiom justification : added) {
+                axiomDispatcher.send(justification);
+            }
+            propagator.propagate();
+        }
+        finally {
+            propagator.setActive(false);
+        }
+        publish();
+    }
+
+    /**
+     * Adds and removes the given axioms to and from the ontology and incrementally updates all matrices. In contrast
+     * to {@link #addAxiom(OWLAxiom)}, no rematerialization is required afterwards. Removed axioms are handled by
+     * deleting all entailments which might depend on them and re-deriving those still entailed by the remaining
+     * axioms.
+     *
+     * @param additions axioms to add
+     * @param removals  axioms to remove
+     */
+    public void applyChanges(Collection<? extends OWLAxiom> additions, Collection<? extends OWLAxiom> removals) {
+        update(additions, removals);
+        publish();
+    }
+
+    /**
+     * Incrementally updates all matrices like {@link #applyChanges(Collection, Collection)} without completing the
+     * update, i.e., the version is not increased, no version is published and no coherence listener is notified.
+     * Thus, changes which are undone before calling {@link #publish()} are never visible to readers of published
+     * versions.
+     *
+     * @param additions axioms to add
+     * @param removals  axioms to remove
+     */
+    void update(Collection<? extends OWLAxiom> additions, Collection<? extends OWLAxiom> removals) {
+        for (OWLAxiom axiom : additions) {
+            if (!axiomDispatcher.isSupported(axiom.getAxiomType())) {
+                throw new UnsupportedOperationException(
+                        "Reasoner unable to handle axiom type: " + axiom.getAxiomType());
+            }
+        }
+        // stated axioms are counted per axiom of the ontology, thus, axioms already contained respectively not
+        // contained in the ontology must not be dispatched respectively retracted again
+        ArrayList<OWLAxiom> retracted = new ArrayList<OWLAxiom>();
+        for (OWLAxiom axiom : removals) {
+            if (containsAxiom(axiom)) {
+                axiomDispatcher.retract(axiom, retracted);
+                removeFromOntology(axiom);
+            }
+        }
+        propagator.retract(retracted);
+
+        propagator.setActive(true);
+        try {
+            for (OWLAxiom axiom : additions) {
+                if (!containsAxiom(axiom)) {
+                    axiomDispatcher.dispatch(axiom);
+                    addToOntology(axiom);
+                }
             }
+            propagator.propagate();
+        }
+        finally {
+            propagator.setActive(false);
         }
     }
 
+    /**
+     * Removes the given axiom from the ontology and incrementally updates all matrices.
+     *
+     * @param axiom axiom to remove
+     */
+    public void removeAxiom(OWLAxiom axiom) {
+        applyChanges(Collections.<OWLAxiom>emptySet(), Collections.singleton(axiom));
+    }
+
+    /**
+     * Re-runs the materialization step for this reasoner in order to consider axioms added after initialization. If
+     * versioning is enabled, the result is published as new version afterwards, see {@link #setVersioning(boolean)}.
+     */
+    public void rematerialize() {
+        // matrices are materialized in the order of their creation since later ones depend on earlier ones
+        for (Matrix m : matrices) {
+            m.materialize();
+        }
+        publish();
+    }
+
     /**
      * Registers the given matrix to the reasoner system.
      *
@@ -129,6 +613,115 @@ public class TRexReasoner {
             typeToMatrix.put(matrix.getAxiomType(), new ArrayList<Matrix>());
         }
         typeToMatrix.get(matrix.getAxiomType()).add(matrix);
+        axiomDispatcher.register(matrix);
+    }
+
+    /**
+     * Assigns an ID to the given matrix which is used for referencing its cells from the explanation store.
+     *
+     * @param matrix matrix to assign ID to
+     * @return ID assigned to the matrix
+     */
+    public int registerMatrix(Matrix matrix) {
+        matrices.add(matrix);
+        return matrices.size() - 1;
+    }
+
+    /**
+     * Returns the number of matrices registered with this reasoner. Matrix IDs range from 0 to this number.
+     *
+     * @return number of matrices registered with this reasoner
+     */
+    public int getNumberOfMatrices() {
+        return matrices.size();
+    }
+
+    /**
+     * Returns the matrix having the given ID.
+     *
+     * @param id ID of matrix to return
+     * @return matrix having the given ID
+     */
+    public Matrix getMatrix(int id) {
+        return matrices.get(id);
+    }
+
+    /**
+     * Notifies the reasoner that the explanation store of any matrix has changed which invalidates all memoized
+     * unfolded explanations.
+     */
+    public void explanationsChanged() {
+        explanationVersion++;
+    }
+
+    /**
+     * Returns the current version of the explanation store which is increased on each change.
+     *
+     * @return current version of the explanation store
+     */
+    public int getExplanationVersion() {
+        return explanationVersion;
+    }
+
+    /**
+     * Returns the factory creating the storages of the matrices of this reasoner.
+     *
+     * @return factory creating the storages of the matrices
+     */
+    public MatrixStorageFactory getStorageFactory() {
+        return storageFactory;
+    }
+
+    /**
+     * Returns the dispatcher routing stated axioms to the matrices of this reasoner.
+     *
+     * @return dispatcher routing stated axioms to the matrices
+     */
+    public AxiomDispatcher getAxiomDispatcher() {
+        return axiomDispatcher;
+    }
+
+    /**
+     * Returns the propagator used for incrementally updating the matrices of this reasoner.
+     *
+     * @return propagator of this reasoner
+     */
+    public Propagator getPropagator() {
+        return propagator;
+    }
+
+    /**
+     * Returns the index from stated axioms to the matrix cells depending on them.
+     *
+     * @return index from stated axioms to dependent matrix cells
+     */
+    public ExplanationIndex getExplanationIndex() {
+        return explanationIndex;
+    }
+
+    /**
+     * Returns all entailed axioms whose explanations depend on the given stated axiom, i.e., the axioms which might
+     * no longer be entailed after removing the given axiom. The returned set includes the axiom itself if it is
+     * represented by a matrix. The time required is proportional to the number of dependent axioms.
+     *
+     * @param axiom stated axiom to return dependent axioms for
+     * @return entailed axioms depending on the given axiom
+     */
+    public Set<OWLAxiom> getDependentAxioms(OWLAxiom axiom) {
+        if (!generateExplanations) {
+            throw new UnsupportedOperationException(
+                    "Trying to retrieve explanations from an reasoner with disabled explanation support");
+        }
+        HashSet<OWLAxiom> res = new HashSet<OWLAxiom>();
+        for (Matrix m : matrices) {
+            for (long cell : explanationIndex.getDependentCells(axiom, m)) {
+                OWLAxiom dependent = m.getOWLAxiom(Matrix.rowOf(cell), Matrix.colOf(cell));
+                if (dependent != null) {
+                    res.add(dependent);
+                }
+            }
+        }
+        return res;
     }
 
     /**
@@ -194,6 +787,15 @@ public class TRexReasoner {
         return propertyRange;
     }
 
+    /**
+     * Returns the matrix used for property unsatisfiability
+     *
+     * @return matrix used for property unsatisfiability
+     */
+    public Matrix getPropertyUnsatisfiability() {
+        return propertyUnsatisfiability;
+    }
+
     /**
      * Starts materialization of derivable concept-subsumption axioms
      */
@@ -247,29 +849,172 @@ public class TRexReasoner {
      */
     public Set<OWLAxiom> getAxioms() {
         HashSet<OWLAxiom> res = new HashSet<OWLAxiom>();
-        res.addAll(conceptSubsumption.getOWLAxioms());
-        res.addAll(conceptDisjointness.getOWLAxioms());
+        for (Matrix matrix : getAxiomMatrices()) {
+            res.addAll(matrix.getOWLAxioms());
+        }
+        return res;
+    }
+
+    /**
+     * Returns one cursor per matrix over the cells representing the axioms returned by {@link #getAxioms()}. The
+     * cursors visit each axiom exactly once and can be split for parallel consumption, see
+     * {@link CellCursor#trySplit()}.
+     *
+     * @return cursors over all axioms entailed by the ontology
+     */
+    public List<CellCursor> getCursors() {
+        ArrayList<CellCursor> res = new ArrayList<CellCursor>();
+        for (Matrix matrix : getAxiomMatrices()) {
+            res.add(matrix.cursor());
+        }
+        return res;
+    }
+
+    /**
+     * Returns a stream of all axioms supported by this reasoner and entailed by the ontology. Like
+     * {@link #iterateAxioms()}, the axioms are created while consuming the stream. Parallel streams split the matrices
+     * and their rows, see {@link AxiomSpliterator}. The reasoner must not be modified while the stream is consumed.
+     *
+     * @param parallel true to return a parallel stream
+     * @return stream of all axioms supported by this reasoner and entailed by the ontology
+     */
+    public Stream<OWLAxiom> axioms(boolean parallel) {
+        return StreamSupport.stream(new AxiomSpliterator(getCursors()), parallel);
+    }
+
+    /**
+     * Returns all axioms supported by this reasoner and entailed by the ontology. In contrast to {@link #getAxioms()},
+     * the axioms are created while iterating and are not collected.
+     *
+     * @return all axioms supported by this reasoner and entailed by the ontology
+     */
+    public Iterable<OWLAxiom> iterateAxioms() {
+        return new Iterable<OWLAxiom>() {
+            @Override
+            public Iterator<OWLAxiom> iterator() {
+                final Iterator<Matrix> matrixIterator = getAxiomMatrices().iterator();
+                return new Iterator<OWLAxiom>() {
+                    private Iterator<OWLAxiom> current = Collections.<OWLAxiom>emptyList().iterator();
+
+                    @Override
+                    public boolean hasNext() {
+                        while (!current.hasNext() && matrixIterator.hasNext()) {
+                            current = matrixIterator.next().iterateOWLAxioms().iterator();
+                        }
+                        return current.hasNext();
+                    }
+
+                    @Override
+                    public OWLAxiom next() {
+                        if (!hasNext()) {
+                            throw new NoSuchElementException();
+                        }
+                        return current.next();
+                    }
+
+                    @Override
+                    public void remove() {
+                        throw new UnsupportedOperationException();
+                    }
+                };
+            }
+        };
+    }
+
+    /**
+     * Returns the matrices containing the axioms returned by {@link #getAxioms()}.
+     */
+    private List<Matrix> getAxiomMatrices() {
+        ArrayList<Matrix> res = new ArrayList<Matrix>();
+        res.add(conceptSubsumption);
+        res.add(conceptDisjointness);
 
         if (!conceptOnly) {
-            res.addAll(propertySubsumption.getOWLAxioms());
-            res.addAll(propertyDomain.getOWLAxioms());
-            res.addAll(propertyDisjointness.getOWLAxioms());
-            res.addAll(propertyRange.getOWLAxioms());
+            res.add(propertySubsumption);
+            res.add(propertyDomain);
+            res.add(propertyDisjointness);
+            res.add(propertyRange);
         }
         return res;
     }
 
     /**
-     * Adds the given axiom into the ontology which is managed by this reasoner instance. Afterwards, a
-     * rematerialization using {@link #rematerialize()} might be required.
+     * Writes all axioms supported by this reasoner and entailed by the ontology to the given stream without creating
+     * them as OWL API objects. The stream is flushed but not closed.
+     *
+     * @param out    stream to write axioms to
+     * @param format format to write axioms in
+     * @return number of written axioms
+     * @throws IOException on errors writing to the stream
+     * @see EntailmentExporter
+     */
+    public long exportAxioms(OutputStream out, EntailmentExporter.Format format) throws IOException {
+        return new EntailmentExporter(this, format).export(out);
+    }
+
+    /**
+     * Registers the given concepts and properties with this reasoner. New entities get fresh IDs and all matrices are
+     * grown accordingly. Entities already known to the reasoner are ignored.
+     *
+     * @param concepts   concepts to register
+     * @param properties properties to register
+     */
+    public void addEntities(Collection<OWLClass> concepts, Collection<OWLObjectProperty> properties) {
+        OntologyNamingManager extended = namingManager.extend(concepts, properties);
+        if (extended == namingManager) {
+            return;
+        }
+        namingManager = extended;
+        for (Matrix m : matrices) {
+            m.setNamingManager(namingManager);
+            m.grow();
+        }
+    }
+
+    /**
+     * Adds the given axiom into the ontology which is managed by this reasoner instance. Concepts and properties not
+     * known before are registered automatically. Afterwards, a rematerialization using {@link #rematerialize()} might
+     * be required. Since the state is not complete before rematerializing, no new version is published, see
+     * {@link #setVersioning(boolean)}. Axioms already contained in the ontology are ignored.
      *
      * @param axiom axiom to add into ontology
      */
     public void addAxiom(OWLAxiom axiom) {
-        for (Matrix relevantMatrix : typeToMatrix.get(axiom.getAxiomType())) {
-            relevantMatrix.addAxiom(axiom);
+        if (!axiomDispatcher.isSupported(axiom.getAxiomType())) {
+            throw new UnsupportedOperationException(
+                    "Reasoner unable to handle axiom type: " + axiom.getAxiomType());
+        }
+        if (containsAxiom(axiom)) {
+            return;
+        }
+        axiomDispatcher.dispatch(axiom);
+        addToOntology(axiom);
+    }
+
+    /**
+     * Returns true if the given axiom is contained in the ontology of this reasoner without creating the ontology of
+     * a forked reasoner.
+     */
+    private boolean containsAxiom(OWLAxiom axiom) {
+        return ontology != null ? ontology.containsAxiom(axiom) : ontologyAxioms.contains(axiom);
+    }
+
+    private void addToOntology(OWLAxiom axiom) {
+        if (ontology != null) {
+            ontology.getOWLOntologyManager().addAxiom(ontology, axiom);
+        }
+        if (ontologyAxioms != null) {
+            ontologyAxioms.add(axiom);
+        }
+    }
+
+    private void removeFromOntology(OWLAxiom axiom) {
+        if (ontology != null) {
+            ontology.getOWLOntologyManager().removeAxiom(ontology, axiom);
+        }
+        if (ontologyAxioms != null) {
+            ontologyAxioms.remove(axiom);
         }
-        ontology.getOWLOntologyManager().addAxiom(ontology, axiom);
     }
 
     /**
@@ -291,6 +1036,103 @@ public class TRexReasoner {
         return false;
     }
 
+    /**
+     * Determines for each of the given axioms whether it is entailed by the ontology. The axioms are grouped by type,
+     * so that the relevant matrices are looked up once per type, and are checked in parallel by a pool of threads
+     * shared by all reasoners which is created on first use. Pairwise axioms are resolved to their matrix cells
+     * directly, see {@link de.krkm.trex.inference.InferenceStepProvider#resolveCell(OWLAxiom, int[])}. Axioms using
+     * entities unknown to the reasoner are not entailed. The reasoner must not be modified during the check.
+     *
+     * @param axioms axioms to check entailment for
+     * @return bit set containing the positions of the entailed axioms in the iteration order of the collection
+     * @throws UnsupportedOperationException if any axiom has an axiom type not supported by the reasoner
+     */
+    public BitSet isEntailed(Collection<? extends OWLAxiom> axioms) {
+        final OWLAxiom[] batch = axioms.toArray(new OWLAxiom[axioms.size()]);
+        final int n = batch.length;
+
+        // sort positions by axiom type, so that each chunk mostly reads a single matrix
+        HashMap<AxiomType, Integer> typeIds = new HashMap<AxiomType, Integer>();
+        ArrayList<Matrix[]> typeMatrices = new ArrayList<Matrix[]>();
+        final int[] typeOf = new int[n];
+        for (int i = 0; i < n; i++) {
+            AxiomType type = batch[i].getAxiomType();
+            Integer typeId = typeIds.get(type);
+            if (typeId == null) {
+                if (!typeToMatrix.containsKey(type)) {
+                    throw new UnsupportedOperationException("Reasoner unable to handle axiom type: " + type);
+                }
+                typeId = typeMatrices.size();
+                typeIds.put(type, typeId);
+                ArrayList<Matrix> relevant = typeToMatrix.get(type);
+                typeMatrices.add(relevant.toArray(new Matrix[relevant.size()]));
+            }
+            typeOf[i] = typeId;
+        }
+        int[] start = new int[typeMatrices.size() + 1];
+        for (int i = 0; i < n; i++) {
+            start[typeOf[i] + 1]++;
+        }
+        for (int t = 0; t < typeMatrices.size(); t++) {
+            start[t + 1] += start[t];
+        }
+        final int[] order = new int[n];
+        for (int i = 0; i < n; i++) {
+            order[start[typeOf[i]]++] = i;
+        }
+
+        final Matrix[][] matrices = typeMatrices.toArray(new Matrix[typeMatrices.size()][]);
+        final boolean[] entailed = new boolean[n];
+        ParallelRange.run(n, new ParallelRange.Task() {
+            @Override
+            public void run(int from, int to) {
+                int[] cell = new int[2];
+                for (int k = from; k < to; k++) {
+                    int i = order[k];
+                    for (Matrix matrix : matrices[typeOf[i]]) {
+                        boolean res;
+                        if (matrix.getInferenceStepProvider().resolveCell(batch[i], cell)) {
+                            res = cell[0] != -1 && cell[1] != -1 && matrix.get(cell[0], cell[1]);
+                        }
+                        else {
+                            res = matrix.isEntailed(batch[i]);
+                        }
+                        if (res) {
+                            entailed[i] = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        });
+
+        BitSet res = new BitSet(n);
+        for (int i = 0; i < n; i++) {
+            if (entailed[i]) {
+                res.set(i);
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Determines for each of the given axioms whether it is entailed by the ontology, see
+     * {@link #isEntailed(java.util.Collection)}.
+     *
+     * @param axioms axioms to check entailment for
+     * @return map from each given axiom to true if it is entailed, otherwise false
+     * @throws UnsupportedOperationException if any axiom has an axiom type not supported by the reasoner
+     */
+    public Map<OWLAxiom, Boolean> getEntailments(Collection<? extends OWLAxiom> axioms) {
+        BitSet entailed = isEntailed(axioms);
+        HashMap<OWLAxiom, Boolean> res = new HashMap<OWLAxiom, Boolean>();
+        int i = 0;
+        for (OWLAxiom axiom : axioms) {
+            res.put(axiom, entailed.get(i++));
+        }
+        return res;
+    }
+
     /**
      * Returns the explanation for the given axiom or null if the axiom is not entailed.
      *
@@ -313,16 +1155,32 @@ public class TRexReasoner {
                 continue;
             }
             if (explanation == null) {
-                explanation = newExplanation.copy();
+                explanation = ExpressionMinimizer.minimize(newExplanation);
             } else {
                 //explanation = ExpressionMinimizer.flatten(explanation, newExplanation);
                 explanation = ExpressionMinimizer.minimize(explanation, newExplanation);
             }
-            ExpressionMinimizer.minimize(explanation);
         }
         return explanation;
     }
 
+    /**
+     * Returns the justifications for the given axiom. The axiom sets of the single justifications are only created
+     * while iterating, however, the explanation itself is completely unfolded beforehand, see
+     * {@link OrExpression#getJustifications(boolean)}.
+     *
+     * @param axiom       axiom to return justifications for
+     * @param orderBySize if true, justifications are returned in ascending order of their size
+     * @return justifications for given axiom, empty if axiom is not entailed
+     */
+    public Iterable<Set<OWLAxiom>> getJustifications(OWLAxiom axiom, boolean orderBySize) {
+        OrExpression explanation = getExplanation(axiom);
+        if (explanation == null) {
+            return Collections.emptyList();
+        }
+        return explanation.getJustifications(orderBySize);
+    }
+
     /**
      * Returns the explanation for the unsatisfiability of the given concept. If the concept is not unsatisfiable null
      * is returned.
@@ -437,6 +1295,131 @@ public class TRexReasoner {
         return propertyDisjointness.get(property1, property2);
     }
 
+    /**
+     * Returns the IDs of all superconcepts of the given concept. The concept itself is only contained if it is
+     * part of a subsumption cycle.
+     *
+     * @param concept ID of concept
+     * @return IDs of all concepts subsuming the given concept
+     */
+    public BitSet getSuperClasses(int concept) {
+        return conceptSubsumption.getRow(concept);
+    }
+
+    /**
+     * Returns the IDs of all subconcepts of the given concept. The concept itself is only contained if it is
+     * part of a subsumption cycle.
+     *
+     * @param concept ID of concept
+     * @return IDs of all concepts subsumed by the given concept
+     */
+    public BitSet getSubClasses(int concept) {
+        return conceptSubsumption.getColumn(concept);
+    }
+
+    /**
+     * Returns the IDs of all concepts disjoint with the given concept. The concept itself is contained if it is
+     * unsatisfiable.
+     *
+     * @param concept ID of concept
+     * @return IDs of all concepts disjoint with the given concept
+     */
+    public BitSet getDisjointClasses(int concept) {
+        return conceptDisjointness.getRow(concept);
+    }
+
+    /**
+     * Returns the IDs of all superproperties of the given property. The property itself is only contained if it is part
+     * of a subsumption cycle.
+     *
+     * @param property ID of property
+     * @return IDs of all properties subsuming the given property
+     */
+    public BitSet getSuperProperties(int property) {
+        return propertySubsumption.getRow(property);
+    }
+
+    /**
+     * Returns the IDs of all subproperties of the given property. The property itself is only contained if it is
+     * part of a subsumption cycle.
+     *
+     * @param property ID of property
+     * @return IDs of all properties subsumed by the given property
+     */
+    public BitSet getSubProperties(int property) {
+        return propertySubsumption.getColumn(property);
+    }
+
+    /**
+     * Returns the IDs of all properties disjoint with the given property.
+     *
+     * @param property ID of property
+     * @return IDs of all properties disjoint with the given property
+     */
+    public BitSet getDisjointProperties(int property) {
+        return propertyDisjointness.getRow(property);
+    }
+
+    /**
+     * Returns the IDs of all concepts which are domain of the given property.
+     *
+     * @param property ID of property
+     * @return IDs of all concepts being domain of the given property
+     */
+    public BitSet getDomains(int property) {
+        return propertyDomain.getRow(property);
+    }
+
+    /**
+     * Returns the IDs of all concepts which are range of the given property.
+     *
+     * @param property ID of property
+     * @return IDs of all concepts being range of the given property
+     */
+    public BitSet getRanges(int property) {
+        return propertyRange.getRow(property);
+    }
+
+    /**
+     * Returns the IDs of all properties having the given concept as domain.
+     *
+     * @param concept ID of concept
+     * @return IDs of all properties having the given concept as domain
+     */
+    public BitSet getPropertiesWithDomain(int concept) {
+        return propertyDomain.getColumn(concept);
+    }
+
+    /**
+     * Returns the IDs of all properties having the given concept as range.
+     *
+     * @param concept ID of concept
+     * @return IDs of all properties having the given concept as range
+     */
+    public BitSet getPropertiesWithRange(int concept) {
+        return propertyRange.getColumn(concept);
+    }
+
+    /**
+     * Computes the taxonomy of all concepts, i.e., the direct superconcepts and subconcepts of each concept with
+     * equivalent concepts merged. The computation uses all available processors.
+     *
+     * @return taxonomy of all concepts
+     */
+    public Taxonomy computeConceptTaxonomy() {
+        return new Taxonomy(conceptSubsumption);
+    }
+
+    /**
+     * Computes the taxonomy of all properties, i.e., the direct superproperties and subproperties of each property with
+     * equivalent properties merged. The computation uses all available processors.
+     *
+     * @return taxonomy of all properties
+     */
+    public Taxonomy computePropertyTaxonomy() {
+        return new Taxonomy(propertySubsumption);
+    }
+
     /**
      * Returns the set of all classes which are unsatisfiable in the ontology.
      *
@@ -446,7 +1429,7 @@ public class TRexReasoner {
         Set<OWLClass> res = new HashSet<OWLClass>();
         for (int i = 0; i < conceptDisjointness.dimensionCol; i++) {
             if (conceptDisjointness.get(i, i)) {
-                res.add(dataFactory.getOWLClass(IRI.create(namingManager.getConceptIRI(i))));
+                res.add(namingManager.getConcept(i));
             }
         }
 
@@ -462,40 +1445,94 @@ public class TRexReasoner {
         Set<OWLObjectProperty> res = new HashSet<OWLObjectProperty>();
         for (int i = 0; i < propertyDisjointness.dimensionCol; i++) {
             if (propertyDisjointness.get(i, i)) {
-                res.add(dataFactory.getOWLObjectProperty(IRI.create(namingManager.getPropertyIRI(i))));
+                res.add(namingManager.getProperty(i));
             }
         }
 
         for (int i = 0; i < propertyUnsatisfiability.dimensionCol; i++) {
             if (propertyUnsatisfiability.get(0, i)) {
-                res.add(dataFactory.getOWLObjectProperty(IRI.create(namingManager.getPropertyIRI(i))));
+                res.add(namingManager.getProperty(i));
             }
         }
 
         return res;
     }
 
+    /**
+     * Determines whether adding the given axiom would make any concept or property unsatisfiable which is satisfiable
+     * now. The reasoner is not modified.
+     *
+     * @param axiom axiom to check
+     * @return true if adding the axiom would make any satisfiable entity unsatisfiable
+     * @throws UnsupportedOperationException if the reasoner is unable to handle the type of the axiom
+     */
+    public boolean wouldCauseIncoherence(OWLAxiom axiom) {
+        return wouldCauseIncoherence(axiom, null, null);
+    }
+
+    /**
+     * Determines whether adding the given axiom would make any concept or property unsatisfiable which is satisfiable
+     * now and collects these entities. The result is computed from the rows of the entities affected by the axiom,
+     * e.g., for <code>SubClassOf(A, B)</code> from the subconcepts of A and the superconcepts and disjoint concepts of
+     * B, without modifying the reasoner. Entities not contained in the ontology yet are considered as well.
+     *
+     * @param axiom                   axiom to check
+     * @param unsatisfiableClasses    set to add the classes to which would become unsatisfiable, may be null
+     * @param unsatisfiableProperties set to add the properties to which would become unsatisfiable, may be null
+     * @return true if adding the axiom would make any satisfiable entity unsatisfiable
+     * @throws UnsupportedOperationException if the reasoner is unable to handle the type of the axiom
+     */
+    public boolean wouldCauseIncoherence(OWLAxiom axiom, Set<OWLClass> unsatisfiableClasses,
+            Set<OWLObjectProperty> unsatisfiableProperties) {
+        if (!axiomDispatcher.isSupported(axiom.getAxiomType())) {
+            throw new UnsupportedOperationException("Reasoner unable to handle axiom type: " + axiom.getAxiomType());
+        }
+        return new IncoherenceCheck(this).check(axiom, unsatisfiableClasses, unsatisfiableProperties);
+    }
+
     public Set<OWLClass> getConceptCycles() {
         Set<OWLClass> res = new HashSet<OWLClass>();
         for (int i = 0; i < conceptSubsumption.dimensionCol; i++) {
             if (conceptSubsumption.get(i, i)) {
-                res.add(dataFactory.getOWLClass(IRI.create(namingManager.getConceptIRI(i))));
+                res.add(namingManager.getConcept(i));
             }
         }
 
         return res;
     }
 
+    /**
+     * Returns the ontology this reasoner performs inference on. For a forked reasoner, the ontology is created from
+     * the axioms of the fork when it is requested for the first time and held by a separate ontology manager, see
+     * {@link #fork()}.
+     *
+     * @return ontology this reasoner performs inference on
+     */
+    public OWLOntology getOntology() {
+        if (ontology == null) {
+            try {
+                ontology = OWLManager.createOWLOntologyManager().createOntology(ontologyAxioms.toSet());
+            }
+            catch (OWLOntologyCreationException e) {
+                throw new IllegalStateException("Unable to create ontology for forked reasoner", e);
+            }
+        }
+        return ontology;
+    }
+
+    public boolean isConceptOnly() {
+        return conceptOnly;
+    }
+
     public boolean isGenerateExplanations() {
         return generateExplanations;
     }
 
     public Set<OWLObjectProperty> getPropertyCycles() {
         Set<OWLObjectProperty> res = new HashSet<OWLObjectProperty>();
-        for (int i = 0; i < conceptSubsumption.dimensionCol; i++) {
-            if (conceptSubsumption.get(i, i)) {
-
-                res.add(dataFactory.getOWLObjectProperty(IRI.create(namingManager.getPropertyIRI(i))));
+        for (int i = 0; i < propertySubsumption.dimensionCol; i++) {
+            if (propertySubsumption.get(i, i)) {
+                res.add(namingManager.getProperty(i));
             }
         }
 
@@ -0,0 +1,211 @@
+package de.krkm.trex.reasoner;
+
+import de.krkm.trex.inference.Matrix;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Transitive reduction of a subsumption matrix, i.e., the Hasse diagram of the concept or property hierarchy. Entities
+ * which subsume each other are merged into a single node. For each node, only its direct parents and children are
+ * stored, i.e., those nodes which are not connected to it by a path via any other node.
+ * <p>
+ * Entities are referred to by their IDs in the naming manager, nodes by their index in the taxonomy. The
+ * subsumption matrix does not contain the trivial subsumptions by the top and of the bottom entity, thus, entities
+ * without any superentity are returned by {@link #getRoots()} and unsatisfiable entities are placed according to their
+ * stated and inferred subsumptions only.
+ * <p>
+ * The reduction is computed on bit rows: for each node, the union of the superentities of all its superentities is
+ * removed from its own superentities which leaves the direct ones. Nodes are processed in parallel. The computation
+ * requires one bit per pair of entities.
+ */
+public class Taxonomy {
+    private final int[] nodeOf;
+    private final int[][] members;
+    private final int[][] parents;
+    private final int[][] children;
+
+    /**
+     * Computes the taxonomy of the given subsumption matrix using the pool of threads shared by all reasoners. The
+     * matrix must be transitively closed and must not be modified during the computation.
+     *
+     * @param subsumption subsumption matrix, e.g., {@link TRexReasoner#getConceptSubsumption()}
+     */
+    public Taxonomy(Matrix subsumption) {
+        this(subsumption, ParallelRange.getSharedExecutor(), ParallelRange.SHARED_THREADS);
+    }
+
+    /**
+     * Computes the taxonomy of the given subsumption matrix using the given executor. The executor is not shut down
+     * afterwards. The matrix must be transitively closed and must not be modified during the computation.
+     *
+     * @param subsumption subsumption matrix, e.g., {@link TRexReasoner#getConceptSubsumption()}
+     * @param executor    executor to run the computation
+     * @param threads     number of threads of the executor, used for splitting the computation into chunks
+     */
+    public Taxonomy(final Matrix subsumption, ExecutorService executor, int threads) {
+        final int n = subsumption.dimensionRow;
+        final BitSet[] rows = new BitSet[n];
+        ParallelRange.run(executor, threads, n, new ParallelRange.Task() {
+            @Override
+            public void run(int from, int to) {
+                for (int i = from; i < to; i++) {
+                    rows[i] = subsumption.getRow(i);
+                }
+            }
+        });
+
+        // entities subsuming each other form a node represented by the entity having the lowest ID
+        nodeOf = new int[n];
+        Arrays.fill(nodeOf, -1);
+        ArrayList<int[]> nodeMembers = new ArrayList<int[]>();
+        int[] buffer = new int[n];
+        for (int i = 0; i < n; i++) {
+            if (nodeOf[i] != -1) {
+                continue;
+            }
+            int node = nodeMembers.size();
+            int size = 0;
+            nodeOf[i] = node;
+            buffer[size++] = i;
+            for (int j = rows[i].nextSetBit(i + 1); j >= 0; j = rows[i].nextSetBit(j + 1)) {
+                if (nodeOf[j] == -1 && rows[j].get(i)) {
+                    nodeOf[j] = node;
+                    buffer[size++] = j;
+                }
+            }
+            int[] nodeEntities = new int[size];
+            System.arraycopy(buffer, 0, nodeEntities, 0, size);
+            nodeMembers.add(nodeEntities);
+        }
+        members = nodeMembers.toArray(new int[nodeMembers.size()][]);
+
+        final int nodes = members.length;
+        final BitSet[] supers = new BitSet[nodes];
+        ParallelRange.run(executor, threads, nodes, new ParallelRange.Task() {
+            @Override
+            public void run(int from, int to) {
+                for (int k = from; k < to; k++) {
+                    BitSet row = rows[members[k][0]];
+                    BitSet nodeSupers = new BitSet(nodes);
+                    for (int j = row.nextSetBit(0); j >= 0; j = row.nextSetBit(j + 1)) {
+                        if (nodeOf[j] != k) {
+                            nodeSupers.set(nodeOf[j]);
+                        }
+                    }
+                    supers[k] = nodeSupers;
+                }
+            }
+        });
+
+        parents = new int[nodes][];
+        ParallelRange.run(executor, threads, nodes, new ParallelRange.Task() {
+            @Override
+            public void run(int from, int to) {
+                BitSet indirect = new BitSet(nodes);
+                for (int k = from; k < to; k++) {
+                    indirect.clear();
+                    for (int m = supers[k].nextSetBit(0); m >= 0; m = supers[k].nextSetBit(m + 1)) {
+                        indirect.or(supers[m]);
+                    }
+                    BitSet direct = (BitSet) supers[k].clone();
+                    direct.andNot(indirect);
+                    parents[k] = toArray(direct);
+                }
+            }
+        });
+
+        int[] childCount = new int[members.length];
+        for (int[] nodeParents : parents) {
+            for (int parent : nodeParents) {
+                childCount[parent]++;
+            }
+        }
+        children = new int[members.length][];
+        for (int k = 0; k < members.length; k++) {
+            children[k] = new int[childCount[k]];
+            childCount[k] = 0;
+        }
+        for (int k = 0; k < members.length; k++) {
+            for (int parent : parents[k]) {
+                children[parent][childCount[parent]++] = k;
+            }
+        }
+    }
+
+    /**
+     * Returns the number of nodes in this taxonomy.
+     *
+     * @return number of nodes
+     */
+    public int getNumberOfNodes() {
+        return members.length;
+    }
+
+    /**
+     * Returns the node containing the given entity.
+     *
+     * @param entity ID of entity
+     * @return node containing the entity
+     */
+    public int getNode(int entity) {
+        return nodeOf[entity];
+    }
+
+    /**
+     * Returns the IDs of all entities contained in the given node, i.e., the entities equivalent to each other. The
+     * first entity is the one having the lowest ID.
+     *
+     * @param node node to return entities for
+     * @return IDs of entities in ascending order
+     */
+    public int[] getMembers(int node) {
+        return members[node];
+    }
+
+    /**
+     * Returns the direct parents of the given node in ascending order. The array must not be modified.
+     *
+     * @param node node to return parents for
+     * @return direct parents of the node
+     */
+    public int[] getDirectParents(int node) {
+        return parents[node];
+    }
+
+    /**
+     * Returns the direct children of the given node in ascending order. The array must not be modified.
+     *
+     * @param node node to return children for
+     * @return direct children of the node
+     */
+    public int[] getDirectChildren(int node) {
+        return children[node];
+    }
+
+    /**
+     * Returns all nodes without parents in ascending order.
+     *
+     * @return nodes without parents
+     */
+    public int[] getRoots() {
+        BitSet roots = new BitSet(members.length);
+        for (int k = 0; k < members.length; k++) {
+            if (parents[k].length == 0) {
+                roots.set(k);
+            }
+        }
+        return toArray(roots);
+    }
+
+    private static int[] toArray(BitSet bits) {
+        int[] res = new int[bits.cardinality()];
+        int n = 0;
+        for (int i = bits.nextSetBit(0); i >= 0; i = bits.nextSetBit(i + 1)) {
+            res[n++] = i;
+        }
+        return res;
+    }
+}
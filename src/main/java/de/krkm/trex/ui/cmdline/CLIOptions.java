@@ -14,4 +14,11 @@ public class CLIOptions {
 
     @Option(name = "-i", usage = "Ontology to perform reasoning on", required = true)
     private File inputOntology;
+
+    public boolean isTBoxOnly() {
+        return tBoxOnly;
+    }
+
+    @Option(name = "-t", usage = "Only load TBox axioms using the streaming reader (functional syntax or N-Triples)")
+    private boolean tBoxOnly;
 }
@@ -1,19 +1,22 @@
 package de.krkm.trex.ui.cmdline;
 
 
+import de.krkm.trex.booleanexpressions.OrExpression;
 import de.krkm.trex.reasoner.TRexReasoner;
 import de.krkm.trex.util.OntologyReader;
 import org.kohsuke.args4j.CmdLineException;
 import org.kohsuke.args4j.CmdLineParser;
+import org.semanticweb.owlapi.model.OWLAxiom;
 import org.semanticweb.owlapi.model.OWLOntology;
 import org.semanticweb.owlapi.model.OWLOntologyCreationException;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
-import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.util.Set;
 
 public class Main {
-    public static void main(String[] args) throws OWLOntologyCreationException, FileNotFoundException {
+    public static void main(String[] args) throws OWLOntologyCreationException, IOException {
         Logger log = LoggerFactory.getLogger(Main.class);
 
         log.debug("Parse command line");
@@ -28,7 +31,13 @@ public class Main {
             return;
         }
         log.info("Read ontology '{}'", options.getInputOntology().getAbsolutePath());
-        OWLOntology ontology = OntologyReader.loadOntology(options.getInputOntology());
+        OWLOntology ontology;
+        if (options.isTBoxOnly()) {
+            ontology = OntologyReader.loadTBox(options.getInputOntology());
+        }
+        else {
+            ontology = OntologyReader.loadOntology(options.getInputOntology());
+        }
         log.debug("Done loading ontology");
         log.debug("Initialize reasoner");
         TRexReasoner r = new TRexReasoner(ontology);
@@ -37,9 +46,12 @@ public class Main {
         // search for concepts disjoint to themselves
         log.info("Searching for concepts disjoint to themselves");
         for (int i = 0; i < r.getConceptDisjointness().dimensionRow; i++) {
-            if (r.getConceptDisjointness().getExplanation(i, i).getExpressions().size() > 1) {
-                System.out.println(
-                        r.getNamingManager().getConceptIRI(i) + ": " + r.getConceptDisjointness().getExplanation(i, i));
+            OrExpression explanation = r.getConceptDisjointness().getExplanation(i, i);
+            if (explanation != null && explanation.size() > 1) {
+                System.out.println(r.getNamingManager().getConceptIRI(i) + ":");
+                for (Set<OWLAxiom> justification : explanation.getJustifications(true)) {
+                    System.out.println("\t" + justification);
+                }
             }
         }
     }
@@ -0,0 +1,74 @@
+package de.krkm.trex.util;
+
+/**
+ * Thread-safe hash map from primitive long keys to non-null object values. The map is split into stripes, each being a
+ * {@link LongObjectHashMap} guarded by a lock of its own, so that threads accessing different keys rarely wait for
+ * each other. In contrast to a <code>ConcurrentHashMap&lt;Long, V&gt;</code> no boxing and no entry objects are
+ * required.
+ *
+ * @param <V> type of values
+ */
+public class ConcurrentLongObjectHashMap<V> {
+    private final static int STRIPE_BITS = 4;
+
+    private final LongObjectHashMap<V>[] stripes;
+
+    /**
+     * Initializes an empty map.
+     */
+    @SuppressWarnings("unchecked")
+    public ConcurrentLongObjectHashMap() {
+        stripes = new LongObjectHashMap[1 << STRIPE_BITS];
+        for (int i = 0; i < stripes.length; i++) {
+            stripes[i] = new LongObjectHashMap<V>();
+        }
+    }
+
+    private LongObjectHashMap<V> stripe(long key) {
+        // the upper bits of the mixed key select the stripe, the map of the stripe mostly uses the lower ones
+        return stripes[(int) ((key * 0x9e3779b97f4a7c15L) >>> (64 - STRIPE_BITS))];
+    }
+
+    /**
+     * Returns the value for the given key.
+     *
+     * @param key key to return value for
+     * @return value for key, null if the key is not contained
+     */
+    public V get(long key) {
+        LongObjectHashMap<V> stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.get(key);
+        }
+    }
+
+    /**
+     * Sets the value for the given key.
+     *
+     * @param key   key to set value for
+     * @param value non-null value to set
+     * @return previous value for key, null if the key has not been contained
+     */
+    public V put(long key, V value) {
+        LongObjectHashMap<V> stripe = stripe(key);
+        synchronized (stripe) {
+            return stripe.put(key, value);
+        }
+    }
+
+    /**
+     * Returns the number of entries contained in this map. The result is only exact if the map is not modified
+     * concurrently.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        int size = 0;
+        for (LongObjectHashMap<V> stripe : stripes) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+}
@@ -0,0 +1,99 @@
+package de.krkm.trex.util;
+
+import java.util.Arrays;
+
+/**
+ * Base class of containers whose entries are split into blocks by their hash which can be shared between several
+ * containers. Like {@link de.krkm.trex.inference.CopyOnWriteMatrixStorage}, forking a container creates a container
+ * sharing all blocks with it in time proportional to the number of blocks. Shared blocks are never modified: before
+ * an entry of a shared block is changed, the container copies the block and from then on works on its private copy.
+ * Thus, the costs of forking a container and modifying it afterwards grow with the number of blocks modified instead
+ * of the number of entries.
+ * <p>
+ * Forking and modifying a container has to be done by a single thread, reading a container which is not modified
+ * anymore is safe for any number of threads once it has been safely published.
+ *
+ * @param <B> type of blocks
+ */
+abstract class CopyOnWriteBlocks<B> {
+    private final static int BLOCK_BITS = 8;
+
+    private final Object[] blocks;
+    private final boolean[] owned;
+    int size;
+
+    /**
+     * Initializes an empty container.
+     */
+    CopyOnWriteBlocks() {
+        blocks = new Object[1 << BLOCK_BITS];
+        owned = new boolean[blocks.length];
+    }
+
+    /**
+     * Initializes a container sharing all blocks with the given one. Afterwards, both containers copy a block before
+     * modifying it for the first time.
+     *
+     * @param source container to share blocks with
+     */
+    CopyOnWriteBlocks(CopyOnWriteBlocks<B> source) {
+        blocks = source.blocks.clone();
+        owned = new boolean[blocks.length];
+        size = source.size;
+        Arrays.fill(source.owned, false);
+    }
+
+    /**
+     * Returns the block responsible for the given hash.
+     */
+    static int blockOf(long hash) {
+        // the upper bits of the mixed hash select the block, the block itself mostly uses the lower ones
+        return (int) ((hash * 0x9e3779b97f4a7c15L) >>> (64 - BLOCK_BITS));
+    }
+
+    /**
+     * Returns the number of blocks.
+     */
+    static int getNumberOfBlocks() {
+        return 1 << BLOCK_BITS;
+    }
+
+    /**
+     * Returns the given block for reading, null if no entry has been added to it yet.
+     */
+    @SuppressWarnings("unchecked")
+    B block(int b) {
+        return (B) blocks[b];
+    }
+
+    /**
+     * Returns the given block for modification, copying it first if it is shared with another container.
+     */
+    @SuppressWarnings("unchecked")
+    B modifiableBlock(int b) {
+        if (!owned[b]) {
+            blocks[b] = blocks[b] == null ? createBlock() : copyBlock((B) blocks[b]);
+            owned[b] = true;
+        }
+        return (B) blocks[b];
+    }
+
+    /**
+     * Creates a new empty block.
+     */
+    abstract B createBlock();
+
+    /**
+     * Creates a copy of the given shared block which can be modified independently of it.
+     */
+    abstract B copyBlock(B block);
+
+    /**
+     * Returns the number of entries contained in this container.
+     *
+     * @return number of entries
+     */
+    public int size() {
+        return size;
+    }
+}
@@ -0,0 +1,82 @@
+package de.krkm.trex.util;
+
+import java.util.HashMap;
+
+/**
+ * Hash map from non-null keys to non-null values whose entries are stored in blocks of {@link HashMap}s which are
+ * shared with forks of the map until either of them modifies a block, see {@link CopyOnWriteBlocks}. Values are
+ * shared with forks as well and thus must not be modified in place.
+ *
+ * @param <K> type of keys
+ * @param <V> type of values
+ */
+public class CopyOnWriteHashMap<K, V> extends CopyOnWriteBlocks<HashMap<K, V>> {
+    /**
+     * Initializes an empty map.
+     */
+    public CopyOnWriteHashMap() {
+    }
+
+    private CopyOnWriteHashMap(CopyOnWriteHashMap<K, V> source) {
+        super(source);
+    }
+
+    /**
+     * Returns a map sharing all blocks with this map.
+     *
+     * @return map sharing all blocks with this map
+     */
+    public CopyOnWriteHashMap<K, V> fork() {
+        return new CopyOnWriteHashMap<K, V>(this);
+    }
+
+    @Override
+    HashMap<K, V> createBlock() {
+        return new HashMap<K, V>();
+    }
+
+    @Override
+    HashMap<K, V> copyBlock(HashMap<K, V> block) {
+        return new HashMap<K, V>(block);
+    }
+
+    /**
+     * Returns the value for the given key.
+     *
+     * @param key key to return value for
+     * @return value for key, null if the key is not contained
+     */
+    public V get(K key) {
+        HashMap<K, V> block = block(blockOf(key.hashCode()));
+        return block == null ? null : block.get(key);
+    }
+
+    /**
+     * Sets the value for the given key.
+     *
+     * @param key   non-null key to set value for
+     * @param value non-null value to set
+     * @return previous value for key, null if the key has not been contained
+     */
+    public V put(K key, V value) {
+        V prev = modifiableBlock(blockOf(key.hashCode())).put(key, value);
+        if (prev == null) {
+            size++;
+        }
+        return prev;
+    }
+
+    /**
+     * Removes the value for the given key.
+     *
+     * @param key key to remove value for
+     * @return value previously stored for the key, null if there was none
+     */
+    public V remove(K key) {
+        if (get(key) == null) {
+            return null;
+        }
+        size--;
+        return modifiableBlock(blockOf(key.hashCode())).remove(key);
+    }
+}
@@ -0,0 +1,97 @@
+package de.krkm.trex.util;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Set of non-null elements which are stored in blocks of {@link HashSet}s which are shared with forks of the set until
+ * either of them modifies a block, see {@link CopyOnWriteBlocks}.
+ *
+ * @param <E> type of elements
+ */
+public class CopyOnWriteHashSet<E> extends CopyOnWriteBlocks<HashSet<E>> {
+    /**
+     * Initializes an empty set.
+     */
+    public CopyOnWriteHashSet() {
+    }
+
+    private CopyOnWriteHashSet(CopyOnWriteHashSet<E> source) {
+        super(source);
+    }
+
+    /**
+     * Returns a set sharing all blocks with this set.
+     *
+     * @return set sharing all blocks with this set
+     */
+    public CopyOnWriteHashSet<E> fork() {
+        return new CopyOnWriteHashSet<E>(this);
+    }
+
+    @Override
+    HashSet<E> createBlock() {
+        return new HashSet<E>();
+    }
+
+    @Override
+    HashSet<E> copyBlock(HashSet<E> block) {
+        return new HashSet<E>(block);
+    }
+
+    /**
+     * Returns true if the given element is contained in this set.
+     *
+     * @param element element to check
+     * @return true if the element is contained in this set
+     */
+    public boolean contains(E element) {
+        HashSet<E> block = block(blockOf(element.hashCode()));
+        return block != null && block.contains(element);
+    }
+
+    /**
+     * Adds the given element to this set.
+     *
+     * @param element non-null element to add
+     * @return true if the element has not been contained before
+     */
+    public boolean add(E element) {
+        if (contains(element)) {
+            return false;
+        }
+        modifiableBlock(blockOf(element.hashCode())).add(element);
+        size++;
+        return true;
+    }
+
+    /**
+     * Removes the given element from this set.
+     *
+     * @param element element to remove
+     * @return true if the element has been contained before
+     */
+    public boolean remove(E element) {
+        if (!contains(element)) {
+            return false;
+        }
+        modifiableBlock(blockOf(element.hashCode())).remove(element);
+        size--;
+        return true;
+    }
+
+    /**
+     * Returns a set containing all elements of this set which can be modified independently of it.
+     *
+     * @return set containing all elements of this set
+     */
+    public Set<E> toSet() {
+        HashSet<E> res = new HashSet<E>(size * 4 / 3 + 1);
+        for (int b = 0; b < getNumberOfBlocks(); b++) {
+            if (block(b) != null) {
+                res.addAll(block(b));
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,168 @@
+package de.krkm.trex.util;
+
+/**
+ * Hash map from primitive long keys to non-null object values whose entries are stored in blocks of
+ * {@link LongObjectHashMap}s which are shared with forks of the map until either of them modifies a block, see
+ * {@link CopyOnWriteBlocks}.
+ * <p>
+ * Values returned by {@link #get(long)} may be shared with forks and must not be modified. If the values are mutable,
+ * a {@link ValueCopier} has to be given on creating the map, which is used for copying all values of a block along
+ * with the block. Values returned by {@link #getModifiable(long)} are private to this map and may be modified in
+ * place.
+ *
+ * @param <V> type of values
+ */
+public class CopyOnWriteLongObjectHashMap<V> extends CopyOnWriteBlocks<LongObjectHashMap<V>> {
+    private final ValueCopier<V> copier;
+
+    /**
+     * Initializes an empty map for immutable values.
+     */
+    public CopyOnWriteLongObjectHashMap() {
+        this((ValueCopier<V>) null);
+    }
+
+    /**
+     * Initializes an empty map for mutable values.
+     *
+     * @param copier copier for values of shared blocks, null if values are never modified in place
+     */
+    public CopyOnWriteLongObjectHashMap(ValueCopier<V> copier) {
+        this.copier = copier;
+    }
+
+    private CopyOnWriteLongObjectHashMap(CopyOnWriteLongObjectHashMap<V> source) {
+        super(source);
+        copier = source.copier;
+    }
+
+    /**
+     * Returns a map sharing all blocks with this map.
+     *
+     * @return map sharing all blocks with this map
+     */
+    public CopyOnWriteLongObjectHashMap<V> fork() {
+        return new CopyOnWriteLongObjectHashMap<V>(this);
+    }
+
+    @Override
+    LongObjectHashMap<V> createBlock() {
+        return new LongObjectHashMap<V>();
+    }
+
+    @Override
+    LongObjectHashMap<V> copyBlock(LongObjectHashMap<V> block) {
+        LongObjectHashMap<V> res = new LongObjectHashMap<V>(block);
+        if (copier != null) {
+            for (int i = 0; i < res.getCapacity(); i++) {
+                V value = res.getValueAt(i);
+                if (value != null) {
+                    res.put(res.getKeyAt(i), copier.copy(value));
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Returns the value for the given key. The value must not be modified.
+     *
+     * @param key key to return value for
+     * @return value for key, null if the key is not contained
+     */
+    public V get(long key) {
+        LongObjectHashMap<V> block = block(blockOf(key));
+        return block == null ? null : block.get(key);
+    }
+
+    /**
+     * Returns the value for the given key which may be modified in place.
+     *
+     * @param key key to return value for
+     * @return value for key, null if the key is not contained
+     */
+    public V getModifiable(long key) {
+        int b = blockOf(key);
+        if (block(b) == null || !block(b).containsKey(key)) {
+            return null;
+        }
+        return modifiableBlock(b).get(key);
+    }
+
+    /**
+     * Returns true if a value is stored for the given key.
+     *
+     * @param key key to check
+     * @return true if a value is stored for the given key
+     */
+    public boolean containsKey(long key) {
+        LongObjectHashMap<V> block = block(blockOf(key));
+        return block != null && block.containsKey(key);
+    }
+
+    /**
+     * Sets the value for the given key.
+     *
+     * @param key   key to set value for
+     * @param value non-null value to set
+     * @return previous value for key, null if the key has not been contained
+     */
+    public V put(long key, V value) {
+        V prev = modifiableBlock(blockOf(key)).put(key, value);
+        if (prev == null) {
+            size++;
+        }
+        return prev;
+    }
+
+    /**
+     * Removes the value for the given key.
+     *
+     * @param key key to remove value for
+     * @return value previously stored for the key, null if there was none
+     */
+    public V remove(long key) {
+        if (!containsKey(key)) {
+            return null;
+        }
+        size--;
+        return modifiableBlock(blockOf(key)).remove(key);
+    }
+
+    /**
+     * Returns all keys contained in this map.
+     *
+     * @return keys contained in this map
+     */
+    public long[] getKeys() {
+        long[] res = new long[size];
+        int n = 0;
+        for (int b = 0; b < getNumberOfBlocks(); b++) {
+            LongObjectHashMap<V> block = block(b);
+            if (block == null) {
+                continue;
+            }
+            for (int i = 0; i < block.getCapacity(); i++) {
+                if (block.getValueAt(i) != null) {
+                    res[n++] = block.getKeyAt(i);
+                }
+            }
+        }
+        return res;
+    }
+
+    /**
+     * Creates copies of mutable values which can be modified independently of the original value.
+     *
+     * @param <V> type of values
+     */
+    public interface ValueCopier<V> {
+        /**
+         * Returns a copy of the given value.
+         *
+         * @param value value to copy
+         * @return copy of value
+         */
+        V copy(V value);
+    }
+}
@@ -0,0 +1,117 @@
+package de.krkm.trex.util;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Hash map from non-null object keys to non-negative primitive int values whose entries are stored in blocks of
+ * {@link ObjectIntHashMap}s which are shared with forks of the map until either of them modifies a block, see
+ * {@link CopyOnWriteBlocks}. Lookups of keys not contained in the map return -1.
+ *
+ * @param <K> type of keys
+ */
+public class CopyOnWriteObjectIntHashMap<K> extends CopyOnWriteBlocks<ObjectIntHashMap<K>> {
+    /**
+     * Initializes an empty map.
+     */
+    public CopyOnWriteObjectIntHashMap() {
+    }
+
+    private CopyOnWriteObjectIntHashMap(CopyOnWriteObjectIntHashMap<K> source) {
+        super(source);
+    }
+
+    /**
+     * Returns a map sharing all blocks with this map.
+     *
+     * @return map sharing all blocks with this map
+     */
+    public CopyOnWriteObjectIntHashMap<K> fork() {
+        return new CopyOnWriteObjectIntHashMap<K>(this);
+    }
+
+    @Override
+    ObjectIntHashMap<K> createBlock() {
+        return new ObjectIntHashMap<K>();
+    }
+
+    @Override
+    ObjectIntHashMap<K> copyBlock(ObjectIntHashMap<K> block) {
+        return block.copy();
+    }
+
+    /**
+     * Returns the value stored for the given key.
+     *
+     * @param key key to return value for
+     * @return value stored for key, -1 if there is no value for key
+     */
+    public int get(K key) {
+        ObjectIntHashMap<K> block = block(blockOf(key.hashCode()));
+        return block == null ? -1 : block.get(key);
+    }
+
+    /**
+     * Returns true if a value is stored for the given key.
+     *
+     * @param key key to check
+     * @return true if a value is stored for the given key
+     */
+    public boolean containsKey(K key) {
+        ObjectIntHashMap<K> block = block(blockOf(key.hashCode()));
+        return block != null && block.containsKey(key);
+    }
+
+    /**
+     * Stores the given value for the given key.
+     *
+     * @param key   key to store value for, must not be null
+     * @param value value to store
+     * @return value previously stored for the key, -1 if there was none
+     */
+    public int put(K key, int value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null keys are not supported");
+        }
+        int prev = modifiableBlock(blockOf(key.hashCode())).put(key, value);
+        if (prev == -1) {
+            size++;
+        }
+        return prev;
+    }
+
+    /**
+     * Removes the value stored for the given key.
+     *
+     * @param key key to remove value for
+     * @return value previously stored for the key, -1 if there was none
+     */
+    public int remove(K key) {
+        if (!containsKey(key)) {
+            return -1;
+        }
+        size--;
+        return modifiableBlock(blockOf(key.hashCode())).remove(key);
+    }
+
+    /**
+     * Returns all keys contained in this map.
+     *
+     * @return keys contained in this map
+     */
+    public List<K> getKeys() {
+        ArrayList<K> res = new ArrayList<K>(size);
+        for (int b = 0; b < getNumberOfBlocks(); b++) {
+            ObjectIntHashMap<K> block = block(b);
+            if (block == null) {
+                continue;
+            }
+            for (int i = 0; i < block.getCapacity(); i++) {
+                if (block.getKeyAt(i) != null) {
+                    res.add(block.getKeyAt(i));
+                }
+            }
+        }
+        return res;
+    }
+}
@@ -0,0 +1,172 @@
+package de.krkm.trex.util;
+
+import java.util.Arrays;
+
+/**
+ * Set of primitive int values using open addressing with linear probing. In contrast to a <code>HashSet&lt;Integer&gt;
+ * </code> no boxing and no entry objects are required.
+ */
+public class IntHashSet {
+    private final static int DEFAULT_CAPACITY = 16;
+
+    private int[] values;
+    private boolean[] used;
+    private int size;
+    private int mask;
+
+    /**
+     * Initializes an empty set with default capacity.
+     */
+    public IntHashSet() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes an empty set being able to hold the given number of values without resizing.
+     *
+     * @param expectedSize number of values expected to be stored
+     */
+    public IntHashSet(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Initializes a set containing the values of the given set.
+     *
+     * @param set set to copy values from
+     */
+    public IntHashSet(IntHashSet set) {
+        values = set.values.clone();
+        used = set.used.clone();
+        size = set.size;
+        mask = set.mask;
+    }
+
+    private static int hash(int value) {
+        value *= 0x9e3779b9;
+        return value ^ (value >>> 16);
+    }
+
+    private int slot(int value) {
+        int i = hash(value) & mask;
+        while (used[i] && values[i] != value) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Returns true if the given value is contained in this set.
+     *
+     * @param value value to check
+     * @return true if the value is contained in this set
+     */
+    public boolean contains(int value) {
+        return used[slot(value)];
+    }
+
+    /**
+     * Adds the given value to this set.
+     *
+     * @param value value to add
+     * @return true if the value was not contained before
+     */
+    public boolean add(int value) {
+        int i = slot(value);
+        if (used[i]) {
+            return false;
+        }
+        values[i] = value;
+        used[i] = true;
+        if (++size * 4 > values.length * 3) {
+            resize(values.length << 1);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the given value from this set.
+     *
+     * @param value value to remove
+     * @return true if the value was contained before
+     */
+    public boolean remove(int value) {
+        int i = slot(value);
+        if (!used[i]) {
+            return false;
+        }
+        size--;
+        // shift back subsequent values of the probing sequence to keep it free of gaps
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (!used[j]) {
+                break;
+            }
+            int home = hash(values[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        used[gap] = false;
+        return true;
+    }
+
+    /**
+     * Removes all values from this set.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(used, false);
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns the number of values contained in this set.
+     *
+     * @return number of values contained in this set
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns an array containing all values of this set in no particular order.
+     *
+     * @return array containing all values of this set
+     */
+    public int[] toArray() {
+        int[] res = new int[size];
+        int n = 0;
+        for (int i = 0; i < values.length && n < size; i++) {
+            if (used[i]) {
+                res[n++] = values[i];
+            }
+        }
+        return res;
+    }
+
+    private void resize(int capacity) {
+        int[] oldValues = values;
+        boolean[] oldUsed = used;
+        values = new int[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldUsed[i]) {
+                int j = slot(oldValues[i]);
+                values[j] = oldValues[i];
+                used[j] = true;
+            }
+        }
+    }
+}
@@ -0,0 +1,209 @@
+package de.krkm.trex.util;
+
+import java.util.Arrays;
+
+/**
+ * Hash map from primitive long keys to non-null object values using open addressing with linear probing. In contrast
+ * to a <code>HashMap&lt;Long, V&gt;</code> no boxing and no entry objects are required.
+ *
+ * @param <V> type of values
+ */
+public class LongObjectHashMap<V> {
+    private final static int DEFAULT_CAPACITY = 16;
+
+    private long[] keys;
+    private Object[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Initializes an empty map with default capacity.
+     */
+    public LongObjectHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes an empty map being able to hold the given number of entries without resizing.
+     *
+     * @param expectedSize number of entries expected to be stored
+     */
+    public LongObjectHashMap(int expectedSize) {
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Initializes a map containing the entries of the given map. The values themselves are not copied.
+     *
+     * @param map map to copy entries from
+     */
+    public LongObjectHashMap(LongObjectHashMap<V> map) {
+        keys = map.keys.clone();
+        values = map.values.clone();
+        size = map.size;
+        mask = map.mask;
+    }
+
+    private static int hash(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    private int slot(long key) {
+        int i = hash(key) & mask;
+        while (values[i] != null && keys[i] != key) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the value stored for the given key.
+     *
+     * @param key key to return value for
+     * @return value stored for key, null if there is no value for key
+     */
+    @SuppressWarnings("unchecked")
+    public V get(long key) {
+        return (V) values[slot(key)];
+    }
+
+    /**
+     * Returns true if a value is stored for the given key.
+     *
+     * @param key key to check
+     * @return true if a value is stored for the given key
+     */
+    public boolean containsKey(long key) {
+        return values[slot(key)] != null;
+    }
+
+    /**
+     * Stores the given value for the given key.
+     *
+     * @param key   key to store value for
+     * @param value value to store, must not be null
+     * @return value previously stored for the key, null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V put(long key, V value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Null values are not supported");
+        }
+        int i = slot(key);
+        V prev = (V) values[i];
+        keys[i] = key;
+        values[i] = value;
+        if (prev == null && ++size * 4 > values.length * 3) {
+            resize(values.length << 1);
+        }
+        return prev;
+    }
+
+    /**
+     * Removes the value stored for the given key.
+     *
+     * @param key key to remove value for
+     * @return value previously stored for the key, null if there was none
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(long key) {
+        int i = slot(key);
+        V prev = (V) values[i];
+        if (prev == null) {
+            return null;
+        }
+        size--;
+        // shift back subsequent entries of the probing sequence to keep it free of gaps
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (values[j] == null) {
+                break;
+            }
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        values[gap] = null;
+        return prev;
+    }
+
+    /**
+     * Removes all entries from this map.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+    }
+
+    /**
+     * Returns the number of entries stored in this map.
+     *
+     * @return number of entries stored in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the number of slots of this map. Together with {@link #getKeyAt(int)} and {@link #getValueAt(int)} this
+     * allows iterating over all entries without allocating any objects.
+     *
+     * @return number of slots of this map
+     */
+    public int getCapacity() {
+        return values.length;
+    }
+
+    /**
+     * Returns the key stored in the given slot. The result is only meaningful if {@link #getValueAt(int)} returns a
+     * non-null value for the same slot.
+     *
+     * @param slot slot to return key for
+     * @return key stored in slot
+     */
+    public long getKeyAt(int slot) {
+        return keys[slot];
+    }
+
+    /**
+     * Returns the value stored in the given slot.
+     *
+     * @param slot slot to return value for
+     * @return value stored in slot, null if the slot is empty
+     */
+    @SuppressWarnings("unchecked")
+    public V getValueAt(int slot) {
+        return (V) values[slot];
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new long[capacity];
+        values = new Object[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldValues.length; i++) {
+            if (oldValues[i] != null) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
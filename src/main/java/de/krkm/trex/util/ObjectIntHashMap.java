@@ -0,0 +1,215 @@
+package de.krkm.trex.util;
+
+/**
+ * Hash map from non-null object keys to primitive int values using open addressing with linear probing. In contrast
+ * to a <code>HashMap&lt;K, Integer&gt;</code> no boxing and no entry objects are required. Lookups of keys not
+ * contained in the map return -1, thus, only non-negative values should be stored.
+ * <p>
+ * Optionally, keys can be compared by reference like in an {@link java.util.IdentityHashMap} which avoids calls to
+ * <code>equals</code> and <code>hashCode</code> for objects known to be interned.
+ *
+ * @param <K> type of keys
+ */
+public class ObjectIntHashMap<K> {
+    private final static int DEFAULT_CAPACITY = 16;
+
+    private final boolean identity;
+    private Object[] keys;
+    private int[] values;
+    private int size;
+    private int mask;
+
+    /**
+     * Initializes an empty map with default capacity.
+     */
+    public ObjectIntHashMap() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Initializes an empty map being able to hold the given number of entries without resizing.
+     *
+     * @param expectedSize number of entries expected to be stored
+     */
+    public ObjectIntHashMap(int expectedSize) {
+        this(expectedSize, false);
+    }
+
+    /**
+     * Initializes an empty map being able to hold the given number of entries without resizing.
+     *
+     * @param expectedSize number of entries expected to be stored
+     * @param identity     if true, keys are compared by reference, otherwise by <code>equals</code>
+     */
+    public ObjectIntHashMap(int expectedSize, boolean identity) {
+        this.identity = identity;
+        int capacity = DEFAULT_CAPACITY;
+        while (capacity * 3 < expectedSize * 4) {
+            capacity <<= 1;
+        }
+        keys = new Object[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    private int hash(Object key) {
+        int h = identity ? System.identityHashCode(key) : key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    private int slot(Object key) {
+        int i = hash(key) & mask;
+        while (keys[i] != null && keys[i] != key && (identity || !keys[i].equals(key))) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Returns the value stored for the given key.
+     *
+     * @param key key to return value for
+     * @return value stored for key, -1 if there is no value for key
+     */
+    public int get(K key) {
+        int i = slot(key);
+        return keys[i] == null ? -1 : values[i];
+    }
+
+    /**
+     * Returns true if a value is stored for the given key.
+     *
+     * @param key key to check
+     * @return true if a value is stored for the given key
+     */
+    public boolean containsKey(K key) {
+        return keys[slot(key)] != null;
+    }
+
+    /**
+     * Stores the given value for the given key.
+     *
+     * @param key   key to store value for, must not be null
+     * @param value value to store
+     * @return value previously stored for the key, -1 if there was none
+     */
+    public int put(K key, int value) {
+        if (key == null) {
+            throw new IllegalArgumentException("Null keys are not supported");
+        }
+        int i = slot(key);
+        if (keys[i] != null) {
+            int prev = values[i];
+            values[i] = value;
+            return prev;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 4 > keys.length * 3) {
+            resize(keys.length << 1);
+        }
+        return -1;
+    }
+
+    /**
+     * Removes the value stored for the given key.
+     *
+     * @param key key to remove value for
+     * @return value previously stored for the key, -1 if there was none
+     */
+    public int remove(K key) {
+        int i = slot(key);
+        if (keys[i] == null) {
+            return -1;
+        }
+        int prev = values[i];
+        size--;
+        // shift back subsequent entries of the probing sequence to keep it free of gaps
+        int gap = i;
+        int j = i;
+        while (true) {
+            j = (j + 1) & mask;
+            if (keys[j] == null) {
+                break;
+            }
+            int home = hash(keys[j]) & mask;
+            if (((j - home) & mask) >= ((j - gap) & mask)) {
+                keys[gap] = keys[j];
+                values[gap] = values[j];
+                gap = j;
+            }
+        }
+        keys[gap] = null;
+        return prev;
+    }
+
+    /**
+     * Returns the number of slots of this map. Together with {@link #getKeyAt(int)} and {@link #getValueAt(int)} this
+     * allows iterating over all entries without allocating any objects.
+     *
+     * @return number of slots of this map
+     */
+    public int getCapacity() {
+        return keys.length;
+    }
+
+    /**
+     * Returns the key stored in the given slot.
+     *
+     * @param slot slot to return key for
+     * @return key stored in slot, null if the slot is empty
+     */
+    @SuppressWarnings("unchecked")
+    public K getKeyAt(int slot) {
+        return (K) keys[slot];
+    }
+
+    /**
+     * Returns the value stored in the given slot. The result is only meaningful if {@link #getKeyAt(int)} returns a
+     * non-null key for the same slot.
+     *
+     * @param slot slot to return value for
+     * @return value stored in slot
+     */
+    public int getValueAt(int slot) {
+        return values[slot];
+    }
+
+    /**
+     * Returns the number of entries stored in this map.
+     *
+     * @return number of entries stored in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns a copy of this map which can be modified independently of this map.
+     *
+     * @return copy of this map
+     */
+    public ObjectIntHashMap<K> copy() {
+        ObjectIntHashMap<K> res = new ObjectIntHashMap<K>(0, identity);
+        res.keys = keys.clone();
+        res.values = values.clone();
+        res.size = size;
+        res.mask = mask;
+        return res;
+    }
+
+    private void resize(int capacity) {
+        Object[] oldKeys = keys;
+        int[] oldValues = values;
+        keys = new Object[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int j = slot(oldKeys[i]);
+                keys[j] = oldKeys[i];
+                values[j] = oldValues[i];
+            }
+        }
+    }
+}
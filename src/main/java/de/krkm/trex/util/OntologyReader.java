@@ -8,6 +8,7 @@ import org.semanticweb.owlapi.model.OWLOntologyManager;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
+import java.io.IOException;
 
 /**
  * Utility class for loading an ontology using the OWL API
@@ -27,4 +28,16 @@ public class OntologyReader {
     public static OWLOntology loadOntology(String fileName) throws FileNotFoundException, OWLOntologyCreationException {
         return loadOntology(new FileInputStream(fileName));
     }
+
+    /**
+     * Loads only the TBox axioms relevant for reasoning from the given file in functional syntax or N-Triples format
+     * without loading the complete document into memory.
+     *
+     * @param file file to load, files ending with <code>.nt</code> are read as N-Triples
+     * @return ontology containing the TBox axioms of the file
+     * @see StreamingOntologyReader
+     */
+    public static OWLOntology loadTBox(File file) throws IOException, OWLOntologyCreationException {
+        return new StreamingOntologyReader().load(file);
+    }
 }
@@ -0,0 +1,716 @@
+package de.krkm.trex.util;
+
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Loads the TBox axioms relevant for reasoning from an ontology document without building an in-memory model of the
+ * complete document. The document is parsed in a single pass and only axioms of the requested types whose operands are
+ * named entities are kept, along with declarations of classes and object properties. All other axioms, e.g., ABox
+ * assertions and annotations, are skipped while parsing, so that memory consumption only depends on the size of the
+ * retained TBox. The result is a regular ontology which can be passed to the reasoner.
+ * <p>
+ * Supported formats are OWL 2 functional syntax and N-Triples. In N-Triples, subproperty, domain and range triples are
+ * kept until the end of the document since they are only known to concern object properties after all declarations
+ * have been read.
+ */
+public class StreamingOntologyReader {
+    private final static Logger log = LoggerFactory.getLogger(StreamingOntologyReader.class);
+
+    /**
+     * types of axioms handled by the inference step providers of the reasoner
+     */
+    public final static Set<AxiomType<?>> TREX_AXIOM_TYPES = Collections.unmodifiableSet(
+            new HashSet<AxiomType<?>>(Arrays.<AxiomType<?>>asList(AxiomType.SUBCLASS_OF, AxiomType.EQUIVALENT_CLASSES,
+                    AxiomType.DISJOINT_CLASSES, AxiomType.SUB_OBJECT_PROPERTY, AxiomType.EQUIVALENT_OBJECT_PROPERTIES,
+                    AxiomType.DISJOINT_OBJECT_PROPERTIES, AxiomType.OBJECT_PROPERTY_DOMAIN,
+                    AxiomType.OBJECT_PROPERTY_RANGE)));
+
+    private final static String RDF = "http://www.w3.org/1999/02/22-rdf-syntax-ns#";
+    private final static String RDFS = "http://www.w3.org/2000/01/rdf-schema#";
+    private final static String OWL = "http://www.w3.org/2002/07/owl#";
+    private final static String XSD = "http://www.w3.org/2001/XMLSchema#";
+
+    private final static String RDF_TYPE = "<" + RDF + "type>";
+    private final static String RDF_FIRST = "<" + RDF + "first>";
+    private final static String RDF_REST = "<" + RDF + "rest>";
+    private final static String RDF_NIL = "<" + RDF + "nil>";
+    private final static String RDFS_SUBCLASSOF = "<" + RDFS + "subClassOf>";
+    private final static String RDFS_SUBPROPERTYOF = "<" + RDFS + "subPropertyOf>";
+    private final static String RDFS_DOMAIN = "<" + RDFS + "domain>";
+    private final static String RDFS_RANGE = "<" + RDFS + "range>";
+    private final static String RDFS_LITERAL = "<" + RDFS + "Literal>";
+    private final static String OWL_CLASS = "<" + OWL + "Class>";
+    private final static String OWL_OBJECT_PROPERTY = "<" + OWL + "ObjectProperty>";
+    private final static String OWL_DATATYPE_PROPERTY = "<" + OWL + "DatatypeProperty>";
+    private final static String OWL_ANNOTATION_PROPERTY = "<" + OWL + "AnnotationProperty>";
+    private final static String OWL_EQUIVALENT_CLASS = "<" + OWL + "equivalentClass>";
+    private final static String OWL_DISJOINT_WITH = "<" + OWL + "disjointWith>";
+    private final static String OWL_EQUIVALENT_PROPERTY = "<" + OWL + "equivalentProperty>";
+    private final static String OWL_PROPERTY_DISJOINT_WITH = "<" + OWL + "propertyDisjointWith>";
+    private final static String OWL_ALL_DISJOINT_CLASSES = "<" + OWL + "AllDisjointClasses>";
+    private final static String OWL_ALL_DISJOINT_PROPERTIES = "<" + OWL + "AllDisjointProperties>";
+    private final static String OWL_MEMBERS = "<" + OWL + "members>";
+
+    /**
+     * marker for anonymous expressions and literals in functional syntax
+     */
+    private final static String ANONYMOUS = "";
+
+    private final OWLOntologyManager manager;
+    private final OWLDataFactory factory;
+    private final Set<AxiomType<?>> axiomTypes;
+
+    private OWLOntology ontology;
+    private int kept;
+    private int skipped;
+
+    // state of the functional syntax tokenizer
+    private Reader in;
+    private int lookahead = -2;
+    private final StringBuilder token = new StringBuilder();
+    private HashMap<String, String> prefixes;
+
+    /**
+     * Initializes a reader keeping all axiom types handled by the reasoner and creating ontologies using a new
+     * ontology manager.
+     */
+    public StreamingOntologyReader() {
+        this(OWLManager.createOWLOntologyManager(), TREX_AXIOM_TYPES);
+    }
+
+    /**
+     * Initializes a reader keeping the given axiom types.
+     *
+     * @param manager    manager used for creating the resulting ontologies
+     * @param axiomTypes types of axioms to keep, only types contained in {@link #TREX_AXIOM_TYPES} are supported
+     */
+    public StreamingOntologyReader(OWLOntologyManager manager, Set<AxiomType<?>> axiomTypes) {
+        this.manager = manager;
+        this.factory = manager.getOWLDataFactory();
+        this.axiomTypes = axiomTypes;
+    }
+
+    /**
+     * Loads the given file choosing the format by its extension, i.e., files ending with <code>.nt</code> are read as
+     * N-Triples, all other files as functional syntax. The file is expected to be UTF-8 encoded.
+     *
+     * @param file file to load
+     * @return ontology containing the TBox axioms of the file
+     * @throws IOException                  on errors reading or parsing the file
+     * @throws OWLOntologyCreationException if the resulting ontology cannot be created
+     */
+    public OWLOntology load(File file) throws IOException, OWLOntologyCreationException {
+        Reader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), "UTF-8"), 1 << 16);
+        try {
+            if (file.getName().endsWith(".nt")) {
+                return loadNTriples(reader);
+            }
+            return loadFunctionalSyntax(reader);
+        }
+        finally {
+            reader.close();
+        }
+    }
+
+    /**
+     * Loads the TBox axioms from the given document in OWL 2 functional syntax.
+     *
+     * @param reader reader providing the document
+     * @return ontology containing the TBox axioms of the document
+     * @throws IOException                  on errors reading or parsing the document
+     * @throws OWLOntologyCreationException if the resulting ontology cannot be created
+     */
+    public OWLOntology loadFunctionalSyntax(Reader reader) throws IOException, OWLOntologyCreationException {
+        start();
+        in = reader;
+        lookahead = -2;
+        prefixes = new HashMap<String, String>();
+        try {
+            String t;
+            while ((t = nextToken()) != null) {
+                if (t.equals("Prefix")) {
+                    expect("(");
+                    String name = nextToken();
+                    expect("=");
+                    String iri = nextToken();
+                    expect(")");
+                    prefixes.put(name, iri.substring(1, iri.length() - 1));
+                }
+                else if (t.equals("Ontology")) {
+                    expect("(");
+                    readOntologyContents();
+                }
+                else if (t.equals("(")) {
+                    skipExpression();
+                }
+            }
+        }
+        finally {
+            in = null;
+            prefixes = null;
+        }
+        return finish();
+    }
+
+    /**
+     * Loads the TBox axioms from the given document in N-Triples format.
+     *
+     * @param reader reader providing the document
+     * @return ontology containing the TBox axioms of the document
+     * @throws IOException                  on errors reading the document
+     * @throws OWLOntologyCreationException if the resulting ontology cannot be created
+     */
+    public OWLOntology loadNTriples(Reader reader) throws IOException, OWLOntologyCreationException {
+        start();
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+
+        // triples whose interpretation depends on declarations or on other triples
+        ArrayList<String[]> propertyTriples = new ArrayList<String[]>();
+        HashSet<String> nonObjectProperties = new HashSet<String>();
+        HashMap<String, String> first = new HashMap<String, String>();
+        HashMap<String, String> rest = new HashMap<String, String>();
+        HashMap<String, String> allDisjoint = new HashMap<String, String>();
+        HashMap<String, String> members = new HashMap<String, String>();
+
+        String[] triple = new String[3];
+        String line;
+        while ((line = lines.readLine()) != null) {
+            if (!parseTriple(line, triple)) {
+                continue;
+            }
+            String s = triple[0];
+            String p = triple[1];
+            String o = triple[2];
+            if (p.equals(RDFS_SUBCLASSOF)) {
+                if (isIRI(s) && isIRI(o)) {
+                    add(AxiomType.SUBCLASS_OF, factory.getOWLSubClassOfAxiom(concept(s), concept(o)));
+                }
+            }
+            else if (p.equals(OWL_EQUIVALENT_CLASS)) {
+                if (isIRI(s) && isIRI(o)) {
+                    add(AxiomType.EQUIVALENT_CLASSES, factory.getOWLEquivalentClassesAxiom(concept(s), concept(o)));
+                }
+            }
+            else if (p.equals(OWL_DISJOINT_WITH)) {
+                if (isIRI(s) && isIRI(o)) {
+                    add(AxiomType.DISJOINT_CLASSES, factory.getOWLDisjointClassesAxiom(concept(s), concept(o)));
+                }
+            }
+            else if (p.equals(RDFS_SUBPROPERTYOF) || p.equals(OWL_EQUIVALENT_PROPERTY) ||
+                    p.equals(OWL_PROPERTY_DISJOINT_WITH) || p.equals(RDFS_DOMAIN) || p.equals(RDFS_RANGE)) {
+                if (isIRI(s) && isIRI(o)) {
+                    propertyTriples.add(new String[]{s, p, o});
+                }
+            }
+            else if (p.equals(RDF_TYPE)) {
+                if (o.equals(OWL_CLASS) && isIRI(s)) {
+                    manager.addAxiom(ontology, factory.getOWLDeclarationAxiom(concept(s)));
+                }
+                else if (o.equals(OWL_OBJECT_PROPERTY) && isIRI(s)) {
+                    manager.addAxiom(ontology, factory.getOWLDeclarationAxiom(property(s)));
+                }
+                else if (o.equals(OWL_DATATYPE_PROPERTY) || o.equals(OWL_ANNOTATION_PROPERTY)) {
+                    nonObjectProperties.add(s);
+                }
+                else if (o.equals(OWL_ALL_DISJOINT_CLASSES) || o.equals(OWL_ALL_DISJOINT_PROPERTIES)) {
+                    allDisjoint.put(s, o);
+                }
+            }
+            else if (!isIRI(s)) {
+                // only lists and members of blank nodes are required for n-ary disjointness axioms
+                if (p.equals(RDF_FIRST)) {
+                    first.put(s, o);
+                }
+                else if (p.equals(RDF_REST)) {
+                    rest.put(s, o);
+                }
+                else if (p.equals(OWL_MEMBERS)) {
+                    members.put(s, o);
+                }
+            }
+        }
+
+        for (String[] t : propertyTriples) {
+            String s = t[0];
+            String p = t[1];
+            String o = t[2];
+            if (nonObjectProperties.contains(s)) {
+                continue;
+            }
+            if (p.equals(RDFS_DOMAIN)) {
+                add(AxiomType.OBJECT_PROPERTY_DOMAIN, factory.getOWLObjectPropertyDomainAxiom(property(s), concept(o)));
+            }
+            else if (p.equals(RDFS_RANGE)) {
+                if (!o.startsWith("<" + XSD) && !o.equals(RDFS_LITERAL)) {
+                    add(AxiomType.OBJECT_PROPERTY_RANGE,
+                            factory.getOWLObjectPropertyRangeAxiom(property(s), concept(o)));
+                }
+            }
+            else if (nonObjectProperties.contains(o)) {
+                continue;
+            }
+            else if (p.equals(RDFS_SUBPROPERTYOF)) {
+                add(AxiomType.SUB_OBJECT_PROPERTY, factory.getOWLSubObjectPropertyOfAxiom(property(s), property(o)));
+            }
+            else if (p.equals(OWL_EQUIVALENT_PROPERTY)) {
+                add(AxiomType.EQUIVALENT_OBJECT_PROPERTIES,
+                        factory.getOWLEquivalentObjectPropertiesAxiom(property(s), property(o)));
+            }
+            else {
+                add(AxiomType.DISJOINT_OBJECT_PROPERTIES,
+                        factory.getOWLDisjointObjectPropertiesAxiom(property(s), property(o)));
+            }
+        }
+
+        for (String node : allDisjoint.keySet()) {
+            ArrayList<String> list = new ArrayList<String>();
+            String element = members.get(node);
+            boolean named = true;
+            while (element != null && !element.equals(RDF_NIL) && list.size() <= first.size()) {
+                String member = first.get(element);
+                named = named && member != null && isIRI(member);
+                list.add(member);
+                element = rest.get(element);
+            }
+            if (!named || list.size() < 2) {
+                skipped++;
+                continue;
+            }
+            if (allDisjoint.get(node).equals(OWL_ALL_DISJOINT_CLASSES)) {
+                OWLClassExpression[] classes = new OWLClassExpression[list.size()];
+                for (int i = 0; i < classes.length; i++) {
+                    classes[i] = concept(list.get(i));
+                }
+                add(AxiomType.DISJOINT_CLASSES, factory.getOWLDisjointClassesAxiom(classes));
+            }
+            else {
+                OWLObjectPropertyExpression[] properties = new OWLObjectPropertyExpression[list.size()];
+                for (int i = 0; i < properties.length; i++) {
+                    if (nonObjectProperties.contains(list.get(i))) {
+                        properties = null;
+                        break;
+                    }
+                    properties[i] = property(list.get(i));
+                }
+                if (properties != null) {
+                    add(AxiomType.DISJOINT_OBJECT_PROPERTIES, factory.getOWLDisjointObjectPropertiesAxiom(properties));
+                }
+            }
+        }
+        return finish();
+    }
+
+    private void start() throws OWLOntologyCreationException {
+        ontology = manager.createOntology();
+        kept = 0;
+        skipped = 0;
+    }
+
+    private OWLOntology finish() {
+        log.debug("Kept {} axioms, skipped {} axioms", kept, skipped);
+        OWLOntology res = ontology;
+        ontology = null;
+        return res;
+    }
+
+    private void add(AxiomType<?> type, OWLAxiom axiom) {
+        if (axiomTypes.contains(type)) {
+            manager.addAxiom(ontology, axiom);
+            kept++;
+        }
+        else {
+            skipped++;
+        }
+    }
+
+    private OWLClass concept(String iri) {
+        return factory.getOWLClass(IRI.create(iri.substring(1, iri.length() - 1)));
+    }
+
+    private OWLObjectProperty property(String iri) {
+        return factory.getOWLObjectProperty(IRI.create(iri.substring(1, iri.length() - 1)));
+    }
+
+    private static boolean isIRI(String term) {
+        return term.charAt(0) == '<';
+    }
+
+    /**
+     * Splits the given N-Triples line into subject, predicate and object. IRIs are returned including their angle
+     * brackets, literals are replaced by a single quote character.
+     *
+     * @return false if the line does not contain a triple
+     */
+    private static boolean parseTriple(String line, String[] triple) {
+        int pos = 0;
+        for (int i = 0; i < 3; i++) {
+            while (pos < line.length() && Character.isWhitespace(line.charAt(pos))) {
+                pos++;
+            }
+            if (pos == line.length() || line.charAt(pos) == '#') {
+                return false;
+            }
+            char c = line.charAt(pos);
+            int end;
+            if (c == '<') {
+                end = line.indexOf('>', pos) + 1;
+                if (end == 0) {
+                    return false;
+                }
+                triple[i] = line.substring(pos, end);
+            }
+            else if (c == '"') {
+                // literals are never of interest, the remainder of the line is ignored
+                triple[i] = "\"";
+                end = line.length();
+            }
+            else {
+                end = pos;
+                while (end < line.length() && !Character.isWhitespace(line.charAt(end))) {
+                    end++;
+                }
+                triple[i] = line.substring(pos, end);
+            }
+            pos = end;
+        }
+        return true;
+    }
+
+    /**
+     * Reads all axioms of an ontology up to its closing parenthesis.
+     */
+    private void readOntologyContents() throws IOException {
+        String t;
+        while ((t = nextToken()) != null && !t.equals(")")) {
+            if (t.equals("(")) {
+                skipExpression();
+            }
+            else if (!t.startsWith("<") && peekChar() == '(') {
+                nextToken();
+                readAxiom(t);
+            }
+        }
+    }
+
+    /**
+     * Reads the axiom with the given name whose opening parenthesis has already been consumed.
+     */
+    private void readAxiom(String name) throws IOException {
+        AxiomType<?> type = axiomType(name);
+        if (name.equals("Declaration")) {
+            String[] args = readArguments();
+            // declarations are returned as the name of the entity type followed by the entity
+            if (args.length == 2 && args[1] != ANONYMOUS) {
+                if (args[0].equals("Class")) {
+                    manager.addAxiom(ontology, factory.getOWLDeclarationAxiom(concept(args[1])));
+                }
+                else if (args[0].equals("ObjectProperty")) {
+                    manager.addAxiom(ontology, factory.getOWLDeclarationAxiom(property(args[1])));
+                }
+            }
+            return;
+        }
+        if (type == null || !axiomTypes.contains(type)) {
+            skipExpression();
+            skipped++;
+            return;
+        }
+
+        String[] args = readArguments();
+        if (type == AxiomType.EQUIVALENT_CLASSES || type == AxiomType.DISJOINT_CLASSES) {
+            ArrayList<OWLClassExpression> classes = new ArrayList<OWLClassExpression>();
+            for (String arg : args) {
+                if (arg != ANONYMOUS) {
+                    classes.add(concept(arg));
+                }
+            }
+            if (classes.size() < 2) {
+                skipped++;
+                return;
+            }
+            OWLClassExpression[] operands = classes.toArray(new OWLClassExpression[classes.size()]);
+            add(type, type == AxiomType.EQUIVALENT_CLASSES ? factory.getOWLEquivalentClassesAxiom(operands) :
+                    factory.getOWLDisjointClassesAxiom(operands));
+            return;
+        }
+        if (type == AxiomType.EQUIVALENT_OBJECT_PROPERTIES || type == AxiomType.DISJOINT_OBJECT_PROPERTIES) {
+            ArrayList<OWLObjectPropertyExpression> properties = new ArrayList<OWLObjectPropertyExpression>();
+            for (String arg : args) {
+                if (arg != ANONYMOUS) {
+                    properties.add(property(arg));
+                }
+            }
+            if (properties.size() < 2) {
+                skipped++;
+                return;
+            }
+            OWLObjectPropertyExpression[] operands =
+                    properties.toArray(new OWLObjectPropertyExpression[properties.size()]);
+            add(type, type == AxiomType.EQUIVALENT_OBJECT_PROPERTIES ?
+                    factory.getOWLEquivalentObjectPropertiesAxiom(operands) :
+                    factory.getOWLDisjointObjectPropertiesAxiom(operands));
+            return;
+        }
+
+        if (args.length != 2 || args[0] == ANONYMOUS || args[1] == ANONYMOUS) {
+            skipped++;
+            return;
+        }
+        if (type == AxiomType.SUBCLASS_OF) {
+            add(type, factory.getOWLSubClassOfAxiom(concept(args[0]), concept(args[1])));
+        }
+        else if (type == AxiomType.SUB_OBJECT_PROPERTY) {
+            add(type, factory.getOWLSubObjectPropertyOfAxiom(property(args[0]), property(args[1])));
+        }
+        else if (type == AxiomType.OBJECT_PROPERTY_DOMAIN) {
+            add(type, factory.getOWLObjectPropertyDomainAxiom(property(args[0]), concept(args[1])));
+        }
+        else {
+            add(type, factory.getOWLObjectPropertyRangeAxiom(property(args[0]), concept(args[1])));
+        }
+    }
+
+    private static AxiomType<?> axiomType(String name) {
+        if (name.equals("SubClassOf")) {
+            return AxiomType.SUBCLASS_OF;
+        }
+        if (name.equals("EquivalentClasses")) {
+            return AxiomType.EQUIVALENT_CLASSES;
+        }
+        if (name.equals("DisjointClasses")) {
+            return AxiomType.DISJOINT_CLASSES;
+        }
+        if (name.equals("SubObjectPropertyOf")) {
+            return AxiomType.SUB_OBJECT_PROPERTY;
+        }
+        if (name.equals("EquivalentObjectProperties")) {
+            return AxiomType.EQUIVALENT_OBJECT_PROPERTIES;
+        }
+        if (name.equals("DisjointObjectProperties")) {
+            return AxiomType.DISJOINT_OBJECT_PROPERTIES;
+        }
+        if (name.equals("ObjectPropertyDomain")) {
+            return AxiomType.OBJECT_PROPERTY_DOMAIN;
+        }
+        if (name.equals("ObjectPropertyRange")) {
+            return AxiomType.OBJECT_PROPERTY_RANGE;
+        }
+        return null;
+    }
+
+    /**
+     * Reads the arguments of an expression up to its closing parenthesis. Named entities are returned as full IRIs in
+     * angle brackets, nested expressions and literals as {@link #ANONYMOUS}. Annotations are dropped. For nested
+     * expressions consisting of a single name and an entity like in declarations, the name is returned followed by the
+     * entity.
+     */
+    private String[] readArguments() throws IOException {
+        ArrayList<String> args = new ArrayList<String>(2);
+        String t;
+        while ((t = nextToken()) != null && !t.equals(")")) {
+            if (t.equals("(")) {
+                skipExpression();
+                args.add(ANONYMOUS);
+            }
+            else if (t.startsWith("\"")) {
+                args.add(ANONYMOUS);
+            }
+            else if (t.startsWith("^^") || t.startsWith("@")) {
+                // datatype or language tag of the preceding literal
+            }
+            else if (!t.startsWith("<") && peekChar() == '(') {
+                nextToken();
+                if (t.equals("Annotation")) {
+                    skipExpression();
+                }
+                else if (t.equals("Class") || t.equals("ObjectProperty")) {
+                    String[] entity = readArguments();
+                    args.add(t);
+                    args.add(entity.length == 1 ? entity[0] : ANONYMOUS);
+                }
+                else {
+                    skipExpression();
+                    args.add(ANONYMOUS);
+                }
+            }
+            else {
+                args.add(expand(t));
+            }
+        }
+        return args.toArray(new String[args.size()]);
+    }
+
+    /**
+     * Returns the given full or abbreviated IRI as full IRI in angle brackets.
+     */
+    private String expand(String iri) throws IOException {
+        if (iri.startsWith("<")) {
+            return iri;
+        }
+        int colon = iri.indexOf(':');
+        String namespace = colon < 0 ? null : prefixes.get(iri.substring(0, colon + 1));
+        if (namespace == null) {
+            if (iri.startsWith("_:")) {
+                return ANONYMOUS;
+            }
+            throw new IOException("Unknown prefix in abbreviated IRI " + iri);
+        }
+        return "<" + namespace + iri.substring(colon + 1) + ">";
+    }
+
+    private void expect(String expected) throws IOException {
+        String t = nextToken();
+        if (!expected.equals(t)) {
+            throw new IOException("Expected '" + expected + "' but found '" + t + "'");
+        }
+    }
+
+    /**
+     * Skips all characters up to the closing parenthesis of the current expression without creating tokens.
+     */
+    private void skipExpression() throws IOException {
+        int depth = 1;
+        while (depth > 0) {
+            int c = nextChar();
+            switch (c) {
+                case -1:
+                    throw new IOException("Unexpected end of document");
+                case '(':
+                    depth++;
+                    break;
+                case ')':
+                    depth--;
+                    break;
+                case '"':
+                    skipString();
+                    break;
+                case '<':
+                    while ((c = nextChar()) != '>') {
+                        if (c == -1) {
+                            throw new IOException("Unexpected end of document");
+                        }
+                    }
+                    break;
+                case '#':
+                    skipComment();
+                    break;
+                default:
+            }
+        }
+    }
+
+    private void skipString() throws IOException {
+        int c;
+        while ((c = nextChar()) != '"') {
+            if (c == '\\') {
+                nextChar();
+            }
+            else if (c == -1) {
+                throw new IOException("Unexpected end of document");
+            }
+        }
+    }
+
+    private void skipComment() throws IOException {
+        int c;
+        do {
+            c = nextChar();
+        }
+        while (c != '\n' && c != '\r' && c != -1);
+    }
+
+    /**
+     * Returns the next token of the functional syntax document, null at the end of the document. Strings are returned
+     * as a single quote character.
+     */
+    private String nextToken() throws IOException {
+        int c = nextChar();
+        while (c != -1 && (Character.isWhitespace(c) || c == '#')) {
+            if (c == '#') {
+                skipComment();
+            }
+            c = nextChar();
+        }
+        switch (c) {
+            case -1:
+                return null;
+            case '(':
+                return "(";
+            case ')':
+                return ")";
+            case '=':
+                return "=";
+            case '"':
+                skipString();
+                return "\"";
+            default:
+        }
+        token.setLength(0);
+        token.append((char) c);
+        if (c == '<') {
+            while ((c = nextChar()) != '>') {
+                if (c == -1) {
+                    throw new IOException("Unexpected end of document");
+                }
+                token.append((char) c);
+            }
+            token.append('>');
+            return token.toString();
+        }
+        if (c == '^' && peekRawChar() == '^') {
+            // datatype of literal, returned as a single token
+            token.append((char) nextChar());
+            if (peekRawChar() == '<') {
+                token.append(nextToken());
+                return token.toString();
+            }
+        }
+        while ((c = peekRawChar()) != -1 && !Character.isWhitespace(c) && c != '(' && c != ')' && c != '=' &&
+                c != '"' && c != '<') {
+            token.append((char) nextChar());
+        }
+        return token.toString();
+    }
+
+    /**
+     * Returns the next non-whitespace character without consuming it.
+     */
+    private int peekChar() throws IOException {
+        int c = nextChar();
+        while (c != -1 && Character.isWhitespace(c)) {
+            c = nextChar();
+        }
+        lookahead = c;
+        return c;
+    }
+
+    private int peekRawChar() throws IOException {
+        lookahead = nextChar();
+        return lookahead;
+    }
+
+    private int nextChar() throws IOException {
+        if (lookahead != -2) {
+            int c = lookahead;
+            lookahead = -2;
+            return c;
+        }
+        return in.read();
+    }
+}
@@ -0,0 +1,99 @@
+package de.krkm.trex.reasoner;
+
+import de.krkm.trex.inference.AxiomSpliterator;
+import de.krkm.trex.inference.CellCursor;
+import de.krkm.trex.inference.Matrix;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+
+public class AxiomStreamTest {
+    private static final int CONCEPTS = 40;
+
+    private OWLDataFactory factory;
+    private TRexReasoner reasoner;
+
+    @Before
+    public void setUp() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        factory = manager.getOWLDataFactory();
+        OWLOntology ontology = manager.createOntology();
+        for (int i = 0; i < CONCEPTS - 1; i++) {
+            manager.addAxiom(ontology, factory.getOWLSubClassOfAxiom(cls(i), cls(i + 1)));
+        }
+        manager.addAxiom(ontology, factory.getOWLDisjointClassesAxiom(cls(CONCEPTS / 2), cls(CONCEPTS + 1)));
+        manager.addAxiom(ontology, factory.getOWLSubObjectPropertyOfAxiom(prop(0), prop(1)));
+        manager.addAxiom(ontology, factory.getOWLObjectPropertyDomainAxiom(prop(1), cls(0)));
+        reasoner = new TRexReasoner(ontology, false, false);
+    }
+
+    @Test
+    public void streamsContainEachAxiomOnce() {
+        Set<OWLAxiom> axioms = reasoner.getAxioms();
+        for (boolean parallel : new boolean[]{false, true}) {
+            List<OWLAxiom> streamed = reasoner.axioms(parallel).collect(Collectors.<OWLAxiom>toList());
+            assertEquals(axioms.size(), streamed.size());
+            assertEquals(axioms, new HashSet<OWLAxiom>(streamed));
+        }
+    }
+
+    @Test
+    public void splitsCoverAllAxioms() {
+        List<CellCursor> cursors = new ArrayList<CellCursor>();
+        cursors.add(subClassOfMatrix().cursor());
+        AxiomSpliterator spliterator = new AxiomSpliterator(cursors);
+        final List<OWLAxiom> visited = new ArrayList<OWLAxiom>();
+        Consumer<OWLAxiom> collect = new Consumer<OWLAxiom>() {
+            @Override
+            public void accept(OWLAxiom axiom) {
+                visited.add(axiom);
+            }
+        };
+
+        // consume part of the first row before splitting off the remaining rows
+        spliterator.tryAdvance(collect);
+        Spliterator<OWLAxiom> suffix = spliterator.trySplit();
+        assertNotNull(suffix);
+        spliterator.forEachRemaining(collect);
+        suffix.forEachRemaining(collect);
+
+        Set<OWLAxiom> expected = subClassOfMatrix().getOWLAxioms();
+        assertEquals(expected.size(), visited.size());
+        assertEquals(expected, new HashSet<OWLAxiom>(visited));
+    }
+
+    private Matrix subClassOfMatrix() {
+        for (int i = 0; i < reasoner.getNumberOfMatrices(); i++) {
+            if (reasoner.getMatrix(i).getAxiomTypeIdentifier().equals("SubClassOf")) {
+                return reasoner.getMatrix(i);
+            }
+        }
+        throw new IllegalStateException("No SubClassOf matrix");
+    }
+
+    private OWLClass cls(int i) {
+        return factory.getOWLClass(IRI.create("http://example.org/test#C" + i));
+    }
+
+    private OWLObjectProperty prop(int i) {
+        return factory.getOWLObjectProperty(IRI.create("http://example.org/test#p" + i));
+    }
+}
@@ -0,0 +1,117 @@
+package de.krkm.trex.reasoner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class BatchEntailmentTest {
+    private OWLDataFactory factory;
+    private TRexReasoner reasoner;
+
+    @Before
+    public void setUp() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        factory = manager.getOWLDataFactory();
+        OWLOntology ontology = manager.createOntology();
+        manager.addAxiom(ontology, factory.getOWLSubClassOfAxiom(cls("A"), cls("B")));
+        manager.addAxiom(ontology, factory.getOWLDisjointClassesAxiom(cls("B"), cls("C"), cls("D")));
+        manager.addAxiom(ontology, factory.getOWLSubObjectPropertyOfAxiom(prop("p"), prop("q")));
+        manager.addAxiom(ontology, factory.getOWLDisjointObjectPropertiesAxiom(prop("q"), prop("r"), prop("s")));
+        reasoner = new TRexReasoner(ontology, false, true);
+    }
+
+    @Test
+    public void unknownEntitiesInNaryAxiomsAreNotEntailed() {
+        List<OWLAxiom> axioms = new ArrayList<OWLAxiom>();
+        axioms.add(factory.getOWLDisjointClassesAxiom(cls("A"), cls("C"), cls("Unknown")));
+        axioms.add(factory.getOWLDisjointObjectPropertiesAxiom(prop("p"), prop("r"), prop("unknown")));
+        axioms.add(factory.getOWLDisjointClassesAxiom(cls("A"), cls("C"), cls("D")));
+        axioms.add(factory.getOWLDisjointObjectPropertiesAxiom(prop("p"), prop("r"), prop("s")));
+
+        BitSet entailed = reasoner.isEntailed(axioms);
+        assertFalse(entailed.get(0));
+        assertFalse(entailed.get(1));
+        assertTrue(entailed.get(2));
+        assertTrue(entailed.get(3));
+        for (int i = 0; i < axioms.size(); i++) {
+            assertEquals(reasoner.isEntailed(axioms.get(i)), entailed.get(i));
+        }
+    }
+
+    @Test
+    public void unknownEntitiesInNaryAxiomsHaveNoExplanation() {
+        assertNull(reasoner.getExplanation(factory.getOWLDisjointClassesAxiom(cls("A"), cls("C"), cls("Unknown"))));
+        assertNull(reasoner.getUnsatisfiabilityExplanation(cls("Unknown")));
+        assertNull(reasoner.getExplanation(
+                factory.getOWLDisjointObjectPropertiesAxiom(prop("p"), prop("r"), prop("unknown"))));
+        assertNull(reasoner.getUnsatisfiabilityExplanation(prop("unknown")));
+        assertNotNull(reasoner.getExplanation(factory.getOWLDisjointClassesAxiom(cls("A"), cls("C"), cls("D"))));
+        assertNotNull(reasoner.getExplanation(
+                factory.getOWLDisjointObjectPropertiesAxiom(prop("p"), prop("r"), prop("s"))));
+    }
+
+    @Test
+    public void batchMatchesSingleChecks() {
+        String[] classes = {"A", "B", "C", "D", "Unknown"};
+        String[] properties = {"p", "q", "r", "s", "unknown"};
+        List<OWLAxiom> axioms = new ArrayList<OWLAxiom>();
+        for (String first : classes) {
+            for (String second : classes) {
+                axioms.add(factory.getOWLSubClassOfAxiom(cls(first), cls(second)));
+                axioms.add(factory.getOWLDisjointClassesAxiom(cls(first), cls(second)));
+            }
+        }
+        for (String first : properties) {
+            for (String second : properties) {
+                axioms.add(factory.getOWLSubObjectPropertyOfAxiom(prop(first), prop(second)));
+                axioms.add(factory.getOWLDisjointObjectPropertiesAxiom(prop(first), prop(second)));
+            }
+        }
+
+        BitSet entailed = reasoner.isEntailed(axioms);
+        for (int i = 0; i < axioms.size(); i++) {
+            assertEquals(axioms.get(i).toString(), reasoner.isEntailed(axioms.get(i)), entailed.get(i));
+        }
+    }
+
+    @Test
+    public void taxonomyLeavesGivenExecutorRunning() {
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Taxonomy shared = reasoner.computeConceptTaxonomy();
+            Taxonomy own = new Taxonomy(reasoner.getConceptSubsumption(), executor, 2);
+            assertFalse(executor.isShutdown());
+            assertEquals(shared.getNumberOfNodes(), own.getNumberOfNodes());
+        }
+        finally {
+            executor.shutdown();
+        }
+    }
+
+    private OWLClass cls(String name) {
+        return factory.getOWLClass(IRI.create("http://example.org/test#" + name));
+    }
+
+    private OWLObjectProperty prop(String name) {
+        return factory.getOWLObjectProperty(IRI.create("http://example.org/test#" + name));
+    }
+}
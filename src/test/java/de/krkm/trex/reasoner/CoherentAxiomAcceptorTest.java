@@ -0,0 +1,226 @@
+package de.krkm.trex.reasoner;
+
+import de.krkm.trex.booleanexpressions.OrExpression;
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class CoherentAxiomAcceptorTest {
+    private OWLOntologyManager manager;
+    private OWLDataFactory factory;
+    private OWLOntology ontology;
+
+    @Before
+    public void setUp() throws Exception {
+        manager = OWLManager.createOWLOntologyManager();
+        factory = manager.getOWLDataFactory();
+        ontology = manager.createOntology();
+        manager.addAxiom(ontology, factory.getOWLSubClassOfAxiom(cls("A"), cls("B")));
+        manager.addAxiom(ontology, factory.getOWLDisjointClassesAxiom(cls("B"), cls("C")));
+        manager.addAxiom(ontology, factory.getOWLObjectPropertyDomainAxiom(prop("p"), cls("B")));
+        manager.addAxiom(ontology, factory.getOWLSubClassOfAxiom(cls("D"), cls("E")));
+    }
+
+    @Test
+    public void acceptsCoherentCandidate() {
+        for (boolean explanations : new boolean[]{false, true}) {
+            TRexReasoner reasoner = new TRexReasoner(copy(ontology), false, explanations);
+            CoherentAxiomAcceptor acceptor = new CoherentAxiomAcceptor(reasoner);
+            long version = reasoner.getVersion();
+            OWLAxiom candidate = factory.getOWLSubClassOfAxiom(cls("E"), cls("B"));
+
+            assertTrue(acceptor.offer(candidate));
+            assertEquals(Collections.singletonList(candidate), acceptor.getAccepted());
+            assertTrue(acceptor.getRejected().isEmpty());
+            assertTrue(reasoner.getOntology().containsAxiom(candidate));
+            assertTrue(reasoner.isEntailed(factory.getOWLSubClassOfAxiom(cls("D"), cls("B"))));
+            assertEquals(version + 1, reasoner.getVersion());
+        }
+    }
+
+    @Test
+    public void rejectsIncoherentClassCandidate() {
+        for (boolean explanations : new boolean[]{false, true}) {
+            TRexReasoner reasoner = new TRexReasoner(copy(ontology), false, explanations);
+            CoherentAxiomAcceptor acceptor = new CoherentAxiomAcceptor(reasoner);
+            long version = reasoner.getVersion();
+            OWLAxiom candidate = factory.getOWLSubClassOfAxiom(cls("A"), cls("C"));
+
+            assertFalse(acceptor.offer(candidate));
+            assertTrue(acceptor.getAccepted().isEmpty());
+            assertEquals(1, acceptor.getRejected().size());
+            CoherentAxiomAcceptor.Rejection rejection = acceptor.getRejected().get(0);
+            assertSame(candidate, rejection.getAxiom());
+            assertEquals(Collections.singleton(cls("A")), rejection.getUnsatisfiableClasses());
+            assertTrue(rejection.getUnsatisfiableProperties().isEmpty());
+
+            assertFalse(reasoner.getOntology().containsAxiom(candidate));
+            assertFalse(reasoner.isEntailed(candidate));
+            assertTrue(reasoner.getUnsatisfiableClasses().isEmpty());
+            assertEquals(version, reasoner.getVersion());
+        }
+    }
+
+    @Test
+    public void rejectsIncoherentPropertyCandidate() {
+        for (boolean explanations : new boolean[]{false, true}) {
+            TRexReasoner reasoner = new TRexReasoner(copy(ontology), false, explanations);
+            CoherentAxiomAcceptor acceptor = new CoherentAxiomAcceptor(reasoner);
+            OWLAxiom candidate = factory.getOWLObjectPropertyDomainAxiom(prop("p"), cls("C"));
+
+            assertFalse(acceptor.offer(candidate));
+            CoherentAxiomAcceptor.Rejection rejection = acceptor.getRejected().get(0);
+            assertTrue(rejection.getUnsatisfiableClasses().isEmpty());
+            assertEquals(Collections.singleton(prop("p")), rejection.getUnsatisfiableProperties());
+            assertFalse(reasoner.getOntology().containsAxiom(candidate));
+            assertTrue(reasoner.getUnsatisfiableProperties().isEmpty());
+        }
+    }
+
+    @Test
+    public void capturesExplanationOfRejection() {
+        TRexReasoner reasoner = new TRexReasoner(copy(ontology), false, true);
+        CoherentAxiomAcceptor acceptor = new CoherentAxiomAcceptor(reasoner);
+        OWLAxiom candidate = factory.getOWLSubClassOfAxiom(cls("A"), cls("C"));
+
+        assertFalse(acceptor.offer(candidate));
+        OrExpression explanation = acceptor.getRejected().get(0).getExplanation();
+        assertNotNull(explanation);
+        List<Set<OWLAxiom>> justifications = new ArrayList<Set<OWLAxiom>>();
+        for (Set<OWLAxiom> justification : explanation.getJustifications(false)) {
+            justifications.add(justification);
+        }
+        assertEquals(1, justifications.size());
+        assertEquals(3, justifications.get(0).size());
+        assertTrue(justifications.get(0).contains(candidate));
+        assertTrue(justifications.get(0).contains(factory.getOWLSubClassOfAxiom(cls("A"), cls("B"))));
+
+        // the explanation must not survive the retraction of the candidate within the reasoner
+        assertNull(reasoner.getUnsatisfiabilityExplanation(cls("A")));
+    }
+
+    @Test
+    public void omitsExplanationWithoutExplanations() {
+        TRexReasoner reasoner = new TRexReasoner(copy(ontology), false, false);
+        CoherentAxiomAcceptor acceptor = new CoherentAxiomAcceptor(reasoner);
+
+        assertFalse(acceptor.offer(factory.getOWLSubClassOfAxiom(cls("A"), cls("C"))));
+        assertNull(acceptor.getRejected().get(0).getExplanation());
+    }
+
+    @Test
+    public void ignoresEntitiesAlreadyUnsatisfiable() {
+        for (boolean explanations : new boolean[]{false, true}) {
+            TRexReasoner reasoner = new TRexReasoner(copy(ontology), false, explanations);
+            CoherentAxiomAcceptor acceptor = new CoherentAxiomAcceptor(reasoner);
+            OWLAxiom conflict = factory.getOWLSubClassOfAxiom(cls("A"), cls("C"));
+            reasoner.applyChanges(Collections.singleton(conflict), Collections.<OWLAxiom>emptySet());
+
+            assertTrue(acceptor.offer(factory.getOWLSubClassOfAxiom(cls("A"), cls("E"))));
+            assertFalse(acceptor.offer(factory.getOWLSubClassOfAxiom(cls("D"), cls("A"))));
+            assertEquals(Collections.singleton(cls("D")),
+                    acceptor.getRejected().get(0).getUnsatisfiableClasses());
+        }
+    }
+
+    @Test
+    public void offersCandidatesInOrder() {
+        TRexReasoner reasoner = new TRexReasoner(copy(ontology), false, true);
+        CoherentAxiomAcceptor acceptor = new CoherentAxiomAcceptor(reasoner);
+        OWLAxiom first = factory.getOWLSubClassOfAxiom(cls("E"), cls("C"));
+        OWLAxiom second = factory.getOWLSubClassOfAxiom(cls("D"), cls("B"));
+        OWLAxiom third = factory.getOWLSubClassOfAxiom(cls("E"), cls("A"));
+
+        // the second candidate conflicts with the first one only, the third one with the first one as well
+        assertEquals(1, acceptor.offerAll(Arrays.asList(first, second, third)));
+        assertEquals(Collections.singletonList(first), acceptor.getAccepted());
+        assertEquals(2, acceptor.getRejected().size());
+        assertSame(second, acceptor.getRejected().get(0).getAxiom());
+        assertSame(third, acceptor.getRejected().get(1).getAxiom());
+    }
+
+    @Test
+    public void rejectionsAreNotPublished() {
+        TRexReasoner reasoner = new TRexReasoner(copy(ontology), false, true);
+        reasoner.setVersioning(true);
+        final List<CoherenceChange> changes = new ArrayList<CoherenceChange>();
+        reasoner.addCoherenceListener(new CoherenceListener() {
+            @Override
+            public void coherenceChanged(CoherenceChange change) {
+                changes.add(change);
+            }
+        });
+        CoherentAxiomAcceptor acceptor = new CoherentAxiomAcceptor(reasoner);
+        ReasonerSnapshot published = reasoner.getCurrentVersion();
+
+        assertFalse(acceptor.offer(factory.getOWLSubClassOfAxiom(cls("A"), cls("C"))));
+        assertFalse(acceptor.offer(factory.getOWLObjectPropertyDomainAxiom(prop("p"), cls("C"))));
+        assertSame(published, reasoner.getCurrentVersion());
+        assertTrue(changes.isEmpty());
+
+        OWLAxiom accepted = factory.getOWLSubClassOfAxiom(cls("E"), cls("B"));
+        assertTrue(acceptor.offer(accepted));
+        assertEquals(published.getVersion() + 1, reasoner.getCurrentVersion().getVersion());
+        assertTrue(reasoner.getCurrentVersion().isEntailed(accepted));
+        assertFalse(reasoner.getCurrentVersion().isEntailed(factory.getOWLSubClassOfAxiom(cls("A"), cls("C"))));
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test
+    public void rejectionsDoNotRegisterEntities() {
+        for (boolean explanations : new boolean[]{false, true}) {
+            TRexReasoner reasoner = new TRexReasoner(copy(ontology), false, explanations);
+            CoherentAxiomAcceptor acceptor = new CoherentAxiomAcceptor(reasoner);
+            OntologyNamingManager namingManager = reasoner.getNamingManager();
+            int dimension = reasoner.getConceptDisjointness().dimensionRow;
+
+            assertFalse(acceptor.offer(factory.getOWLEquivalentClassesAxiom(cls("G"), cls("A"), cls("C"))));
+            CoherentAxiomAcceptor.Rejection rejection = acceptor.getRejected().get(0);
+            assertTrue(rejection.getUnsatisfiableClasses().contains(cls("G")));
+            assertEquals(explanations, rejection.getExplanation() != null);
+
+            assertSame(namingManager, reasoner.getNamingManager());
+            assertEquals(-1, reasoner.getNamingManager().getConceptId(cls("G")));
+            assertEquals(dimension, reasoner.getConceptDisjointness().dimensionRow);
+        }
+    }
+
+    private OWLOntology copy(OWLOntology source) {
+        try {
+            OWLOntology copy = manager.createOntology();
+            manager.addAxioms(copy, source.getAxioms());
+            return copy;
+        }
+        catch (Exception e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private OWLClass cls(String name) {
+        return factory.getOWLClass(IRI.create("http://example.org/test#" + name));
+    }
+
+    private OWLObjectProperty prop(String name) {
+        return factory.getOWLObjectProperty(IRI.create("http://example.org/test#" + name));
+    }
+}
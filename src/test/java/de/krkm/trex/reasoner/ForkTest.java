@@ -0,0 +1,136 @@
+package de.krkm.trex.reasoner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+
+public class ForkTest {
+    private static final int CHAIN = 20;
+
+    private OWLDataFactory factory;
+    private OWLOntology ontology;
+    private TRexReasoner reasoner;
+
+    @Before
+    public void setUp() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        factory = manager.getOWLDataFactory();
+        ontology = manager.createOntology();
+        for (int i = 0; i < CHAIN; i++) {
+            manager.addAxiom(ontology, subClassOf(i, i + 1));
+        }
+        manager.addAxiom(ontology, factory.getOWLDisjointClassesAxiom(cls(CHAIN), cls(CHAIN + 1)));
+        reasoner = new TRexReasoner(ontology, false, true);
+    }
+
+    @Test
+    public void childAndParentAreIndependent() {
+        OWLAxiom chain = subClassOf(0, CHAIN);
+        Set<Set<OWLAxiom>> justifications = justifications(reasoner, chain);
+
+        TRexReasoner child = reasoner.fork();
+        assertEquals(justifications, justifications(child, chain));
+        child.applyChanges(Collections.singleton(subClassOf(CHAIN / 2, CHAIN + 1)),
+                Collections.singleton(subClassOf(CHAIN / 2, CHAIN / 2 + 1)));
+        assertFalse(child.isEntailed(chain));
+        assertTrue(child.getUnsatisfiableClasses().isEmpty());
+
+        assertTrue(reasoner.isEntailed(chain));
+        assertEquals(justifications, justifications(reasoner, chain));
+        assertEquals(dependentAxioms(new TRexReasoner(ontology, false, true)), dependentAxioms(reasoner));
+
+        OWLAxiom added = subClassOf(CHAIN / 2 + 1, CHAIN + 1);
+        reasoner.applyChanges(Collections.singleton(added), Collections.<OWLAxiom>emptySet());
+        assertTrue(reasoner.getUnsatisfiableClasses().contains(cls(0)));
+        assertFalse(child.isEntailed(added));
+        assertTrue(child.getUnsatisfiableClasses().isEmpty());
+    }
+
+    @Test
+    public void childOntologyContainsAxiomsOfChild() {
+        TRexReasoner child = reasoner.fork();
+        OWLAxiom added = subClassOf(CHAIN + 1, CHAIN + 2);
+        OWLAxiom removed = subClassOf(0, 1);
+        child.applyChanges(Collections.singleton(added), Collections.singleton(removed));
+        reasoner.applyChanges(Collections.singleton(subClassOf(0, CHAIN + 2)), Collections.<OWLAxiom>emptySet());
+
+        OWLOntology childOntology = child.getOntology();
+        assertNotSame(ontology, childOntology);
+        assertTrue(childOntology.containsAxiom(added));
+        assertFalse(childOntology.containsAxiom(removed));
+        assertFalse(childOntology.containsAxiom(subClassOf(0, CHAIN + 2)));
+        assertEquals(ontology.getAxiomCount() - 1, childOntology.getAxiomCount());
+        assertFalse(ontology.containsAxiom(added));
+        assertTrue(ontology.containsAxiom(removed));
+
+        // changes after creating the ontology are applied to it as well
+        child.applyChanges(Collections.<OWLAxiom>emptySet(), Collections.singleton(added));
+        assertFalse(childOntology.containsAxiom(added));
+    }
+
+    @Test
+    public void forkOfForkMatchesReasonerFromScratch() throws Exception {
+        TRexReasoner child = reasoner.fork();
+        child.applyChanges(Collections.singleton(subClassOf(CHAIN + 1, 0)),
+                Collections.singleton(subClassOf(CHAIN / 2, CHAIN / 2 + 1)));
+        TRexReasoner grandChild = child.fork();
+        grandChild.applyChanges(Collections.singleton(subClassOf(CHAIN / 2, CHAIN / 2 + 1)),
+                Collections.singleton(subClassOf(0, 1)));
+
+        assertMatchesScratch(child);
+        assertMatchesScratch(grandChild);
+        assertEquals(dependentAxioms(new TRexReasoner(ontology, false, true)), dependentAxioms(reasoner));
+    }
+
+    private void assertMatchesScratch(TRexReasoner forked) throws Exception {
+        OWLOntology copy = OWLManager.createOWLOntologyManager().createOntology(forked.getOntology().getAxioms());
+        TRexReasoner scratch = new TRexReasoner(copy, false, true);
+        assertEquals(scratch.getAxioms(), forked.getAxioms());
+        assertEquals(scratch.getUnsatisfiableClasses(), forked.getUnsatisfiableClasses());
+        assertEquals(dependentAxioms(scratch), dependentAxioms(forked));
+        for (OWLAxiom axiom : scratch.getAxioms()) {
+            assertEquals(justifications(scratch, axiom), justifications(forked, axiom));
+        }
+    }
+
+    private static Map<OWLAxiom, Set<OWLAxiom>> dependentAxioms(TRexReasoner reasoner) {
+        Map<OWLAxiom, Set<OWLAxiom>> res = new HashMap<OWLAxiom, Set<OWLAxiom>>();
+        for (OWLAxiom axiom : reasoner.getOntology().getAxioms()) {
+            res.put(axiom, new HashSet<OWLAxiom>(reasoner.getDependentAxioms(axiom)));
+        }
+        return res;
+    }
+
+    private static Set<Set<OWLAxiom>> justifications(TRexReasoner reasoner, OWLAxiom axiom) {
+        Set<Set<OWLAxiom>> res = new HashSet<Set<OWLAxiom>>();
+        for (Set<OWLAxiom> justification : reasoner.getJustifications(axiom, false)) {
+            res.add(justification);
+        }
+        return res;
+    }
+
+    private OWLAxiom subClassOf(int sub, int sup) {
+        return factory.getOWLSubClassOfAxiom(cls(sub), cls(sup));
+    }
+
+    private OWLClass cls(int i) {
+        return factory.getOWLClass(IRI.create("http://example.org/test#C" + i));
+    }
+}
@@ -0,0 +1,182 @@
+package de.krkm.trex.reasoner;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.AxiomType;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class IncoherenceCheckTest {
+    private static final int SEEDS = 30;
+    private static final int CANDIDATES = 20;
+
+    private final OWLDataFactory factory = OWLManager.createOWLOntologyManager().getOWLDataFactory();
+
+    @Test
+    public void subClassOf() throws Exception {
+        checkType(AxiomType.SUBCLASS_OF);
+    }
+
+    @Test
+    public void equivalentClasses() throws Exception {
+        checkType(AxiomType.EQUIVALENT_CLASSES);
+    }
+
+    @Test
+    public void disjointClasses() throws Exception {
+        checkType(AxiomType.DISJOINT_CLASSES);
+    }
+
+    @Test
+    public void subObjectPropertyOf() throws Exception {
+        checkType(AxiomType.SUB_OBJECT_PROPERTY);
+    }
+
+    @Test
+    public void equivalentObjectProperties() throws Exception {
+        checkType(AxiomType.EQUIVALENT_OBJECT_PROPERTIES);
+    }
+
+    @Test
+    public void disjointObjectProperties() throws Exception {
+        checkType(AxiomType.DISJOINT_OBJECT_PROPERTIES);
+    }
+
+    @Test
+    public void objectPropertyDomain() throws Exception {
+        checkType(AxiomType.OBJECT_PROPERTY_DOMAIN);
+    }
+
+    @Test
+    public void objectPropertyRange() throws Exception {
+        checkType(AxiomType.OBJECT_PROPERTY_RANGE);
+    }
+
+    private void checkType(AxiomType type) throws Exception {
+        int incoherentCandidates = 0;
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            int concepts = 6 + random.nextInt(8);
+            int properties = 2 + random.nextInt(4);
+            OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+            OWLOntology ontology = manager.createOntology();
+            for (int i = 10 + random.nextInt(20); i > 0; i--) {
+                manager.addAxiom(ontology, randomAxiom(random, concepts, properties));
+            }
+            TRexReasoner reasoner = new TRexReasoner(ontology, false, seed % 2 == 0);
+            Set<OWLClass> unsatisfiableClasses = reasoner.getUnsatisfiableClasses();
+            Set<OWLObjectProperty> unsatisfiableProperties = reasoner.getUnsatisfiableProperties();
+
+            for (int i = 0; i < CANDIDATES; i++) {
+                // candidates may mention one concept and property not contained in the ontology
+                OWLAxiom candidate = candidate(type, random, concepts + 1, properties + 1);
+
+                TRexReasoner fork = reasoner.fork();
+                fork.applyChanges(Collections.singleton(candidate), Collections.<OWLAxiom>emptySet());
+                Set<OWLClass> expectedClasses = new HashSet<OWLClass>(fork.getUnsatisfiableClasses());
+                expectedClasses.removeAll(unsatisfiableClasses);
+                Set<OWLObjectProperty> expectedProperties =
+                        new HashSet<OWLObjectProperty>(fork.getUnsatisfiableProperties());
+                expectedProperties.removeAll(unsatisfiableProperties);
+
+                Set<OWLClass> classes = new HashSet<OWLClass>();
+                Set<OWLObjectProperty> props = new HashSet<OWLObjectProperty>();
+                boolean incoherent = reasoner.wouldCauseIncoherence(candidate, classes, props);
+                String message = "seed " + seed + ": " + candidate;
+                assertEquals(message, !expectedClasses.isEmpty() || !expectedProperties.isEmpty(), incoherent);
+                assertEquals(message, expectedClasses, classes);
+                assertEquals(message, expectedProperties, props);
+                if (incoherent) {
+                    incoherentCandidates++;
+                }
+            }
+            assertEquals(unsatisfiableClasses, reasoner.getUnsatisfiableClasses());
+            assertEquals(unsatisfiableProperties, reasoner.getUnsatisfiableProperties());
+        }
+        assertTrue("no incoherent candidate of type " + type, incoherentCandidates > 0);
+    }
+
+    private OWLAxiom candidate(AxiomType type, Random random, int concepts, int properties) {
+        if (type == AxiomType.SUBCLASS_OF) {
+            return factory.getOWLSubClassOfAxiom(cls(random.nextInt(concepts)), cls(random.nextInt(concepts)));
+        }
+        if (type == AxiomType.EQUIVALENT_CLASSES) {
+            return random.nextBoolean()
+                    ? factory.getOWLEquivalentClassesAxiom(cls(random.nextInt(concepts)),
+                    cls(random.nextInt(concepts)))
+                    : factory.getOWLEquivalentClassesAxiom(cls(random.nextInt(concepts)),
+                    cls(random.nextInt(concepts)), cls(random.nextInt(concepts)));
+        }
+        if (type == AxiomType.DISJOINT_CLASSES) {
+            return random.nextBoolean()
+                    ? factory.getOWLDisjointClassesAxiom(cls(random.nextInt(concepts)), cls(random.nextInt(concepts)))
+                    : factory.getOWLDisjointClassesAxiom(cls(random.nextInt(concepts)),
+                    cls(random.nextInt(concepts)), cls(random.nextInt(concepts)));
+        }
+        if (type == AxiomType.SUB_OBJECT_PROPERTY) {
+            return factory.getOWLSubObjectPropertyOfAxiom(prop(random.nextInt(properties)),
+                    prop(random.nextInt(properties)));
+        }
+        if (type == AxiomType.EQUIVALENT_OBJECT_PROPERTIES) {
+            return random.nextBoolean()
+                    ? factory.getOWLEquivalentObjectPropertiesAxiom(prop(random.nextInt(properties)),
+                    prop(random.nextInt(properties)))
+                    : factory.getOWLEquivalentObjectPropertiesAxiom(prop(random.nextInt(properties)),
+                    prop(random.nextInt(properties)), prop(random.nextInt(properties)));
+        }
+        if (type == AxiomType.DISJOINT_OBJECT_PROPERTIES) {
+            return random.nextBoolean()
+                    ? factory.getOWLDisjointObjectPropertiesAxiom(prop(random.nextInt(properties)),
+                    prop(random.nextInt(properties)))
+                    : factory.getOWLDisjointObjectPropertiesAxiom(prop(random.nextInt(properties)),
+                    prop(random.nextInt(properties)), prop(random.nextInt(properties)));
+        }
+        if (type == AxiomType.OBJECT_PROPERTY_DOMAIN) {
+            return factory.getOWLObjectPropertyDomainAxiom(prop(random.nextInt(properties)),
+                    cls(random.nextInt(concepts)));
+        }
+        if (type == AxiomType.OBJECT_PROPERTY_RANGE) {
+            return factory.getOWLObjectPropertyRangeAxiom(prop(random.nextInt(properties)),
+                    cls(random.nextInt(concepts)));
+        }
+        throw new IllegalArgumentException("Unsupported axiom type " + type);
+    }
+
+    private OWLAxiom randomAxiom(Random random, int concepts, int properties) {
+        switch (random.nextInt(6)) {
+            case 0:
+            case 1:
+                return candidate(AxiomType.SUBCLASS_OF, random, concepts, properties);
+            case 2:
+                return candidate(AxiomType.DISJOINT_CLASSES, random, concepts, properties);
+            case 3:
+                return candidate(random.nextBoolean() ? AxiomType.SUB_OBJECT_PROPERTY
+                        : AxiomType.DISJOINT_OBJECT_PROPERTIES, random, concepts, properties);
+            case 4:
+                return candidate(AxiomType.OBJECT_PROPERTY_DOMAIN, random, concepts, properties);
+            default:
+                return candidate(AxiomType.OBJECT_PROPERTY_RANGE, random, concepts, properties);
+        }
+    }
+
+    private OWLClass cls(int i) {
+        return factory.getOWLClass(IRI.create("http://example.org/test#C" + i));
+    }
+
+    private OWLObjectProperty prop(int i) {
+        return factory.getOWLObjectProperty(IRI.create("http://example.org/test#p" + i));
+    }
+}
@@ -0,0 +1,223 @@
+package de.krkm.trex.reasoner;
+
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLObjectProperty;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IncrementalPropagationTest {
+    private static final int SEEDS = 40;
+    private static final int ROUNDS = 4;
+
+    private final OWLDataFactory factory = OWLManager.createOWLOntologyManager().getOWLDataFactory();
+
+    @Test
+    public void randomChangesWithExplanations() throws Exception {
+        randomChanges(true);
+    }
+
+    @Test
+    public void randomChangesWithoutExplanations() throws Exception {
+        randomChanges(false);
+    }
+
+    @Test
+    public void sharedJustificationSurvivesRemovalOfOneAxiom() throws Exception {
+        for (boolean explanations : new boolean[]{true, false}) {
+            OWLAxiom ternary = factory.getOWLDisjointClassesAxiom(cls(0), cls(1), cls(2));
+            OWLAxiom binary = factory.getOWLDisjointClassesAxiom(cls(0), cls(1));
+            TRexReasoner reasoner = create(explanations, ternary, binary, subClassOf(3, 0), subClassOf(3, 1));
+            assertTrue(reasoner.getUnsatisfiableClasses().contains(cls(3)));
+
+            reasoner.applyChanges(Collections.<OWLAxiom>emptySet(), Collections.singleton(ternary));
+            assertTrue(reasoner.isEntailed(binary));
+            assertFalse(reasoner.isEntailed(factory.getOWLDisjointClassesAxiom(cls(0), cls(2))));
+            assertTrue(reasoner.getUnsatisfiableClasses().contains(cls(3)));
+            assertMatchesScratch(reasoner, explanations);
+
+            reasoner.applyChanges(Collections.<OWLAxiom>emptySet(), Collections.singleton(binary));
+            assertTrue(reasoner.getUnsatisfiableClasses().isEmpty());
+            assertMatchesScratch(reasoner, explanations);
+        }
+    }
+
+    @Test
+    public void derivationsSharingPremisesAreKept() throws Exception {
+        for (boolean explanations : new boolean[]{true, false}) {
+            // C0 is subsumed by C3 via C1 and via C2, both derivations share the premises below C0
+            TRexReasoner reasoner = create(explanations, subClassOf(4, 0), subClassOf(0, 1), subClassOf(1, 3),
+                    subClassOf(0, 2), subClassOf(2, 3), subClassOf(3, 5));
+            reasoner.applyChanges(Collections.<OWLAxiom>emptySet(), Collections.singleton(subClassOf(1, 3)));
+            assertTrue(reasoner.isEntailed(subClassOf(4, 5)));
+            assertMatchesScratch(reasoner, explanations);
+
+            reasoner.applyChanges(Collections.singleton(subClassOf(1, 3)), Collections.singleton(subClassOf(2, 3)));
+            assertTrue(reasoner.isEntailed(subClassOf(4, 5)));
+            assertMatchesScratch(reasoner, explanations);
+
+            reasoner.applyChanges(Collections.<OWLAxiom>emptySet(), Collections.singleton(subClassOf(3, 5)));
+            assertFalse(reasoner.isEntailed(subClassOf(4, 5)));
+            assertMatchesScratch(reasoner, explanations);
+        }
+    }
+
+    @Test
+    public void propertyUnsatisfiabilityFollowsRestrictions() throws Exception {
+        for (boolean explanations : new boolean[]{true, false}) {
+            OWLAxiom disjoint = factory.getOWLDisjointClassesAxiom(cls(0), cls(1));
+            TRexReasoner reasoner = create(explanations, disjoint, subClassOf(2, 0),
+                    factory.getOWLObjectPropertyDomainAxiom(prop(0), cls(2)),
+                    factory.getOWLSubObjectPropertyOfAxiom(prop(1), prop(0)));
+            assertTrue(reasoner.getUnsatisfiableProperties().isEmpty());
+
+            OWLAxiom domain = factory.getOWLObjectPropertyDomainAxiom(prop(1), cls(1));
+            reasoner.applyChanges(Collections.singleton(domain), Collections.<OWLAxiom>emptySet());
+            assertEquals(Collections.singleton(prop(1)), reasoner.getUnsatisfiableProperties());
+            assertMatchesScratch(reasoner, explanations);
+
+            OWLAxiom range = factory.getOWLObjectPropertyRangeAxiom(prop(0), cls(0));
+            reasoner.applyChanges(Arrays.asList(range, factory.getOWLObjectPropertyRangeAxiom(prop(0), cls(1))),
+                    Collections.singleton(domain));
+            assertEquals(new HashSet<OWLObjectProperty>(Arrays.asList(prop(0), prop(1))),
+                    reasoner.getUnsatisfiableProperties());
+            assertMatchesScratch(reasoner, explanations);
+
+            reasoner.applyChanges(Collections.<OWLAxiom>emptySet(), Collections.singleton(disjoint));
+            assertTrue(reasoner.getUnsatisfiableProperties().isEmpty());
+            assertMatchesScratch(reasoner, explanations);
+        }
+    }
+
+    private void randomChanges(boolean explanations) throws Exception {
+        for (int seed = 0; seed < SEEDS; seed++) {
+            Random random = new Random(seed);
+            int concepts = 6 + random.nextInt(8);
+            int properties = 2 + random.nextInt(4);
+            List<OWLAxiom> axioms = new ArrayList<OWLAxiom>();
+            for (int i = 10 + random.nextInt(20); i > 0; i--) {
+                axioms.add(randomAxiom(random, concepts, properties));
+            }
+            TRexReasoner reasoner = create(explanations, axioms.toArray(new OWLAxiom[axioms.size()]));
+
+            for (int round = 0; round < ROUNDS; round++) {
+                List<OWLAxiom> removals = new ArrayList<OWLAxiom>();
+                for (OWLAxiom axiom : reasoner.getOntology().getAxioms()) {
+                    if (random.nextInt(4) == 0) {
+                        removals.add(axiom);
+                    }
+                }
+                List<OWLAxiom> additions = new ArrayList<OWLAxiom>();
+                for (int i = random.nextInt(6); i > 0; i--) {
+                    // new entities are introduced as well
+                    additions.add(randomAxiom(random, concepts + 2, properties + 1));
+                }
+                reasoner.applyChanges(additions, removals);
+                assertMatchesScratch(reasoner, explanations);
+            }
+        }
+    }
+
+    private void assertMatchesScratch(TRexReasoner reasoner, boolean explanations) throws Exception {
+        OWLOntology ontology = reasoner.getOntology();
+        OWLOntology copy = OWLManager.createOWLOntologyManager().createOntology(ontology.getAxioms());
+        TRexReasoner scratch = new TRexReasoner(copy, false, explanations);
+
+        for (int i = 0; i < scratch.getNumberOfMatrices(); i++) {
+            assertEquals(scratch.getMatrix(i).getAxiomTypeIdentifier(), scratch.getMatrix(i).getOWLAxioms(),
+                    reasoner.getMatrix(i).getOWLAxioms());
+        }
+        assertEquals(scratch.getUnsatisfiableClasses(), reasoner.getUnsatisfiableClasses());
+        assertEquals(scratch.getUnsatisfiableProperties(), reasoner.getUnsatisfiableProperties());
+        if (!explanations) {
+            return;
+        }
+        for (OWLAxiom axiom : scratch.getAxioms()) {
+            assertEquals(axiom.toString(), justifications(scratch, axiom), justifications(reasoner, axiom));
+        }
+        assertEquals(dependentAxioms(scratch, ontology), dependentAxioms(reasoner, ontology));
+    }
+
+    private TRexReasoner create(boolean explanations, OWLAxiom... axioms) throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        OWLOntology ontology = manager.createOntology(new HashSet<OWLAxiom>(Arrays.asList(axioms)));
+        return new TRexReasoner(ontology, false, explanations);
+    }
+
+    private OWLAxiom randomAxiom(Random random, int concepts, int properties) {
+        switch (random.nextInt(9)) {
+            case 0:
+            case 1:
+            case 2:
+                return subClassOf(random.nextInt(concepts), random.nextInt(concepts));
+            case 3:
+                return factory.getOWLEquivalentClassesAxiom(cls(random.nextInt(concepts)),
+                        cls(random.nextInt(concepts)));
+            case 4:
+                return factory.getOWLSubObjectPropertyOfAxiom(prop(random.nextInt(properties)),
+                        prop(random.nextInt(properties)));
+            case 5:
+                return factory.getOWLDisjointObjectPropertiesAxiom(prop(random.nextInt(properties)),
+                        prop(random.nextInt(properties)));
+            case 6:
+                return factory.getOWLObjectPropertyDomainAxiom(prop(random.nextInt(properties)),
+                        cls(random.nextInt(concepts)));
+            case 7:
+                return factory.getOWLObjectPropertyRangeAxiom(prop(random.nextInt(properties)),
+                        cls(random.nextInt(concepts)));
+            default:
+                // binary and ternary disjointness axioms share justifications
+                return random.nextBoolean()
+                        ? factory.getOWLDisjointClassesAxiom(cls(random.nextInt(concepts)),
+                        cls(random.nextInt(concepts)))
+                        : factory.getOWLDisjointClassesAxiom(cls(random.nextInt(concepts)),
+                        cls(random.nextInt(concepts)), cls(random.nextInt(concepts)));
+        }
+    }
+
+    private static Map<OWLAxiom, Set<OWLAxiom>> dependentAxioms(TRexReasoner reasoner, OWLOntology ontology) {
+        Map<OWLAxiom, Set<OWLAxiom>> res = new HashMap<OWLAxiom, Set<OWLAxiom>>();
+        for (OWLAxiom axiom : ontology.getAxioms()) {
+            res.put(axiom, new HashSet<OWLAxiom>(reasoner.getDependentAxioms(axiom)));
+        }
+        return res;
+    }
+
+    private static Set<Set<OWLAxiom>> justifications(TRexReasoner reasoner, OWLAxiom axiom) {
+        Set<Set<OWLAxiom>> res = new HashSet<Set<OWLAxiom>>();
+        for (Set<OWLAxiom> justification : reasoner.getJustifications(axiom, false)) {
+            res.add(justification);
+        }
+        return res;
+    }
+
+    private OWLAxiom subClassOf(int sub, int sup) {
+        return factory.getOWLSubClassOfAxiom(cls(sub), cls(sup));
+    }
+
+    private OWLClass cls(int i) {
+        return factory.getOWLClass(IRI.create("http://example.org/test#C" + i));
+    }
+
+    private OWLObjectProperty prop(int i) {
+        return factory.getOWLObjectProperty(IRI.create("http://example.org/test#p" + i));
+    }
+}
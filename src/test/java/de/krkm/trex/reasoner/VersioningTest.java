@@ -0,0 +1,137 @@
+package de.krkm.trex.reasoner;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.semanticweb.owlapi.apibinding.OWLManager;
+import org.semanticweb.owlapi.model.IRI;
+import org.semanticweb.owlapi.model.OWLAxiom;
+import org.semanticweb.owlapi.model.OWLClass;
+import org.semanticweb.owlapi.model.OWLDataFactory;
+import org.semanticweb.owlapi.model.OWLOntology;
+import org.semanticweb.owlapi.model.OWLOntologyManager;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class VersioningTest {
+    private static final int CHAIN = 40;
+
+    private OWLDataFactory factory;
+    private TRexReasoner reasoner;
+
+    @Before
+    public void setUp() throws Exception {
+        OWLOntologyManager manager = OWLManager.createOWLOntologyManager();
+        factory = manager.getOWLDataFactory();
+        OWLOntology ontology = manager.createOntology();
+        for (int i = 0; i < CHAIN; i++) {
+            manager.addAxiom(ontology, factory.getOWLSubClassOfAxiom(cls(i), cls(i + 1)));
+        }
+        reasoner = new TRexReasoner(ontology, false, true);
+        reasoner.setVersioning(true);
+    }
+
+    @Test
+    public void readersKeepVersionWhileNextVersionIsBuilt() {
+        ReasonerSnapshot version = reasoner.getCurrentVersion();
+        OWLAxiom chain = factory.getOWLSubClassOfAxiom(cls(0), cls(CHAIN));
+        Set<Set<OWLAxiom>> justifications = justifications(version, chain);
+        assertEquals(1, justifications.size());
+
+        // build the next version without completing the update
+        OWLAxiom removed = factory.getOWLSubClassOfAxiom(cls(CHAIN / 2), cls(CHAIN / 2 + 1));
+        OWLAxiom added = factory.getOWLDisjointClassesAxiom(cls(0), cls(CHAIN / 4));
+        reasoner.update(Collections.singleton(added), Collections.singleton(removed));
+        assertFalse(reasoner.isEntailed(chain));
+        assertTrue(reasoner.getUnsatisfiableClasses().contains(cls(0)));
+
+        assertSame(version, reasoner.getCurrentVersion());
+        assertTrue(version.isEntailed(chain));
+        assertFalse(version.isEntailed(added));
+        assertEquals(justifications, justifications(version, chain));
+        assertNull(version.getUnsatisfiabilityExplanation(cls(0)));
+
+        reasoner.publish();
+        ReasonerSnapshot next = reasoner.getCurrentVersion();
+        assertEquals(version.getVersion() + 1, next.getVersion());
+        assertFalse(next.isEntailed(chain));
+        assertTrue(next.isEntailed(added));
+        assertTrue(justifications(next, chain).isEmpty());
+
+        // publishing the next version does not affect readers of the previous one
+        assertTrue(version.isEntailed(chain));
+        assertEquals(justifications, justifications(version, chain));
+    }
+
+    @Test
+    public void concurrentReaderSeesConsistentVersion() throws Exception {
+        final ReasonerSnapshot version = reasoner.getCurrentVersion();
+        final List<OWLAxiom> queries = new ArrayList<OWLAxiom>();
+        for (int i = 1; i < CHAIN; i += 5) {
+            queries.add(factory.getOWLSubClassOfAxiom(cls(0), cls(i)));
+            queries.add(factory.getOWLSubClassOfAxiom(cls(i), cls(CHAIN)));
+        }
+        final Set<Set<OWLAxiom>> justifications = justifications(version, queries.get(1));
+        final AtomicReference<String> failure = new AtomicReference<String>();
+        final boolean[] done = new boolean[1];
+
+        Thread reader = new Thread() {
+            @Override
+            public void run() {
+                while (failure.get() == null) {
+                    synchronized (done) {
+                        if (done[0]) {
+                            return;
+                        }
+                    }
+                    for (OWLAxiom query : queries) {
+                        if (!version.isEntailed(query)) {
+                            failure.set("not entailed anymore: " + query);
+                        }
+                    }
+                    if (!justifications.equals(justifications(version, queries.get(1)))) {
+                        failure.set("justifications changed");
+                    }
+                }
+            }
+        };
+        reader.start();
+        try {
+            for (int i = 0; i < CHAIN; i++) {
+                OWLAxiom axiom = factory.getOWLSubClassOfAxiom(cls(i), cls(i + 1));
+                reasoner.applyChanges(Collections.<OWLAxiom>emptySet(), Collections.singleton(axiom));
+                reasoner.applyChanges(Collections.singleton(axiom), Collections.<OWLAxiom>emptySet());
+            }
+        }
+        finally {
+            synchronized (done) {
+                done[0] = true;
+            }
+            reader.join();
+        }
+        assertNull(failure.get());
+        assertEquals(version.getVersion() + 2 * CHAIN, reasoner.getCurrentVersion().getVersion());
+    }
+
+    private static Set<Set<OWLAxiom>> justifications(ReasonerSnapshot snapshot, OWLAxiom axiom) {
+        Set<Set<OWLAxiom>> res = new HashSet<Set<OWLAxiom>>();
+        for (Set<OWLAxiom> justification : snapshot.getJustifications(axiom, false)) {
+            res.add(justification);
+        }
+        return res;
+    }
+
+    private OWLClass cls(int i) {
+        return factory.getOWLClass(IRI.create("http://example.org/test#C" + i));
+    }
+}